@@ -0,0 +1,84 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.common;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import games.stendhal.common.tiled.StendhalMapStructure;
+import games.stendhal.server.core.config.zone.TMXLoader;
+
+/**
+ * Collision checks on the collision layers of real zones, with the entity
+ * sizes that are common in the game.
+ *
+ * The benchmark must be run from the root of the source tree, so that the
+ * maps can be found.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionMapBenchmark {
+
+	/** Number of prepared checks, used round robin. */
+	private static final int CHECKS = 1024;
+
+	/** The map that is checked. */
+	@Param({"Level 0/semos/city.tmx", "Level 0/ados/city.tmx", "Level -1/semos/catacombs_ne.tmx"})
+	public String map;
+
+	/** Width and height of the checked areas. */
+	@Param({"1", "2", "32"})
+	public int size;
+
+	private CollisionMap collisionMap;
+
+	private final int[] xs = new int[CHECKS];
+
+	private final int[] ys = new int[CHECKS];
+
+	private int next;
+
+	@Setup
+	public void setup() throws Exception {
+		final StendhalMapStructure structure = TMXLoader.load("data/maps/" + map);
+		collisionMap = new CollisionMap(structure.getLayer("collision"));
+
+		final Random random = new Random(1);
+		for (int i = 0; i < CHECKS; i++) {
+			xs[i] = random.nextInt(collisionMap.getWidth() - size);
+			ys[i] = random.nextInt(collisionMap.getHeight() - size);
+		}
+	}
+
+	@Benchmark
+	public void collides(final Blackhole blackhole) {
+		next = (next + 1) & (CHECKS - 1);
+		blackhole.consume(collisionMap.collides(xs[next], ys[next], size, size));
+	}
+}
@@ -0,0 +1,117 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.engine;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import games.stendhal.common.tiled.StendhalMapStructure;
+import games.stendhal.server.core.config.zone.TMXLoader;
+import games.stendhal.server.entity.npc.SpeakerNPC;
+import games.stendhal.server.maps.MockStendlRPWorld;
+import utilities.SpeakerNPCTestHelper;
+
+/**
+ * Entity lookups of a zone with a given number of entities: the collision
+ * check done for every step of a moving entity, and the search for the
+ * entities at a position done for mouse clicks and item drops.
+ *
+ * The benchmark must be run from the root of the source tree, so that the
+ * map can be found. The test classes have to be on the classpath for the
+ * mock world.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZoneEntitiesBenchmark {
+
+	/** Number of prepared positions, used round robin. */
+	private static final int POSITIONS = 1024;
+
+	/** Number of entities in the zone. */
+	@Param({"10", "100", "1000"})
+	public int entities;
+
+	private StendhalRPZone zone;
+
+	private SpeakerNPC mover;
+
+	private final int[] xs = new int[POSITIONS];
+
+	private final int[] ys = new int[POSITIONS];
+
+	private int next;
+
+	@Setup
+	public void setup() throws Exception {
+		MockStendlRPWorld.get();
+		final StendhalMapStructure structure = TMXLoader.load("data/maps/Level 0/semos/city.tmx");
+		zone = new StendhalRPZone("benchmark", structure.getWidth(), structure.getHeight());
+		zone.addCollisionLayer("benchmark.collision", structure.getLayer("collision"));
+		MockStendlRPWorld.get().addRPZone(zone);
+
+		final Random random = new Random(1);
+		int added = 0;
+		while (added < entities) {
+			final int x = random.nextInt(zone.getWidth());
+			final int y = random.nextInt(zone.getHeight());
+			if (!zone.collides(x, y)) {
+				final SpeakerNPC npc = SpeakerNPCTestHelper.createSpeakerNPC("npc" + added);
+				npc.setPosition(x, y);
+				zone.add(npc);
+				added++;
+			}
+		}
+		mover = SpeakerNPCTestHelper.createSpeakerNPC("mover");
+		mover.setPosition(0, 0);
+		zone.add(mover);
+
+		for (int i = 0; i < POSITIONS; i++) {
+			xs[i] = random.nextInt(zone.getWidth());
+			ys[i] = random.nextInt(zone.getHeight());
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		MockStendlRPWorld.get().removeZone(zone);
+	}
+
+	@Benchmark
+	public void collides(final Blackhole blackhole) {
+		next = (next + 1) & (POSITIONS - 1);
+		blackhole.consume(zone.collides(mover, xs[next], ys[next]));
+	}
+
+	@Benchmark
+	public void getEntitiesAt(final Blackhole blackhole) {
+		next = (next + 1) & (POSITIONS - 1);
+		blackhole.consume(zone.getEntitiesAt(xs[next] + 0.5, ys[next] + 0.5));
+	}
+}
@@ -0,0 +1,95 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.events;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The map based implementation of TurnNotifier that was used before the
+ * timing wheel. It is only kept as a baseline for benchmarks.
+ */
+public class MapTurnNotifier {
+
+	private int currentTurn = -1;
+
+	private final Map<Integer, Set<TurnListener>> register = new HashMap<Integer, Set<TurnListener>>();
+
+	private final Object sync = new Object();
+
+	public void logic(final int currentTurn) {
+		this.currentTurn = currentTurn;
+
+		Set<TurnListener> set = null;
+		synchronized (sync) {
+			set = register.remove(Integer.valueOf(currentTurn));
+		}
+
+		if (set != null) {
+			for (final TurnListener turnListener : set) {
+				turnListener.onTurnReached(currentTurn);
+			}
+		}
+	}
+
+	public void notifyAtTurn(final int turn, final TurnListener turnListener) {
+		if (turn <= currentTurn) {
+			return;
+		}
+
+		synchronized (sync) {
+			final Integer turnInt = Integer.valueOf(turn);
+			Set<TurnListener> set = register.get(turnInt);
+			if (set == null) {
+				set = new HashSet<TurnListener>();
+				register.put(turnInt, set);
+			}
+			set.add(turnListener);
+		}
+	}
+
+	public void dontNotify(final TurnListener turnListener) {
+		for (final Map.Entry<Integer, Set<TurnListener>> mapEntry : register.entrySet()) {
+			final Set<TurnListener> set = mapEntry.getValue();
+			final Set<TurnListener> toBeRemoved = new HashSet<TurnListener>();
+			if (set.contains(turnListener)) {
+					toBeRemoved.add(turnListener);
+			}
+			for (final TurnListener event : toBeRemoved) {
+				set.remove(event);
+			}
+		}
+	}
+
+	public int getRemainingTurns(final TurnListener turnListener) {
+		final List<Integer> matchingTurns = new ArrayList<Integer>();
+		for (final Map.Entry<Integer, Set<TurnListener>> mapEntry : register.entrySet()) {
+			final Set<TurnListener> set = mapEntry.getValue();
+			for (final TurnListener currentEvent : set) {
+				if (currentEvent.equals(turnListener)) {
+					matchingTurns.add(mapEntry.getKey());
+				}
+			}
+		}
+		if (matchingTurns.size() > 0) {
+			Collections.sort(matchingTurns);
+			return matchingTurns.get(0).intValue() - currentTurn;
+		} else {
+			return -1;
+		}
+	}
+}
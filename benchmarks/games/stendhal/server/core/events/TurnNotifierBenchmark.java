@@ -0,0 +1,133 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.events;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the timing wheel TurnNotifier with the map based implementation
+ * it replaced.
+ *
+ * Each benchmark operation simulates one server turn: some listeners are
+ * scheduled at random turns in the future, some are cancelled, the remaining
+ * time of some is looked up and the due listeners are notified.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TurnNotifierBenchmark {
+
+	/** Number of distinct listeners in use. */
+	private static final int LISTENERS = 10000;
+
+	/** Number of registrations per turn. */
+	private static final int SCHEDULED_PER_TURN = 20;
+
+	/** Number of cancellations and lookups per turn. */
+	private static final int CANCELLED_PER_TURN = 10;
+
+	/** Maximum number of turns a listener is scheduled into the future. */
+	@Param({"1000", "10000"})
+	public int maxDelay;
+
+	private final Random random = new Random(1);
+
+	private TurnListener[] listeners;
+
+	private MapTurnNotifier mapNotifier;
+
+	private TurnNotifier wheelNotifier;
+
+	private int mapTurn;
+
+	private int wheelTurn;
+
+	@Setup
+	public void setup() {
+		listeners = new TurnListener[LISTENERS];
+		for (int i = 0; i < LISTENERS; i++) {
+			listeners[i] = currentTurn -> {
+				// nothing to do
+			};
+		}
+
+		mapNotifier = new MapTurnNotifier();
+		wheelNotifier = TurnNotifier.get();
+		mapTurn = 0;
+		wheelTurn = wheelNotifier.getCurrentTurnForDebugging() + 1;
+
+		// fill the notifiers up to their steady state
+		for (int i = 0; i < maxDelay; i++) {
+			mapTurn();
+			wheelTurn();
+		}
+	}
+
+	@Benchmark
+	public void map(final Blackhole blackhole) {
+		blackhole.consume(mapTurn());
+	}
+
+	@Benchmark
+	public void wheel(final Blackhole blackhole) {
+		blackhole.consume(wheelTurn());
+	}
+
+	private int mapTurn() {
+		int res = 0;
+		mapTurn++;
+		for (int i = 0; i < SCHEDULED_PER_TURN; i++) {
+			mapNotifier.notifyAtTurn(mapTurn + 1 + random.nextInt(maxDelay), randomListener());
+		}
+		for (int i = 0; i < CANCELLED_PER_TURN; i++) {
+			res += mapNotifier.getRemainingTurns(randomListener());
+			mapNotifier.dontNotify(randomListener());
+		}
+		mapNotifier.logic(mapTurn);
+		return res;
+	}
+
+	private int wheelTurn() {
+		int res = 0;
+		wheelTurn++;
+		for (int i = 0; i < SCHEDULED_PER_TURN; i++) {
+			wheelNotifier.notifyAtTurn(wheelTurn + 1 + random.nextInt(maxDelay), randomListener());
+		}
+		for (int i = 0; i < CANCELLED_PER_TURN; i++) {
+			res += wheelNotifier.getRemainingTurns(randomListener());
+			wheelNotifier.dontNotify(randomListener());
+		}
+		wheelNotifier.logic(wheelTurn);
+		return res;
+	}
+
+	private TurnListener randomListener() {
+		return listeners[random.nextInt(LISTENERS)];
+	}
+}
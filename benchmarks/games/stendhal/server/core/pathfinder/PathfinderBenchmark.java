@@ -0,0 +1,134 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.pathfinder;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import games.stendhal.common.tiled.StendhalMapStructure;
+import games.stendhal.server.core.config.zone.TMXLoader;
+import games.stendhal.server.core.engine.StendhalRPZone;
+
+/**
+ * Compares the array based Pathfinder with the object based implementation
+ * it replaced, on the collision maps of real zones.
+ *
+ * The benchmark must be run from the root of the source tree, so that the
+ * maps can be found.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathfinderBenchmark {
+
+	/** Number of searches per zone. */
+	private static final int SEARCHES = 200;
+
+	/** Maximum distance between start and destination of a search. */
+	private static final int MAX_DISTANCE = 40;
+
+	/** The map that is searched. */
+	@Param({"Level 0/semos/city.tmx", "Level 0/ados/city.tmx",
+		"Level 0/nalwor/forest_e.tmx", "Level -1/semos/catacombs_ne.tmx"})
+	public String map;
+
+	private StendhalRPZone zone;
+
+	private final List<Search> searches = new ArrayList<Search>();
+
+	private int next;
+
+	@Setup
+	public void setup() throws Exception {
+		final StendhalMapStructure structure = TMXLoader.load("data/maps/" + map);
+		zone = new StendhalRPZone("benchmark", structure.getWidth(), structure.getHeight());
+		zone.addCollisionLayer("benchmark.collision", structure.getLayer("collision"));
+
+		final Random random = new Random(1);
+		while (searches.size() < SEARCHES) {
+			final int x = random.nextInt(zone.getWidth());
+			final int y = random.nextInt(zone.getHeight());
+			final int destX = x + random.nextInt(2 * MAX_DISTANCE + 1) - MAX_DISTANCE;
+			final int destY = y + random.nextInt(2 * MAX_DISTANCE + 1) - MAX_DISTANCE;
+			if (zone.collides(x, y) || zone.collides(destX, destY)) {
+				continue;
+			}
+			final Search search = new Search(x, y, new Rectangle(destX, destY, 1, 1));
+			final List<Node> expected = tree(search);
+			final List<Node> path = array(search);
+			if (!expected.equals(path)) {
+				throw new IllegalStateException("Different paths from " + x + "," + y
+						+ " to " + destX + "," + destY + ": " + expected + " " + path);
+			}
+			searches.add(search);
+		}
+	}
+
+	@Benchmark
+	public void tree(final Blackhole blackhole) {
+		blackhole.consume(tree(nextSearch()));
+	}
+
+	@Benchmark
+	public void array(final Blackhole blackhole) {
+		blackhole.consume(array(nextSearch()));
+	}
+
+	private Search nextSearch() {
+		next = (next + 1) % searches.size();
+		return searches.get(next);
+	}
+
+	private List<Node> tree(final Search search) {
+		return new TreePathfinder(zone.collisionMap, search.x, search.y,
+				search.destination, 4 * MAX_DISTANCE).getPath();
+	}
+
+	private List<Node> array(final Search search) {
+		return new SimplePathfinder(zone, search.x, search.y,
+				search.destination, 4 * MAX_DISTANCE).getPath();
+	}
+
+	/**
+	 * Start and destination of a search.
+	 */
+	private static class Search {
+		private final int x;
+		private final int y;
+		private final Rectangle destination;
+
+		Search(final int x, final int y, final Rectangle destination) {
+			this.x = x;
+			this.y = y;
+			this.destination = destination;
+		}
+	}
+}
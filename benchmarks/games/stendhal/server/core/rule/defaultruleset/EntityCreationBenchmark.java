@@ -0,0 +1,83 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.rule.defaultruleset;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import games.stendhal.server.core.engine.SingletonRepository;
+import games.stendhal.server.core.rule.EntityManager;
+import games.stendhal.server.entity.creature.impl.DropItem;
+import games.stendhal.server.maps.MockStendlRPWorld;
+
+/**
+ * Creating creatures and items from their definitions, like a spawn point
+ * creating a creature and the creature dropping its items on death.
+ *
+ * The benchmark must be run from the root of the source tree, so that the
+ * definitions can be found. The test classes have to be on the classpath for
+ * the mock world.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityCreationBenchmark {
+
+	/** Name of the created creature. */
+	@Param({"rat", "kobold", "green dragon"})
+	public String creature;
+
+	private EntityManager manager;
+
+	/** Items the creature can drop. */
+	private String[] drops;
+
+	@Setup
+	public void setup() {
+		MockStendlRPWorld.get();
+		manager = SingletonRepository.getEntityManager();
+		final List<DropItem> items = manager.getDefaultCreature(creature).getDropItems();
+		drops = new String[items.size()];
+		for (int i = 0; i < drops.length; i++) {
+			drops[i] = items.get(i).name;
+		}
+	}
+
+	@Benchmark
+	public void createCreature(final Blackhole blackhole) {
+		blackhole.consume(manager.getCreature(creature));
+	}
+
+	@Benchmark
+	public void createCreatureWithDrops(final Blackhole blackhole) {
+		blackhole.consume(manager.getCreature(creature));
+		for (final String drop : drops) {
+			blackhole.consume(manager.getItem(drop));
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.entity.npc.fsm;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import games.stendhal.server.entity.npc.ConversationPhrases;
+import games.stendhal.server.entity.npc.ConversationStates;
+import games.stendhal.server.entity.npc.SpeakerNPC;
+import games.stendhal.server.entity.player.Player;
+import games.stendhal.server.maps.MockStendlRPWorld;
+import utilities.PlayerTestHelper;
+import utilities.SpeakerNPCTestHelper;
+
+/**
+ * A short conversation with an NPC that has the usual number of
+ * transitions: greeting, job, help, offer, a few quest topics and goodbye.
+ *
+ * Each operation runs the whole conversation once. The test classes have to
+ * be on the classpath for the helpers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+
+	private static final String[] CONVERSATION = { "hi", "job", "quest", "weather", "help", "bye" };
+
+	private SpeakerNPC npc;
+
+	private Engine engine;
+
+	private Player player;
+
+	@Setup
+	public void setup() {
+		MockStendlRPWorld.get();
+		PlayerTestHelper.generatePlayerRPClasses();
+		player = PlayerTestHelper.createPlayer("bench");
+
+		npc = SpeakerNPCTestHelper.createSpeakerNPC("benchmark");
+		npc.addGreeting("Hello.");
+		npc.addJob("I am a benchmark.");
+		npc.addHelp("Just talk to me.");
+		npc.addOffer("I have nothing to sell.");
+		npc.addReply("weather", "It is sunny.");
+		npc.add(ConversationStates.ATTENDING, ConversationPhrases.QUEST_MESSAGES, null,
+				ConversationStates.QUEST_OFFERED, "Will you help me?", null);
+		npc.add(ConversationStates.QUEST_OFFERED, ConversationPhrases.YES_MESSAGES, null,
+				ConversationStates.ATTENDING, "Thanks.", null);
+		npc.add(ConversationStates.QUEST_OFFERED, ConversationPhrases.NO_MESSAGES, null,
+				ConversationStates.ATTENDING, "Too bad.", null);
+		for (int i = 0; i < 50; i++) {
+			npc.addReply("topic" + i, "Answer " + i + ".");
+		}
+		npc.addGoodbye();
+		engine = npc.getEngine();
+	}
+
+	@Benchmark
+	public void conversation(final Blackhole blackhole) {
+		for (final String text : CONVERSATION) {
+			blackhole.consume(engine.step(player, text));
+		}
+		engine.setCurrentState(ConversationStates.IDLE);
+	}
+}
@@ -0,0 +1,133 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.entity.player;
+
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import games.stendhal.common.MathHelper;
+import games.stendhal.server.entity.npc.ChatCondition;
+import games.stendhal.server.entity.npc.condition.QuestActiveCondition;
+import games.stendhal.server.entity.npc.condition.QuestCompletedCondition;
+import games.stendhal.server.entity.npc.condition.QuestInStateCondition;
+import games.stendhal.server.util.StringUtils;
+import utilities.PlayerTestHelper;
+
+/**
+ * Compares the evaluation of quest state conditions with the parsed quest
+ * state cache against the way the quest slot was read before: evaluating the
+ * slot name with a new Calendar and splitting the slot string on every call.
+ *
+ * Each operation evaluates the conditions an NPC typically checks for one
+ * conversation step. The test classes have to be on the classpath for
+ * PlayerTestHelper.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuestStateBenchmark {
+
+	private static final String QUEST = "benchmark_quest";
+
+	private Player player;
+
+	private ChatCondition[] conditions;
+
+	@Setup
+	public void setup() {
+		PlayerTestHelper.generatePlayerRPClasses();
+		player = PlayerTestHelper.createPlayer("bench");
+		player.setQuest(QUEST, "start;club=3;wood=10;2;1700000000000");
+		for (int i = 0; i < 100; i++) {
+			player.setQuest("other_quest_" + i, "done;" + i);
+		}
+
+		conditions = new ChatCondition[] {
+			new QuestActiveCondition(QUEST),
+			new QuestCompletedCondition(QUEST),
+			new QuestInStateCondition(QUEST, 0, "start"),
+			new QuestInStateCondition(QUEST, 3, "2")
+		};
+	}
+
+	@Benchmark
+	public void cached(final Blackhole blackhole) {
+		for (final ChatCondition condition : conditions) {
+			blackhole.consume(condition.fire(player, null, null));
+		}
+		blackhole.consume(player.getRequiredItemName(QUEST, 1));
+		blackhole.consume(player.getRequiredItemQuantity(QUEST, 2));
+		blackhole.consume(player.getNumberOfRepetitions(QUEST, 3));
+	}
+
+	@Benchmark
+	public void uncached(final Blackhole blackhole) {
+		// QuestActiveCondition
+		blackhole.consume((legacyGetQuest(QUEST) != null)
+				&& !"rejected".equals(legacyGetQuest(QUEST, 0))
+				&& !"done".equals(legacyGetQuest(QUEST, 0)));
+		// QuestCompletedCondition
+		blackhole.consume("done".equals(legacyGetQuest(QUEST, 0)));
+		// QuestInStateCondition
+		blackhole.consume("start".equals(legacyGetQuest(QUEST, 0)));
+		blackhole.consume("2".equals(legacyGetQuest(QUEST, 3)));
+
+		blackhole.consume(legacyGetQuest(QUEST, 1).split("=")[0]);
+		final String[] item = legacyGetQuest(QUEST, 2).split("=");
+		blackhole.consume(MathHelper.parseIntDefault(item[1], 1));
+		blackhole.consume(MathHelper.parseIntDefault(legacyGetQuest(QUEST, 3), 0));
+	}
+
+	private String legacyGetQuest(final String name) {
+		return player.getKeyedSlot("!quests", legacyEvaluateQuestSlotName(name));
+	}
+
+	private String legacyGetQuest(final String name, final int index) {
+		final String state = legacyGetQuest(name);
+		if (state == null) {
+			return null;
+		}
+		final String[] elements = state.split(";");
+		if (index < elements.length) {
+			return elements[index];
+		}
+		return "";
+	}
+
+	private static String legacyEvaluateQuestSlotName(final String name) {
+		final Map<String, String> params = new HashMap<String, String>();
+		final Calendar calendar = Calendar.getInstance();
+		int year = calendar.get(Calendar.YEAR);
+		params.put("year", Integer.toString(year).substring(2));
+		calendar.add(Calendar.MONTH, -2);
+		year = calendar.get(Calendar.YEAR);
+		params.put("seasonyear", Integer.toString(year).substring(2));
+		return StringUtils.substitute(name, params);
+	}
+}
@@ -14,25 +14,73 @@ package games.stendhal.client;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.Arrays;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
 
 import org.apache.log4j.Logger;
 
 import games.stendhal.common.CRC;
-import games.stendhal.common.IO;
 import marauroa.common.crypto.Hash;
 import marauroa.common.net.message.TransferContent;
 
 /**
- * Manages a cache for content files such as zone data transmitted by the server
+ * Manages a cache for content files such as zone data transmitted by the server.
+ * <p>
+ * The hash and CRC of each cached file are kept in an index together with the
+ * size and modification time of the file, so that files that have not changed
+ * on disk do not need to be hashed again. The most recently used contents are
+ * also kept in memory, so returning to a recently visited zone needs no disk
+ * access at all.
  */
 class Cache {
 	private static Logger logger = Logger.getLogger(Cache.class);
 
+	/** Name of the index file in the cache folder. */
+	private static final String INDEX_FILE = "index.properties";
+
+	/** Maximum total size of the contents kept in memory. */
+	private static final int MEMORY_LIMIT = 16 * 1024 * 1024;
+
+	/** Folder of the cache files, ending with a slash. */
+	private final String folder;
+
+	/** Checksums of the cached files. */
+	private final Map<String, IndexEntry> index = new LinkedHashMap<String, IndexEntry>();
+
+	/** <code>true</code> if the index has changed since it was last saved. */
+	private boolean indexChanged;
+
+	/** Recently used contents, in access order. */
+	private final Map<String, CachedContent> memory = new LinkedHashMap<String, CachedContent>(16, 0.75f, true);
+
+	/** Total size of the contents kept in memory. */
+	private int memorySize;
+
+	/**
+	 * Create a new Cache in the game folder.
+	 */
+	Cache() {
+		this(stendhal.getGameFolder() + "cache/");
+	}
+
+	/**
+	 * Create a new Cache.
+	 *
+	 * @param folder folder of the cache files, ending with a slash
+	 */
+	Cache(String folder) {
+		this.folder = folder;
+	}
+
 	/**
 	 * Inits the cache.
 	 */
@@ -49,13 +97,68 @@ class Cache {
 				}
 			}
 
-			file = new File(stendhal.getGameFolder() + "cache");
+			file = new File(folder);
 			if (!file.exists() && !file.mkdir()) {
 				logger.error("Can't create " + file.getAbsolutePath() + " folder");
 			}
 		} catch (final RuntimeException e) {
 			logger.error("cannot create cach folder", e);
 		}
+		loadIndex();
+	}
+
+	/**
+	 * Load the checksums of the cached files.
+	 */
+	synchronized void loadIndex() {
+		index.clear();
+		final File file = new File(folder + INDEX_FILE);
+		if (!file.isFile()) {
+			return;
+		}
+		final Properties properties = new Properties();
+		try {
+			final InputStream is = new FileInputStream(file);
+			try {
+				properties.load(is);
+			} finally {
+				is.close();
+			}
+		} catch (IOException e) {
+			logger.warn("Cannot read cache index, the cached files will be verified again", e);
+			return;
+		}
+		for (final String name : properties.stringPropertyNames()) {
+			final IndexEntry entry = IndexEntry.parse(properties.getProperty(name));
+			if (entry != null) {
+				index.put(name, entry);
+			}
+		}
+	}
+
+	/**
+	 * Save the checksums of the cached files, if they have changed since they
+	 * were last saved.
+	 */
+	synchronized void saveIndex() {
+		if (!indexChanged) {
+			return;
+		}
+		final Properties properties = new Properties();
+		for (final Map.Entry<String, IndexEntry> entry : index.entrySet()) {
+			properties.setProperty(entry.getKey(), entry.getValue().toString());
+		}
+		try {
+			final OutputStream os = new FileOutputStream(folder + INDEX_FILE);
+			try {
+				properties.store(os, "Checksums of the cached files");
+			} finally {
+				os.close();
+			}
+			indexChanged = false;
+		} catch (IOException e) {
+			logger.error("Cannot write cache index", e);
+		}
 	}
 
 	/**
@@ -65,39 +168,94 @@ class Cache {
 	 *            key
 	 * @return InputStream or null if not in cache
 	 */
-	protected InputStream getItem(final TransferContent item) {
+	protected synchronized InputStream getItem(final TransferContent item) {
 		if (item.name.indexOf("..") > -1) {
 			logger.error("Cannot get item from cache because .. is not allowed in name " + item.name);
 			return null;
 		}
-		String filename = getFilename(item.name);
-		byte[] data = IO.readFileContent(filename);
-		if (data == null) {
+
+		final CachedContent content = memory.get(item.name);
+		if ((content != null) && content.entry.matches(item)) {
+			return new ByteArrayInputStream(content.data);
+		}
+
+		final File file = new File(getFilename(item.name));
+		if (!file.isFile()) {
 			return null;
 		}
 
-		// Check hash, if provided by the server
-		byte[] expectedHash = item.getTransmittedHash();
-		if (expectedHash != null) {
-			byte[] actualHash = Hash.hash(data);
-			if (Arrays.equals(expectedHash, actualHash)) {
-				return new ByteArrayInputStream(data);
-			} else {
+		IndexEntry entry = index.get(item.name);
+		if ((entry == null) || !entry.isCurrent(file)) {
+			entry = new IndexEntry(file.length(), file.lastModified());
+			index.put(item.name, entry);
+			indexChanged = true;
+		}
+		byte[] data = null;
+		if (!entry.canVerify(item)) {
+			data = readFile(file);
+			if (data == null) {
 				return null;
 			}
+			entry.complete(item, data);
+			indexChanged = true;
+		}
+		if (!entry.matches(item)) {
+			return null;
 		}
 
-		// Otherwise check CRC for Stendhal up to 0.97
-		int expectedCRC = item.timestamp;
-		int actualCRC = CRC.cmpCRC(data);
-
-		if (expectedCRC == actualCRC) {
-			return new ByteArrayInputStream(data);
+		if (data == null) {
+			data = readFile(file);
+			if (data == null) {
+				return null;
+			}
 		}
-		return null;
+		remember(item.name, entry, data);
+		return new ByteArrayInputStream(data);
 	}
 
+	/**
+	 * Read a cached file.
+	 *
+	 * @param file file
+	 * @return file contents, or <code>null</code> if the file could not be read
+	 */
+	private byte[] readFile(File file) {
+		try {
+			final RandomAccessFile raf = new RandomAccessFile(file, "r");
+			try {
+				final FileChannel channel = raf.getChannel();
+				final byte[] data = new byte[(int) channel.size()];
+				channel.map(FileChannel.MapMode.READ_ONLY, 0, data.length).get(data);
+				return data;
+			} finally {
+				raf.close();
+			}
+		} catch (IOException e) {
+			logger.warn("Cannot read cached file " + file, e);
+			return null;
+		}
+	}
 
+	/**
+	 * Keep content in memory, dropping the least recently used contents if
+	 * needed.
+	 *
+	 * @param name content name
+	 * @param entry checksums of the content
+	 * @param data content
+	 */
+	private void remember(String name, IndexEntry entry, byte[] data) {
+		final CachedContent old = memory.put(name, new CachedContent(entry, data));
+		if (old != null) {
+			memorySize -= old.data.length;
+		}
+		memorySize += data.length;
+		final Iterator<CachedContent> it = memory.values().iterator();
+		while ((memorySize > MEMORY_LIMIT) && it.hasNext()) {
+			memorySize -= it.next().data.length;
+			it.remove();
+		}
+	}
 
 	/**
 	 * Stores an item in cache.
@@ -107,13 +265,13 @@ class Cache {
 	 * @param data
 	 *            data
 	 */
-	protected void store(final TransferContent item, final byte[] data) {
+	protected synchronized void store(final TransferContent item, final byte[] data) {
 		try {
 			if (item.name.indexOf("..") > -1) {
 				logger.error("Cannot store item to cache because .. is not allowed in name " + item.name);
 				return;
 			}
-			String filename = stendhal.getGameFolder() + "cache/" + item.name;
+			String filename = getFilename(item.name);
 			OutputStream os = new FileOutputStream(filename);
 			try {
 				os.write(data);
@@ -121,6 +279,14 @@ class Cache {
 				os.close();
 			}
 
+			final File file = new File(filename);
+			final IndexEntry entry = new IndexEntry(file.length(), file.lastModified());
+			entry.hash = Hash.toHexString(Hash.hash(data));
+			entry.crc = Integer.valueOf(CRC.cmpCRC(data));
+			index.put(item.name, entry);
+			indexChanged = true;
+			remember(item.name, entry, data);
+
 			logger.debug("Content " + item.name + " cached now.");
 		} catch (IOException e) {
 			logger.error("store", e);
@@ -138,6 +304,133 @@ class Cache {
 			logger.error("Cannot access item in cache because .. is not allowed in name " + name);
 			return null;
 		}
-		return stendhal.getGameFolder() + "cache/" + name;
+		return folder + name;
+	}
+
+	/**
+	 * Checksums of a cached file, and the size and modification time the file
+	 * had when they were computed.
+	 */
+	private static class IndexEntry {
+		private final long size;
+		private final long modified;
+		/** Hash as hex string, or <code>null</code> if not computed yet. */
+		private String hash;
+		/** CRC, or <code>null</code> if not computed yet. */
+		private Integer crc;
+
+		/**
+		 * Create a new IndexEntry without checksums.
+		 *
+		 * @param size file size
+		 * @param modified file modification time
+		 */
+		IndexEntry(long size, long modified) {
+			this.size = size;
+			this.modified = modified;
+		}
+
+		/**
+		 * Parse an entry written by toString().
+		 *
+		 * @param value string form
+		 * @return entry, or <code>null</code> if the string is not valid
+		 */
+		static IndexEntry parse(String value) {
+			final String[] parts = value.split(",", -1);
+			if (parts.length != 4) {
+				return null;
+			}
+			try {
+				final IndexEntry entry = new IndexEntry(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+				if (!parts[2].isEmpty()) {
+					entry.hash = parts[2];
+				}
+				if (!parts[3].isEmpty()) {
+					entry.crc = Integer.valueOf(parts[3]);
+				}
+				return entry;
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+
+		/**
+		 * Check if the entry still describes a file.
+		 *
+		 * @param file cached file
+		 * @return <code>true</code> if the file has not changed since the
+		 * 	checksums were computed
+		 */
+		boolean isCurrent(File file) {
+			return (file.length() == size) && (file.lastModified() == modified);
+		}
+
+		/**
+		 * Check if the checksum needed for verifying an item is known.
+		 *
+		 * @param item transfer item
+		 * @return <code>true</code> if the checksum is known
+		 */
+		boolean canVerify(TransferContent item) {
+			if (item.getTransmittedHash() != null) {
+				return hash != null;
+			}
+			return crc != null;
+		}
+
+		/**
+		 * Compute the checksum needed for verifying an item.
+		 *
+		 * @param item transfer item
+		 * @param data file contents
+		 */
+		void complete(TransferContent item, byte[] data) {
+			if (item.getTransmittedHash() != null) {
+				hash = Hash.toHexString(Hash.hash(data));
+			} else {
+				crc = Integer.valueOf(CRC.cmpCRC(data));
+			}
+		}
+
+		/**
+		 * Check if the cached content is what the server offers. The server
+		 * provides a hash, or a CRC for Stendhal up to 0.97.
+		 *
+		 * @param item transfer item
+		 * @return <code>true</code> if the checksum matches
+		 */
+		boolean matches(TransferContent item) {
+			final byte[] expectedHash = item.getTransmittedHash();
+			if (expectedHash != null) {
+				return (hash != null) && hash.equals(Hash.toHexString(expectedHash));
+			}
+			return (crc != null) && (crc.intValue() == item.timestamp);
+		}
+
+		@Override
+		public String toString() {
+			return size + "," + modified + "," + ((hash != null) ? hash : "") + ","
+					+ ((crc != null) ? crc.toString() : "");
+		}
+	}
+
+	/**
+	 * Content kept in memory.
+	 */
+	private static class CachedContent {
+		private final IndexEntry entry;
+		private final byte[] data;
+
+		/**
+		 * Create new CachedContent.
+		 *
+		 * @param entry checksums
+		 * @param data content
+		 */
+		CachedContent(IndexEntry entry, byte[] data) {
+			this.entry = entry;
+			this.data = data;
+		}
 	}
 }
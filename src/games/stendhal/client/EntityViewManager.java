@@ -14,7 +14,6 @@ package games.stendhal.client;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
@@ -45,11 +44,16 @@ class EntityViewManager {
 
 	/**
 	 * The entity views. Modified in the game loop and read in the EDT.
-	 * Remember to synchronize.
+	 * Remember to synchronize. The list is kept in drawing order by the EDT,
+	 * so that it does not need to be sorted from scratch for every frame.
 	 */
 	private final List<EntityView<IEntity>> views = new ArrayList<EntityView<IEntity>>();
-	/** Entities on the screen. */
+	/** Entities on the screen, in drawing order. */
 	private final List<EntityView<IEntity>> visibleViews = new ArrayList<EntityView<IEntity>>();
+	/** Number of views at the last prepareViews() call. */
+	private int viewCount;
+	/** Number of views moved in the drawing order at the last prepareViews() call. */
+	private int reorderedCount;
 
 	/**
 	 * The entity to view map. May be accessed only in the game loop thread.
@@ -82,6 +86,7 @@ class EntityViewManager {
 	 */
 	private void addEntityView(EntityView<IEntity> view) {
 		synchronized (views) {
+			// Moved to its place when the views are prepared for drawing
 			views.add(view);
 		}
 	}
@@ -264,6 +269,13 @@ class EntityViewManager {
 		synchronized (views) {
 			for (EntityView<IEntity> view : views) {
 				view.applyChanges();
+			}
+			// Only the views that were added or moved since the last frame
+			// are out of order
+			reorderedCount = restoreOrder(views, entityViewComparator);
+			viewCount = views.size();
+
+			for (EntityView<IEntity> view : views) {
 				if (area.intersects(view.getArea())) {
 					visibleViews.add(view);
 					if (setVisibleArea) {
@@ -272,8 +284,66 @@ class EntityViewManager {
 				}
 			}
 		}
+	}
+
+	/**
+	 * Sort a list that is mostly in order. This is an insertion sort, so it
+	 * needs only one pass over the list if just a few elements are out of
+	 * place.
+	 *
+	 * @param <T> list element type
+	 * @param list list to be sorted
+	 * @param comparator comparator defining the order
+	 * @return number of elements that were moved towards the start of the list
+	 */
+	static <T> int restoreOrder(List<T> list, Comparator<? super T> comparator) {
+		int moved = 0;
+		for (int i = 1; i < list.size(); i++) {
+			final T element = list.get(i);
+			int j = i - 1;
+			if (comparator.compare(list.get(j), element) <= 0) {
+				continue;
+			}
+			do {
+				list.set(j + 1, list.get(j));
+				j--;
+			} while ((j >= 0) && (comparator.compare(list.get(j), element) > 0));
+			list.set(j + 1, element);
+			moved++;
+		}
+		return moved;
+	}
+
+	/**
+	 * Get the number of entity views at the last time the views were
+	 * prepared for drawing. Must be called only from the event dispatch
+	 * thread.
+	 *
+	 * @return number of views
+	 */
+	int getViewCount() {
+		return viewCount;
+	}
+
+	/**
+	 * Get the number of entity views that are drawn. Must be called only from
+	 * the event dispatch thread.
+	 *
+	 * @return number of visible views
+	 */
+	int getVisibleViewCount() {
+		return visibleViews.size();
+	}
 
-		Collections.sort(visibleViews, entityViewComparator);
+	/**
+	 * Get the number of entity views that had to be moved in the drawing
+	 * order the last time the views were prepared for drawing. Must be called
+	 * only from the event dispatch thread.
+	 *
+	 * @return number of reordered views
+	 */
+	int getReorderedViewCount() {
+		return reorderedCount;
 	}
 
 	/**
@@ -0,0 +1,85 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drawing times of the game screen, summarized once a second for the debug
+ * overlay. Must be used only from the event dispatch thread.
+ */
+class FrameStatistics {
+	/** Length of a summary period. */
+	private static final long PERIOD = TimeUnit.SECONDS.toNanos(1);
+
+	/** Start of the current period. */
+	private long periodStart;
+	/** Frames drawn in the current period. */
+	private int frames;
+	/** Total drawing time in the current period. */
+	private long totalTime;
+	/** Longest frame in the current period. */
+	private long maxTime;
+
+	/** Summary of the previous period. */
+	private String summary = "";
+
+	/**
+	 * Create new FrameStatistics.
+	 *
+	 * @param now current time as returned by System.nanoTime()
+	 */
+	FrameStatistics(long now) {
+		periodStart = now;
+	}
+
+	/**
+	 * Record a drawn frame.
+	 *
+	 * @param start time when drawing the frame started, as returned by
+	 * 	System.nanoTime()
+	 * @param now time when drawing the frame ended
+	 * @param views number of entity views
+	 * @param visibleViews number of drawn entity views
+	 * @param reorderedViews number of entity views that had to be moved in the
+	 * 	drawing order
+	 */
+	void addFrame(long start, long now, int views, int visibleViews, int reorderedViews) {
+		final long time = now - start;
+		frames++;
+		totalTime += time;
+		maxTime = Math.max(maxTime, time);
+
+		if (now - periodStart >= PERIOD) {
+			summary = String.format("%d fps, frame %.1f ms avg, %.1f ms max, views %d/%d drawn, %d reordered",
+					frames * PERIOD / (now - periodStart), toMillis(totalTime / frames), toMillis(maxTime),
+					visibleViews, views, reorderedViews);
+			periodStart = now;
+			frames = 0;
+			totalTime = 0;
+			maxTime = 0;
+		}
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / 1000000.0;
+	}
+
+	/**
+	 * Get the summary of the last complete period.
+	 *
+	 * @return summary, or an empty string if no period has completed yet
+	 */
+	String getSummary() {
+		return summary;
+	}
+}
@@ -55,6 +55,7 @@ import games.stendhal.client.gui.spellcasting.SpellCastingGroundContainerMouseSt
 import games.stendhal.client.sprite.Sprite;
 import games.stendhal.client.sprite.SpriteStore;
 import games.stendhal.common.MathHelper;
+import games.stendhal.common.constants.Testing;
 import marauroa.common.game.RPObject;
 import marauroa.common.game.RPSlot;
 
@@ -110,6 +111,8 @@ public final class GameScreen extends JComponent implements IGameScreen, DropTar
 
 	/** Entity views container. */
 	private final EntityViewManager viewManager = new EntityViewManager();
+	/** Drawing times for the debug overlay, or <code>null</code> if not debugging. */
+	private final FrameStatistics frameStatistics = Testing.DEBUG ? new FrameStatistics(System.nanoTime()) : null;
 
 	/**
 	 * The ground layer.
@@ -548,6 +551,7 @@ public final class GameScreen extends JComponent implements IGameScreen, DropTar
 			return;
 		}
 
+		final long frameStart = System.nanoTime();
 		Graphics2D g2d = (Graphics2D) g;
 
 		Graphics2D graphics = (Graphics2D) g2d.create();
@@ -593,6 +597,12 @@ public final class GameScreen extends JComponent implements IGameScreen, DropTar
 
 		paintOffLineIfNeeded(g2d);
 
+		if (frameStatistics != null) {
+			frameStatistics.addFrame(frameStart, System.nanoTime(), viewManager.getViewCount(),
+					viewManager.getVisibleViewCount(), viewManager.getReorderedViewCount());
+			drawDebugInfo(g2d);
+		}
+
 		// Ask window manager to not skip frame drawing
 		Toolkit.getDefaultToolkit().sync();
 
@@ -656,6 +666,22 @@ public final class GameScreen extends JComponent implements IGameScreen, DropTar
 		}
 	}
 
+	/**
+	 * Draw the drawing time statistics at the top left corner of the screen.
+	 *
+	 * @param g graphics
+	 */
+	private void drawDebugInfo(Graphics2D g) {
+		final String summary = frameStatistics.getSummary();
+		if (!summary.isEmpty()) {
+			final int height = g.getFontMetrics().getHeight();
+			g.setColor(Color.BLACK);
+			g.fillRect(0, 0, g.getFontMetrics().stringWidth(summary) + 8, height + 4);
+			g.setColor(Color.WHITE);
+			g.drawString(summary, 4, height);
+		}
+	}
+
 	/**
 	 * Draw the offline indicator, blinking, if the client is offline.
 	 *
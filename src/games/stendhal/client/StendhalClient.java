@@ -297,6 +297,7 @@ public class StendhalClient extends ClientFramework {
 				contentToLoad++;
 			}
 		}
+		cache.saveIndex();
 
 		return items;
 	}
@@ -368,6 +369,7 @@ public class StendhalClient extends ClientFramework {
 				logger.error("onTransfer", e);
 			}
 		}
+		cache.saveIndex();
 
 		contentToLoad -= items.size();
 
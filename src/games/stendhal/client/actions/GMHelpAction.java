@@ -97,7 +97,9 @@ class GMHelpAction implements SlashAction {
 				"- /destroy <entity> \tDestroy an entity completely.",
 				"* MISC:",
 				"- /jailreport [<player>]",
-				"\t\tList the jailed players and their sentences.");
+				"\t\tList the jailed players and their sentences.",
+				"- /turnmetrics [json|reset]",
+				"\t\tShow the timing of the game loop, or start it over.");
 		} else if ((params.length == 1) && (params[0] != null)) {
 			if ("alter".equals(params[0])) {
 				lines = Arrays.asList(
@@ -28,6 +28,9 @@ public class CollisionDetection {
 
 	private int height;
 
+	/** Number of changes, for detecting when data derived from the map is outdated. */
+	private int version;
+
 	/**
 	 * Clear the collision map.
 	 */
@@ -52,6 +55,7 @@ public class CollisionDetection {
 
 		this.width = width;
 		this.height = height;
+		version++;
 
 		clear();
 	}
@@ -67,6 +71,7 @@ public class CollisionDetection {
 			return;
 		}
 		map.set(x, y);
+		version++;
 	}
 
 	/**
@@ -90,6 +95,7 @@ public class CollisionDetection {
 				}
 			}
 		}
+		version++;
 	}
 
 	/**
@@ -194,6 +200,28 @@ public class CollisionDetection {
 		return map.get(x, y);
 	}
 
+	/**
+	 * Get the number of positions without static collision.
+	 *
+	 * @return free area size
+	 */
+	public int getFreeArea() {
+		if (map == null) {
+			return width * height;
+		}
+		return map.getFreeArea();
+	}
+
+	/**
+	 * Get the version of the collision data. The version changes whenever
+	 * the collision data changes.
+	 *
+	 * @return version
+	 */
+	public int getVersion() {
+		return version;
+	}
+
 	/**
 	 * Get the width of the collision map.
 	 *
@@ -15,24 +15,49 @@ package games.stendhal.common;
 
 
 import java.awt.geom.Rectangle2D;
-import java.util.BitSet;
+import java.util.Arrays;
 
 import games.stendhal.common.tiled.LayerDefinition;
 
+/**
+ * Static collision data of a map.
+ * <p>
+ * The collision bits are packed row by row into longs, so that a rectangle
+ * can be tested with a few masked word comparisons per row without creating
+ * any objects. The number of collision tiles of the whole map is kept up to
+ * date. For counting collision tiles in large areas of large maps a summed
+ * area table is built on demand, and dropped again whenever the map changes.
+ * Smaller maps count the bits of the rows instead, because the table needs
+ * 32 times the memory of the bits.
+ */
 public class CollisionMap {
+	/** Rectangles with at least this many tiles are tested with the summed area table */
+	private static final int SUMMED_AREA_MIN_SIZE = 256;
+	/** Maps with at least this many tiles use a summed area table */
+	private static final int SUMMED_AREA_MIN_MAP_SIZE = 256 * 256;
 
 	private final int width;
 	private final int height;
-	private final BitSet[] colls;
+	/** Number of longs per row */
+	private final int wordsPerRow;
+	/** Collision bits, row by row */
+	private final long[] bits;
+	/** Number of collision tiles in the map */
+	private int collisionCount;
+	/** Is the map large enough to use a summed area table? */
+	private final boolean useSummedArea;
+	/**
+	 * Number of collision tiles above and to the left of each position, or
+	 * <code>null</code> if it needs to be built again.
+	 */
+	private volatile int[] summedArea;
 
 	public CollisionMap(final int width, final int height) {
 		this.width = width;
 		this.height = height;
-		colls = new BitSet[width];
-		for (int i = 0; i < width; i++) {
-			colls[i] = new BitSet();
-		}
-
+		wordsPerRow = (width + 63) >>> 6;
+		bits = new long[wordsPerRow * height];
+		useSummedArea = width * height >= SUMMED_AREA_MIN_MAP_SIZE;
 	}
 
 	public CollisionMap(final LayerDefinition layer) {
@@ -55,12 +80,27 @@ public class CollisionMap {
 	}
 
 	public boolean get(final int i, final int j) {
-		return colls[i].get(j);
+		if (!isInside(i, j)) {
+			return false;
+		}
+		return (bits[j * wordsPerRow + (i >>> 6)] & (1L << i)) != 0;
 	}
 
 	public void set(final int i, final int j) {
+		if (!isInside(i, j)) {
+			return;
+		}
+		final int index = j * wordsPerRow + (i >>> 6);
+		final long bit = 1L << i;
+		if ((bits[index] & bit) == 0) {
+			bits[index] |= bit;
+			collisionCount++;
+			summedArea = null;
+		}
+	}
 
-		colls[i].set(j);
+	private boolean isInside(final int i, final int j) {
+		return (i >= 0) && (i < width) && (j >= 0) && (j < height);
 	}
 
 	public boolean collides(final int x, final int y, final int width, final int height) {
@@ -72,20 +112,151 @@ public class CollisionMap {
 			return true;
 		}
 
-		final BitSet result = new BitSet();
-		for (int i = x; i < x + width; i++) {
-			result.or(colls[i]);
+		if ((width <= 0) || (height <= 0)) {
+			return false;
 		}
 
-		return !result.get(y, y + height).isEmpty();
+		if (useSummedArea && (width * height >= SUMMED_AREA_MIN_SIZE)) {
+			return countCollisions(x, y, width, height) > 0;
+		}
+
+		final int lastX = x + width - 1;
+		final int firstWord = x >>> 6;
+		final int lastWord = lastX >>> 6;
+		// -1L << n uses only the lowest 6 bits of n
+		final long firstMask = -1L << x;
+		final long lastMask = -1L >>> (63 - (lastX & 63));
+
+		for (int row = y; row < y + height; row++) {
+			final int offset = row * wordsPerRow;
+			if (firstWord == lastWord) {
+				if ((bits[offset + firstWord] & firstMask & lastMask) != 0) {
+					return true;
+				}
+			} else {
+				if ((bits[offset + firstWord] & firstMask) != 0) {
+					return true;
+				}
+				for (int word = firstWord + 1; word < lastWord; word++) {
+					if (bits[offset + word] != 0) {
+						return true;
+					}
+				}
+				if ((bits[offset + lastWord] & lastMask) != 0) {
+					return true;
+				}
+			}
+		}
+
+		return false;
 	}
 
-	public void clear() {
-		for (int i = 0; i < this.width; i++) {
-			colls[i].clear();
+	/**
+	 * Count the collision tiles in a rectangle. The rectangle must be inside
+	 * the map.
+	 *
+	 * @param x x coordinate of the left side of the rectangle
+	 * @param y y coordinate of the top of the rectangle
+	 * @param width width of the rectangle
+	 * @param height height of the rectangle
+	 * @return number of collision tiles
+	 */
+	public int countCollisions(final int x, final int y, final int width, final int height) {
+		if ((width <= 0) || (height <= 0)) {
+			return 0;
+		}
+		if (!useSummedArea) {
+			return countBits(x, y, width, height);
+		}
+		final int[] table = getSummedArea();
+		final int stride = this.width + 1;
+		final int top = y * stride;
+		final int bottom = (y + height) * stride;
+
+		return table[bottom + x + width] - table[bottom + x] - table[top + x + width] + table[top + x];
+	}
+
+	/**
+	 * Count the collision bits in a rectangle row by row.
+	 *
+	 * @param x x coordinate of the left side of the rectangle
+	 * @param y y coordinate of the top of the rectangle
+	 * @param width width of the rectangle
+	 * @param height height of the rectangle
+	 * @return number of collision tiles
+	 */
+	private int countBits(final int x, final int y, final int width, final int height) {
+		final int lastX = x + width - 1;
+		final int firstWord = x >>> 6;
+		final int lastWord = lastX >>> 6;
+		final long firstMask = -1L << x;
+		final long lastMask = -1L >>> (63 - (lastX & 63));
+
+		int count = 0;
+		for (int row = y; row < y + height; row++) {
+			final int offset = row * wordsPerRow;
+			if (firstWord == lastWord) {
+				count += Long.bitCount(bits[offset + firstWord] & firstMask & lastMask);
+			} else {
+				count += Long.bitCount(bits[offset + firstWord] & firstMask);
+				for (int word = firstWord + 1; word < lastWord; word++) {
+					count += Long.bitCount(bits[offset + word]);
+				}
+				count += Long.bitCount(bits[offset + lastWord] & lastMask);
+			}
 		}
+		return count;
+	}
+
+	/**
+	 * Get the number of tiles without collision.
+	 *
+	 * @return number of free tiles
+	 */
+	public int getFreeArea() {
+		return width * height - collisionCount;
+	}
 
+	/**
+	 * Get the summed area table, and build it if needed.
+	 *
+	 * @return summed area table
+	 */
+	private int[] getSummedArea() {
+		int[] table = summedArea;
+		if (table == null) {
+			table = buildSummedArea();
+		}
+		return table;
 	}
+
+	private synchronized int[] buildSummedArea() {
+		int[] table = summedArea;
+		if (table != null) {
+			return table;
+		}
+		final int stride = width + 1;
+		table = new int[stride * (height + 1)];
+		for (int y = 0; y < height; y++) {
+			int rowSum = 0;
+			final int offset = (y + 1) * stride;
+			for (int x = 0; x < width; x++) {
+				if (get(x, y)) {
+					rowSum++;
+				}
+				table[offset + x + 1] = table[offset - stride + x + 1] + rowSum;
+			}
+		}
+		summedArea = table;
+		return table;
+	}
+
+	public void clear() {
+		Arrays.fill(bits, 0L);
+		collisionCount = 0;
+		summedArea = null;
+	}
+
 	public static CollisionMap create(final LayerDefinition layer) {
 
 		CollisionMap collissionMap = new CollisionMap(layer.getWidth(), layer
@@ -101,15 +272,24 @@ public class CollisionMap {
 	}
 
 	public void unset(final int i, final int k) {
-		colls[i].clear(k);
-
+		if (!isInside(i, k)) {
+			return;
+		}
+		final int index = k * wordsPerRow + (i >>> 6);
+		final long bit = 1L << i;
+		if ((bits[index] & bit) != 0) {
+			bits[index] &= ~bit;
+			collisionCount--;
+			summedArea = null;
+		}
 	}
 
 	public void set(final Rectangle2D shape) {
 		int y = (int) shape.getY();
 		for (int x = (int) shape.getX(); x < shape.getX() + shape.getWidth(); x++) {
-
-			colls[x].set(y, (int) (y + shape.getHeight()));
+			for (int row = y; row < (int) (y + shape.getHeight()); row++) {
+				set(x, row);
+			}
 		}
 
 	}
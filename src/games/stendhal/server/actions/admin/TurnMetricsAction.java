@@ -0,0 +1,57 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.actions.admin;
+
+import static games.stendhal.common.constants.Actions.TARGET;
+
+import games.stendhal.server.actions.CommandCenter;
+import games.stendhal.server.core.engine.dbcommand.LogEventBuffer;
+import games.stendhal.server.core.engine.metrics.TurnMetrics;
+import games.stendhal.server.entity.player.Player;
+import marauroa.common.game.RPAction;
+
+/**
+ * Shows the timing of the game loop and the state of the log event buffer.
+ * <p>
+ * <code>/turnmetrics</code> shows the report, <code>/turnmetrics json</code>
+ * the same data as JSON and <code>/turnmetrics reset</code> starts the
+ * metrics over.
+ */
+class TurnMetricsAction extends AdministrationAction {
+	private static final String TURNMETRICS = "turnmetrics";
+
+	/** Number of zones and listeners that are listed. */
+	private static final int ENTRIES = 5;
+
+	public static void register() {
+		CommandCenter.register(TURNMETRICS, new TurnMetricsAction(), 500);
+	}
+
+	@Override
+	protected void perform(final Player player, final RPAction action) {
+		final TurnMetrics metrics = TurnMetrics.get();
+		if (!metrics.isEnabled()) {
+			player.sendPrivateText("Turn metrics are disabled in the server configuration.");
+			return;
+		}
+
+		final String mode = action.get(TARGET);
+		if ("reset".equals(mode)) {
+			metrics.reset();
+			player.sendPrivateText("Turn metrics have been reset.");
+		} else if ("json".equals(mode)) {
+			player.sendPrivateText(metrics.toJSON(ENTRIES));
+		} else {
+			player.sendPrivateText(metrics.getReport(ENTRIES) + "\n" + LogEventBuffer.get().getReport());
+		}
+	}
+}
@@ -18,20 +18,42 @@ package games.stendhal.server.core.config;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
+import games.stendhal.server.core.config.ZoneLoadingStatistics.Phase;
+import games.stendhal.server.core.config.ZonesXMLLoader.ZoneDesc;
+import games.stendhal.server.core.config.zone.PreparedMap;
+import marauroa.common.Configuration;
+
 /**
  * Load and configure zones via an XML configuration file.
+ * <p>
+ * The maps are parsed and encoded by <code>zone_loading_threads</code> worker
+ * threads (default: number of processors). The zones are still created,
+ * added to the world and configured one after another on the calling thread,
+ * in the order of the zone group files. Set <code>zone_loading_threads=1</code>
+ * in server.ini to load everything on the calling thread.
  */
 public class ZoneGroupsXMLLoader extends DefaultHandler {
 
 
 	private static final Logger LOGGER = Logger.getLogger(ZoneGroupsXMLLoader.class);
 
+	/** number of maps each worker thread may parse in advance */
+	private static final int MAPS_AHEAD_PER_THREAD = 4;
+
 	/** The main zone configuration file. */
 	protected URI uri;
 
@@ -54,22 +76,132 @@ public class ZoneGroupsXMLLoader extends DefaultHandler {
 	 *             If an I/O error occurred.
 	 */
 	public void load() throws SAXException, IOException {
+		final int threads = getThreadCount();
+		final ZoneLoadingStatistics statistics = new ZoneLoadingStatistics(threads > 1 ? threads : 0);
+		final long start = System.nanoTime();
+
 		final GroupsXMLLoader groupsLoader = new GroupsXMLLoader(uri);
 		final List<URI> zoneGroups = groupsLoader.load();
 
-		// Load each group
+		// Read each group
+		final List<ZoneEntry> zones = new ArrayList<ZoneEntry>();
 		for (final URI tempUri : zoneGroups) {
 			LOGGER.debug("Loading zone group [" + tempUri + "]");
 
 			final ZonesXMLLoader loader = new ZonesXMLLoader(tempUri);
 
 			try {
-				loader.load();
+				for (final ZoneDesc zdesc : loader.readZones()) {
+					zones.add(new ZoneEntry(loader, zdesc));
+				}
 			} catch (final SAXException ex) {
 				LOGGER.error("Error loading zone group: " + tempUri, ex);
 			} catch (final IOException ex) {
 				LOGGER.error("Error loading zone group: " + tempUri, ex);
 			}
 		}
+		statistics.addTime(Phase.READ, start);
+
+		if (threads > 1) {
+			loadConcurrently(zones, threads, statistics);
+		} else {
+			for (final ZoneEntry entry : zones) {
+				entry.loader.loadZone(entry.zdesc, statistics);
+			}
+		}
+
+		LOGGER.info(statistics.getReport());
+	}
+
+	/**
+	 * Parses the maps on worker threads, and creates the zones in order on
+	 * the calling thread as soon as their maps are ready. Only a limited
+	 * number of maps is parsed in advance, so that memory use is bounded.
+	 *
+	 * @param zones zones to load
+	 * @param threads number of worker threads
+	 * @param statistics loading times
+	 */
+	private void loadConcurrently(final List<ZoneEntry> zones, final int threads,
+			final ZoneLoadingStatistics statistics) {
+		final ExecutorService pool = Executors.newFixedThreadPool(threads, new ZoneLoaderThreadFactory());
+		try {
+			final List<Future<PreparedMap>> maps = new ArrayList<Future<PreparedMap>>(zones.size());
+			final int ahead = threads * MAPS_AHEAD_PER_THREAD;
+			for (int i = 0; i < zones.size(); i++) {
+				while ((maps.size() < zones.size()) && (maps.size() <= i + ahead)) {
+					final ZoneDesc zdesc = zones.get(maps.size()).zdesc;
+					maps.add(pool.submit(new Callable<PreparedMap>() {
+						@Override
+						public PreparedMap call() throws Exception {
+							return ZonesXMLLoader.prepareMap(zdesc, statistics);
+						}
+					}));
+				}
+
+				final ZoneEntry entry = zones.get(i);
+				final long start = System.nanoTime();
+				final PreparedMap map;
+				try {
+					map = maps.get(i).get();
+				} catch (final ExecutionException e) {
+					LOGGER.error("Error loading zone: " + entry.zdesc.getName(), e.getCause());
+					continue;
+				} finally {
+					statistics.addTime(Phase.WAIT, start);
+					// the zone keeps what it needs of the map
+					maps.set(i, null);
+				}
+				entry.loader.loadZone(entry.zdesc, map, statistics);
+			}
+		} catch (final InterruptedException e) {
+			LOGGER.error("Interrupted while loading zones", e);
+			Thread.currentThread().interrupt();
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Gets the number of threads used for parsing maps.
+	 *
+	 * @return number of threads
+	 */
+	private static int getThreadCount() {
+		int threads = Runtime.getRuntime().availableProcessors();
+		try {
+			threads = Configuration.getConfiguration().getInt("zone_loading_threads", threads);
+		} catch (final IOException e) {
+			LOGGER.error(e, e);
+		}
+		return threads;
+	}
+
+	/**
+	 * A zone and the loader of its zone group.
+	 */
+	private static class ZoneEntry {
+		final ZonesXMLLoader loader;
+		final ZoneDesc zdesc;
+
+		ZoneEntry(final ZonesXMLLoader loader, final ZoneDesc zdesc) {
+			this.loader = loader;
+			this.zdesc = zdesc;
+		}
+	}
+
+	/**
+	 * Creates named daemon threads, so that a hanging map does not keep the
+	 * server from shutting down.
+	 */
+	private static class ZoneLoaderThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(final Runnable r) {
+			final Thread thread = new Thread(r, "zone-loader-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
 	}
 }
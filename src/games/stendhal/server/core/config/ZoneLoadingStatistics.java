@@ -0,0 +1,143 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Time spent in the phases of loading the zones at server startup.
+ * <p>
+ * Parsing and encoding may run on several worker threads at once, so their
+ * times are the sum over all threads and may exceed the total time.
+ */
+public class ZoneLoadingStatistics {
+
+	/** Phases of loading a zone. */
+	public enum Phase {
+		/** reading the zone group files */
+		READ("reading zone groups"),
+		/** parsing the TMX files (worker threads) */
+		PARSE("parsing maps"),
+		/** compressing the layers for the client (worker threads) */
+		ENCODE("encoding layers"),
+		/** main thread waiting for the worker threads */
+		WAIT("waiting for maps"),
+		/** creating the zones and adding them to the world */
+		CREATE("creating zones"),
+		/** running the zone configurators and entity setup */
+		CONFIGURE("configuring zones"),
+		/** calculating the danger levels */
+		DANGER_LEVEL("calculating danger levels");
+
+		private final String description;
+
+		private Phase(final String description) {
+			this.description = description;
+		}
+	}
+
+	private final AtomicLongArray nanos = new AtomicLongArray(Phase.values().length);
+
+	private final long start = System.nanoTime();
+
+	private final int threads;
+
+	private int zones;
+
+	private final AtomicInteger maps = new AtomicInteger();
+
+	private final AtomicInteger cachedMaps = new AtomicInteger();
+
+	/**
+	 * Creates a new ZoneLoadingStatistics.
+	 *
+	 * @param threads number of worker threads, 0 if the maps are loaded on the main thread
+	 */
+	public ZoneLoadingStatistics(final int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Adds the time since a start time to a phase.
+	 *
+	 * @param phase phase
+	 * @param startNanos start time as returned by System.nanoTime()
+	 * @return the current time, to be used as start of the next phase
+	 */
+	public long addTime(final Phase phase, final long startNanos) {
+		final long now = System.nanoTime();
+		nanos.addAndGet(phase.ordinal(), now - startNanos);
+		return now;
+	}
+
+	/**
+	 * Counts a prepared map.
+	 *
+	 * @param cached <code>true</code> if the map was read from the map cache
+	 */
+	public void addMap(final boolean cached) {
+		maps.incrementAndGet();
+		if (cached) {
+			cachedMaps.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Counts a loaded zone.
+	 */
+	public void addZone() {
+		zones++;
+	}
+
+	/**
+	 * Gets the time spent in a phase.
+	 *
+	 * @param phase phase
+	 * @return time in milliseconds
+	 */
+	public long getMillis(final Phase phase) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos.get(phase.ordinal()));
+	}
+
+	/**
+	 * Gets the number of loaded zones.
+	 *
+	 * @return number of zones
+	 */
+	public int getZones() {
+		return zones;
+	}
+
+	/**
+	 * Gets a human readable report of the loading times.
+	 *
+	 * @return report
+	 */
+	public String getReport() {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("Loaded ").append(zones).append(" zones in ")
+			.append(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).append(" ms");
+		if (threads > 0) {
+			sb.append(" using ").append(threads).append(" worker threads");
+		}
+		if (cachedMaps.get() > 0) {
+			sb.append(", ").append(cachedMaps.get()).append(" of ").append(maps.get())
+				.append(" maps read from the zone cache");
+		}
+		for (final Phase phase : Phase.values()) {
+			sb.append("\n  ").append(phase.description).append(": ").append(getMillis(phase)).append(" ms");
+		}
+		return sb.toString();
+	}
+}
@@ -34,16 +34,17 @@ import org.xml.sax.SAXException;
 //
 //
 
-import games.stendhal.common.tiled.LayerDefinition;
 import games.stendhal.common.tiled.StendhalMapStructure;
 import games.stendhal.server.core.config.zone.AttributesXMLReader;
+import games.stendhal.server.core.config.ZoneLoadingStatistics.Phase;
 import games.stendhal.server.core.config.zone.ConfiguratorXMLReader;
 import games.stendhal.server.core.config.zone.EntitySetupXMLReader;
+import games.stendhal.server.core.config.zone.MapCache;
 import games.stendhal.server.core.config.zone.PortalSetupXMLReader;
+import games.stendhal.server.core.config.zone.PreparedMap;
 import games.stendhal.server.core.config.zone.RegionNameSubstitutionHelper;
 import games.stendhal.server.core.config.zone.SetupDescriptor;
 import games.stendhal.server.core.config.zone.SetupXMLReader;
-import games.stendhal.server.core.config.zone.TMXLoader;
 import games.stendhal.server.core.engine.SingletonRepository;
 import games.stendhal.server.core.engine.StendhalRPWorld;
 import games.stendhal.server.core.engine.StendhalRPZone;
@@ -103,6 +104,24 @@ public final class ZonesXMLLoader {
 	 *             If the resource was not found.
 	 */
 	public void load() throws SAXException, IOException {
+		final ZoneLoadingStatistics statistics = new ZoneLoadingStatistics(0);
+		for (final ZoneDesc zdesc : readZones()) {
+			loadZone(zdesc, statistics);
+		}
+	}
+
+	/**
+	 * Reads the descriptors of the zones of the group that should be loaded.
+	 *
+	 * @return zone descriptors in the order of the zone group file
+	 * @throws SAXException
+	 *             If a SAX error occurred.
+	 * @throws IOException
+	 *             If an I/O error occurred.
+	 * @throws FileNotFoundException
+	 *             If the resource was not found.
+	 */
+	List<ZoneDesc> readZones() throws SAXException, IOException {
 		final InputStream in = ZonesXMLLoader.class.getResourceAsStream(uri.getPath());
 
 		if (in == null) {
@@ -110,7 +129,7 @@ public final class ZonesXMLLoader {
 		}
 
 		try {
-			load(in);
+			return readZones(in);
 		} finally {
 			in.close();
 		}
@@ -128,7 +147,28 @@ public final class ZonesXMLLoader {
 	 *             If an I/O error occurred.
 	 */
 	protected void load(final InputStream in) throws SAXException, IOException {
+		final ZoneLoadingStatistics statistics = new ZoneLoadingStatistics(0);
+		for (final ZoneDesc zdesc : readZones(in)) {
+			loadZone(zdesc, statistics);
+		}
+	}
+
+	/**
+	 * Reads the descriptors of the zones that should be loaded from a config
+	 * file.
+	 *
+	 * @param in
+	 *            The config file stream.
+	 * @return zone descriptors in the order of the config file
+	 *
+	 * @throws SAXException
+	 *             If a SAX error occurred.
+	 * @throws IOException
+	 *             If an I/O error occurred.
+	 */
+	List<ZoneDesc> readZones(final InputStream in) throws SAXException, IOException {
 		final Document doc = XMLUtil.parse(in);
+		final List<ZoneDesc> res = new ArrayList<ZoneDesc>();
 
 		// just to speed up starting of the server in while developing
 		// add -Dstendhal.zone.regex=".*semos.*" (for example) to your server start script just after the "java "
@@ -152,39 +192,94 @@ public final class ZonesXMLLoader {
 				continue;
 			}
 
-			logger.info("Loading zone: " + name);
+			res.add(zdesc);
+		}
+		return res;
+	}
 
-			try {
-				final StendhalMapStructure zonedata = TMXLoader.load(StendhalRPWorld.MAPS_FOLDER
-						+ zdesc.getFile());
+	/**
+	 * Parses the map of a zone and encodes its layers, or reads them from the
+	 * map cache. This does not touch the world, so it may be called on any
+	 * thread.
+	 *
+	 * @param zdesc zone descriptor
+	 * @param statistics loading times
+	 * @return the prepared map
+	 * @throws Exception in case the map cannot be read
+	 */
+	static PreparedMap prepareMap(final ZoneDesc zdesc, final ZoneLoadingStatistics statistics)
+			throws Exception {
+		long start = System.nanoTime();
+		final PreparedMap map = MapCache.get().load(StendhalRPWorld.MAPS_FOLDER + zdesc.getFile());
+		start = statistics.addTime(Phase.PARSE, start);
+		map.encodeLayers();
+		statistics.addTime(Phase.ENCODE, start);
+		statistics.addMap(map.isCached());
+		return map;
+	}
 
-				if (verifyMap(zdesc, zonedata)) {
-					final StendhalRPZone zone = load(zdesc, zonedata);
+	/**
+	 * Loads a zone, parsing its map on the calling thread.
+	 *
+	 * @param zdesc zone descriptor
+	 * @param statistics loading times
+	 */
+	void loadZone(final ZoneDesc zdesc, final ZoneLoadingStatistics statistics) {
+		final PreparedMap map;
+		try {
+			map = prepareMap(zdesc, statistics);
+		} catch (final Exception ex) {
+			logger.error("Error loading zone: " + zdesc.getName(), ex);
+			return;
+		}
+		loadZone(zdesc, map, statistics);
+	}
 
-					/*
-					 * Setup Descriptors
-					 */
-					final Iterator<SetupDescriptor> diter = zdesc.getDescriptors();
+	/**
+	 * Creates a zone from its prepared map, adds it to the world and
+	 * configures it. This has to be called on the main thread, in the order
+	 * of the zone group files.
+	 *
+	 * @param zdesc zone descriptor
+	 * @param map prepared map
+	 * @param statistics loading times
+	 */
+	void loadZone(final ZoneDesc zdesc, final PreparedMap map, final ZoneLoadingStatistics statistics) {
+		final String name = zdesc.getName();
+		logger.info("Loading zone: " + name);
 
-					while (diter.hasNext()) {
-						diter.next().setup(zone);
-					}
-					// Zone configurators can add creatures, so this should be
-					// done after them
-					zone.calculateDangerLevel();
+		try {
+			if (verifyMap(zdesc, map)) {
+				long start = System.nanoTime();
+				final StendhalRPZone zone = load(zdesc, map);
+				start = statistics.addTime(Phase.CREATE, start);
+
+				/*
+				 * Setup Descriptors
+				 */
+				final Iterator<SetupDescriptor> diter = zdesc.getDescriptors();
+
+				while (diter.hasNext()) {
+					diter.next().setup(zone);
 				}
-			} catch (final Exception ex) {
-				logger.error("Error loading zone: " + name, ex);
+				start = statistics.addTime(Phase.CONFIGURE, start);
+				// Zone configurators can add creatures, so this should be
+				// done after them
+				zone.calculateDangerLevel();
+				statistics.addTime(Phase.DANGER_LEVEL, start);
+				statistics.addZone();
 			}
+		} catch (final Exception ex) {
+			logger.error("Error loading zone: " + name, ex);
 		}
 	}
 
 	private static final String[] REQUIRED_LAYERS = { "0_floor", "1_terrain",
 			"2_object", "objects", "collision", "protection" };
 
-	private boolean verifyMap(final ZoneDesc zdesc, final StendhalMapStructure zonedata) {
+	private boolean verifyMap(final ZoneDesc zdesc, final PreparedMap map) {
 		for (final String layer : REQUIRED_LAYERS) {
-			if (!zonedata.hasLayer(layer)) {
+			if (!map.hasLayer(layer)) {
 				logger.error("Required layer " + layer + " missing in zone "
 						+ zdesc.getFile());
 				return false;
@@ -197,16 +292,17 @@ public final class ZonesXMLLoader {
 	 * Load zone data and create a new zone from it. Most of this should be moved
 	 * directly into ZoneXMLLoader.
 	 * @param desc the zone's descriptor
-	 * @param zonedata to be loaded
+	 * @param map the parsed map with its encoded layers
 	 * @return the created zone
 	 * @throws SAXException if any xml parsing error happened
 	 * @throws IOException if any IO error happened
 	 *
 	 *
 	 */
-	protected StendhalRPZone load(final ZoneDesc desc, final StendhalMapStructure zonedata)
+	protected StendhalRPZone load(final ZoneDesc desc, final PreparedMap map)
 			throws SAXException, IOException {
 		final String name = desc.getName();
+		final StendhalMapStructure zonedata = map.getMap();
 
 		final StendhalRPZone zone;
 		if (desc.getImplementation() == null) {
@@ -216,21 +312,21 @@ public final class ZonesXMLLoader {
 		}
 
 		zone.addTilesets(name + ".tilesets", zonedata.getTilesets());
-		zone.addLayer(name + ".0_floor", zonedata.getLayer("0_floor"));
-		zone.addLayer(name + ".1_terrain", zonedata.getLayer("1_terrain"));
-		zone.addLayer(name + ".2_object", zonedata.getLayer("2_object"));
+		zone.addLayer(name + ".0_floor", map.encode("0_floor"));
+		zone.addLayer(name + ".1_terrain", map.encode("1_terrain"));
+		zone.addLayer(name + ".2_object", map.encode("2_object"));
 
 		// Roof layers are optional
-		loadOptionalLayer(zone, zonedata, "3_roof");
-		loadOptionalLayer(zone, zonedata, "4_roof_add");
+		loadOptionalLayer(zone, map, "3_roof");
+		loadOptionalLayer(zone, map, "4_roof_add");
 		// Effect layers are optional too
-		loadOptionalLayer(zone, zonedata, "blend_ground");
-		loadOptionalLayer(zone, zonedata, "blend_roof");
+		loadOptionalLayer(zone, map, "blend_ground");
+		loadOptionalLayer(zone, map, "blend_roof");
 
 		zone.addCollisionLayer(name + ".collision",
-				zonedata.getLayer("collision"));
+				zonedata.getLayer("collision"), map.encode("collision"));
 		zone.addProtectionLayer(name + ".protection",
-				zonedata.getLayer("protection"));
+				zonedata.getLayer("protection"), map.encode("protection"));
 
 		if (desc.isInterior()) {
 			zone.setPosition();
@@ -262,13 +358,13 @@ public final class ZonesXMLLoader {
 	 * Load an optional layer, if present, to a zone.
 	 *
 	 * @param zone
-	 * @param zonedata
+	 * @param map
 	 * @param layerName
 	 * @throws IOException
 	 */
 	private void loadOptionalLayer(StendhalRPZone zone,
-			StendhalMapStructure zonedata, String layerName) throws IOException {
-		LayerDefinition layer = zonedata.getLayer(layerName);
+			PreparedMap map, String layerName) throws IOException {
+		byte[] layer = map.encode(layerName);
 		if (layer != null) {
 			zone.addLayer(zone.getName() + "." + layerName, layer);
 		}
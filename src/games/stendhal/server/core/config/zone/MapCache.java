@@ -0,0 +1,275 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.config.zone;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import games.stendhal.common.tiled.LayerDefinition;
+import games.stendhal.common.tiled.StendhalMapStructure;
+import games.stendhal.common.tiled.TileSetDefinition;
+import marauroa.common.Configuration;
+import marauroa.common.net.InputSerializer;
+
+/**
+ * Stores parsed maps with their encoded layers on disk, so that the TMX
+ * files do not have to be parsed and the layers do not have to be compressed
+ * again on the next start.
+ * <p>
+ * The cache files are named after the SHA-1 hash of the TMX file, so a
+ * changed map is parsed again automatically. They are written on the first
+ * start and memory mapped when they are read. The cache is enabled by
+ * setting <code>zone_cache_folder</code> in server.ini. Old cache files are
+ * not removed; the folder can be deleted at any time.
+ */
+public class MapCache {
+	private static final Logger logger = Logger.getLogger(MapCache.class);
+
+	/** version of the file format, increase on changes */
+	private static final int VERSION = 1;
+
+	private static final int MAGIC = 0x53544d43;
+
+	private static final String SUFFIX = ".map";
+
+	private static MapCache instance;
+
+	/** folder of the cache files, <code>null</code> if the cache is disabled */
+	private final File folder;
+
+	/**
+	 * Gets the MapCache configured in server.ini.
+	 *
+	 * @return MapCache
+	 */
+	public static synchronized MapCache get() {
+		if (instance == null) {
+			String folder = null;
+			try {
+				folder = Configuration.getConfiguration().get("zone_cache_folder");
+			} catch (final IOException e) {
+				logger.error(e, e);
+			}
+			instance = new MapCache((folder == null) || folder.trim().isEmpty() ? null : new File(folder.trim()));
+		}
+		return instance;
+	}
+
+	/**
+	 * Creates a new MapCache.
+	 *
+	 * @param folder folder of the cache files, or <code>null</code> to disable the cache
+	 */
+	public MapCache(final File folder) {
+		this.folder = folder;
+		if ((folder != null) && !folder.isDirectory() && !folder.mkdirs()) {
+			logger.error("Cannot create zone cache folder " + folder);
+		}
+	}
+
+	/**
+	 * Loads a map, from the cache if it contains the current version of the
+	 * map file.
+	 *
+	 * @param filename name of the TMX file
+	 * @return PreparedMap
+	 * @throws Exception in case the map cannot be read
+	 */
+	public PreparedMap load(final String filename) throws Exception {
+		if (folder == null) {
+			return PreparedMap.load(filename);
+		}
+
+		final byte[] source = readFully(TMXLoader.open(filename));
+		final File file = new File(folder, hash(source) + SUFFIX);
+		if (file.isFile()) {
+			try {
+				return read(file);
+			} catch (final IOException e) {
+				logger.warn("Ignoring broken zone cache file " + file + " for " + filename, e);
+			}
+		}
+
+		final PreparedMap map = new PreparedMap(new TMXLoader().readMap(filename, new ByteArrayInputStream(source)));
+		try {
+			write(file, map);
+		} catch (final IOException e) {
+			logger.error("Cannot write zone cache file " + file + " for " + filename, e);
+		}
+		return map;
+	}
+
+	private static byte[] readFully(final InputStream in) throws IOException {
+		try {
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[8192];
+			int count;
+			while ((count = in.read(buffer)) >= 0) {
+				out.write(buffer, 0, count);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static String hash(final byte[] data) throws NoSuchAlgorithmException {
+		final byte[] digest = MessageDigest.getInstance("SHA-1").digest(data);
+		final StringBuilder sb = new StringBuilder(digest.length * 2);
+		for (final byte b : digest) {
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+			sb.append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Writes a map to a cache file. The file is written under a temporary
+	 * name first, so that other threads and processes never see a partial
+	 * file.
+	 *
+	 * @param file cache file
+	 * @param map map to write
+	 * @throws IOException in case of an I/O error
+	 */
+	void write(final File file, final PreparedMap map) throws IOException {
+		final StendhalMapStructure structure = map.getMap();
+		final ByteArrayOutputStream array = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(array);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(structure.getWidth());
+		out.writeInt(structure.getHeight());
+
+		out.writeInt(structure.getTilesets().size());
+		for (final TileSetDefinition tileset : structure.getTilesets()) {
+			writeBytes(out, tileset.encode());
+		}
+
+		final Map<String, byte[]> layers = new HashMap<String, byte[]>();
+		addEncoded(layers, map, PreparedMap.CLIENT_LAYERS);
+		addEncoded(layers, map, PreparedMap.SERVER_LAYERS);
+		out.writeInt(layers.size());
+		for (final Map.Entry<String, byte[]> entry : layers.entrySet()) {
+			writeBytes(out, entry.getKey().getBytes(StandardCharsets.UTF_8));
+			writeBytes(out, entry.getValue());
+		}
+		out.close();
+
+		final File temp = File.createTempFile(file.getName(), ".tmp", folder);
+		try {
+			Files.write(temp.toPath(), array.toByteArray());
+			try {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch (final AtomicMoveNotSupportedException e) {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp.toPath());
+		}
+	}
+
+	private static void addEncoded(final Map<String, byte[]> layers, final PreparedMap map,
+			final String[] names) throws IOException {
+		for (final String name : names) {
+			final byte[] data = map.encode(name);
+			if (data != null) {
+				layers.put(name, data);
+			}
+		}
+	}
+
+	private static void writeBytes(final DataOutputStream out, final byte[] data) throws IOException {
+		out.writeInt(data.length);
+		out.write(data);
+	}
+
+	/**
+	 * Reads a map from a cache file.
+	 *
+	 * @param file cache file
+	 * @return PreparedMap
+	 * @throws IOException in case the file cannot be read or is not valid
+	 */
+	PreparedMap read(final File file) throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			final FileChannel channel = raf.getChannel();
+			final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			try {
+				return read(buffer);
+			} catch (final RuntimeException e) {
+				// BufferUnderflowException and friends
+				throw new IOException("Invalid zone cache file " + file, e);
+			}
+		} finally {
+			raf.close();
+		}
+	}
+
+	private PreparedMap read(final ByteBuffer buffer) throws IOException {
+		if ((buffer.getInt() != MAGIC) || (buffer.getInt() != VERSION)) {
+			throw new IOException("Unknown zone cache file format");
+		}
+		final StendhalMapStructure map = new StendhalMapStructure(buffer.getInt(), buffer.getInt());
+
+		final int tilesets = buffer.getInt();
+		for (int i = 0; i < tilesets; i++) {
+			final TileSetDefinition tileset = new TileSetDefinition(null, null, 0);
+			tileset.readObject(new InputSerializer(new ByteArrayInputStream(readBytes(buffer))));
+			map.addTileset(tileset);
+		}
+
+		final Map<String, byte[]> layers = new HashMap<String, byte[]>();
+		final int count = buffer.getInt();
+		for (int i = 0; i < count; i++) {
+			final String name = new String(readBytes(buffer), StandardCharsets.UTF_8);
+			layers.put(name, readBytes(buffer));
+		}
+
+		for (final String name : PreparedMap.SERVER_LAYERS) {
+			final byte[] data = layers.get(name);
+			if (data != null) {
+				try {
+					map.addLayer(LayerDefinition.decode(new ByteArrayInputStream(data)));
+				} catch (final ClassNotFoundException e) {
+					throw new IOException(e);
+				}
+			}
+		}
+		return new PreparedMap(map, layers);
+	}
+
+	private static byte[] readBytes(final ByteBuffer buffer) {
+		final byte[] res = new byte[buffer.getInt()];
+		buffer.get(res);
+		return res;
+	}
+}
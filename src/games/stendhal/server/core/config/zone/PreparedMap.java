@@ -0,0 +1,138 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.config.zone;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import games.stendhal.common.tiled.LayerDefinition;
+import games.stendhal.common.tiled.StendhalMapStructure;
+
+/**
+ * A parsed map together with the encoded form of the layers that are sent
+ * to the client.
+ * <p>
+ * Parsing and encoding do not touch the world, so they can be done on a
+ * worker thread before the zone is created.
+ */
+public class PreparedMap {
+	/** the layers that are sent to the client */
+	static final String[] CLIENT_LAYERS = { "0_floor", "1_terrain", "2_object",
+		"3_roof", "4_roof_add", "blend_ground", "blend_roof", "collision", "protection" };
+
+	/** the layers that are needed by the server after the zone is created */
+	static final String[] SERVER_LAYERS = { "objects", "collision", "protection" };
+
+	private final StendhalMapStructure map;
+
+	private final Map<String, byte[]> encodedLayers;
+
+	/** <code>true</code> if the map was read from the map cache */
+	private final boolean cached;
+
+	/**
+	 * Creates a new PreparedMap. The layers are encoded on demand.
+	 *
+	 * @param map parsed map
+	 */
+	public PreparedMap(final StendhalMapStructure map) {
+		this.map = map;
+		this.encodedLayers = new HashMap<String, byte[]>();
+		this.cached = false;
+	}
+
+	/**
+	 * Creates a PreparedMap read from the map cache. The map contains only
+	 * the layers needed by the server, the others are only available
+	 * encoded.
+	 *
+	 * @param map map with the server layers
+	 * @param encodedLayers encoded layers
+	 */
+	PreparedMap(final StendhalMapStructure map, final Map<String, byte[]> encodedLayers) {
+		this.map = map;
+		this.encodedLayers = encodedLayers;
+		this.cached = true;
+	}
+
+	/**
+	 * Parses a map file.
+	 *
+	 * @param filename name of the TMX file
+	 * @return PreparedMap
+	 * @throws Exception in case the map cannot be read
+	 */
+	public static PreparedMap load(final String filename) throws Exception {
+		return new PreparedMap(TMXLoader.load(filename));
+	}
+
+	/**
+	 * Encodes all layers that are sent to the client.
+	 *
+	 * @throws IOException in case of an error while encoding
+	 */
+	public void encodeLayers() throws IOException {
+		for (final String name : CLIENT_LAYERS) {
+			encode(name);
+		}
+	}
+
+	/**
+	 * Checks if the map has a layer.
+	 *
+	 * @param name name of the layer
+	 * @return <code>true</code> if the layer exists
+	 */
+	public boolean hasLayer(final String name) {
+		return encodedLayers.containsKey(name) || map.hasLayer(name);
+	}
+
+	/**
+	 * Checks if the map was read from the map cache.
+	 *
+	 * @return <code>true</code> if the map was not parsed
+	 */
+	public boolean isCached() {
+		return cached;
+	}
+
+	/**
+	 * Gets the parsed map. If the map was read from the map cache, it only
+	 * contains the layers needed by the server.
+	 *
+	 * @return map
+	 */
+	public StendhalMapStructure getMap() {
+		return map;
+	}
+
+	/**
+	 * Gets the encoded form of a layer.
+	 *
+	 * @param name name of the layer
+	 * @return encoded layer, or <code>null</code> if the map does not have the layer
+	 * @throws IOException in case of an error while encoding
+	 */
+	public byte[] encode(final String name) throws IOException {
+		byte[] res = encodedLayers.get(name);
+		if (res == null) {
+			final LayerDefinition layer = map.getLayer(name);
+			if (layer == null) {
+				return null;
+			}
+			res = layer.encode();
+			encodedLayers.put(name, res);
+		}
+		return res;
+	}
+}
@@ -14,6 +14,7 @@ package games.stendhal.server.core.config.zone;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -250,26 +251,48 @@ public class TMXLoader {
 	}
 
 	public StendhalMapStructure readMap(final String filename) throws Exception {
+		return readMap(filename, open(filename));
+	}
+
+	/**
+	 * Reads a map from a stream.
+	 *
+	 * @param filename name of the map file
+	 * @param in content of the map file, gzipped if the file name ends with .gz
+	 * @return the map
+	 * @throws Exception in case the map cannot be read
+	 */
+	StendhalMapStructure readMap(final String filename, InputStream in) throws Exception {
 		xmlPath = filename.substring(0,
 				filename.lastIndexOf(File.separatorChar) + 1);
 
-		InputStream is = getClass().getClassLoader().getResourceAsStream(
-				filename);
+		// Wrap with GZIP decoder for .tmx.gz files
+		if (filename.endsWith(".gz")) {
+			in = new GZIPInputStream(in);
+		}
 
-		if (is == null) {
-			final String xmlFile = makeUrl(filename);
-			// xmlPath = makeUrl(xmlPath);
+		return unmarshal(in);
+	}
 
-			final URL url = new URL(xmlFile);
-			is = url.openStream();
+	/**
+	 * Opens a map file.
+	 *
+	 * @param filename name of the map file
+	 * @return stream of the file content as stored
+	 * @throws IOException in case the file cannot be opened
+	 */
+	static InputStream open(final String filename) throws IOException {
+		final InputStream is = TMXLoader.class.getClassLoader().getResourceAsStream(
+				filename);
+		if (is != null) {
+			return is;
 		}
 
-		// Wrap with GZIP decoder for .tmx.gz files
-		if (filename.endsWith(".gz")) {
-			is = new GZIPInputStream(is);
-		}
+		final String xmlFile = makeUrl(filename);
+		// xmlPath = makeUrl(xmlPath);
 
-		return unmarshal(is);
+		final URL url = new URL(xmlFile);
+		return url.openStream();
 	}
 
 	public static void main(final String[] args) throws Exception {
@@ -0,0 +1,183 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.engine;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import games.stendhal.server.core.events.MovementListener;
+import games.stendhal.server.entity.Entity;
+import games.stendhal.server.util.SpatialGrid;
+
+/**
+ * The movement listeners of a zone, indexed by their areas so that a moving
+ * entity only needs to check the listeners near it.
+ * <p>
+ * The area of a listener is read when it is registered. Listeners that are
+ * entities are updated when the entity moves; other listeners must register
+ * again if their area changes. Listeners are returned in the order they were
+ * registered.
+ * <p>
+ * The listeners are called outside the lock of the index, so that they can
+ * register and unregister listeners.
+ */
+final class MovementListenerIndex {
+	/** Registration order of the listeners. */
+	private final Map<MovementListener, Long> listeners = new IdentityHashMap<MovementListener, Long>();
+
+	private final SpatialGrid<MovementListener> grid = new SpatialGrid<MovementListener>();
+
+	private final Comparator<MovementListener> registrationOrder = (a, b) -> Long.compare(listeners.get(a), listeners.get(b));
+
+	/** Sequence number of the next registered listener. */
+	private long nextSequence;
+
+	/** Number of listener areas that were checked. */
+	private long checks;
+
+	/** Number of listeners that did not need to be checked. */
+	private long avoidedChecks;
+
+	/**
+	 * Register a listener. A listener that is already registered is moved to
+	 * the end of the notification order.
+	 *
+	 * @param listener listener to add
+	 */
+	synchronized void add(final MovementListener listener) {
+		listeners.put(listener, Long.valueOf(nextSequence++));
+		update(listener);
+	}
+
+	/**
+	 * Unregister a listener.
+	 *
+	 * @param listener listener to remove
+	 */
+	synchronized void remove(final MovementListener listener) {
+		if (listeners.remove(listener) != null) {
+			grid.remove(listener);
+		}
+	}
+
+	/**
+	 * Update the indexed area of a listener, if it is registered.
+	 *
+	 * @param listener listener whose area may have changed
+	 */
+	synchronized void update(final MovementListener listener) {
+		if (listeners.containsKey(listener)) {
+			final Rectangle2D area = listener.getArea();
+			grid.put(listener, area.getX(), area.getY(), area.getWidth(), area.getHeight());
+		}
+	}
+
+	/**
+	 * Update the indexed area of an entity, if it is a registered listener.
+	 *
+	 * @param entity entity that moved
+	 */
+	void update(final Entity entity) {
+		if (entity instanceof MovementListener) {
+			update((MovementListener) entity);
+		}
+	}
+
+	/**
+	 * Get the listeners whose areas intersect an area.
+	 *
+	 * @param x left edge
+	 * @param y top edge
+	 * @param width width
+	 * @param height height
+	 * @return listeners in registration order
+	 */
+	synchronized List<MovementListener> getListeners(final double x, final double y, final double width, final double height) {
+		if (listeners.isEmpty()) {
+			return Collections.emptyList();
+		}
+		final List<MovementListener> res = new ArrayList<MovementListener>(2);
+		final long checksBefore = checks;
+		grid.find(x, y, width, height, listener -> {
+			checks++;
+			if (listener.getArea().intersects(x, y, width, height)) {
+				res.add(listener);
+			}
+			return false;
+		});
+		avoidedChecks += listeners.size() - (checks - checksBefore);
+		if (res.size() > 1) {
+			res.sort(registrationOrder);
+		}
+		return res;
+	}
+
+	/**
+	 * Get the listeners whose areas intersect at least one of two areas of the
+	 * same size.
+	 *
+	 * @param x1 left edge of the first area
+	 * @param y1 top edge of the first area
+	 * @param x2 left edge of the second area
+	 * @param y2 top edge of the second area
+	 * @param width width of the areas
+	 * @param height height of the areas
+	 * @return listeners in registration order
+	 */
+	synchronized List<MovementListener> getListeners(final double x1, final double y1, final double x2, final double y2,
+			final double width, final double height) {
+		if (listeners.isEmpty()) {
+			return Collections.emptyList();
+		}
+		final double minX = Math.min(x1, x2);
+		final double minY = Math.min(y1, y2);
+		final List<MovementListener> res = new ArrayList<MovementListener>(2);
+		final long checksBefore = checks;
+		grid.find(minX, minY, Math.max(x1, x2) + width - minX, Math.max(y1, y2) + height - minY, listener -> {
+			checks++;
+			final Rectangle2D area = listener.getArea();
+			if (area.intersects(x1, y1, width, height) || area.intersects(x2, y2, width, height)) {
+				res.add(listener);
+			}
+			return false;
+		});
+		avoidedChecks += listeners.size() - (checks - checksBefore);
+		if (res.size() > 1) {
+			res.sort(registrationOrder);
+		}
+		return res;
+	}
+
+	/**
+	 * Get the number of registered listeners.
+	 *
+	 * @return number of listeners
+	 */
+	synchronized int size() {
+		return listeners.size();
+	}
+
+	/**
+	 * Get the number of listener checks that were avoided by the index,
+	 * compared to checking every listener for every movement.
+	 *
+	 * @return number of avoided checks
+	 */
+	synchronized long getAvoidedChecks() {
+		return avoidedChecks;
+	}
+}
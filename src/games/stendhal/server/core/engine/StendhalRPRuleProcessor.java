@@ -17,12 +17,12 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
@@ -35,8 +35,11 @@ import games.stendhal.server.actions.admin.AdministrationAction;
 import games.stendhal.server.core.account.AccountCreator;
 import games.stendhal.server.core.account.CharacterCreator;
 import games.stendhal.server.core.engine.db.StendhalWebsiteDAO;
+import games.stendhal.server.core.engine.dbcommand.LogEventBuffer;
 import games.stendhal.server.core.engine.dbcommand.SetOnlineStatusCommand;
 import games.stendhal.server.core.engine.transformer.PlayerTransformer;
+import games.stendhal.server.core.engine.metrics.TurnMetrics;
+import games.stendhal.server.core.engine.metrics.TurnPhase;
 import games.stendhal.server.core.events.TurnListener;
 import games.stendhal.server.core.events.TurnNotifier;
 import games.stendhal.server.core.events.TutorialNotifier;
@@ -45,7 +48,9 @@ import games.stendhal.server.core.rp.StendhalRPAction;
 import games.stendhal.server.core.scripting.ScriptRunner;
 import games.stendhal.server.entity.Entity;
 import games.stendhal.server.entity.RPEntity;
+import games.stendhal.server.entity.npc.NPC;
 import games.stendhal.server.entity.npc.NPCList;
+import games.stendhal.server.entity.npc.SpeakerNPC;
 import games.stendhal.server.entity.npc.behaviour.impl.OutfitChangerBehaviour.ExpireOutfit;
 import games.stendhal.server.entity.player.AfkTimeouter;
 import games.stendhal.server.entity.player.Player;
@@ -106,6 +111,9 @@ public class StendhalRPRuleProcessor implements IRPRuleProcessor {
 
 	private LinkedList<marauroa.server.game.rp.GameEvent> gameEvents = new LinkedList<>();
 
+	/** runs zone logic in parallel, if enabled in server.ini */
+	private ZoneLogicExecutor zoneLogicExecutor;
+
 
 	/**
 	 * gets the singleton instance of StendhalRPRuleProcessor
@@ -130,8 +138,17 @@ public class StendhalRPRuleProcessor implements IRPRuleProcessor {
 	 */
 	protected StendhalRPRuleProcessor() {
 		onlinePlayers = new PlayerList();
-		playersRmText = new LinkedList<Player>();
+		playersRmText = new ArrayList<Player>();
 		entityToKill = new LinkedList<Pair<RPEntity, Entity>>();
+
+		try {
+			final int zoneLogicThreads = Configuration.getConfiguration().getInt("zone_logic_threads", 1);
+			if (zoneLogicThreads > 1) {
+				zoneLogicExecutor = new ZoneLogicExecutor(zoneLogicThreads);
+			}
+		} catch (final IOException e) {
+			logger.error(e, e);
+		}
 	}
 
 	/**
@@ -223,6 +240,9 @@ public class StendhalRPRuleProcessor implements IRPRuleProcessor {
 	 * @param killer
 	 */
 	public void killRPEntity(final RPEntity entity, final Entity killer) {
+		if (ZoneLogicExecutor.defer(() -> killRPEntity(entity, killer))) {
+			return;
+		}
 		entityToKill.add(new Pair<RPEntity, Entity>(entity, killer));
 	}
 
@@ -246,6 +266,9 @@ public class StendhalRPRuleProcessor implements IRPRuleProcessor {
 	}
 
 	public void removePlayerText(final Player player) {
+		if (ZoneLogicExecutor.defer(() -> removePlayerText(player))) {
+			return;
+		}
 		playersRmText.add(player);
 	}
 
@@ -281,13 +304,15 @@ public class StendhalRPRuleProcessor implements IRPRuleProcessor {
 	/** Notify it when a new turn happens. */
 	@Override
 	public synchronized void beginTurn() {
-		final long start = System.nanoTime();
+		final TurnMetrics metrics = TurnMetrics.get();
+		long start = metrics.beginTurn();
 
 		try {
 			destroyObsoleteZones();
 		} catch (final Exception e) {
 			logger.error("error in beginTurn", e);
 		}
+		start = metrics.record(TurnPhase.ZONE_REMOVAL, start);
 
 		try {
 			logNumberOfPlayersOnline();
@@ -300,25 +325,28 @@ public class StendhalRPRuleProcessor implements IRPRuleProcessor {
 		} catch (final Exception e) {
 			logger.error("error in beginTurn", e);
 		}
+		start = metrics.record(TurnPhase.KILLED_ENTITIES, start);
 
 		try {
 			executePlayerLogic();
 		} catch (final Exception e) {
 			logger.error("error in beginTurn", e);
 		}
+		start = metrics.record(TurnPhase.PLAYER_LOGIC, start);
 
 		try {
 			executeNPCsPreLogic();
 		} catch (final Exception e) {
 			logger.error("error in beginTurn", e);
 		}
+		start = metrics.record(TurnPhase.NPC_PRELOGIC, start);
 
 		try {
 			handlePlayersRmTexts();
 		} catch (final Exception e) {
 			logger.error("error in beginTurn", e);
 		}
-		logger.debug("Begin turn: " + (System.nanoTime() - start) / 1000000.0);
+		metrics.record(TurnPhase.PLAYER_TEXTS, start);
 	}
 
 	private void destroyObsoleteZones() {
@@ -349,9 +377,39 @@ public class StendhalRPRuleProcessor implements IRPRuleProcessor {
 	protected void executeNPCsPreLogic() {
 		// SpeakerNPC logic
 		final NPCList npcList = SingletonRepository.getNPCList();
-		final Set<String> npcs = npcList.getNPCs();
-		for (final String npc : npcs) {
-			npcList.get(npc).preLogic();
+		deliverPlayerTexts(npcList);
+		for (final SpeakerNPC npc : npcList.getNPCsByName()) {
+			if (!npc.isIdle()) {
+				npc.preLogic();
+			}
+		}
+	}
+
+	/**
+	 * Passes the texts the players said in the last turn to the NPCs that
+	 * can hear them, instead of letting every NPC look for speaking players.
+	 *
+	 * @param npcList list of the NPCs that get preLogic calls
+	 */
+	private void deliverPlayerTexts(final NPCList npcList) {
+		for (int i = 0; i < playersRmText.size(); i++) {
+			final Player player = playersRmText.get(i);
+			final StendhalRPZone zone = player.getZone();
+			if ((zone == null) || !player.has("text") || (playersRmText.indexOf(player) < i)) {
+				continue;
+			}
+			final int x = player.getX();
+			final int y = player.getY();
+			for (final NPC npc : zone.getNPCList()) {
+				if (!(npc instanceof SpeakerNPC)) {
+					continue;
+				}
+				final int range = npc.getPerceptionRange();
+				if ((Math.abs(x - npc.getX()) < range) && (Math.abs(y - npc.getY()) < range)
+						&& (npcList.get(npc.getName()) == npc)) {
+					((SpeakerNPC) npc).hear(player);
+				}
+			}
 		}
 	}
 
@@ -389,20 +447,35 @@ public class StendhalRPRuleProcessor implements IRPRuleProcessor {
 	@Override
 	public synchronized void endTurn() {
 		final int currentTurn = getTurn();
+		final TurnMetrics metrics = TurnMetrics.get();
+		long start = System.nanoTime();
 		try {
 
 			SingletonRepository.getTurnNotifier().logic(currentTurn);
+			start = metrics.record(TurnPhase.TURN_NOTIFIER, start);
 
-			for (final IRPZone zoneI : SingletonRepository.getRPWorld()) {
-				final StendhalRPZone zone = (StendhalRPZone) zoneI;
-				zone.logic();
+			if (zoneLogicExecutor != null) {
+				zoneLogicExecutor.logic(SingletonRepository.getRPWorld());
+			} else {
+				for (final IRPZone zoneI : SingletonRepository.getRPWorld()) {
+					final StendhalRPZone zone = (StendhalRPZone) zoneI;
+					ZoneLogicExecutor.logic(zone);
+				}
 			}
+			metrics.record(TurnPhase.ZONE_LOGIC, start);
+
+			LogEventBuffer.get().flushIfDue();
 
 			// run registered object's logic method for this turn
 
 		} catch (final Exception e) {
 			logger.error("error in endTurn", e);
 		}
+		if (metrics.isEnabled()) {
+			// The queue is processed by its own thread, so its backlog
+			// is recorded instead of a duration
+			metrics.endTurn(DBCommandQueue.get().size());
+		}
 	}
 
 	/**
@@ -24,6 +24,7 @@ import org.apache.log4j.Logger;
 
 import games.stendhal.common.parser.WordList;
 import games.stendhal.server.core.config.ZoneGroupsXMLLoader;
+import games.stendhal.server.core.engine.dbcommand.LogEventBuffer;
 import games.stendhal.server.entity.Entity;
 import games.stendhal.server.entity.mapstuff.portal.OneWayPortalDestination;
 import games.stendhal.server.entity.mapstuff.portal.Portal;
@@ -50,6 +51,8 @@ public class StendhalRPWorld extends RPWorld {
 
 	private final Map<String, Set<StendhalRPZone>> regionMap = new HashMap<String, Set<StendhalRPZone>>();
 
+	private final Map<StendhalRPZone, String> zoneRegions = new HashMap<StendhalRPZone, String>();
+
 
 	/**
 	 * Singleton access method.
@@ -80,6 +83,7 @@ public class StendhalRPWorld extends RPWorld {
 				zones.remove(zone);
 			}
 		}
+		zoneRegions.remove(zone);
 		return super.removeRPZone(zoneid);
 	}
 
@@ -170,6 +174,8 @@ public class StendhalRPWorld extends RPWorld {
 	@Override
 	public void onFinish() {
 		super.onFinish();
+		// write the item and kill logs of the players stored on shutdown
+		LogEventBuffer.get().flush();
 		new GameEvent("server system", "shutdown").raise();
 		try {
 			//TODO: find a more appropriate way to do this
@@ -283,6 +289,17 @@ public class StendhalRPWorld extends RPWorld {
 			regionMap.put(region, new HashSet<StendhalRPZone>());
 		}
 		regionMap.get(region).add(zone);
+		zoneRegions.put(zone, region);
+	}
+
+	/**
+	 * Gets the region of a zone
+	 *
+	 * @param zone
+	 * @return name of the region, or <code>null</code> if the zone was not added to a region
+	 */
+	public String getRegion(final StendhalRPZone zone) {
+		return zoneRegions.get(zone);
 	}
 
 	public TreeSet<String> getRegions() {
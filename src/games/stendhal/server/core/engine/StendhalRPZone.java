@@ -21,13 +21,18 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -46,6 +51,8 @@ import games.stendhal.common.tiled.TileSetDefinition;
 import games.stendhal.server.core.config.zone.TeleportationRules;
 import games.stendhal.server.core.events.MovementListener;
 import games.stendhal.server.core.events.ZoneEnterExitListener;
+import games.stendhal.server.core.pathfinder.DistanceFieldCache;
+import games.stendhal.server.core.pathfinder.ZoneConnectivity;
 import games.stendhal.server.core.rp.StendhalRPAction;
 import games.stendhal.server.core.rule.EntityManager;
 import games.stendhal.server.entity.ActiveEntity;
@@ -71,6 +78,7 @@ import games.stendhal.server.entity.npc.SpeakerNPC;
 import games.stendhal.server.entity.npc.TrainingDummy;
 import games.stendhal.server.entity.npc.TrainingDummyFactory;
 import games.stendhal.server.entity.player.Player;
+import games.stendhal.server.util.SpatialGrid;
 import games.stendhal.server.util.StringUtils;
 import marauroa.common.game.IRPZone;
 import marauroa.common.game.RPObject;
@@ -89,6 +97,20 @@ public class StendhalRPZone extends MarauroaRPZone {
 	 */
 	private static final double DANGER_WEIGHT_CREATURE_DENSITY = 1.0;
 
+	/** Order of entities returned by position lookups. */
+	private static final Comparator<RPObject> OBJECT_ID_ORDER = new Comparator<RPObject>() {
+		@Override
+		public int compare(final RPObject o1, final RPObject o2) {
+			return Integer.compare(o1.getID().getObjectID(), o2.getID().getObjectID());
+		}
+	};
+
+	/**
+	 * Number of turns the logic of a zone keeps running after the last
+	 * player or other activity source has left it.
+	 */
+	private static final int COOL_DOWN_TURNS = 100;
+
 	private static final Pattern ZONE_NAME_PATTERN = Pattern.compile("^(-?[\\d]|int)_(.+)$");
 
 	TeleportationRules teleRules = new TeleportationRules();
@@ -129,10 +151,22 @@ public class StendhalRPZone extends MarauroaRPZone {
 
 	private boolean moveToAllowed = true;
 
+	/** May the logic of this zone run in parallel to other zones? */
+	private boolean parallelLogicAllowed = true;
+
+	/** Activity state that decides if the zone logic gets executed. */
+	private ZoneActivity activity = ZoneActivity.ACTIVE;
+
+	/** Number of turns since the zone became empty. */
+	private int idleTurns;
+
+	/** Objects that keep this zone active even if no player is in it. */
+	private final Set<Object> activitySources = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+
 	/**
-	 * Objects that implement MovementListener.
+	 * Objects that implement MovementListener, indexed by their areas.
 	 */
-	private final List<MovementListener> movementListeners;
+	private final MovementListenerIndex movementListeners;
 
 
 	private final List<ZoneEnterExitListener> zoneListeners;
@@ -144,6 +178,21 @@ public class StendhalRPZone extends MarauroaRPZone {
 	 */
 	private final Set<Item> itemsOnGround;
 
+	/**
+	 * Spatial index of the entities in this zone, used for collision checks
+	 * and position lookups.
+	 */
+	private final SpatialGrid<Entity> entityGrid;
+
+	/** Spatial index of playersAndFriends, for finding targets of creatures. */
+	private final SpatialGrid<RPEntity> targetGrid;
+
+	/** Distance fields of entities that are chased by creatures. */
+	private final DistanceFieldCache distanceFields;
+
+	/** Connected walkable regions, for rejecting impossible path searches. */
+	private final ZoneConnectivity connectivity;
+
 	/** contains data to if a certain area is walkable. */
 	public CollisionDetection collisionMap;
 
@@ -173,6 +222,10 @@ public class StendhalRPZone extends MarauroaRPZone {
 		entryPoint = null;
 		portals = new LinkedList<Portal>();
 		itemsOnGround = new HashSet<Item>();
+		entityGrid = new SpatialGrid<Entity>();
+		targetGrid = new SpatialGrid<RPEntity>();
+		distanceFields = new DistanceFieldCache(this);
+		connectivity = new ZoneConnectivity(this);
 		bloods = new LinkedList<Blood>();
 		npcs = new LinkedList<NPC>();
 		sheepFoods = new LinkedList<SheepFood>();
@@ -181,7 +234,7 @@ public class StendhalRPZone extends MarauroaRPZone {
 		players = new LinkedList<Player>();
 		playersAndFriends = new LinkedList<RPEntity>();
 
-		movementListeners = new LinkedList<MovementListener>();
+		movementListeners = new MovementListenerIndex();
 		zoneListeners = new LinkedList<ZoneEnterExitListener>();
 
 		collisionMap = new CollisionDetection();
@@ -364,6 +417,16 @@ public class StendhalRPZone extends MarauroaRPZone {
 		addToContent(name, byteContents);
 	}
 
+	/**
+	 * Adds a layer that has already been encoded with {@link LayerDefinition#encode()}.
+	 *
+	 * @param name name of the layer content
+	 * @param encodedLayer encoded layer
+	 */
+	public void addLayer(final String name, final byte[] encodedLayer) {
+		addToContent(name, encodedLayer);
+	}
+
 	public void addTilesets(final String name, final List<TileSetDefinition> tilesets)
 			throws IOException {
 		/*
@@ -449,13 +512,37 @@ public class StendhalRPZone extends MarauroaRPZone {
 
 	public void addCollisionLayer(final String name, final LayerDefinition collisionLayer)
 			throws IOException {
-		addToContent(name, collisionLayer.encode());
+		addCollisionLayer(name, collisionLayer, collisionLayer.encode());
+	}
+
+	/**
+	 * Adds the collision layer.
+	 *
+	 * @param name name of the layer content
+	 * @param collisionLayer collision layer
+	 * @param encodedLayer the layer encoded with {@link LayerDefinition#encode()}
+	 */
+	public void addCollisionLayer(final String name, final LayerDefinition collisionLayer,
+			final byte[] encodedLayer) {
+		addToContent(name, encodedLayer);
 		collisionMap.setCollisionData(collisionLayer);
 	}
 
 	public void addProtectionLayer(final String name, final LayerDefinition protectionLayer)
 			throws IOException {
-		addToContent(name, protectionLayer.encode());
+		addProtectionLayer(name, protectionLayer, protectionLayer.encode());
+	}
+
+	/**
+	 * Adds the protection layer.
+	 *
+	 * @param name name of the layer content
+	 * @param protectionLayer protection layer
+	 * @param encodedLayer the layer encoded with {@link LayerDefinition#encode()}
+	 */
+	public void addProtectionLayer(final String name, final LayerDefinition protectionLayer,
+			final byte[] encodedLayer) {
+		addToContent(name, encodedLayer);
 		protectionMap.setCollisionData(protectionLayer);
 	}
 
@@ -570,15 +657,7 @@ public class StendhalRPZone extends MarauroaRPZone {
 	 * @return free area size
 	 */
 	private int getFreeArea() {
-		int res = 0;
-		for (int y = 0; y < getHeight(); y++) {
-			for (int x = 0; x < getWidth(); x++) {
-				if (!collides(x, y)) {
-					res++;
-				}
-			}
-		}
-		return res;
+		return collisionMap.getFreeArea();
 	}
 
 	/**
@@ -881,12 +960,20 @@ public class StendhalRPZone extends MarauroaRPZone {
 	}
 
 	private synchronized void add(final RPObject object, final Player player, final boolean expire) {
+		if (ZoneLogicExecutor.deferIfOtherZone(this, () -> add(object, player, expire))) {
+			return;
+		}
+
 		/*
 		 * Assign [zone relative] ID info. TODO: Move up to MarauroaRPZone
 		 */
 		assignRPObjectID(object);
 		super.add(object);
 
+		if (object instanceof Entity) {
+			updateEntityArea((Entity) object, true);
+		}
+
 		notifyAdded(object);
 
 		// Needs to be before adding an item, in case Item.onPutOnGround()
@@ -912,24 +999,24 @@ public class StendhalRPZone extends MarauroaRPZone {
 		} else if (object instanceof Player) {
 			Player playerObject = (Player) object;
 			players.add(playerObject);
-			playersAndFriends.add(playerObject);
+			addToPlayersAndFriends(playerObject);
 			/*
 			 * super.add() clears the events, so this needs to be after it for
 			 * the player to see the zone achievements. Also, Player.onAdded()
 			 * sets the !visited slot, so this should be after it to have the
 			 * achievement appear when the player enters the last missing zone.
 			 */
-			SingletonRepository.getAchievementNotifier().onZoneEnter(playerObject);
+			SingletonRepository.getAchievementNotifier().onZoneEnter(playerObject, this);
 		} else if (object instanceof AttackableCreature) {
-			playersAndFriends.add((AttackableCreature) object);
+			addToPlayersAndFriends((AttackableCreature) object);
 		} else if (object instanceof Sheep) {
 			if (((Sheep) object).wasOwned()) {
-				playersAndFriends.add((Sheep) object);
+				addToPlayersAndFriends((Sheep) object);
 			}
 		} else if (object instanceof SheepFood) {
 			sheepFoods.add((SheepFood) object);
 		} else if (object instanceof BabyDragon) {
-			playersAndFriends.add((BabyDragon) object);
+			addToPlayersAndFriends((BabyDragon) object);
 		} else if (object instanceof SpeakerNPC) {
 			SingletonRepository.getNPCList().add((SpeakerNPC) object);
 		} else if (object instanceof Portal) {
@@ -938,6 +1025,7 @@ public class StendhalRPZone extends MarauroaRPZone {
 
 		if (object instanceof NPC) {
 			npcs.add((NPC) object);
+			updateActivitySource((NPC) object);
 		}
 
 		// TODO: Move up to MarauroaRPZone?
@@ -949,9 +1037,22 @@ public class StendhalRPZone extends MarauroaRPZone {
 	 *
 	 * @param object RPEntity
 	 */
-	public void addToPlayersAndFriends(RPEntity object) {
-		if (!playersAndFriends.contains(object)) {
+	public synchronized void addToPlayersAndFriends(RPEntity object) {
+		if (!targetGrid.contains(object)) {
 			playersAndFriends.add(object);
+			final Rectangle2D area = object.getArea();
+			targetGrid.put(object, area.getX(), area.getY(), area.getWidth(), area.getHeight());
+		}
+	}
+
+	/**
+	 * removes an RPEntity from the playersAndFriends list.
+	 *
+	 * @param object RPEntity
+	 */
+	private void removeFromPlayersAndFriends(final RPEntity object) {
+		if (targetGrid.remove(object)) {
+			playersAndFriends.remove(object);
 		}
 	}
 
@@ -969,6 +1070,9 @@ public class StendhalRPZone extends MarauroaRPZone {
 
 	@Override
 	public synchronized RPObject remove(final RPObject.ID id) {
+		if (ZoneLogicExecutor.deferIfOtherZone(this, () -> remove(id))) {
+			return get(id);
+		}
 
 		final RPObject object = get(id);
 		notifyRemoved(object);
@@ -978,21 +1082,22 @@ public class StendhalRPZone extends MarauroaRPZone {
 
 		if (object instanceof NPC) {
 			npcs.remove(object);
+			activitySources.remove(object);
 		}
 
 		if (object instanceof Blood) {
 			bloods.remove(object);
 		} else if (object instanceof Player) {
 			players.remove(object);
-			playersAndFriends.remove(object);
+			removeFromPlayersAndFriends((RPEntity) object);
 		} else if (object instanceof AttackableCreature) {
-			playersAndFriends.remove(object);
+			removeFromPlayersAndFriends((RPEntity) object);
 		} else if (object instanceof Sheep) {
-			playersAndFriends.remove(object);
+			removeFromPlayersAndFriends((RPEntity) object);
 		} else if (object instanceof SheepFood) {
 			sheepFoods.remove(object);
 		} else if (object instanceof BabyDragon) {
-			playersAndFriends.remove(object);
+			removeFromPlayersAndFriends((RPEntity) object);
 		} else if (object instanceof SpeakerNPC) {
 			SingletonRepository.getNPCList().remove(((SpeakerNPC) object).getName());
 		} else if (object instanceof Portal) {
@@ -1008,6 +1113,11 @@ public class StendhalRPZone extends MarauroaRPZone {
 
 		super.remove(id);
 
+		if (object instanceof Entity) {
+			entityGrid.remove((Entity) object);
+			distanceFields.remove((Entity) object);
+		}
+
 		if (object instanceof Item) {
 			final Item item = (Item) object;
 			itemsOnGround.remove(item);
@@ -1035,6 +1145,7 @@ public class StendhalRPZone extends MarauroaRPZone {
 
 			if (object instanceof NPC) {
 				npcs.remove(object);
+				activitySources.remove(object);
 			}
 
 			final RPSlot slot = object.getContainerSlot();
@@ -1160,23 +1271,72 @@ public class StendhalRPZone extends MarauroaRPZone {
 		return getCollidingObject(entity, area) != null;
 	}
 
-	private Entity getCollidingObject(final Entity entity, final Rectangle2D area) {
-		for (final RPObject other : objects.values()) {
-			// Ignore same object
-			if (entity != other) {
-				final Entity otherEntity = (Entity) other;
-
-				// Check if the objects overlap
-				if (area.intersects(otherEntity.getX(), otherEntity.getY(), otherEntity.getWidth(), otherEntity.getHeight())) {
+	private synchronized Entity getCollidingObject(final Entity entity, final Rectangle2D area) {
+		// Only the entities near the area need to be checked
+		return entityGrid.find(area.getX(), area.getY(), area.getWidth(), area.getHeight(),
+				otherEntity -> (entity != otherEntity)
+					// Check if the objects overlap
+					&& area.intersects(otherEntity.getX(), otherEntity.getY(), otherEntity.getWidth(), otherEntity.getHeight())
 					// Check if it's blocking
-					if (otherEntity.isObstacle(entity)) {
-						return otherEntity;
-					}
-				}
+					&& otherEntity.isObstacle(entity));
+	}
+
+	/**
+	 * Updates the position of an entity in the spatial index of this zone.
+	 * Entities call this when their position or size changes.
+	 *
+	 * @param entity
+	 *            The entity that moved or was resized.
+	 */
+	public void updateEntityArea(final Entity entity) {
+		updateEntityArea(entity, false);
+	}
+
+	private synchronized void updateEntityArea(final Entity entity, final boolean added) {
+		if (added || entityGrid.contains(entity)) {
+			final Rectangle2D area = entity.getArea();
+			entityGrid.put(entity, area.getX(), area.getY(), area.getWidth(), area.getHeight());
+			if ((entity instanceof RPEntity) && targetGrid.contains((RPEntity) entity)) {
+				targetGrid.put((RPEntity) entity, area.getX(), area.getY(), area.getWidth(), area.getHeight());
 			}
+			movementListeners.update(entity);
 		}
+	}
 
-		return null;
+	/**
+	 * Calls an action for each entity that may overlap an area. Entities near
+	 * the area can be included too.
+	 *
+	 * @param x x coordinate of the area
+	 * @param y y coordinate of the area
+	 * @param width width of the area
+	 * @param height height of the area
+	 * @param action the action
+	 */
+	public synchronized void forEachEntityIn(final double x, final double y, final double width,
+			final double height, final Consumer<Entity> action) {
+		entityGrid.find(x, y, width, height, entity -> {
+			action.accept(entity);
+			return false;
+		});
+	}
+
+	/**
+	 * Get the distance fields of the entities that are chased in this zone.
+	 *
+	 * @return distance fields
+	 */
+	public DistanceFieldCache getDistanceFields() {
+		return distanceFields;
+	}
+
+	/**
+	 * Get the connected walkable regions of this zone.
+	 *
+	 * @return connectivity data
+	 */
+	public ZoneConnectivity getConnectivity() {
+		return connectivity;
 	}
 
 	/**
@@ -1187,36 +1347,21 @@ public class StendhalRPZone extends MarauroaRPZone {
 	 * @return the first entity found if there are more than one or null if there are none
 	 */
 	public synchronized Entity getEntityAt(final double x, final double y) {
-		for (final RPObject other : objects.values()) {
-			final Entity otherEntity = (Entity) other;
-
-			final Rectangle2D rect = otherEntity.getArea();
-			if (rect.contains(x, y)) {
-				return otherEntity;
-			}
+		final List<Entity> entities = getEntitiesAt(x, y);
+		if (entities.isEmpty()) {
+			return null;
 		}
-		return null;
+		return entities.get(0);
 	}
 
 	/**
 	 * Finds all entities at the given coordinates.
 	 * @param x coordinate
 	 * @param y coordinate
-	 * @return list of entities at (x, y)
+	 * @return list of entities at (x, y), ordered by object ID
 	 */
 	public synchronized List<Entity> getEntitiesAt(final double x, final double y) {
-		List<Entity> entities = new LinkedList<Entity>();
-
-		for (final RPObject other : objects.values()) {
-			final Entity entity = (Entity) other;
-
-			final Rectangle2D rect = entity.getArea();
-			if (rect.contains(x, y)) {
-				entities.add(entity);
-			}
-		}
-
-		return entities;
+		return getEntitiesAt(x, y, Entity.class);
 	}
 
 
@@ -1224,21 +1369,21 @@ public class StendhalRPZone extends MarauroaRPZone {
 	 * Finds all entities at the given coordinates.
 	 * @param x coordinate
 	 * @param y coordinate
-	 * @return list of entities at (x, y)
+	 * @return list of entities at (x, y), ordered by object ID
 	 */
 	public synchronized <T extends Entity> List<T> getEntitiesAt(final double x, final double y, Class<T> clazz) {
-		List<T> entities = new LinkedList<T>();
-
-		for (final RPObject other : objects.values()) {
-			final Entity entity = (Entity) other;
-			if (!clazz.isInstance(entity)) {
-				continue;
-			}
+		final List<T> entities = new ArrayList<T>();
 
-			final Rectangle2D rect = entity.getArea();
-			if (rect.contains(x, y)) {
+		entityGrid.find(x, y, 0, 0, entity -> {
+			if (clazz.isInstance(entity) && entity.getArea().contains(x, y)) {
 				entities.add(clazz.cast(entity));
 			}
+			return false;
+		});
+
+		// Keep the order stable regardless of the grid layout
+		if (entities.size() > 1) {
+			entities.sort(OBJECT_ID_ORDER);
 		}
 
 		return entities;
@@ -1307,15 +1452,10 @@ public class StendhalRPZone extends MarauroaRPZone {
 	 *            The new Y coordinate.
 	 */
 	public void notifyEntered(final ActiveEntity entity, final int newX, final int newY) {
-		Rectangle2D eArea;
-
-		eArea = entity.getArea(newX, newY);
+		final Rectangle2D area = entity.getArea();
 
-		for (final MovementListener l : movementListeners) {
-			Rectangle2D area = l.getArea();
-			if (area.intersects(eArea)) {
-				l.onEntered(entity, this, newX, newY);
-			}
+		for (final MovementListener l : movementListeners.getListeners(newX, newY, area.getWidth(), area.getHeight())) {
+			l.onEntered(entity, this, newX, newY);
 		}
 	}
 
@@ -1330,15 +1470,10 @@ public class StendhalRPZone extends MarauroaRPZone {
 	 *            The old Y coordinate.
 	 */
 	public void notifyExited(final ActiveEntity entity, final int oldX, final int oldY) {
-		Rectangle2D eArea;
-
-		eArea = entity.getArea(oldX, oldY);
+		final Rectangle2D area = entity.getArea();
 
-		for (final MovementListener l : movementListeners) {
-			Rectangle2D area = l.getArea();
-			if (area.intersects(eArea)) {
-				l.onExited(entity, this, oldX, oldY);
-			}
+		for (final MovementListener l : movementListeners.getListeners(oldX, oldY, area.getWidth(), area.getHeight())) {
+			l.onExited(entity, this, oldX, oldY);
 		}
 	}
 
@@ -1358,19 +1493,17 @@ public class StendhalRPZone extends MarauroaRPZone {
 	 */
 	public void notifyMovement(final ActiveEntity entity, final int oldX, final int oldY,
 			final int newX, final int newY) {
-		Rectangle2D oeArea;
-		Rectangle2D neArea;
+		final Rectangle2D eArea = entity.getArea();
+		final double width = eArea.getWidth();
+		final double height = eArea.getHeight();
 		boolean oldIn;
 		boolean newIn;
 
-		oeArea = entity.getArea(oldX, oldY);
-		neArea = entity.getArea(newX, newY);
-
-		for (final MovementListener l : movementListeners) {
+		for (final MovementListener l : movementListeners.getListeners(oldX, oldY, newX, newY, width, height)) {
 			Rectangle2D area = l.getArea();
 
-			oldIn = area.intersects(oeArea);
-			newIn = area.intersects(neArea);
+			oldIn = area.intersects(oldX, oldY, width, height);
+			newIn = area.intersects(newX, newY, width, height);
 
 			if (!oldIn && newIn) {
 				l.onEntered(entity, this, newX, newY);
@@ -1388,20 +1521,10 @@ public class StendhalRPZone extends MarauroaRPZone {
 
 	public void notifyBeforeMovement(final ActiveEntity entity, final int oldX, final int oldY,
 			final int newX, final int newY) {
-		Rectangle2D neArea;
-		boolean newIn;
-
-		neArea = entity.getArea(newX, newY);
-
-		for (final MovementListener l : movementListeners) {
-			Rectangle2D area = l.getArea();
-
-			newIn = area.intersects(neArea);
-
-			if (newIn) {
-				l.beforeMove(entity, this, oldX, oldY, newX, newY);
-			}
+		final Rectangle2D area = entity.getArea();
 
+		for (final MovementListener l : movementListeners.getListeners(newX, newY, area.getWidth(), area.getHeight())) {
+			l.beforeMove(entity, this, oldX, oldY, newX, newY);
 		}
 	}
 
@@ -1416,8 +1539,9 @@ public class StendhalRPZone extends MarauroaRPZone {
 
 
 	/**
-	 * Register a movement listener for notification. Eventually create a
-	 * macro-block hash to cut down on listeners to check.
+	 * Register a movement listener for notification. The listener is indexed
+	 * by its current area. Listeners that are not entities must register
+	 * again when their area changes.
 	 *
 	 * @param listener
 	 *            A movement listener to register.
@@ -1436,6 +1560,16 @@ public class StendhalRPZone extends MarauroaRPZone {
 		movementListeners.remove(listener);
 	}
 
+	/**
+	 * Get the number of movement listener checks that were skipped because
+	 * the listener areas were not near the moving entities.
+	 *
+	 * @return number of avoided listener checks
+	 */
+	public long getAvoidedMovementListenerChecks() {
+		return movementListeners.getAvoidedChecks();
+	}
+
 	@Override
 	public String toString() {
 		return "zone " + zoneid + " at (" + x + "," + y + ", " + level + ") interior: " + isInterior();
@@ -1467,6 +1601,42 @@ public class StendhalRPZone extends MarauroaRPZone {
 		return playersAndFriends;
 	}
 
+	/**
+	 * Finds the nearest of the players and friendly entities within a range
+	 * of an entity.
+	 *
+	 * @param entity the entity looking for a target
+	 * @param range maximum distance
+	 * @param filter callback that returns <code>true</code> for acceptable
+	 * 	targets
+	 * @return the nearest acceptable target, or <code>null</code> if there is
+	 * 	none within range
+	 */
+	public synchronized RPEntity getNearestPlayerOrFriend(final Entity entity, final double range,
+			final Predicate<? super RPEntity> filter) {
+		final double squaredRange = range * range;
+		return targetGrid.findNearest(entity.getX() - range, entity.getY() - range,
+				entity.getWidth() + 2 * range, entity.getHeight() + 2 * range,
+				entity::squaredDistance,
+				target -> (entity.squaredDistance(target) <= squaredRange) && filter.test(target));
+	}
+
+	/**
+	 * Finds one of the players and friendly entities in an area.
+	 *
+	 * @param x x coordinate of the area
+	 * @param y y coordinate of the area
+	 * @param width width of the area
+	 * @param height height of the area
+	 * @param filter callback that returns <code>true</code> for acceptable
+	 * 	targets. It is responsible for checking their exact position
+	 * @return an acceptable target, or <code>null</code> if there is none
+	 */
+	public synchronized RPEntity findPlayerOrFriend(final double x, final double y, final double width,
+			final double height, final Predicate<? super RPEntity> filter) {
+		return targetGrid.find(x, y, width, height, filter);
+	}
+
 	/**
 	 * Can moveto (mouse movement using pathfinding) be done on this map?
 	 *
@@ -1488,6 +1658,29 @@ public class StendhalRPZone extends MarauroaRPZone {
 
 	}
 
+	/**
+	 * Checks whether the logic of this zone may run in parallel to the logic
+	 * of other zones.
+	 *
+	 * @return <code>true</code>, if parallel execution is allowed
+	 */
+	public boolean isParallelLogicAllowed() {
+		return parallelLogicAllowed;
+	}
+
+	/**
+	 * Sets the flag whether the logic of this zone may run in parallel to the
+	 * logic of other zones. Zones whose NPCs access other zones directly,
+	 * instead of through the usual world and turn notifier methods, should
+	 * disable it.
+	 *
+	 * @param parallelLogicAllowed
+	 *            true, if it is allowed, false otherwise
+	 */
+	public void setParallelLogicAllowed(final boolean parallelLogicAllowed) {
+		this.parallelLogicAllowed = parallelLogicAllowed;
+	}
+
 	private int debugturn;
 
 	private boolean accessible;
@@ -1521,6 +1714,10 @@ public class StendhalRPZone extends MarauroaRPZone {
 	}
 
 	public void logic() {
+		if (!updateActivity()) {
+			return;
+		}
+
 		for (final NPC npc : npcs) {
 			try {
 				npc.logic();
@@ -1537,6 +1734,85 @@ public class StendhalRPZone extends MarauroaRPZone {
 		}
 	}
 
+	/**
+	 * Updates the activity state of this zone.
+	 *
+	 * @return <code>true</code> if the zone logic should be executed
+	 */
+	private boolean updateActivity() {
+		if (!playersAndFriends.isEmpty() || !activitySources.isEmpty()) {
+			if (activity == ZoneActivity.DORMANT) {
+				final int skippedTurns = idleTurns - COOL_DOWN_TURNS;
+				for (final NPC npc : npcs) {
+					try {
+						npc.onLogicResumed(skippedTurns);
+					} catch (final Exception e) {
+						logger.error("Error resuming npc logic for zone " + getID().getID(), e);
+					}
+				}
+			}
+			activity = ZoneActivity.ACTIVE;
+			idleTurns = 0;
+			return true;
+		}
+
+		idleTurns++;
+		if (idleTurns <= COOL_DOWN_TURNS) {
+			activity = ZoneActivity.COOLING_DOWN;
+			return true;
+		}
+		activity = ZoneActivity.DORMANT;
+		return false;
+	}
+
+	/**
+	 * Gets the activity state of this zone.
+	 *
+	 * @return activity state
+	 */
+	public ZoneActivity getActivity() {
+		return activity;
+	}
+
+	/**
+	 * Registers an object that needs the zone logic to be executed even if
+	 * there are no players in the zone, for example an NPC that has to keep
+	 * walking while nobody watches.
+	 *
+	 * @param source
+	 *            object that keeps the zone active
+	 */
+	public void addActivitySource(final Object source) {
+		activitySources.add(source);
+	}
+
+	/**
+	 * Unregisters an object that kept the zone active.
+	 *
+	 * @param source
+	 *            object registered with addActivitySource()
+	 */
+	public void removeActivitySource(final Object source) {
+		activitySources.remove(source);
+	}
+
+	/**
+	 * Registers or unregisters an NPC of this zone as an activity source,
+	 * depending on whether it has to keep moving while no player is in the
+	 * zone.
+	 *
+	 * @param npc
+	 *            NPC in this zone
+	 */
+	public void updateActivitySource(final NPC npc) {
+		// the NPC may still refer to this zone after it has been removed
+		if (npc.keepsZoneActive() && (get(npc.getID()) == npc)) {
+			activitySources.add(npc);
+		} else {
+			activitySources.remove(npc);
+		}
+	}
+
 	/**
 	 * Return whether the zone is completely empty.
 	 * @return true if there are no objects in zone
@@ -0,0 +1,31 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.engine;
+
+/**
+ * Activity state of a zone, which decides whether the logic of its NPCs and
+ * portals is executed.
+ */
+public enum ZoneActivity {
+
+	/** Players, their friends or other activity sources are in the zone. */
+	ACTIVE,
+
+	/**
+	 * The zone became empty recently. Logic is still executed so that
+	 * creatures and NPCs can settle down.
+	 */
+	COOLING_DOWN,
+
+	/** The zone has been empty for a while. Logic is skipped. */
+	DORMANT;
+}
@@ -0,0 +1,229 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.log4j.Logger;
+
+import games.stendhal.server.core.engine.metrics.TurnMetrics;
+
+import marauroa.common.game.IRPZone;
+
+/**
+ * Runs the logic of zones on a pool of worker threads.
+ *
+ * While a zone's logic runs on a worker, every effect that reaches outside
+ * of that zone (turn notifier registrations, kills, changes of the NPC list
+ * and moving entities to other zones) is not executed immediately, but queued
+ * with {@link #defer(Runnable)}. After all workers are done, the queued
+ * effects are executed on the game thread, zone by zone in world order, so
+ * that the outcome of a turn does not depend on thread scheduling.
+ *
+ * Zones that must not run in parallel can opt out with
+ * {@link StendhalRPZone#setParallelLogicAllowed(boolean)}; their logic runs
+ * on the game thread after the merge step.
+ *
+ * This mode is enabled by setting <code>zone_logic_threads</code> in
+ * server.ini to a value greater than 1. The worker threads are daemon
+ * threads, so they do not keep the server from shutting down.
+ */
+public class ZoneLogicExecutor {
+	private static final Logger logger = Logger.getLogger(ZoneLogicExecutor.class);
+
+	private final ExecutorService pool;
+
+	/**
+	 * Creates a new ZoneLogicExecutor.
+	 *
+	 * @param threads number of worker threads
+	 */
+	public ZoneLogicExecutor(final int threads) {
+		pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private int counter = 0;
+
+			@Override
+			public synchronized Thread newThread(final Runnable runnable) {
+				counter++;
+				final Thread thread = new WorkerThread(runnable, "zone-logic-" + counter);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		logger.info("Running zone logic on " + threads + " threads");
+	}
+
+	/**
+	 * Runs the logic of all zones and executes the deferred cross zone effects.
+	 *
+	 * @param zones zones of the world
+	 */
+	public void logic(final Iterable<IRPZone> zones) {
+		final List<ZoneTask> tasks = new ArrayList<ZoneTask>();
+		final List<StendhalRPZone> sequential = new ArrayList<StendhalRPZone>();
+
+		for (final IRPZone zoneI : zones) {
+			final StendhalRPZone zone = (StendhalRPZone) zoneI;
+			if (zone.isParallelLogicAllowed()) {
+				tasks.add(new ZoneTask(zone));
+			} else {
+				sequential.add(zone);
+			}
+		}
+
+		final List<Future<Void>> results;
+		try {
+			results = pool.invokeAll(tasks);
+		} catch (final InterruptedException e) {
+			logger.error("Interrupted while waiting for zone logic", e);
+			Thread.currentThread().interrupt();
+			return;
+		}
+
+		// merge the effects in world order
+		for (int i = 0; i < tasks.size(); i++) {
+			final ZoneTask task = tasks.get(i);
+			try {
+				results.get(i).get();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (final ExecutionException e) {
+				logger.error("Error in logic for zone " + task.zone.getName(), e.getCause());
+			}
+			for (final Runnable effect : task.effects) {
+				try {
+					effect.run();
+				} catch (final RuntimeException e) {
+					logger.error("Error in deferred effect of zone " + task.zone.getName(), e);
+				}
+			}
+		}
+
+		for (final StendhalRPZone zone : sequential) {
+			logic(zone);
+		}
+	}
+
+	/**
+	 * Runs the logic of a zone and records its duration in the TurnMetrics.
+	 *
+	 * @param zone zone
+	 */
+	static void logic(final StendhalRPZone zone) {
+		final TurnMetrics metrics = TurnMetrics.get();
+		if (!metrics.isEnabled()) {
+			zone.logic();
+			return;
+		}
+		final long start = System.nanoTime();
+		zone.logic();
+		metrics.recordZone(zone.getName(), System.nanoTime() - start);
+	}
+
+	/**
+	 * Gets the zone whose logic is executed by the current thread.
+	 *
+	 * @return zone, or <code>null</code> if the current thread is not a zone
+	 * 	logic worker
+	 */
+	public static StendhalRPZone getCurrentZone() {
+		final Thread thread = Thread.currentThread();
+		if (!(thread instanceof WorkerThread)) {
+			return null;
+		}
+		final ZoneTask task = ((WorkerThread) thread).task;
+		if (task == null) {
+			return null;
+		}
+		return task.zone;
+	}
+
+	/**
+	 * Defers an effect to the merge step, if the current thread is executing
+	 * zone logic in parallel.
+	 *
+	 * @param effect effect to execute
+	 * @return <code>true</code> if the effect was queued, <code>false</code>
+	 * 	if the caller is on the game thread and should execute it immediately
+	 */
+	public static boolean defer(final Runnable effect) {
+		final Thread thread = Thread.currentThread();
+		if (!(thread instanceof WorkerThread)) {
+			return false;
+		}
+		final ZoneTask task = ((WorkerThread) thread).task;
+		if (task == null) {
+			return false;
+		}
+		task.effects.add(effect);
+		return true;
+	}
+
+	/**
+	 * Defers an effect on a zone, if the current thread is executing the
+	 * logic of another zone in parallel.
+	 *
+	 * @param zone zone affected by the effect
+	 * @param effect effect to execute
+	 * @return <code>true</code> if the effect was queued, <code>false</code>
+	 * 	if the caller should execute it immediately
+	 */
+	public static boolean deferIfOtherZone(final StendhalRPZone zone, final Runnable effect) {
+		final StendhalRPZone current = getCurrentZone();
+		if ((current == null) || (current == zone)) {
+			return false;
+		}
+		return defer(effect);
+	}
+
+	/**
+	 * Logic of one zone and the effects it deferred.
+	 */
+	private static final class ZoneTask implements Callable<Void> {
+		private final StendhalRPZone zone;
+		private final List<Runnable> effects = new ArrayList<Runnable>();
+
+		ZoneTask(final StendhalRPZone zone) {
+			this.zone = zone;
+		}
+
+		@Override
+		public Void call() {
+			final WorkerThread thread = (WorkerThread) Thread.currentThread();
+			thread.task = this;
+			try {
+				logic(zone);
+			} finally {
+				thread.task = null;
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * A worker thread that knows which zone it is working on.
+	 */
+	private static final class WorkerThread extends Thread {
+		private ZoneTask task;
+
+		WorkerThread(final Runnable runnable, final String name) {
+			super(runnable, name);
+		}
+	}
+}
@@ -0,0 +1,162 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.engine.db;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+import games.stendhal.server.util.StringUtils;
+import marauroa.common.game.RPObject;
+import marauroa.server.db.DBTransaction;
+
+/**
+ * Collects rows for the itemlog table and inserts them with a single JDBC
+ * batch.
+ */
+public class ItemLogBatch {
+	private static final Logger logger = Logger.getLogger(ItemLogBatch.class);
+
+	private static final String QUERY = "INSERT INTO itemlog (itemid, source, event, "
+			+ "param1, param2, param3, param4, timedate) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private final DBTransaction transaction;
+
+	private PreparedStatement statement;
+
+	private int size;
+
+	/** items that got their logid while writing this batch */
+	private final List<RPObject> assignedItems = new ArrayList<RPObject>();
+
+	/**
+	 * Creates a new ItemLogBatch.
+	 *
+	 * @param transaction transaction to write to
+	 */
+	public ItemLogBatch(final DBTransaction transaction) {
+		this.transaction = transaction;
+	}
+
+	/**
+	 * Gets the transaction the rows are written to.
+	 *
+	 * @return DBTransaction
+	 */
+	public DBTransaction getTransaction() {
+		return transaction;
+	}
+
+	/**
+	 * Adds a row to the batch.
+	 *
+	 * @param itemid itemid of item
+	 * @param source name of the player, may be <code>null</code>
+	 * @param event name of event
+	 * @param param1 param 1
+	 * @param param2 param 2
+	 * @param param3 param 3
+	 * @param param4 param 4
+	 * @param timestamp timestamp
+	 * @throws SQLException in case of an database error
+	 */
+	void add(final int itemid, final String source, final String event, final String param1,
+			final String param2, final String param3, final String param4, final Timestamp timestamp) throws SQLException {
+		if (statement == null) {
+			statement = transaction.prepareStatement(QUERY, null);
+		}
+		statement.setInt(1, itemid);
+		// null values have always been written as empty strings
+		statement.setString(2, trim(source));
+		statement.setString(3, trim(event));
+		statement.setString(4, trim(param1));
+		statement.setString(5, trim(param2));
+		statement.setString(6, trim(param3));
+		statement.setString(7, trim(param4));
+		statement.setTimestamp(8, timestamp);
+		statement.addBatch();
+		size++;
+	}
+
+	/**
+	 * Remembers an item that got a logid while writing this batch.
+	 *
+	 * @param item item
+	 */
+	void assigned(final RPObject item) {
+		assignedItems.add(item);
+	}
+
+	/**
+	 * Forgets the rows that have not been written yet, and removes the
+	 * logids that were assigned while writing this batch. This must be
+	 * called after the item rows have been rolled back, so that the items
+	 * do not refer to rows that do not exist. They get a new logid when
+	 * they are logged again.
+	 */
+	public void rollback() {
+		if (statement != null) {
+			try {
+				statement.close();
+			} catch (final SQLException e) {
+				logger.warn("Closing the itemlog statement failed", e);
+			}
+			statement = null;
+		}
+		size = 0;
+		for (final RPObject item : assignedItems) {
+			item.remove(StendhalItemDAO.ATTR_ITEM_LOGID);
+		}
+		assignedItems.clear();
+	}
+
+	private static String trim(final String value) {
+		if (value == null) {
+			return "";
+		}
+		return StringUtils.trimTo(value, 64);
+	}
+
+	/**
+	 * Gets the number of rows that have not been written yet.
+	 *
+	 * @return number of rows
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Writes the collected rows.
+	 *
+	 * @return number of written rows
+	 * @throws SQLException in case of an database error
+	 */
+	public int execute() throws SQLException {
+		if (size == 0) {
+			return 0;
+		}
+		try {
+			statement.executeBatch();
+		} finally {
+			statement.close();
+			statement = null;
+		}
+		final int res = size;
+		size = 0;
+		return res;
+	}
+}
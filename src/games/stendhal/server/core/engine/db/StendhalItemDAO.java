@@ -26,7 +26,6 @@ import games.stendhal.server.core.engine.SingletonRepository;
 import games.stendhal.server.core.rule.EntityManager;
 import games.stendhal.server.core.rule.defaultruleset.DefaultItem;
 import games.stendhal.server.entity.RPEntity;
-import games.stendhal.server.util.StringUtils;
 import marauroa.common.game.RPObject;
 import marauroa.server.db.DBTransaction;
 
@@ -49,11 +48,28 @@ public class StendhalItemDAO {
 	 * @throws SQLException in case of a database error
 	 */
 	public void itemLogAssignIDIfNotPresent(final DBTransaction transaction, final RPObject item, Timestamp timestamp) throws SQLException {
+		final ItemLogBatch batch = new ItemLogBatch(transaction);
+		itemLogAssignIDIfNotPresent(batch, item, timestamp);
+		batch.execute();
+	}
+
+	/**
+	 * Assigns the next logid to the specified item in case it does not already have one.
+	 * The item row is inserted at once because its id is needed, while the log
+	 * entry for the registration is added to the batch.
+	 *
+	 * @param batch batch of item log entries
+	 * @param item item
+	 * @param timestamp timestamp
+	 * @throws SQLException in case of a database error
+	 */
+	public void itemLogAssignIDIfNotPresent(final ItemLogBatch batch, final RPObject item, Timestamp timestamp) throws SQLException {
 		if (item.has(ATTR_ITEM_LOGID)) {
 			return;
 		}
 
 		// insert row into
+		final DBTransaction transaction = batch.getTransaction();
 		String sql = "INSERT INTO item (name, timedate) VALUES ('[name]', '[timedate]')";
 		Map<String, Object> params = new HashMap<String, Object>();
 		params.put("name", item.get("name"));
@@ -62,21 +78,23 @@ public class StendhalItemDAO {
 
 		// get the insert id and store it into the item
 		item.put(ATTR_ITEM_LOGID, transaction.getLastInsertId("item", "id"));
-		itemLogInsertName(transaction, item, timestamp);
+		batch.assigned(item);
+		itemLogInsertName(batch, item, timestamp);
 	}
 
 
 	/**
 	 * Logs the name of the item on first.
 	 *
-	 * @param transaction
+	 * @param batch
 	 * @param item
 	 * @param timestamp timestamp
 	 * @throws SQLException
 	 */
-	private void itemLogInsertName(final DBTransaction transaction, final RPObject item, Timestamp timestamp) throws SQLException {
-		itemLogWriteEntry(transaction, timestamp, item, null, "register", getAttribute(item, "name"), getAttribute(item, "quantity"), getAttribute(item, "itemdata"), getAttribute(item, "bound"));
+	private void itemLogInsertName(final ItemLogBatch batch, final RPObject item, Timestamp timestamp) throws SQLException {
+		itemLogWriteEntry(batch, timestamp, item, null, "register", getAttribute(item, "name"), getAttribute(item, "quantity"), getAttribute(item, "itemdata"), getAttribute(item, "bound"));
 	}
+
 	/**
 	 * writes a log entry
 	 *
@@ -111,25 +129,50 @@ public class StendhalItemDAO {
 	 * @throws SQLException in case of an database error
 	 */
 	public void itemLogWriteEntry(final DBTransaction transaction, Timestamp timestamp, final int itemid, final RPEntity player, final String event, final String param1, final String param2, final String param3, final String param4) throws SQLException {
+		final ItemLogBatch batch = new ItemLogBatch(transaction);
+		itemLogWriteEntry(batch, timestamp, itemid, player, event, param1, param2, param3, param4);
+		batch.execute();
+	}
+
+	/**
+	 * adds a log entry to a batch
+	 *
+	 * @param batch batch of item log entries
+	 * @param timestamp timestamp
+	 * @param item item
+	 * @param player player object
+	 * @param event  name of event
+	 * @param param1 param 1
+	 * @param param2 param 2
+	 * @param param3 param 3
+	 * @param param4 param 4
+	 * @throws SQLException in case of an database error
+	 */
+	public void itemLogWriteEntry(final ItemLogBatch batch, Timestamp timestamp, final RPObject item, final RPEntity player, final String event, final String param1, final String param2, final String param3, final String param4) throws SQLException {
+		int itemid = item.getInt(StendhalItemDAO.ATTR_ITEM_LOGID);
+		itemLogWriteEntry(batch, timestamp, itemid, player, event, param1, param2, param3, param4);
+	}
+
+	/**
+	 * adds a log entry to a batch
+	 *
+	 * @param batch batch of item log entries
+	 * @param timestamp timestamp
+	 * @param itemid itemid of item
+	 * @param player player object
+	 * @param event  name of event
+	 * @param param1 param 1
+	 * @param param2 param 2
+	 * @param param3 param 3
+	 * @param param4 param 4
+	 * @throws SQLException in case of an database error
+	 */
+	public void itemLogWriteEntry(final ItemLogBatch batch, Timestamp timestamp, final int itemid, final RPEntity player, final String event, final String param1, final String param2, final String param3, final String param4) throws SQLException {
 		String playerName = null;
 		if (player != null) {
 			playerName = player.getName();
 		}
-		final String query = "INSERT INTO itemlog (itemid, source, event, "
-			+ "param1, param2, param3, param4, timedate) VALUES ("
-			+ "[itemid], '[source]', '[event]', '[param1]', '[param2]', '[param3]', '[param4]', '[timedate]');";
-
-		Map<String, Object> params = new HashMap<String, Object>();
-		params.put("itemid", itemid);
-		params.put("source", StringUtils.trimTo(playerName, 64));
-		params.put("event", StringUtils.trimTo(event, 64));
-		params.put("param1", StringUtils.trimTo(param1, 64));
-		params.put("param2", StringUtils.trimTo(param2, 64));
-		params.put("param3", StringUtils.trimTo(param3, 64));
-		params.put("param4", StringUtils.trimTo(param4, 64));
-		params.put("timedate", timestamp);
-
-		transaction.execute(query, params);
+		batch.add(itemid, playerName, event, param1, param2, param3, param4, timestamp);
 	}
 
 	/**
@@ -11,10 +11,12 @@
  ***************************************************************************/
 package games.stendhal.server.core.engine.db;
 
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Timestamp;
-import java.text.SimpleDateFormat;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import games.stendhal.server.entity.Entity;
@@ -39,28 +41,55 @@ public class StendhalKillLogDAO {
 	 * @throws SQLException in case of an database error
 	 */
 	public void logKill(final DBTransaction transaction, final Entity killed, final Killer killer, Timestamp timestamp) throws SQLException {
+		final KillLogEntry entry = new KillLogEntry(killed.getName(), entityToType(killed),
+				killer.getName(), entityToType(killer), timestamp);
+		logKills(transaction, Collections.singletonMap(entry, Integer.valueOf(1)));
+	}
+
+	/**
+	 * Logs kills that have already been counted.
+	 *
+	 * @param transaction transaction
+	 * @param kills number of kills by combination of killed, killer and day
+	 * @throws SQLException in case of an database error
+	 */
+	public void logKills(final DBTransaction transaction, final Map<KillLogEntry, Integer> kills) throws SQLException {
+		if (kills.isEmpty()) {
+			return;
+		}
+
 		// try update in case we already have this combination
-		String query = "UPDATE kills SET cnt = cnt+1"
-			+ " WHERE killed = '[killed]' AND killed_type = '[killed_type]'"
-			+ " AND killer = '[killer]' AND killer_type = '[killer_type]'"
-			+ " AND day = '[day]';";
-
-		Map<String, Object> params = new HashMap<String, Object>();
-		params.put("killed", killed.getName());
-		params.put("killed_type", entityToType(killed));
-		params.put("killer", killer.getName());
-		params.put("killer_type", entityToType(killer));
-		params.put("day", new SimpleDateFormat("yyyy-MM-dd").format(timestamp));
-
-		final int rowCount = transaction.execute(query, params);
-
-		// in case we did not have this combination yet, make an insert
-		if (rowCount == 0) {
-			query = "INSERT INTO kills (killed, killed_type, killer, killer_type, day, cnt)"
-				+ " VALUES ('[killed]', '[killed_type]', '[killer]', '[killer_type]', '[day]', 1)";
-			transaction.execute(query, params);
+		final List<Map.Entry<KillLogEntry, Integer>> missing = new ArrayList<Map.Entry<KillLogEntry, Integer>>();
+		final PreparedStatement update = transaction.prepareStatement("UPDATE kills SET cnt = cnt + ?"
+				+ " WHERE killed = ? AND killed_type = ? AND killer = ? AND killer_type = ? AND day = ?", null);
+		try {
+			for (final Map.Entry<KillLogEntry, Integer> kill : kills.entrySet()) {
+				update.setInt(1, kill.getValue().intValue());
+				kill.getKey().setParameters(update, 2);
+				if (update.executeUpdate() == 0) {
+					missing.add(kill);
+				}
+			}
+		} finally {
+			update.close();
 		}
 
+		// in case we did not have these combinations yet, make an insert
+		if (missing.isEmpty()) {
+			return;
+		}
+		final PreparedStatement insert = transaction.prepareStatement("INSERT INTO kills"
+				+ " (killed, killed_type, killer, killer_type, day, cnt) VALUES (?, ?, ?, ?, ?, ?)", null);
+		try {
+			for (final Map.Entry<KillLogEntry, Integer> kill : missing) {
+				kill.getKey().setParameters(insert, 1);
+				insert.setInt(6, kill.getValue().intValue());
+				insert.addBatch();
+			}
+			insert.executeBatch();
+		} finally {
+			insert.close();
+		}
 	}
 
 	/**
@@ -79,4 +108,92 @@ public class StendhalKillLogDAO {
 		}
 	}
 
+	/**
+	 * A row of the kills table: the combination of killed, killer and day.
+	 */
+	public static final class KillLogEntry {
+		private final String killed;
+		private final String killedType;
+		private final String killer;
+		private final String killerType;
+		private final String day;
+
+		/**
+		 * Creates a new KillLogEntry.
+		 *
+		 * @param killed name of the killed entity
+		 * @param killedType type of the killed entity, see {@link StendhalKillLogDAO#entityToType(Killer)}
+		 * @param killer name of the killer
+		 * @param killerType type of the killer
+		 * @param timestamp time of the kill
+		 */
+		public KillLogEntry(final String killed, final String killedType, final String killer,
+				final String killerType, final Timestamp timestamp) {
+			this.killed = killed;
+			this.killedType = killedType;
+			this.killer = killer;
+			this.killerType = killerType;
+			// yyyy-MM-dd in the local time zone
+			this.day = timestamp.toLocalDateTime().toLocalDate().toString();
+		}
+
+		private void setParameters(final PreparedStatement stmt, final int first) throws SQLException {
+			stmt.setString(first, nullToEmpty(killed));
+			stmt.setString(first + 1, killedType);
+			stmt.setString(first + 2, nullToEmpty(killer));
+			stmt.setString(first + 3, killerType);
+			stmt.setString(first + 4, day);
+		}
+
+		private static String nullToEmpty(final String value) {
+			if (value == null) {
+				return "";
+			}
+			return value;
+		}
+
+		/**
+		 * Gets the day of the kill.
+		 *
+		 * @return day as yyyy-MM-dd
+		 */
+		public String getDay() {
+			return day;
+		}
+
+		@Override
+		public int hashCode() {
+			int res = (killed == null) ? 0 : killed.hashCode();
+			res = 31 * res + killedType.hashCode();
+			res = 31 * res + ((killer == null) ? 0 : killer.hashCode());
+			res = 31 * res + killerType.hashCode();
+			return 31 * res + day.hashCode();
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof KillLogEntry)) {
+				return false;
+			}
+			final KillLogEntry other = (KillLogEntry) obj;
+			return equal(killed, other.killed) && killedType.equals(other.killedType)
+					&& equal(killer, other.killer) && killerType.equals(other.killerType)
+					&& day.equals(other.day);
+		}
+
+		private static boolean equal(final String a, final String b) {
+			if (a == null) {
+				return b == null;
+			}
+			return a.equals(b);
+		}
+
+		@Override
+		public String toString() {
+			return killer + " (" + killerType + ") killed " + killed + " (" + killedType + ") on " + day;
+		}
+	}
 }
@@ -13,6 +13,7 @@ package games.stendhal.server.core.engine.dbcommand;
 
 import java.sql.SQLException;
 
+import games.stendhal.server.core.engine.db.ItemLogBatch;
 import marauroa.common.game.RPObject;
 import marauroa.server.db.DBTransaction;
 import marauroa.server.db.command.AbstractDBCommand;
@@ -27,17 +28,20 @@ public abstract class AbstractLogItemEventCommand extends AbstractDBCommand {
 
 	@Override
 	public void execute(DBTransaction transaction) throws SQLException {
-		log(transaction);
+		final ItemLogBatch batch = new ItemLogBatch(transaction);
+		log(batch);
+		batch.execute();
 	}
 
 
 	/**
-	 * logs the event to the database.
+	 * logs the event to the database. The itemlog entries are added to the
+	 * batch, which is written by the caller.
 	 *
-	 * @param transaction DBTransaction
+	 * @param batch batch of item log entries
 	 * @throws SQLException in case of an database error
 	 */
-	protected abstract void log(DBTransaction transaction) throws SQLException;
+	protected abstract void log(ItemLogBatch batch) throws SQLException;
 
 	/**
 	 * gets the quantity from an item; correctly handles non stackable items
@@ -0,0 +1,194 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.engine.dbcommand;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import games.stendhal.server.core.engine.db.ItemLogBatch;
+import games.stendhal.server.core.engine.db.StendhalKillLogDAO;
+import games.stendhal.server.core.engine.db.StendhalKillLogDAO.KillLogEntry;
+import marauroa.server.db.DBTransaction;
+import marauroa.server.db.command.AbstractDBCommand;
+import marauroa.server.game.db.DAORegister;
+
+/**
+ * Writes a batch of item log events and counted kills collected by the
+ * {@link LogEventBuffer}.
+ * <p>
+ * The batch is written after a savepoint. If writing fails, the batch is
+ * rolled back to the savepoint and the events are written again one at a
+ * time, so that an invalid event only drops itself and not the whole batch.
+ */
+class LogEventBatchCommand extends AbstractDBCommand {
+	private static final Logger logger = Logger.getLogger(LogEventBatchCommand.class);
+
+	/** maximum number of itemlog rows sent in one JDBC batch */
+	private static final int MAX_ROWS = 500;
+
+	private static final String SAVEPOINT = "SAVEPOINT log_batch";
+	private static final String ROLLBACK = "ROLLBACK TO SAVEPOINT log_batch";
+
+	private final LogEventBuffer buffer;
+	private final List<AbstractLogItemEventCommand> itemEvents;
+	private final Map<KillLogEntry, Integer> kills;
+
+	/** number of kill rows that could not be written */
+	private int droppedKillRows;
+
+	/**
+	 * Creates a new LogEventBatchCommand.
+	 *
+	 * @param buffer buffer to report to
+	 * @param itemEvents item log events in the order they happened
+	 * @param kills number of kills by killed, killer and day
+	 */
+	LogEventBatchCommand(final LogEventBuffer buffer, final List<AbstractLogItemEventCommand> itemEvents,
+			final Map<KillLogEntry, Integer> kills) {
+		this.buffer = buffer;
+		this.itemEvents = itemEvents;
+		this.kills = kills;
+	}
+
+	@Override
+	public void execute(final DBTransaction transaction) throws SQLException {
+		final long start = System.currentTimeMillis();
+		// in case of an exception the whole transaction is rolled back
+		int dropped = getEventCount();
+		droppedKillRows = kills.size();
+		try {
+			transaction.execute(SAVEPOINT, null);
+			final ItemLogBatch batch = new ItemLogBatch(transaction);
+			try {
+				for (final AbstractLogItemEventCommand command : itemEvents) {
+					command.log(batch);
+					if (batch.size() >= MAX_ROWS) {
+						batch.execute();
+					}
+				}
+				batch.execute();
+
+				final StendhalKillLogDAO killLog = DAORegister.get().get(StendhalKillLogDAO.class);
+				killLog.logKills(transaction, kills);
+				dropped = 0;
+				droppedKillRows = 0;
+			} catch (final SQLException e) {
+				if (isFatal(transaction, e)) {
+					throw e;
+				}
+				logger.warn("Writing " + this + " failed, writing the events one at a time", e);
+				rollback(transaction, batch);
+				dropped = executeEach(transaction);
+			}
+		} finally {
+			if (dropped > 0) {
+				logger.error("Dropped " + dropped + " of " + getEventCount() + " log events of " + this);
+			}
+			buffer.onBatchDone(kills.size() - droppedKillRows, System.currentTimeMillis() - start, dropped);
+		}
+	}
+
+	/**
+	 * Writes the events one at a time, each after its own savepoint.
+	 *
+	 * @param transaction transaction
+	 * @return number of events that could not be written
+	 * @throws SQLException in case the transaction cannot be used any more
+	 */
+	private int executeEach(final DBTransaction transaction) throws SQLException {
+		int dropped = 0;
+		for (final AbstractLogItemEventCommand command : itemEvents) {
+			transaction.execute(SAVEPOINT, null);
+			final ItemLogBatch batch = new ItemLogBatch(transaction);
+			try {
+				command.log(batch);
+				batch.execute();
+			} catch (final SQLException e) {
+				if (isFatal(transaction, e)) {
+					throw e;
+				}
+				logger.error("Dropped item log event " + command, e);
+				rollback(transaction, batch);
+				dropped++;
+			}
+		}
+
+		final StendhalKillLogDAO killLog = DAORegister.get().get(StendhalKillLogDAO.class);
+		droppedKillRows = 0;
+		for (final Map.Entry<KillLogEntry, Integer> kill : kills.entrySet()) {
+			transaction.execute(SAVEPOINT, null);
+			try {
+				killLog.logKills(transaction, Collections.singletonMap(kill.getKey(), kill.getValue()));
+			} catch (final SQLException e) {
+				if (isFatal(transaction, e)) {
+					throw e;
+				}
+				logger.error("Dropped " + kill.getValue() + " kills of " + kill.getKey(), e);
+				transaction.execute(ROLLBACK, null);
+				dropped += kill.getValue().intValue();
+				droppedKillRows++;
+			}
+		}
+		return dropped;
+	}
+
+	/**
+	 * Rolls the transaction back to the last savepoint.
+	 *
+	 * @param transaction transaction
+	 * @param batch item log batch whose rows have been rolled back
+	 * @throws SQLException in case of a database error
+	 */
+	private static void rollback(final DBTransaction transaction, final ItemLogBatch batch) throws SQLException {
+		transaction.execute(ROLLBACK, null);
+		batch.rollback();
+	}
+
+	/**
+	 * Checks if an error ends the transaction, so that the events cannot be
+	 * written again in it.
+	 *
+	 * @param transaction transaction
+	 * @param e error
+	 * @return <code>true</code> if the transaction cannot be used any more
+	 */
+	private static boolean isFatal(final DBTransaction transaction, final SQLException e) {
+		return transaction.isConnectionError(e) || transaction.isDeadlockError(e);
+	}
+
+	/**
+	 * Gets the number of events in this batch.
+	 *
+	 * @return number of events, counting every kill
+	 */
+	private int getEventCount() {
+		int count = itemEvents.size();
+		for (final Integer kill : kills.values()) {
+			count += kill.intValue();
+		}
+		return count;
+	}
+
+	/**
+	 * returns a string suitable for debug output of this DBCommand.
+	 *
+	 * @return debug string
+	 */
+	@Override
+	public String toString() {
+		return "LogEventBatchCommand [itemEvents=" + itemEvents.size() + ", kills=" + kills.size() + "]";
+	}
+}
@@ -0,0 +1,370 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.engine.dbcommand;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import games.stendhal.server.core.engine.db.StendhalKillLogDAO;
+import games.stendhal.server.core.engine.db.StendhalKillLogDAO.KillLogEntry;
+import games.stendhal.server.entity.Entity;
+import games.stendhal.server.entity.Killer;
+import marauroa.common.Configuration;
+import marauroa.server.db.command.DBCommandPriority;
+import marauroa.server.db.command.DBCommandQueue;
+import marauroa.server.game.db.DAORegister;
+
+/**
+ * Collects item log and kill log events and hands them to the DBCommandQueue
+ * in batches, instead of one command per event.
+ * <p>
+ * Kills of the same creature by the same killer on the same day are counted
+ * in memory, so that they result in a single row update. A batch is enqueued
+ * as soon as <code>log_batch_size</code> events (default 200) are buffered,
+ * or when the oldest buffered event is <code>log_batch_interval</code>
+ * milliseconds old (default 2000).
+ * <p>
+ * While <code>log_batch_max_pending</code> batches (default 4) are waiting
+ * in the DBCommandQueue, new batches are held back and the buffer grows. It
+ * is flushed in any case when it reaches <code>log_batch_capacity</code>
+ * events (default 5000), so that memory use is bounded, instead of dropping
+ * events. The buffer is flushed on server shutdown, too.
+ * <p>
+ * If writing a batch fails, its events are written again one at a time, so
+ * that only the events that cannot be written are dropped. They are logged,
+ * and counted in the report. If the database connection fails, the whole
+ * batch is lost.
+ * <p>
+ * Setting <code>log_batch=false</code> in server.ini enqueues every event
+ * at once, as before.
+ */
+public class LogEventBuffer {
+	private static final Logger logger = Logger.getLogger(LogEventBuffer.class);
+
+	private static LogEventBuffer instance;
+
+	/** Reasons for writing a batch. */
+	enum FlushReason {
+		/** enough events have been collected */
+		SIZE,
+		/** the oldest event has waited long enough */
+		TIME,
+		/** the buffer was full while batches were held back */
+		FULL,
+		/** explicit flush, for example on shutdown */
+		FORCED
+	}
+
+	private final boolean enabled;
+
+	private final int batchSize;
+
+	private final long intervalMillis;
+
+	private final int capacity;
+
+	private final int maxPending;
+
+	private List<AbstractLogItemEventCommand> itemEvents = new ArrayList<AbstractLogItemEventCommand>();
+
+	private Map<KillLogEntry, Integer> kills = new LinkedHashMap<KillLogEntry, Integer>();
+
+	/** number of buffered events, counting every kill */
+	private int buffered;
+
+	/** time the oldest buffered event was added */
+	private long oldestEvent;
+
+	/** batches that have been enqueued but not executed yet */
+	private int pending;
+
+	// statistics
+	private long itemEventCount;
+	private long killEventCount;
+	private long killRowCount;
+	private long batchCount;
+	private final long[] flushes = new long[FlushReason.values().length];
+	private long deferredFlushes;
+	private long failedBatches;
+	private long droppedEvents;
+	private int maxBuffered;
+	private int maxPendingSeen;
+	private long lastBatchMillis;
+
+	/**
+	 * Gets the LogEventBuffer instance.
+	 *
+	 * @return LogEventBuffer
+	 */
+	public static synchronized LogEventBuffer get() {
+		if (instance == null) {
+			instance = new LogEventBuffer();
+		}
+		return instance;
+	}
+
+	private LogEventBuffer() {
+		boolean enabled = true;
+		int batchSize = 200;
+		long interval = 2000;
+		int capacity = 5000;
+		int maxPending = 4;
+		try {
+			final Configuration configuration = Configuration.getConfiguration();
+			enabled = Boolean.parseBoolean(configuration.get("log_batch", "true"));
+			batchSize = configuration.getInt("log_batch_size", batchSize);
+			interval = configuration.getInt("log_batch_interval", (int) interval);
+			capacity = configuration.getInt("log_batch_capacity", capacity);
+			maxPending = configuration.getInt("log_batch_max_pending", maxPending);
+		} catch (final IOException e) {
+			logger.error(e, e);
+		}
+		this.enabled = enabled;
+		this.batchSize = Math.max(1, batchSize);
+		this.intervalMillis = interval;
+		this.capacity = Math.max(this.batchSize, capacity);
+		this.maxPending = Math.max(1, maxPending);
+	}
+
+	/**
+	 * Creates a LogEventBuffer with explicit settings.
+	 *
+	 * @param batchSize number of events that make up a batch
+	 * @param intervalMillis maximum time an event waits for a batch
+	 * @param capacity maximum number of buffered events
+	 * @param maxPending maximum number of batches waiting in the queue
+	 */
+	LogEventBuffer(final int batchSize, final long intervalMillis, final int capacity, final int maxPending) {
+		this.enabled = true;
+		this.batchSize = batchSize;
+		this.intervalMillis = intervalMillis;
+		this.capacity = capacity;
+		this.maxPending = maxPending;
+	}
+
+	/**
+	 * Adds an item log event.
+	 *
+	 * @param command command that writes the event
+	 */
+	public void add(final AbstractLogItemEventCommand command) {
+		if (!enabled) {
+			DBCommandQueue.get().enqueue(command, DBCommandPriority.LOW);
+			return;
+		}
+		final long now = System.currentTimeMillis();
+		command.setEnqueueTime(new Timestamp(now));
+		synchronized (this) {
+			itemEvents.add(command);
+			itemEventCount++;
+			added(now);
+		}
+	}
+
+	/**
+	 * Adds a kill.
+	 *
+	 * @param killed killed entity
+	 * @param killer killer
+	 */
+	public void logKill(final Entity killed, final Killer killer) {
+		if (!enabled) {
+			DBCommandQueue.get().enqueue(new LogKillEventCommand(killed, killer), DBCommandPriority.LOW);
+			return;
+		}
+		final long now = System.currentTimeMillis();
+		final StendhalKillLogDAO dao = DAORegister.get().get(StendhalKillLogDAO.class);
+		final KillLogEntry entry = new KillLogEntry(killed.getName(), dao.entityToType(killed),
+				killer.getName(), dao.entityToType(killer), new Timestamp(now));
+		synchronized (this) {
+			final Integer count = kills.get(entry);
+			kills.put(entry, Integer.valueOf((count == null) ? 1 : count.intValue() + 1));
+			killEventCount++;
+			added(now);
+		}
+	}
+
+	/**
+	 * Updates the counters after an event has been added, and writes a batch
+	 * if needed.
+	 *
+	 * @param now current time
+	 */
+	private void added(final long now) {
+		if (buffered == 0) {
+			oldestEvent = now;
+		}
+		buffered++;
+		maxBuffered = Math.max(maxBuffered, buffered);
+
+		if (buffered >= capacity) {
+			write(FlushReason.FULL);
+		} else if (buffered >= batchSize) {
+			if (pending < maxPending) {
+				write(FlushReason.SIZE);
+			} else {
+				deferredFlushes++;
+			}
+		}
+	}
+
+	/**
+	 * Writes the buffered events if the oldest one has waited long enough.
+	 * This is called once per turn.
+	 */
+	public void flushIfDue() {
+		if (!enabled) {
+			return;
+		}
+		synchronized (this) {
+			if ((buffered == 0) || (System.currentTimeMillis() - oldestEvent < intervalMillis)) {
+				return;
+			}
+			if (pending >= maxPending) {
+				deferredFlushes++;
+				return;
+			}
+			write(FlushReason.TIME);
+		}
+	}
+
+	/**
+	 * Writes all buffered events, regardless of the number of waiting
+	 * batches.
+	 */
+	public synchronized void flush() {
+		if (buffered > 0) {
+			write(FlushReason.FORCED);
+		}
+	}
+
+	/**
+	 * Enqueues the buffered events as one batch. This is done while holding
+	 * the lock, so that the batches are enqueued in the order of the events.
+	 *
+	 * @param reason reason for the batch
+	 */
+	private void write(final FlushReason reason) {
+		final LogEventBatchCommand batch = new LogEventBatchCommand(this, itemEvents, kills);
+		itemEvents = new ArrayList<AbstractLogItemEventCommand>();
+		kills = new LinkedHashMap<KillLogEntry, Integer>();
+		buffered = 0;
+		flushes[reason.ordinal()]++;
+		batchCount++;
+		pending++;
+		maxPendingSeen = Math.max(maxPendingSeen, pending);
+		enqueue(batch);
+	}
+
+	/**
+	 * Hands a batch to the DBCommandQueue.
+	 *
+	 * @param batch batch
+	 */
+	void enqueue(final LogEventBatchCommand batch) {
+		DBCommandQueue.get().enqueue(batch, DBCommandPriority.LOW);
+	}
+
+	/**
+	 * Called by a batch after it has been executed.
+	 *
+	 * @param killRows number of written kill rows
+	 * @param millis execution time
+	 * @param dropped number of events that could not be written
+	 */
+	synchronized void onBatchDone(final int killRows, final long millis,
+			final int dropped) {
+		pending--;
+		killRowCount += killRows;
+		lastBatchMillis = millis;
+		if (dropped > 0) {
+			failedBatches++;
+			droppedEvents += dropped;
+		}
+	}
+
+	/**
+	 * Gets the number of events that could not be written.
+	 *
+	 * @return number of dropped events, counting every kill
+	 */
+	public synchronized long getDroppedEvents() {
+		return droppedEvents;
+	}
+
+	/**
+	 * Gets the number of buffered events.
+	 *
+	 * @return number of events, counting every kill
+	 */
+	public synchronized int getBufferedCount() {
+		return buffered;
+	}
+
+	/**
+	 * Gets the number of batches that wait in the DBCommandQueue.
+	 *
+	 * @return number of batches
+	 */
+	public synchronized int getPendingBatches() {
+		return pending;
+	}
+
+	/**
+	 * Gets the number of times a batch was held back because too many
+	 * batches were waiting.
+	 *
+	 * @return number of deferred flushes
+	 */
+	public synchronized long getDeferredFlushes() {
+		return deferredFlushes;
+	}
+
+	/**
+	 * Gets the number of batches written for a reason.
+	 *
+	 * @param reason reason
+	 * @return number of batches
+	 */
+	synchronized long getFlushes(final FlushReason reason) {
+		return flushes[reason.ordinal()];
+	}
+
+	/**
+	 * Gets a human readable summary of the statistics.
+	 *
+	 * @return report
+	 */
+	public synchronized String getReport() {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("Log batches: ").append(batchCount)
+			.append(" (size ").append(flushes[FlushReason.SIZE.ordinal()])
+			.append(", time ").append(flushes[FlushReason.TIME.ordinal()])
+			.append(", full ").append(flushes[FlushReason.FULL.ordinal()])
+			.append(", forced ").append(flushes[FlushReason.FORCED.ordinal()])
+			.append(", failed ").append(failedBatches)
+			.append(", last ").append(lastBatchMillis).append(" ms)");
+		sb.append("\nLog events: ").append(itemEventCount).append(" items, ")
+			.append(killEventCount).append(" kills in ").append(killRowCount).append(" rows, ")
+			.append(droppedEvents).append(" dropped");
+		sb.append("\nLog buffer: ").append(buffered).append(" buffered (max ").append(maxBuffered)
+			.append(" of ").append(capacity).append("), ").append(pending).append(" pending batches (max ")
+			.append(maxPendingSeen).append("), ").append(deferredFlushes).append(" deferred flushes");
+		return sb.toString();
+	}
+}
@@ -0,0 +1,132 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.engine.metrics;
+
+/**
+ * A histogram of durations with fixed buckets, from a tenth of a millisecond
+ * up to the length of a turn. Recording a value does not allocate.
+ */
+public class DurationHistogram {
+	/** Upper bounds of the buckets in microseconds. The last bucket is open. */
+	static final long[] BOUNDS = {
+		100, 250, 500, 1000, 2500, 5000, 10000, 25000, 50000, 100000, 300000
+	};
+
+	private final long[] buckets = new long[BOUNDS.length + 1];
+
+	private long count;
+
+	private long totalNanos;
+
+	private long maxNanos;
+
+	/**
+	 * Records a duration.
+	 *
+	 * @param nanos duration in nanoseconds
+	 */
+	public synchronized void record(final long nanos) {
+		final long micros = nanos / 1000;
+		int bucket = 0;
+		while ((bucket < BOUNDS.length) && (micros >= BOUNDS[bucket])) {
+			bucket++;
+		}
+		buckets[bucket]++;
+		count++;
+		totalNanos += nanos;
+		maxNanos = Math.max(maxNanos, nanos);
+	}
+
+	/**
+	 * Gets the number of recorded durations.
+	 *
+	 * @return number of durations
+	 */
+	public synchronized long getCount() {
+		return count;
+	}
+
+	/**
+	 * Gets the sum of the recorded durations.
+	 *
+	 * @return total duration in nanoseconds
+	 */
+	public synchronized long getTotalNanos() {
+		return totalNanos;
+	}
+
+	/**
+	 * Gets the longest recorded duration.
+	 *
+	 * @return maximum duration in nanoseconds
+	 */
+	public synchronized long getMaxNanos() {
+		return maxNanos;
+	}
+
+	/**
+	 * Gets the average duration.
+	 *
+	 * @return average duration in nanoseconds, or 0 if nothing was recorded
+	 */
+	public synchronized long getMeanNanos() {
+		if (count == 0) {
+			return 0;
+		}
+		return totalNanos / count;
+	}
+
+	/**
+	 * Estimates a percentile. The result is the upper bound of the bucket
+	 * that contains the percentile, but never more than the maximum.
+	 *
+	 * @param percentile percentile between 0 and 100
+	 * @return estimated duration in nanoseconds
+	 */
+	public synchronized long getPercentileNanos(final double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+		final long rank = (long) Math.ceil(count * percentile / 100.0);
+		long seen = 0;
+		for (int i = 0; i < BOUNDS.length; i++) {
+			seen += buckets[i];
+			if (seen >= rank) {
+				return Math.min(maxNanos, BOUNDS[i] * 1000);
+			}
+		}
+		return maxNanos;
+	}
+
+	/**
+	 * Gets a copy of the bucket counts. The bucket at index <code>i</code>
+	 * counts durations below {@link #BOUNDS}<code>[i]</code> microseconds,
+	 * and the last bucket the ones that are longer.
+	 *
+	 * @return bucket counts
+	 */
+	public synchronized long[] getBuckets() {
+		return buckets.clone();
+	}
+
+	/**
+	 * Forgets all recorded durations.
+	 */
+	public synchronized void reset() {
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = 0;
+		}
+		count = 0;
+		totalNanos = 0;
+		maxNanos = 0;
+	}
+}
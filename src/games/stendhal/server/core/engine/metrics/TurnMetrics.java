@@ -0,0 +1,482 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.engine.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+
+import games.stendhal.server.core.engine.StendhalRPWorld;
+import marauroa.common.Configuration;
+
+/**
+ * Timing of the phases of the game loop.
+ * <p>
+ * For each turn the duration of every {@link TurnPhase} is recorded in a
+ * histogram, as well as the time spent in the logic of each zone and in each
+ * kind of TurnListener. A turn overruns if Stendhal's own work took longer
+ * than the length of a turn, and it is late if it started later than one
+ * turn length (plus a tenth as tolerance) after the previous turn.
+ * <p>
+ * The metrics can be inspected with the <code>/turnmetrics</code> admin
+ * command. Every <code>turn_metrics_interval</code> seconds (default 600, 0
+ * disables it) a report is logged, and written as JSON to the file given by
+ * <code>turn_metrics_file</code>, if set. Then the metrics start over.
+ * Setting <code>turn_metrics=false</code> in server.ini disables the
+ * recording.
+ */
+public class TurnMetrics {
+	private static final Logger logger = Logger.getLogger(TurnMetrics.class);
+
+	/** Number of zones and listeners listed in the periodic reports. */
+	private static final int REPORT_ENTRIES = 10;
+
+	private static final long TURN_NANOS = StendhalRPWorld.MILLISECONDS_PER_TURN * 1000000L;
+
+	private static TurnMetrics instance;
+
+	private final boolean enabled;
+
+	private final long dumpIntervalMillis;
+
+	private final String jsonFile;
+
+	private final Map<TurnPhase, DurationHistogram> phases = new EnumMap<TurnPhase, DurationHistogram>(TurnPhase.class);
+
+	private final Map<String, TimingStat> zones = new ConcurrentHashMap<String, TimingStat>();
+
+	private final Map<String, TimingStat> turnListeners = new ConcurrentHashMap<String, TimingStat>();
+
+	/** Time when the current metrics were started. */
+	private long windowStart;
+
+	/** Time when the current turn began, or 0 outside a turn. */
+	private long turnStart;
+
+	/** Time when the previous turn began. */
+	private long previousTurnStart;
+
+	/** Time spent in the phases of the current turn. */
+	private long turnNanos;
+
+	private long turns;
+
+	private long overruns;
+
+	private long lateTurns;
+
+	private int dbQueueSize;
+
+	private int maxDBQueueSize;
+
+	/**
+	 * Gets the TurnMetrics instance.
+	 *
+	 * @return TurnMetrics
+	 */
+	public static synchronized TurnMetrics get() {
+		if (instance == null) {
+			instance = new TurnMetrics();
+		}
+		return instance;
+	}
+
+	private TurnMetrics() {
+		boolean enabled = true;
+		long interval = 600;
+		String file = null;
+		try {
+			final Configuration configuration = Configuration.getConfiguration();
+			enabled = Boolean.parseBoolean(configuration.get("turn_metrics", "true"));
+			interval = configuration.getInt("turn_metrics_interval", 600);
+			file = configuration.get("turn_metrics_file");
+		} catch (final IOException e) {
+			logger.error(e, e);
+		}
+		this.enabled = enabled;
+		this.dumpIntervalMillis = interval * 1000;
+		this.jsonFile = file;
+		for (final TurnPhase phase : TurnPhase.values()) {
+			phases.put(phase, new DurationHistogram());
+		}
+		windowStart = System.currentTimeMillis();
+	}
+
+	/**
+	 * Checks if the metrics are recorded.
+	 *
+	 * @return <code>true</code> if the metrics are recorded
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Starts a new turn.
+	 *
+	 * @return start time of the first phase, for {@link #record(TurnPhase, long)}
+	 */
+	public long beginTurn() {
+		if (!enabled) {
+			return 0;
+		}
+		final long now = System.nanoTime();
+		if ((previousTurnStart != 0) && (now - previousTurnStart > TURN_NANOS + TURN_NANOS / 10)) {
+			lateTurns++;
+		}
+		previousTurnStart = now;
+		turnStart = now;
+		turnNanos = 0;
+		return now;
+	}
+
+	/**
+	 * Records the duration of a phase of the current turn.
+	 *
+	 * @param phase the phase that has ended
+	 * @param start start time of the phase, as returned by the previous call
+	 * 	of this method or {@link #beginTurn()}
+	 * @return current time, to be used as start of the next phase
+	 */
+	public long record(final TurnPhase phase, final long start) {
+		if (!enabled) {
+			return 0;
+		}
+		final long now = System.nanoTime();
+		phases.get(phase).record(now - start);
+		turnNanos += now - start;
+		return now;
+	}
+
+	/**
+	 * Records the logic time of a zone. This may be called from the zone
+	 * logic threads.
+	 *
+	 * @param zone name of the zone
+	 * @param nanos duration in nanoseconds
+	 */
+	public void recordZone(final String zone, final long nanos) {
+		record(zones, zone, nanos);
+	}
+
+	/**
+	 * Records the time a TurnListener needed. The listeners are grouped by
+	 * their class.
+	 *
+	 * @param listener the listener
+	 * @param nanos duration in nanoseconds
+	 */
+	public void recordTurnListener(final Object listener, final long nanos) {
+		String name = listener.getClass().getName();
+		final int lambda = name.indexOf("$$Lambda");
+		if (lambda > 0) {
+			name = name.substring(0, lambda) + "$$Lambda";
+		}
+		record(turnListeners, name, nanos);
+	}
+
+	private void record(final Map<String, TimingStat> stats, final String name, final long nanos) {
+		if (!enabled) {
+			return;
+		}
+		TimingStat stat = stats.get(name);
+		if (stat == null) {
+			stat = stats.computeIfAbsent(name, TimingStat::new);
+		}
+		stat.record(nanos);
+	}
+
+	/**
+	 * Ends the current turn.
+	 *
+	 * @param queueSize number of commands waiting in the database queue
+	 */
+	public void endTurn(final int queueSize) {
+		if (!enabled || (turnStart == 0)) {
+			return;
+		}
+		phases.get(TurnPhase.TOTAL).record(turnNanos);
+		if (turnNanos > TURN_NANOS) {
+			overruns++;
+		}
+		turns++;
+		turnStart = 0;
+		dbQueueSize = queueSize;
+		maxDBQueueSize = Math.max(maxDBQueueSize, queueSize);
+
+		if ((dumpIntervalMillis > 0) && (System.currentTimeMillis() - windowStart >= dumpIntervalMillis)) {
+			dump();
+		}
+	}
+
+	/**
+	 * Logs the report, writes the JSON file if configured, and starts over.
+	 */
+	private void dump() {
+		logger.info(getReport(REPORT_ENTRIES));
+		if (jsonFile != null) {
+			try {
+				Files.write(Paths.get(jsonFile), toJSON(REPORT_ENTRIES).getBytes(StandardCharsets.UTF_8));
+			} catch (final IOException e) {
+				logger.error("Error writing turn metrics to " + jsonFile, e);
+			}
+		}
+		reset();
+	}
+
+	/**
+	 * Forgets the recorded metrics.
+	 */
+	public void reset() {
+		for (final DurationHistogram histogram : phases.values()) {
+			histogram.reset();
+		}
+		zones.clear();
+		turnListeners.clear();
+		turns = 0;
+		overruns = 0;
+		lateTurns = 0;
+		maxDBQueueSize = 0;
+		windowStart = System.currentTimeMillis();
+	}
+
+	/**
+	 * Gets the number of recorded turns.
+	 *
+	 * @return number of turns
+	 */
+	public long getTurns() {
+		return turns;
+	}
+
+	/**
+	 * Gets the number of turns in which Stendhal needed more time than the
+	 * length of a turn.
+	 *
+	 * @return number of overruns
+	 */
+	public long getOverruns() {
+		return overruns;
+	}
+
+	/**
+	 * Gets the histogram of a phase.
+	 *
+	 * @param phase phase
+	 * @return histogram of the durations
+	 */
+	public DurationHistogram getHistogram(final TurnPhase phase) {
+		return phases.get(phase);
+	}
+
+	/**
+	 * Gets the zones with the most logic time, slowest first.
+	 *
+	 * @param count maximum number of zones
+	 * @return timing of the zones
+	 */
+	public List<TimingStat> getSlowestZones(final int count) {
+		return slowest(zones, count);
+	}
+
+	/**
+	 * Gets the kinds of TurnListeners that used the most time, slowest first.
+	 *
+	 * @param count maximum number of entries
+	 * @return timing of the listeners
+	 */
+	public List<TimingStat> getSlowestTurnListeners(final int count) {
+		return slowest(turnListeners, count);
+	}
+
+	private List<TimingStat> slowest(final Map<String, TimingStat> stats, final int count) {
+		final List<TimingStat> res = new ArrayList<TimingStat>(stats.values());
+		res.sort((a, b) -> Long.compare(b.getTotalNanos(), a.getTotalNanos()));
+		if (res.size() > count) {
+			return new ArrayList<TimingStat>(res.subList(0, count));
+		}
+		return res;
+	}
+
+	/**
+	 * Creates a human readable report.
+	 *
+	 * @param entries number of zones and listeners to list
+	 * @return report
+	 */
+	public String getReport(final int entries) {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("Turn metrics of ").append(turns).append(" turns in ")
+			.append((System.currentTimeMillis() - windowStart) / 1000).append(" s: ")
+			.append(overruns).append(" overruns, ").append(lateTurns).append(" late turns, database queue ")
+			.append(dbQueueSize).append(" (max ").append(maxDBQueueSize).append(")");
+		for (final TurnPhase phase : TurnPhase.values()) {
+			final DurationHistogram histogram = phases.get(phase);
+			sb.append("\n").append(phase.getKey()).append(": mean ").append(millis(histogram.getMeanNanos()))
+				.append(", p50 ").append(millis(histogram.getPercentileNanos(50)))
+				.append(", p95 ").append(millis(histogram.getPercentileNanos(95)))
+				.append(", p99 ").append(millis(histogram.getPercentileNanos(99)))
+				.append(", max ").append(millis(histogram.getMaxNanos())).append(" ms");
+		}
+		appendReport(sb, "Slowest zones", getSlowestZones(entries));
+		appendReport(sb, "Slowest turn listeners", getSlowestTurnListeners(entries));
+		return sb.toString();
+	}
+
+	private void appendReport(final StringBuilder sb, final String title, final List<TimingStat> stats) {
+		sb.append("\n").append(title).append(":");
+		for (final TimingStat stat : stats) {
+			sb.append("\n  ").append(stat.getName()).append(": ").append(millis(stat.getTotalNanos()))
+				.append(" ms in ").append(stat.getCount()).append(" calls, max ")
+				.append(millis(stat.getMaxNanos())).append(" ms");
+		}
+	}
+
+	/**
+	 * Creates a JSON document of the metrics.
+	 *
+	 * @param entries number of zones and listeners to list
+	 * @return JSON
+	 */
+	public String toJSON(final int entries) {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("{\"turns\":").append(turns)
+			.append(",\"seconds\":").append((System.currentTimeMillis() - windowStart) / 1000)
+			.append(",\"overruns\":").append(overruns)
+			.append(",\"lateTurns\":").append(lateTurns)
+			.append(",\"dbQueue\":{\"last\":").append(dbQueueSize).append(",\"max\":").append(maxDBQueueSize).append("}")
+			.append(",\"bucketBoundsMs\":[");
+		for (int i = 0; i < DurationHistogram.BOUNDS.length; i++) {
+			if (i > 0) {
+				sb.append(",");
+			}
+			sb.append(millis(DurationHistogram.BOUNDS[i] * 1000));
+		}
+		sb.append("],\"phases\":{");
+		boolean first = true;
+		for (final TurnPhase phase : TurnPhase.values()) {
+			final DurationHistogram histogram = phases.get(phase);
+			if (!first) {
+				sb.append(",");
+			}
+			first = false;
+			sb.append("\"").append(phase.getKey()).append("\":{\"count\":").append(histogram.getCount())
+				.append(",\"meanMs\":").append(millis(histogram.getMeanNanos()))
+				.append(",\"p50Ms\":").append(millis(histogram.getPercentileNanos(50)))
+				.append(",\"p95Ms\":").append(millis(histogram.getPercentileNanos(95)))
+				.append(",\"p99Ms\":").append(millis(histogram.getPercentileNanos(99)))
+				.append(",\"maxMs\":").append(millis(histogram.getMaxNanos()))
+				.append(",\"buckets\":[");
+			final long[] buckets = histogram.getBuckets();
+			for (int i = 0; i < buckets.length; i++) {
+				if (i > 0) {
+					sb.append(",");
+				}
+				sb.append(buckets[i]);
+			}
+			sb.append("]}");
+		}
+		sb.append("}");
+		appendJSON(sb, "zones", getSlowestZones(entries));
+		appendJSON(sb, "turnListeners", getSlowestTurnListeners(entries));
+		sb.append("}");
+		return sb.toString();
+	}
+
+	private void appendJSON(final StringBuilder sb, final String key, final List<TimingStat> stats) {
+		sb.append(",\"").append(key).append("\":[");
+		for (int i = 0; i < stats.size(); i++) {
+			final TimingStat stat = stats.get(i);
+			if (i > 0) {
+				sb.append(",");
+			}
+			sb.append("{\"name\":\"").append(escape(stat.getName()))
+				.append("\",\"count\":").append(stat.getCount())
+				.append(",\"totalMs\":").append(millis(stat.getTotalNanos()))
+				.append(",\"maxMs\":").append(millis(stat.getMaxNanos())).append("}");
+		}
+		sb.append("]");
+	}
+
+	private static String escape(final String text) {
+		return text.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	private static String millis(final long nanos) {
+		return String.format(Locale.ENGLISH, "%.3f", nanos / 1000000.0);
+	}
+
+	/**
+	 * Accumulated timing of a zone or listener.
+	 */
+	public static final class TimingStat {
+		private final String name;
+		private long count;
+		private long totalNanos;
+		private long maxNanos;
+
+		TimingStat(final String name) {
+			this.name = name;
+		}
+
+		synchronized void record(final long nanos) {
+			count++;
+			totalNanos += nanos;
+			maxNanos = Math.max(maxNanos, nanos);
+		}
+
+		/**
+		 * Gets the name of the zone or listener.
+		 *
+		 * @return name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Gets the number of recorded calls.
+		 *
+		 * @return number of calls
+		 */
+		public synchronized long getCount() {
+			return count;
+		}
+
+		/**
+		 * Gets the total recorded time.
+		 *
+		 * @return time in nanoseconds
+		 */
+		public synchronized long getTotalNanos() {
+			return totalNanos;
+		}
+
+		/**
+		 * Gets the longest recorded call.
+		 *
+		 * @return time in nanoseconds
+		 */
+		public synchronized long getMaxNanos() {
+			return maxNanos;
+		}
+	}
+}
@@ -0,0 +1,49 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.engine.metrics;
+
+/**
+ * The phases of a turn that are timed by {@link TurnMetrics}.
+ */
+public enum TurnPhase {
+	/** removing zones that are no longer needed, like vaults */
+	ZONE_REMOVAL("zoneRemoval"),
+	/** the death of entities killed in the previous turn */
+	KILLED_ENTITIES("killedEntities"),
+	/** logic of the online players */
+	PLAYER_LOGIC("playerLogic"),
+	/** preLogic of the NPCs */
+	NPC_PRELOGIC("npcPreLogic"),
+	/** removing the speech texts of players */
+	PLAYER_TEXTS("playerTexts"),
+	/** listeners registered at the TurnNotifier */
+	TURN_NOTIFIER("turnNotifier"),
+	/** logic of the zones */
+	ZONE_LOGIC("zoneLogic"),
+	/** everything done by Stendhal in beginTurn and endTurn */
+	TOTAL("total");
+
+	private final String key;
+
+	TurnPhase(final String key) {
+		this.key = key;
+	}
+
+	/**
+	 * Gets the name used in reports.
+	 *
+	 * @return name of the phase
+	 */
+	public String getKey() {
+		return key;
+	}
+}
@@ -12,39 +12,82 @@
  ***************************************************************************/
 package games.stendhal.server.core.events;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import org.apache.log4j.Logger;
 
 import games.stendhal.server.core.engine.SingletonRepository;
 import games.stendhal.server.core.engine.StendhalRPWorld;
+import games.stendhal.server.core.engine.ZoneLogicExecutor;
+import games.stendhal.server.core.engine.metrics.TurnMetrics;
 
 /**
  * Other classes can register here to be notified at some time in the future.
  *
+ * <p>The registrations are kept in a two level timing wheel: Turns of the
+ * current and the next block of {@link #NEAR_SIZE} turns are kept in a wheel
+ * with one slot per turn. Later turns are kept in a coarse wheel with one slot
+ * per block and moved to the near wheel when their block comes up. A reverse
+ * index from listener to its registrations makes cancelling and looking up the
+ * remaining time independent of the number of registered turns.
+ *
+ * <p>Registration nodes are recycled, so that scheduling a listener does not
+ * create garbage.
+ *
  * @author hendrik, daniel
  */
 public final class TurnNotifier {
 
 	private static Logger logger = Logger.getLogger(TurnNotifier.class);
 
+	/** Number of bits of a turn number used for the slot in the near wheel. */
+	private static final int NEAR_BITS = 12;
+
+	/** Number of turns in a block, which is also the size of the near wheel. */
+	private static final int NEAR_SIZE = 1 << NEAR_BITS;
+
+	private static final int NEAR_MASK = NEAR_SIZE - 1;
+
+	/** Number of block slots in the far wheel. */
+	private static final int FAR_SIZE = 256;
+
+	private static final int FAR_MASK = FAR_SIZE - 1;
+
 	/** The singleton instance. */
 	private static TurnNotifier instance;
 
 	private int currentTurn = -1;
 
 	/**
-	 * This Map maps each turn to the set of all events that will take place at
-	 * this turn. Turns at which no event should take place needn't be
-	 * registered here.
+	 * The block of turns that is currently handled by the near wheel. The
+	 * near wheel also contains the following block and any past blocks.
 	 */
-	private final Map<Integer, Set<TurnListener>> register = new HashMap<Integer, Set<TurnListener>>();
+	private int nearBlock = -1;
+
+	/** First and last registration node in each slot of the near wheel. */
+	private final Node[] nearHead = new Node[NEAR_SIZE];
+	private final Node[] nearTail = new Node[NEAR_SIZE];
+
+	/** First and last registration node in each slot of the far wheel. */
+	private final Node[] farHead = new Node[FAR_SIZE];
+	private final Node[] farTail = new Node[FAR_SIZE];
+
+	/**
+	 * Maps each listener to the chain of its registrations. Listeners are
+	 * compared by equals(), just like the sets of listeners per turn that
+	 * were used before.
+	 */
+	private final Map<TurnListener, Node> index = new HashMap<TurnListener, Node>();
+
+	/** Unused registration nodes. */
+	private Node pool;
+
+	/** Number of registrations. */
+	private int size;
 
 	/** Used for multi-threading synchronization. * */
 	private final Object sync = new Object();
@@ -85,34 +128,49 @@ public final class TurnNotifier {
 
 		this.currentTurn = currentTurn;
 
-		// get and remove the set for this turn
-		Set<TurnListener> set = null;
+		// get and remove the registrations for this turn
+		Node firing;
 		synchronized (sync) {
-			set = register.remove(Integer.valueOf(currentTurn));
+			final int block = currentTurn >> NEAR_BITS;
+			if (block != nearBlock) {
+				nearBlock = block;
+				cascade(block);
+				cascade(block + 1);
+			}
+			firing = detachTurn(currentTurn);
 		}
 
 		if (logger.isDebugEnabled()) {
 			final StringBuilder os = new StringBuilder();
-			os.append("register: " + register.size() + "\n");
-			int setSize;
-			if (set != null) {
-				setSize = set.size();
-			} else {
-				setSize = 0;
+			os.append("register: " + size + "\n");
+			int setSize = 0;
+			for (Node node = firing; node != null; node = node.next) {
+				setSize++;
 			}
 			os.append("set: " + setSize + "\n");
 			logger.info(os);
 		}
 
-		if (set != null) {
-			for (final TurnListener turnListener : set) {
+		final TurnMetrics metrics = TurnMetrics.get();
+		final boolean timed = metrics.isEnabled();
+		while (firing != null) {
+			final TurnListener turnListener = firing.listener;
+			final Node next = firing.next;
 
-				try {
-					turnListener.onTurnReached(currentTurn);
-				} catch (final RuntimeException e) {
-					logger.error("Exception in " + turnListener, e);
-				}
+			synchronized (sync) {
+				release(firing);
+			}
+
+			final long start = timed ? System.nanoTime() : 0;
+			try {
+				turnListener.onTurnReached(currentTurn);
+			} catch (final RuntimeException e) {
+				logger.error("Exception in " + turnListener, e);
 			}
+			if (timed) {
+				metrics.recordTurnListener(turnListener, System.nanoTime() - start);
+			}
+			firing = next;
 		}
 	}
 
@@ -157,6 +215,10 @@ public final class TurnNotifier {
 			return;
 		}
 
+		if (ZoneLogicExecutor.defer(() -> notifyAtTurn(turn, turnListener))) {
+			return;
+		}
+
 		if (logger.isDebugEnabled()) {
 			logger.info("Notify at " + turn + " by " + turnListener);
 			final StringBuilder st = new StringBuilder();
@@ -177,15 +239,32 @@ public final class TurnNotifier {
 		}
 
 		synchronized (sync) {
-			// do we have other events for this turn?
-			final Integer turnInt = Integer.valueOf(turn);
-			Set<TurnListener> set = register.get(turnInt);
-			if (set == null) {
-				set = new HashSet<TurnListener>();
-				register.put(turnInt, set);
+			// is this listener already registered for this turn?
+			final Node first = index.get(turnListener);
+			for (Node node = first; node != null; node = node.nextSame) {
+				if (node.turn == turn) {
+					return;
+				}
+			}
+
+			final Node node = obtain();
+			node.turn = turn;
+			node.listener = turnListener;
+
+			// add it to the chain of the listener
+			if (first == null) {
+				index.put(turnListener, node);
+			} else {
+				node.nextSame = first.nextSame;
+				if (first.nextSame != null) {
+					first.nextSame.prevSame = node;
+				}
+				first.nextSame = node;
+				node.prevSame = first;
 			}
-			// add it to the list
-			set.add(turnListener);
+
+			schedule(node);
+			size++;
 		}
 	}
 
@@ -197,18 +276,19 @@ public final class TurnNotifier {
 	 */
 
 	public void dontNotify(final TurnListener turnListener) {
+		if (ZoneLogicExecutor.defer(() -> dontNotify(turnListener))) {
+			return;
+		}
+
 		// all events that are equal to this one should be forgotten.
-		// TurnEvent turnEvent = new TurnEvent(turnListener);
-		for (final Map.Entry<Integer, Set<TurnListener>> mapEntry : register.entrySet()) {
-			final Set<TurnListener> set = mapEntry.getValue();
-			// We don't remove directly, but first store in this
-			// set. This is to avoid ConcurrentModificationExceptions.
-			final Set<TurnListener> toBeRemoved = new HashSet<TurnListener>();
-			if (set.contains(turnListener)) {
-					toBeRemoved.add(turnListener);
-			}
-			for (final TurnListener event : toBeRemoved) {
-				set.remove(event);
+		synchronized (sync) {
+			Node node = index.remove(turnListener);
+			while (node != null) {
+				final Node next = node.nextSame;
+				unschedule(node);
+				release(node);
+				size--;
+				node = next;
 			}
 		}
 	}
@@ -224,23 +304,16 @@ public final class TurnNotifier {
 
 	public int getRemainingTurns(final TurnListener turnListener) {
 		// all events match that are equal to this.
-		// TurnEvent turnEvent = new TurnEvent(turnListener);
-		// the HashMap is unsorted, so we need to run through
-		// all of it.
-		final List<Integer> matchingTurns = new ArrayList<Integer>();
-		for (final Map.Entry<Integer, Set<TurnListener>> mapEntry : register.entrySet()) {
-			final Set<TurnListener> set = mapEntry.getValue();
-			for (final TurnListener currentEvent : set) {
-				if (currentEvent.equals(turnListener)) {
-					matchingTurns.add(mapEntry.getKey());
-				}
+		synchronized (sync) {
+			Node node = index.get(turnListener);
+			if (node == null) {
+				return -1;
 			}
-		}
-		if (matchingTurns.size() > 0) {
-			Collections.sort(matchingTurns);
-			return matchingTurns.get(0).intValue() - currentTurn;
-		} else {
-			return -1;
+			int turn = node.turn;
+			for (node = node.nextSame; node != null; node = node.nextSame) {
+				turn = Math.min(turn, node.turn);
+			}
+			return turn - currentTurn;
 		}
 	}
 
@@ -260,12 +333,36 @@ public final class TurnNotifier {
 
 	/**
 	 * Returns the list of events. Note this is only for debugging the
-	 * TurnNotifier
+	 * TurnNotifier. The returned map is a copy, but clearing it also removes
+	 * all registrations.
 	 *
 	 * @return eventList
 	 */
 	public Map<Integer, Set<TurnListener>> getEventListForDebugging() {
-		return register;
+		final Map<Integer, Set<TurnListener>> res = new TreeMap<Integer, Set<TurnListener>>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void clear() {
+				super.clear();
+				clearAll();
+			}
+		};
+
+		synchronized (sync) {
+			for (final Node first : index.values()) {
+				for (Node node = first; node != null; node = node.nextSame) {
+					final Integer turn = Integer.valueOf(node.turn);
+					Set<TurnListener> set = res.get(turn);
+					if (set == null) {
+						set = new HashSet<TurnListener>();
+						res.put(turn, set);
+					}
+					set.add(node.listener);
+				}
+			}
+		}
+		return res;
 	}
 
 	/**
@@ -276,4 +373,184 @@ public final class TurnNotifier {
 	public int getCurrentTurnForDebugging() {
 		return currentTurn;
 	}
+
+	/**
+	 * Removes all registrations.
+	 */
+	private void clearAll() {
+		synchronized (sync) {
+			for (final Node first : index.values()) {
+				Node node = first;
+				while (node != null) {
+					final Node next = node.nextSame;
+					unschedule(node);
+					release(node);
+					node = next;
+				}
+			}
+			index.clear();
+			size = 0;
+		}
+	}
+
+	/**
+	 * Puts a registration into the slot of its turn.
+	 *
+	 * @param node registration
+	 */
+	private void schedule(final Node node) {
+		if ((node.turn >> NEAR_BITS) <= nearBlock + 1) {
+			node.far = false;
+			append(nearHead, nearTail, node.turn & NEAR_MASK, node);
+		} else {
+			node.far = true;
+			append(farHead, farTail, (node.turn >> NEAR_BITS) & FAR_MASK, node);
+		}
+	}
+
+	/**
+	 * Removes a registration from its slot.
+	 *
+	 * @param node registration
+	 */
+	private void unschedule(final Node node) {
+		if (node.far) {
+			unlink(farHead, farTail, (node.turn >> NEAR_BITS) & FAR_MASK, node);
+		} else {
+			unlink(nearHead, nearTail, node.turn & NEAR_MASK, node);
+		}
+	}
+
+	/**
+	 * Moves the registrations of a block from the far wheel to the near wheel.
+	 *
+	 * @param block block of turns
+	 */
+	private void cascade(final int block) {
+		final int slot = block & FAR_MASK;
+		Node node = farHead[slot];
+		while (node != null) {
+			final Node next = node.next;
+			if ((node.turn >> NEAR_BITS) == block) {
+				unlink(farHead, farTail, slot, node);
+				node.far = false;
+				append(nearHead, nearTail, node.turn & NEAR_MASK, node);
+			}
+			node = next;
+		}
+	}
+
+	/**
+	 * Removes all registrations of a turn from the wheel and the index.
+	 *
+	 * @param turn turn
+	 * @return the first of the removed registrations, linked by next
+	 */
+	private Node detachTurn(final int turn) {
+		final int slot = turn & NEAR_MASK;
+		Node first = null;
+		Node last = null;
+		Node node = nearHead[slot];
+		while (node != null) {
+			final Node next = node.next;
+			if (node.turn == turn) {
+				unlink(nearHead, nearTail, slot, node);
+				removeFromIndex(node);
+				size--;
+				if (last == null) {
+					first = node;
+				} else {
+					last.next = node;
+				}
+				last = node;
+			}
+			node = next;
+		}
+		return first;
+	}
+
+	/**
+	 * Removes a registration from the chain of its listener.
+	 *
+	 * @param node registration
+	 */
+	private void removeFromIndex(final Node node) {
+		if (node.prevSame == null) {
+			if (node.nextSame == null) {
+				index.remove(node.listener);
+			} else {
+				node.nextSame.prevSame = null;
+				index.put(node.nextSame.listener, node.nextSame);
+			}
+		} else {
+			node.prevSame.nextSame = node.nextSame;
+			if (node.nextSame != null) {
+				node.nextSame.prevSame = node.prevSame;
+			}
+		}
+		node.prevSame = null;
+		node.nextSame = null;
+	}
+
+	private static void append(final Node[] heads, final Node[] tails, final int slot, final Node node) {
+		node.next = null;
+		node.prev = tails[slot];
+		if (tails[slot] == null) {
+			heads[slot] = node;
+		} else {
+			tails[slot].next = node;
+		}
+		tails[slot] = node;
+	}
+
+	private static void unlink(final Node[] heads, final Node[] tails, final int slot, final Node node) {
+		if (node.prev == null) {
+			heads[slot] = node.next;
+		} else {
+			node.prev.next = node.next;
+		}
+		if (node.next == null) {
+			tails[slot] = node.prev;
+		} else {
+			node.next.prev = node.prev;
+		}
+		node.prev = null;
+		node.next = null;
+	}
+
+	private Node obtain() {
+		final Node node = pool;
+		if (node == null) {
+			return new Node();
+		}
+		pool = node.next;
+		node.next = null;
+		return node;
+	}
+
+	private void release(final Node node) {
+		node.listener = null;
+		node.prev = null;
+		node.prevSame = null;
+		node.nextSame = null;
+		node.next = pool;
+		pool = node;
+	}
+
+	/**
+	 * A registration of a listener for a turn.
+	 */
+	private static final class Node {
+		private int turn;
+		private TurnListener listener;
+		private boolean far;
+
+		/** neighbours in the slot of the wheel */
+		private Node prev;
+		private Node next;
+
+		/** neighbours in the chain of registrations of the same listener */
+		private Node prevSame;
+		private Node nextSame;
+	}
 }
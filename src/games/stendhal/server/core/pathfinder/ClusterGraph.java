@@ -0,0 +1,434 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.pathfinder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Abstract graph of a zone for planning long routes. The zone is divided in
+ * square clusters. Where walkable tiles of neighbouring clusters meet, there
+ * is an entrance in the middle of each open part of the border. The nodes of
+ * the graph are the tiles on both sides of the entrances, and the edges are
+ * the walking distances between the nodes of the same cluster, and the steps
+ * over the borders.
+ * <p>
+ * A route is planned by searching the graph, starting from the entrances
+ * that can be reached from the start within its cluster, and ending at the
+ * entrances from which the goal can be reached within its cluster.
+ */
+class ClusterGraph {
+	/** Marker for tiles and nodes that have not been reached. */
+	private static final int UNREACHED = -1;
+
+	/** Region labels of the tiles; 0 for tiles that can not be walked. */
+	private final int[] labels;
+	/** Size of the zone. */
+	private final int width, height;
+	/** Side length of the clusters. */
+	private final int clusterSize;
+	/** Number of clusters in each row. */
+	private final int clustersX;
+
+	/** Tile numbers of the nodes. */
+	private final int[] nodeTiles;
+	/** Neighbour nodes of each node. */
+	private final int[][] neighbours;
+	/** Walking distances to the neighbours of each node. */
+	private final int[][] costs;
+	/** Nodes of each cluster. */
+	private final int[][] clusterNodes;
+
+	/** Work arrays of the searches within a cluster. */
+	private final int[] distance;
+	private final int[] queue;
+
+	/**
+	 * Create a new ClusterGraph.
+	 *
+	 * @param labels region labels of the tiles, 0 for tiles that can not be
+	 * 	walked
+	 * @param width width of the zone
+	 * @param height height of the zone
+	 * @param clusterSize side length of the clusters
+	 */
+	ClusterGraph(final int[] labels, final int width, final int height, final int clusterSize) {
+		this.labels = labels;
+		this.width = width;
+		this.height = height;
+		this.clusterSize = clusterSize;
+		clustersX = (width + clusterSize - 1) / clusterSize;
+		final int clustersY = (height + clusterSize - 1) / clusterSize;
+		distance = new int[clusterSize * clusterSize];
+		queue = new int[clusterSize * clusterSize];
+
+		final Builder builder = new Builder(clustersX * clustersY);
+		// entrances over the vertical borders
+		for (int x = clusterSize; x < width; x += clusterSize) {
+			for (int top = 0; top < height; top += clusterSize) {
+				addEntrances(builder, x, top, Math.min(height, top + clusterSize), 1, 0);
+			}
+		}
+		// entrances over the horizontal borders
+		for (int y = clusterSize; y < height; y += clusterSize) {
+			for (int left = 0; left < width; left += clusterSize) {
+				addEntrances(builder, left, y, Math.min(width, left + clusterSize), 0, 1);
+			}
+		}
+
+		nodeTiles = builder.getTiles();
+		clusterNodes = builder.getClusterNodes();
+		for (final int[] nodes : clusterNodes) {
+			for (int i = 0; i < nodes.length; i++) {
+				search(nodeTiles[nodes[i]]);
+				for (int j = i + 1; j < nodes.length; j++) {
+					final int d = getDistance(nodeTiles[nodes[j]]);
+					if (d != UNREACHED) {
+						builder.link(nodes[i], nodes[j], d);
+					}
+				}
+			}
+		}
+		neighbours = builder.getNeighbours();
+		costs = builder.getCosts();
+	}
+
+	/**
+	 * Add the entrances over a part of a cluster border.
+	 *
+	 * @param builder graph builder
+	 * @param x x coordinate of the first tile after the border
+	 * @param y y coordinate of the first tile after the border
+	 * @param end end coordinate of the border part, exclusive
+	 * @param dx 1 for vertical borders, otherwise 0
+	 * @param dy 1 for horizontal borders, otherwise 0
+	 */
+	private void addEntrances(final Builder builder, final int x, final int y, final int end,
+			final int dx, final int dy) {
+		int runStart = UNREACHED;
+		for (int pos = (dx != 0) ? y : x; pos <= end; pos++) {
+			boolean open = false;
+			if (pos < end) {
+				final int tx = (dx != 0) ? x : pos;
+				final int ty = (dx != 0) ? pos : y;
+				open = (labels[tile(tx, ty)] != 0) && (labels[tile(tx - dx, ty - dy)] != 0);
+			}
+			if (open && (runStart == UNREACHED)) {
+				runStart = pos;
+			} else if (!open && (runStart != UNREACHED)) {
+				final int middle = (runStart + pos - 1) / 2;
+				final int tx = (dx != 0) ? x : middle;
+				final int ty = (dx != 0) ? middle : y;
+				final int inner = builder.getNode(tile(tx - dx, ty - dy), cluster(tx - dx, ty - dy));
+				final int outer = builder.getNode(tile(tx, ty), cluster(tx, ty));
+				builder.link(inner, outer, 1);
+				runStart = UNREACHED;
+			}
+		}
+	}
+
+	private int tile(final int x, final int y) {
+		return x + y * width;
+	}
+
+	private int cluster(final int x, final int y) {
+		return x / clusterSize + (y / clusterSize) * clustersX;
+	}
+
+	/**
+	 * Get the number of nodes of the graph.
+	 *
+	 * @return number of nodes
+	 */
+	int getNodeCount() {
+		return nodeTiles.length;
+	}
+
+	/**
+	 * Find the walking distances from a tile to the other tiles of its
+	 * cluster, without leaving the cluster. The distances are stored in the
+	 * work arrays.
+	 *
+	 * @param start tile number of the start
+	 */
+	private void search(final int start) {
+		final int startX = start % width;
+		final int startY = start / width;
+		final int left = (startX / clusterSize) * clusterSize;
+		final int top = (startY / clusterSize) * clusterSize;
+		final int right = Math.min(width, left + clusterSize);
+		final int bottom = Math.min(height, top + clusterSize);
+
+		Arrays.fill(distance, UNREACHED);
+		int head = 0;
+		int tail = 0;
+		distance[local(startX, startY)] = 0;
+		queue[tail++] = start;
+		while (head < tail) {
+			final int current = queue[head++];
+			final int x = current % width;
+			final int y = current / width;
+			final int d = distance[local(x, y)] + 1;
+			if ((x > left) && visit(x - 1, y, d)) {
+				queue[tail++] = current - 1;
+			}
+			if ((x < right - 1) && visit(x + 1, y, d)) {
+				queue[tail++] = current + 1;
+			}
+			if ((y > top) && visit(x, y - 1, d)) {
+				queue[tail++] = current - width;
+			}
+			if ((y < bottom - 1) && visit(x, y + 1, d)) {
+				queue[tail++] = current + width;
+			}
+		}
+	}
+
+	private boolean visit(final int x, final int y, final int d) {
+		final int index = local(x, y);
+		if ((distance[index] == UNREACHED) && (labels[tile(x, y)] != 0)) {
+			distance[index] = d;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Get the index of a tile in the work arrays.
+	 *
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @return index
+	 */
+	private int local(final int x, final int y) {
+		return (x % clusterSize) + (y % clusterSize) * clusterSize;
+	}
+
+	/**
+	 * Get the distance of a tile found by the last search.
+	 *
+	 * @param tile tile number
+	 * @return distance, or UNREACHED
+	 */
+	private int getDistance(final int tile) {
+		return distance[local(tile % width, tile / width)];
+	}
+
+	/**
+	 * Plan a route between two walkable tiles in different clusters.
+	 *
+	 * @param startX x coordinate of the start
+	 * @param startY y coordinate of the start
+	 * @param goalX x coordinate of the goal
+	 * @param goalY y coordinate of the goal
+	 * @return waypoints after the start, ending with the goal, as x
+	 * 	coordinate, y coordinate and walking distance from the start
+	 * 	interleaved; or <code>null</code> if the start and the goal are in
+	 * 	the same cluster or no route was found
+	 */
+	int[] findRoute(final int startX, final int startY, final int goalX, final int goalY) {
+		final int startCluster = cluster(startX, startY);
+		final int goalCluster = cluster(goalX, goalY);
+		if (startCluster == goalCluster) {
+			return null;
+		}
+
+		final int nodeCount = nodeTiles.length;
+		final int[] goalDistance = new int[nodeCount];
+		Arrays.fill(goalDistance, UNREACHED);
+		search(tile(goalX, goalY));
+		for (final int node : clusterNodes[goalCluster]) {
+			goalDistance[node] = getDistance(nodeTiles[node]);
+		}
+
+		final int[] g = new int[nodeCount];
+		Arrays.fill(g, Integer.MAX_VALUE);
+		final int[] parent = new int[nodeCount];
+		Arrays.fill(parent, UNREACHED);
+		final boolean[] closed = new boolean[nodeCount];
+		// f value in the upper half, node in the lower half
+		final PriorityQueue<Long> open = new PriorityQueue<Long>();
+
+		search(tile(startX, startY));
+		for (final int node : clusterNodes[startCluster]) {
+			final int d = getDistance(nodeTiles[node]);
+			if (d != UNREACHED) {
+				g[node] = d;
+				open.add(entry(d + heuristic(node, goalX, goalY), node));
+			}
+		}
+
+		int best = Integer.MAX_VALUE;
+		int bestNode = UNREACHED;
+		while (!open.isEmpty()) {
+			final long e = open.poll();
+			if ((e >>> 32) >= best) {
+				break;
+			}
+			final int node = (int) e;
+			if (closed[node]) {
+				continue;
+			}
+			closed[node] = true;
+
+			if ((goalDistance[node] != UNREACHED) && (g[node] + goalDistance[node] < best)) {
+				best = g[node] + goalDistance[node];
+				bestNode = node;
+			}
+			final int[] nodeNeighbours = neighbours[node];
+			for (int i = 0; i < nodeNeighbours.length; i++) {
+				final int next = nodeNeighbours[i];
+				final int nextG = g[node] + costs[node][i];
+				if (!closed[next] && (nextG < g[next])) {
+					g[next] = nextG;
+					parent[next] = node;
+					open.add(entry(nextG + heuristic(next, goalX, goalY), next));
+				}
+			}
+		}
+		if (bestNode == UNREACHED) {
+			return null;
+		}
+
+		// Only the nodes where the route enters a cluster are needed as
+		// waypoints. The route between them stays within one cluster,
+		// apart from the last step.
+		final List<Integer> waypoints = new ArrayList<Integer>();
+		int nextCluster = goalCluster;
+		for (int node = bestNode; node != UNREACHED; node = parent[node]) {
+			final int tile = nodeTiles[node];
+			final int nodeCluster = cluster(tile % width, tile / width);
+			if (nodeCluster == nextCluster) {
+				waypoints.add(node);
+			}
+			nextCluster = nodeCluster;
+		}
+
+		final int[] route = new int[3 * (waypoints.size() + 1)];
+		int i = 0;
+		for (int j = waypoints.size() - 1; j >= 0; j--) {
+			final int node = waypoints.get(j);
+			route[i++] = nodeTiles[node] % width;
+			route[i++] = nodeTiles[node] / width;
+			route[i++] = g[node];
+		}
+		route[i++] = goalX;
+		route[i++] = goalY;
+		route[i] = best;
+		return route;
+	}
+
+	private int heuristic(final int node, final int goalX, final int goalY) {
+		final int tile = nodeTiles[node];
+		return Math.abs(tile % width - goalX) + Math.abs(tile / width - goalY);
+	}
+
+	private static long entry(final int f, final int node) {
+		return ((long) f << 32) | node;
+	}
+
+	/**
+	 * Collects the nodes and edges while the graph is created.
+	 */
+	private static class Builder {
+		private final Map<Integer, Integer> nodes = new HashMap<Integer, Integer>();
+		private final List<Integer> tiles = new ArrayList<Integer>();
+		private final List<List<int[]>> edges = new ArrayList<List<int[]>>();
+		private final List<List<Integer>> clusterNodes = new ArrayList<List<Integer>>();
+
+		/**
+		 * Create a new Builder.
+		 *
+		 * @param clusters number of clusters
+		 */
+		Builder(final int clusters) {
+			for (int i = 0; i < clusters; i++) {
+				clusterNodes.add(new ArrayList<Integer>());
+			}
+		}
+
+		/**
+		 * Get the node of a tile, creating it if needed.
+		 *
+		 * @param tile tile number
+		 * @param cluster cluster of the tile
+		 * @return node number
+		 */
+		int getNode(final int tile, final int cluster) {
+			Integer node = nodes.get(tile);
+			if (node == null) {
+				node = tiles.size();
+				nodes.put(tile, node);
+				tiles.add(tile);
+				edges.add(new ArrayList<int[]>());
+				clusterNodes.get(cluster).add(node);
+			}
+			return node;
+		}
+
+		/**
+		 * Add an edge in both directions.
+		 *
+		 * @param node1 first node
+		 * @param node2 second node
+		 * @param cost walking distance
+		 */
+		void link(final int node1, final int node2, final int cost) {
+			edges.get(node1).add(new int[] { node2, cost });
+			edges.get(node2).add(new int[] { node1, cost });
+		}
+
+		int[] getTiles() {
+			final int[] result = new int[tiles.size()];
+			for (int i = 0; i < result.length; i++) {
+				result[i] = tiles.get(i);
+			}
+			return result;
+		}
+
+		int[][] getClusterNodes() {
+			final int[][] result = new int[clusterNodes.size()][];
+			for (int i = 0; i < result.length; i++) {
+				final List<Integer> list = clusterNodes.get(i);
+				result[i] = new int[list.size()];
+				for (int j = 0; j < result[i].length; j++) {
+					result[i][j] = list.get(j);
+				}
+			}
+			return result;
+		}
+
+		int[][] getNeighbours() {
+			return getEdgeData(0);
+		}
+
+		int[][] getCosts() {
+			return getEdgeData(1);
+		}
+
+		private int[][] getEdgeData(final int field) {
+			final int[][] result = new int[edges.size()][];
+			for (int i = 0; i < result.length; i++) {
+				final List<int[]> list = edges.get(i);
+				result[i] = new int[list.size()];
+				for (int j = 0; j < result[i].length; j++) {
+					result[i][j] = list.get(j)[field];
+				}
+			}
+			return result;
+		}
+	}
+}
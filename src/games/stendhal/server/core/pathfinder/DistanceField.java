@@ -0,0 +1,309 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.pathfinder;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import games.stendhal.server.core.engine.StendhalRPZone;
+import games.stendhal.server.entity.Entity;
+
+/**
+ * Walking distances from the tiles around a target entity to the positions
+ * next to it, for entities of size 1x1. Any number of entities chasing the
+ * same target can find their path by walking to the neighbour tile with the
+ * next lower distance, instead of each running a path search of its own.
+ * <p>
+ * Tiles blocked by the collision map, or by stopped entities that are
+ * obstacles, can not be walked. Unlike the A* path finder, the resistance of
+ * entities that are not obstacles is ignored.
+ */
+class DistanceField {
+	/** Distance of tiles that can not reach the target. */
+	private static final int UNREACHED = Integer.MAX_VALUE;
+
+	/** The target entity. */
+	private final Entity target;
+
+	/** The area next to the target, that is the goal of the paths. */
+	private int goalX, goalY, goalWidth, goalHeight;
+
+	/** Maximum path length. */
+	private int radius;
+
+	/** Turn when the distances were calculated. */
+	private int turn;
+
+	/** Area covered by the distance data. */
+	private int boxX, boxY, boxWidth, boxHeight;
+
+	/** Distances of the tiles in the covered area. */
+	private int[] distance = new int[0];
+
+	/** Tiles blocked by entities. */
+	private boolean[] blocked = new boolean[0];
+
+	/** Work queue of the breadth first search. */
+	private int[] queue = new int[0];
+
+	/**
+	 * Create a new DistanceField.
+	 *
+	 * @param target target entity
+	 */
+	DistanceField(final Entity target) {
+		this.target = target;
+	}
+
+	/**
+	 * Check if the distances are still usable.
+	 *
+	 * @param currentTurn current turn
+	 * @param maxAge number of turns the distances may be used
+	 * @param neededRadius needed maximum path length
+	 * @return <code>true</code> if the distances can be used, <code>false</code>
+	 * 	if they need to be calculated again
+	 */
+	boolean isValid(final int currentTurn, final int maxAge, final int neededRadius) {
+		return (neededRadius <= radius) && (currentTurn - turn < maxAge)
+				&& (currentTurn >= turn) && (goalX == getGoalX()) && (goalY == getGoalY())
+				&& (goalWidth == getGoalWidth()) && (goalHeight == getGoalHeight());
+	}
+
+	/**
+	 * Get the maximum path length of the field.
+	 *
+	 * @return maximum path length
+	 */
+	int getRadius() {
+		return radius;
+	}
+
+	/**
+	 * Calculate the distances.
+	 *
+	 * @param zone zone of the target
+	 * @param entity entity that is used to decide which other entities are
+	 * 	obstacles
+	 * @param maxRadius maximum path length
+	 * @param currentTurn current turn
+	 */
+	void calculate(final StendhalRPZone zone, final Entity entity, final int maxRadius, final int currentTurn) {
+		radius = maxRadius;
+		turn = currentTurn;
+		goalX = getGoalX();
+		goalY = getGoalY();
+		goalWidth = getGoalWidth();
+		goalHeight = getGoalHeight();
+
+		boxX = Math.max(0, goalX - radius);
+		boxY = Math.max(0, goalY - radius);
+		boxWidth = Math.max(0, Math.min(zone.getWidth(), goalX + goalWidth + radius) - boxX);
+		boxHeight = Math.max(0, Math.min(zone.getHeight(), goalY + goalHeight + radius) - boxY);
+
+		final int size = boxWidth * boxHeight;
+		if (distance.length < size) {
+			distance = new int[size];
+			blocked = new boolean[size];
+			queue = new int[size];
+		}
+		Arrays.fill(distance, 0, size, UNREACHED);
+		Arrays.fill(blocked, 0, size, false);
+
+		markBlockingEntities(zone, entity);
+
+		// Start from all free tiles next to the target
+		int head = 0;
+		int tail = 0;
+		final int maxX = Math.min(boxX + boxWidth, goalX + goalWidth);
+		final int maxY = Math.min(boxY + boxHeight, goalY + goalHeight);
+		for (int y = Math.max(boxY, goalY); y < maxY; y++) {
+			for (int x = Math.max(boxX, goalX); x < maxX; x++) {
+				final int index = index(x, y);
+				if (isFree(zone, x, y, index)) {
+					distance[index] = 0;
+					queue[tail++] = index;
+				}
+			}
+		}
+
+		while (head < tail) {
+			final int index = queue[head++];
+			final int d = distance[index] + 1;
+			if (d > radius) {
+				continue;
+			}
+			final int x = boxX + index % boxWidth;
+			final int y = boxY + index / boxWidth;
+			tail = visit(zone, x - 1, y, d, tail);
+			tail = visit(zone, x + 1, y, d, tail);
+			tail = visit(zone, x, y - 1, d, tail);
+			tail = visit(zone, x, y + 1, d, tail);
+		}
+	}
+
+	/**
+	 * Find the path from a position to the target.
+	 *
+	 * @param x x coordinate of the start
+	 * @param y y coordinate of the start
+	 * @param maxLength maximum number of steps
+	 * @return path including the start position, or an empty list if there is
+	 * 	no path with at most <code>maxLength</code> steps
+	 */
+	List<Node> getPath(final int x, final int y, final int maxLength) {
+		final List<Node> path = new ArrayList<Node>();
+		path.add(new Node(x, y));
+		if ((x >= goalX) && (x < goalX + goalWidth) && (y >= goalY) && (y < goalY + goalHeight)) {
+			return path;
+		}
+
+		int d = getDistance(x, y);
+		int currentX = x;
+		int currentY = y;
+		int dx = 0;
+		int dy = 0;
+		if (d == UNREACHED) {
+			// The start may be blocked, for example by the entity itself
+			// if it has stopped
+			d = Math.min(Math.min(getDistance(x - 1, y), getDistance(x + 1, y)),
+					Math.min(getDistance(x, y - 1), getDistance(x, y + 1)));
+			if (d == UNREACHED) {
+				return new ArrayList<Node>(0);
+			}
+			d++;
+		}
+		if (d > maxLength) {
+			return new ArrayList<Node>(0);
+		}
+
+		while (d > 0) {
+			d--;
+			// Prefer walking straight on
+			if (((dx != 0) || (dy != 0)) && (getDistance(currentX + dx, currentY + dy) == d)) {
+				currentX += dx;
+				currentY += dy;
+			} else if (getDistance(currentX - 1, currentY) == d) {
+				dx = -1;
+				dy = 0;
+				currentX--;
+			} else if (getDistance(currentX + 1, currentY) == d) {
+				dx = 1;
+				dy = 0;
+				currentX++;
+			} else if (getDistance(currentX, currentY - 1) == d) {
+				dx = 0;
+				dy = -1;
+				currentY--;
+			} else {
+				dx = 0;
+				dy = 1;
+				currentY++;
+			}
+			path.add(new Node(currentX, currentY));
+		}
+
+		return path;
+	}
+
+	/**
+	 * Get the distance of a tile.
+	 *
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @return distance, or UNREACHED
+	 */
+	private int getDistance(final int x, final int y) {
+		if ((x < boxX) || (y < boxY) || (x >= boxX + boxWidth) || (y >= boxY + boxHeight)) {
+			return UNREACHED;
+		}
+		return distance[index(x, y)];
+	}
+
+	/**
+	 * Set the distance of a tile, if it has not been reached yet.
+	 *
+	 * @param zone zone
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param d distance
+	 * @param tail end of the work queue
+	 * @return new end of the work queue
+	 */
+	private int visit(final StendhalRPZone zone, final int x, final int y, final int d, final int tail) {
+		if ((x < boxX) || (y < boxY) || (x >= boxX + boxWidth) || (y >= boxY + boxHeight)) {
+			return tail;
+		}
+		final int index = index(x, y);
+		if ((distance[index] != UNREACHED) || !isFree(zone, x, y, index)) {
+			return tail;
+		}
+		distance[index] = d;
+		queue[tail] = index;
+		return tail + 1;
+	}
+
+	/**
+	 * Mark the tiles occupied by stopped obstacles.
+	 *
+	 * @param zone zone
+	 * @param entity entity that is used to decide which other entities are
+	 * 	obstacles
+	 */
+	private void markBlockingEntities(final StendhalRPZone zone, final Entity entity) {
+		zone.forEachEntityIn(boxX, boxY, boxWidth, boxHeight, other -> {
+			if ((other != entity) && other.stopped() && other.isObstacle(entity)) {
+				final Rectangle2D area = other.getArea();
+				final int minX = Math.max(boxX, (int) area.getX());
+				final int minY = Math.max(boxY, (int) area.getY());
+				final int maxX = Math.min(boxX + boxWidth, (int) Math.ceil(area.getMaxX()));
+				final int maxY = Math.min(boxY + boxHeight, (int) Math.ceil(area.getMaxY()));
+				for (int y = minY; y < maxY; y++) {
+					for (int x = minX; x < maxX; x++) {
+						blocked[index(x, y)] = true;
+					}
+				}
+			}
+		});
+	}
+
+	private boolean isFree(final StendhalRPZone zone, final int x, final int y, final int index) {
+		return !blocked[index] && !zone.collides(x, y);
+	}
+
+	private int index(final int x, final int y) {
+		return (x - boxX) + (y - boxY) * boxWidth;
+	}
+
+	/*
+	 * The goal area is chosen the same way as for Path.searchPath(Entity,
+	 * Entity, double), for an entity of size 1x1.
+	 */
+
+	private int getGoalX() {
+		return (int) (target.getX() - 1);
+	}
+
+	private int getGoalY() {
+		return (int) (target.getY() - 1);
+	}
+
+	private int getGoalWidth() {
+		return (int) (target.getWidth() + 2);
+	}
+
+	private int getGoalHeight() {
+		return (int) (target.getHeight() + 2);
+	}
+}
@@ -0,0 +1,119 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.pathfinder;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import games.stendhal.server.core.engine.SingletonRepository;
+import games.stendhal.server.core.engine.StendhalRPZone;
+import games.stendhal.server.entity.Entity;
+
+/**
+ * The distance fields of the chase targets in a zone. A field is calculated
+ * when an entity starts chasing a target, and again when the target has
+ * moved, so entities chasing the same target share the work.
+ */
+public class DistanceFieldCache {
+	/**
+	 * Number of turns a field is used before it is calculated again, even if
+	 * the target did not move. Stopped entities that block the way can move
+	 * away in the mean time.
+	 */
+	private static final int MAX_AGE = 5;
+
+	/**
+	 * Granularity of the path lengths of the fields, so that chasers with a
+	 * slightly different range do not need a new field.
+	 */
+	private static final int RADIUS_STEP = 8;
+
+	private final StendhalRPZone zone;
+
+	private final Map<Entity, DistanceField> fields = new IdentityHashMap<Entity, DistanceField>();
+
+	/** Number of fields that have been calculated. */
+	private long calculated;
+
+	/** Number of paths that were found using the fields. */
+	private long searched;
+
+	/**
+	 * Create a new DistanceFieldCache.
+	 *
+	 * @param zone the zone
+	 */
+	public DistanceFieldCache(final StendhalRPZone zone) {
+		this.zone = zone;
+	}
+
+	/**
+	 * Finds a path for the Entity <code>entity</code> to the other Entity
+	 * <code>dest</code>, so that they are next to each other.
+	 *
+	 * @param entity the entity. Its size must be 1x1
+	 * @param dest the destination Entity. It must be in the same zone as the
+	 * 	cache
+	 * @param maxDistance the maximum path length
+	 * @return a list with the path nodes or an empty list if no path is found
+	 */
+	public synchronized List<Node> searchPath(final Entity entity, final Entity dest, final double maxDistance) {
+		// Allow the same length as the A* path finder
+		final double manhattan = Math.abs(entity.getX() - dest.getX() - dest.getWidth() / 2)
+				+ Math.abs(entity.getY() - dest.getY() - dest.getHeight() / 2);
+		final int maxLength = (int) Math.ceil(Math.max(maxDistance, 1.1 * manhattan + 1));
+
+		final int turn = SingletonRepository.getRuleProcessor().getTurn();
+		DistanceField field = fields.get(dest);
+		if (field == null) {
+			field = new DistanceField(dest);
+			fields.put(dest, field);
+		}
+		if (!field.isValid(turn, MAX_AGE, maxLength)) {
+			int radius = ((maxLength + RADIUS_STEP - 1) / RADIUS_STEP) * RADIUS_STEP;
+			radius = Math.max(radius, field.getRadius());
+			field.calculate(zone, entity, radius, turn);
+			calculated++;
+		}
+		searched++;
+
+		return field.getPath(entity.getX(), entity.getY(), maxLength);
+	}
+
+	/**
+	 * Forget the field of a target.
+	 *
+	 * @param dest target entity
+	 */
+	public synchronized void remove(final Entity dest) {
+		fields.remove(dest);
+	}
+
+	/**
+	 * Get the number of calculated fields.
+	 *
+	 * @return number of field calculations
+	 */
+	public synchronized long getCalculatedCount() {
+		return calculated;
+	}
+
+	/**
+	 * Get the number of paths that were found using the fields.
+	 *
+	 * @return number of path searches
+	 */
+	public synchronized long getSearchCount() {
+		return searched;
+	}
+}
@@ -12,8 +12,8 @@
  ***************************************************************************/
 package games.stendhal.server.core.pathfinder;
 
-import java.awt.Point;
 import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
 
 import games.stendhal.server.core.engine.StendhalRPZone;
 import games.stendhal.server.entity.Entity;
@@ -30,6 +30,15 @@ class EntityPathfinder extends games.stendhal.server.core.pathfinder.Pathfinder
 	 * that it's considered a collision.
 	 */
 	private static final double COLLISION_DISTANCE_SQUARED = 0.1;
+
+	/** Resistance maps of the threads. */
+	private static final ThreadLocal<ResistanceMap> RESISTANCE_MAPS = new ThreadLocal<ResistanceMap>() {
+		@Override
+		protected ResistanceMap initialValue() {
+			return new ResistanceMap();
+		}
+	};
+
 	/**
 	 * The entity searching a path.
 	 */
@@ -49,7 +58,7 @@ class EntityPathfinder extends games.stendhal.server.core.pathfinder.Pathfinder
 
 	EntityPathfinder(final Entity entity, final StendhalRPZone zone, final int startX, final int startY,
 			final Rectangle2D destination, final double maxDist, final boolean checkEntities) {
-		super(startX, startY, destination, maxDist);
+		super(zone.getWidth(), zone.getHeight(), startX, startY, destination, maxDist);
 		this.entity = entity;
 		this.zone = zone;
 		this.checkEntities = checkEntities;
@@ -71,15 +80,17 @@ class EntityPathfinder extends games.stendhal.server.core.pathfinder.Pathfinder
 	 * <li> have stopped
 	 */
 	private void createEntityCollisionMap() {
-		Point targetPoint = new Point(goalNode.getX(), goalNode.getY());
-		resistanceMap = new ResistanceMap(zone.getWidth(), zone.getHeight());
+		final int targetX = getGoalX();
+		final int targetY = getGoalY();
+		resistanceMap = RESISTANCE_MAPS.get();
+		resistanceMap.reset(zone.getWidth(), zone.getHeight());
 		for (final RPObject obj : zone) {
 			final Entity otherEntity = (Entity) obj;
 			if (!entity.getID().equals(otherEntity.getID())
-					&& (otherEntity.stopped()|| (otherEntity.squaredDistance(startNode.getX(), startNode.getY()) < COLLISION_DISTANCE_SQUARED))) {
+					&& (otherEntity.stopped()|| (otherEntity.squaredDistance(getStartX(), getStartY()) < COLLISION_DISTANCE_SQUARED))) {
 				final Rectangle2D area = otherEntity.getArea();
 				// Hack: Allow players to move onto portals as destination
-				if ((entity instanceof Player) && (otherEntity instanceof Portal) && area.contains(targetPoint)) {
+				if ((entity instanceof Player) && (otherEntity instanceof Portal) && area.contains(targetX, targetY)) {
 					continue;
 				}
 				int resistance = otherEntity.getResistance(entity);
@@ -89,58 +100,31 @@ class EntityPathfinder extends games.stendhal.server.core.pathfinder.Pathfinder
 	}
 
 	@Override
-	public TreeNode createNode(int x, int y) {
-		return new PathTreeNode(x, y);
-	}
-
-	/**
-	 * Pathfinder node
-	 */
-	private class PathTreeNode extends TreeNode {
-		private final double cost;
-
-		protected PathTreeNode(int x, int y) {
-			super(x, y);
-
-			/*
-			 * Modify movement cost by resistance
-			 */
-			if (resistanceMap != null) {
-				int resistance = resistanceMap.getResistance(x, y , entity.getWidth(), entity.getHeight());
-				cost = 100.0 / (100 - resistance);
-			} else {
-				cost = 1.0;
-			}
-		}
-
-		@Override
-		protected double getCost() {
-			return cost;
-		}
-
-		@Override
-		public TreeNode createNode(int x, int y) {
-			return new PathTreeNode(x, y);
+	protected double getCost(int x, int y) {
+		/*
+		 * Modify movement cost by resistance
+		 */
+		if (resistanceMap != null) {
+			int resistance = resistanceMap.getResistance(x, y , entity.getWidth(), entity.getHeight());
+			return 100.0 / (100 - resistance);
 		}
+		return 1.0;
+	}
 
-		@Override
-		protected int createNodeID(int x, int y) {
-			return x + y * zone.getWidth();
+	@Override
+	protected boolean isValid(int x, int y) {
+		boolean result = !zone.simpleCollides(entity, x, y, entity.getWidth(), entity.getHeight());
+		if (checkEntities && result) {
+			result = !resistanceMap.collides(x, y, entity.getWidth(), entity.getHeight());
 		}
 
-		@Override
-		public boolean isValid(int x, int y) {
-			boolean result = !zone.simpleCollides(entity, x, y, entity.getWidth(), entity.getHeight());
-			if (checkEntities && result) {
-				result = !resistanceMap.collides(x, y, entity.getWidth(), entity.getHeight());
-			}
-
-			return result;
-		}
+		return result;
 	}
 
 	/**
-	 * Resistance data for entities.
+	 * Resistance data for entities. The maps are reused for several searches,
+	 * so the data is stored together with the number of the search it
+	 * belongs to.
 	 */
 	private static class ResistanceMap {
 		/** Resistance that corresponds to collision */
@@ -148,19 +132,48 @@ class EntityPathfinder extends games.stendhal.server.core.pathfinder.Pathfinder
 		/** Minimum resistance that is considered a collision */
 		private static final int COLLIDE_THRESHOLD = 95;
 
-		private final int width, height;
-		private final int[][] map;
+		private int width, height;
+		private int[] map = new int[0];
+		/** Number of the search that last wrote each tile of the map */
+		private int[] written = new int[0];
+		/** Number of the current search */
+		private int generation;
 
 		/**
-		 * Create a new ResistanceMap.
+		 * Clear the map, and prepare it for an area.
 		 *
 		 * @param width width of the area
 		 * @param height height of the area
 		 */
-		public ResistanceMap(int width, int height) {
+		void reset(int width, int height) {
 			this.width = width;
 			this.height = height;
-			map = new int[width][height];
+			final int size = width * height;
+			if (map.length < size) {
+				map = new int[size];
+				written = new int[size];
+				generation = 0;
+			}
+			generation++;
+			if (generation == 0) {
+				Arrays.fill(written, 0);
+				generation = 1;
+			}
+		}
+
+		/**
+		 * Get the resistance of a tile.
+		 *
+		 * @param x x coordinate
+		 * @param y y coordinate
+		 * @return resistance of the tile
+		 */
+		private int get(int x, int y) {
+			final int index = x + y * width;
+			if (written[index] != generation) {
+				return 0;
+			}
+			return map[index];
 		}
 
 		/**
@@ -204,14 +217,16 @@ class EntityPathfinder extends games.stendhal.server.core.pathfinder.Pathfinder
 					 * want to give something like corpses some resistance to
 					 * make it harder to wade through a pile of bodies.
 					 */
-					int old = map[k][i];
+					int old = get(k, i);
 					/*
 					 * Add up like probabilities. Several slightly resistant
 					 * entities can still add up to a completely impassable
 					 * barrier, when the resistance grows over
 					 * COLLIDE_THRESHOLD.
 					 */
-					map[k][i] = 100 - ((100 - old) * (100 - resistance)) / 100;
+					final int index = k + i * width;
+					map[index] = 100 - ((100 - old) * (100 - resistance)) / 100;
+					written[index] = generation;
 				}
 			}
 		}
@@ -243,7 +258,7 @@ class EntityPathfinder extends games.stendhal.server.core.pathfinder.Pathfinder
 			int resistance = 0;
 			for (int k = startx; k < endx; k++) {
 				for (int i = starty; i < endy; i++) {
-					int r = map[k][i];
+					int r = get(k, i);
 					if (r > COLLIDE_THRESHOLD) {
 						/*
 						 * A full collision is always collision, regardless of
@@ -14,6 +14,7 @@ package games.stendhal.server.core.pathfinder;
 
 import java.awt.Rectangle;
 import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.log4j.Logger;
@@ -21,12 +22,19 @@ import org.apache.log4j.Logger;
 import games.stendhal.server.core.engine.StendhalRPZone;
 import games.stendhal.server.entity.Entity;
 import games.stendhal.server.entity.GuidedEntity;
+import games.stendhal.server.entity.player.Player;
 
 public abstract class Path {
 
 	/** the logger instance. */
 	private static final Logger logger = Logger.getLogger(Path.class);
 
+	/**
+	 * Minimum walking distance of routes that are planned on the cluster
+	 * graph of the zone, instead of searching the whole path with A*.
+	 */
+	private static final int ROUTE_DISTANCE = 2 * ZoneConnectivity.CLUSTER_SIZE;
+
 	/**
 	 * Get a reasonable maximum path length to search
 	 *
@@ -52,7 +60,10 @@ public abstract class Path {
 	//
 
 	/**
-	 * Finds a path for the Entity <code>entity</code>.
+	 * Finds a path for the Entity <code>entity</code>. Long routes of other
+	 * entities than players are planned on the cluster graph of the zone
+	 * first, so that only the parts between the waypoints need to be
+	 * searched. Players get the shortest path.
 	 *
 	 * @param entity
 	 *            the Entity
@@ -64,8 +75,67 @@ public abstract class Path {
 	 * @return a list with the path nodes or an empty list if no path is found
 	 */
 	public static List<Node> searchPath(final Entity entity, final int ex, final int ey) {
-		return searchPath(entity, entity.getX(), entity.getY(), entity.getArea(
-				ex, ey), defaultMaximumDistance(entity, ex, ey));
+		final Rectangle2D destination = entity.getArea(ex, ey);
+		final int maxDistance = defaultMaximumDistance(entity, ex, ey);
+		if (!(entity instanceof Player) && (entity.getZone() != null)
+				&& (Math.abs(ex - entity.getX()) + Math.abs(ey - entity.getY()) >= ROUTE_DISTANCE)) {
+			final List<Node> path = searchRoute(entity, ex, ey, destination, maxDistance);
+			if (path != null) {
+				return path;
+			}
+		}
+
+		return searchPath(entity, entity.getX(), entity.getY(), destination, maxDistance);
+	}
+
+	/**
+	 * Plan a route on the cluster graph of the zone of an entity, and search
+	 * the paths between the waypoints.
+	 *
+	 * @param entity the Entity
+	 * @param ex destination x
+	 * @param ey destination y
+	 * @param destination destination area
+	 * @param maxDistance maximum path length
+	 * @return a list with the path nodes, or <code>null</code> if no route
+	 * 	was found and the path should be searched directly
+	 */
+	private static List<Node> searchRoute(final Entity entity, final int ex, final int ey,
+			final Rectangle2D destination, final int maxDistance) {
+		final StendhalRPZone zone = entity.getZone();
+		final int[] route = zone.getConnectivity().planRoute(entity.getWidth(), entity.getHeight(),
+				entity.getX(), entity.getY(), ex, ey);
+		if ((route == null) || (route[route.length - 1] > maxDistance)) {
+			return null;
+		}
+
+		final List<Node> path = new ArrayList<Node>();
+		int x = entity.getX();
+		int y = entity.getY();
+		int length = 0;
+		for (int i = 0; i < route.length; i += 3) {
+			final Rectangle2D goal;
+			if (i + 3 == route.length) {
+				goal = destination;
+			} else {
+				goal = new Rectangle(route[i], route[i + 1], 1, 1);
+			}
+			// Leave room for detours around other entities
+			final double segmentDistance = 2 * (route[i + 2] - length) + ZoneConnectivity.CLUSTER_SIZE;
+			final List<Node> segment = new EntityPathfinder(entity, zone, x, y, goal,
+					segmentDistance, true).getPath();
+			if (segment.isEmpty()) {
+				return null;
+			}
+			// The first node of a segment is the last one of the previous
+			path.addAll(path.isEmpty() ? segment : segment.subList(1, segment.size()));
+			final Node end = segment.get(segment.size() - 1);
+			x = end.getX();
+			y = end.getY();
+			length = route[i + 2];
+		}
+
+		return path;
 	}
 
 	/**
@@ -115,6 +185,10 @@ public abstract class Path {
 			zone = sourceEntity.getZone();
 		}
 
+		if (!zone.getConnectivity().mayReach(sourceEntity.getWidth(), sourceEntity.getHeight(), x, y, destination)) {
+			return new ArrayList<Node>(0);
+		}
+
 		//
 		// long startTimeNano = System.nanoTime();
 		final long startTime = System.currentTimeMillis();
@@ -148,7 +222,11 @@ public abstract class Path {
 	 */
 	public static List<Node> searchPath(final StendhalRPZone zone, final int startX, final int startY, final int destX,
 			final int destY, final double maxDistance) {
-		final Pathfinder pathfinder = new SimplePathfinder(zone, startX, startY, new Rectangle(destX, destY, 1, 1), maxDistance);
+		final Rectangle destination = new Rectangle(destX, destY, 1, 1);
+		if (!zone.getConnectivity().mayReach(1, 1, startX, startY, destination)) {
+			return new ArrayList<Node>(0);
+		}
+		final Pathfinder pathfinder = new SimplePathfinder(zone, startX, startY, destination, maxDistance);
 		return pathfinder.getPath();
 	}
 
@@ -166,16 +244,55 @@ public abstract class Path {
 	 */
 	public static List<Node> searchPath(final Entity entity, final Entity dest,
 			final double maxDistance) {
+		return searchPath(entity, entity.getX(), entity.getY(), getNextToArea(entity, dest), maxDistance);
+	}
+
+	/**
+	 * Get the destination area for moving next to another entity.
+	 *
+	 * @param entity the moving Entity
+	 * @param dest the destination Entity
+	 * @return destination area
+	 */
+	private static Rectangle2D getNextToArea(final Entity entity, final Entity dest) {
 		/*
 		 * Choose destination area so that the result corresponds to
 		 * any part of the entities being next to each other
 		 */
-		final Rectangle2D area = new Rectangle((int) (dest.getX() - entity.getWidth()),
+		return new Rectangle((int) (dest.getX() - entity.getWidth()),
 				(int) (dest.getY() - entity.getHeight()),
 				(int) (dest.getWidth() + entity.getWidth() + 1),
 				(int) (dest.getHeight() + entity.getHeight() + 1));
+	}
+
+	/**
+	 * Finds a path for the Entity <code>entity</code> chasing the other
+	 * Entity <code>dest</code>. Entities of size 1x1 use the distance field
+	 * of the target, that is shared by all entities chasing it. Others, and
+	 * entities in other zones than the target, search a path with A*.
+	 *
+	 * @param entity
+	 *            the Entity (also start point)
+	 * @param dest
+	 *            the destination Entity
+	 * @param maxDistance
+	 *            the maximum path length
+	 * @return a list with the path nodes or an empty list if no path is found
+	 */
+	public static List<Node> searchChasePath(final Entity entity, final Entity dest,
+			final double maxDistance) {
+		final StendhalRPZone zone = entity.getZone();
+		if ((zone == null) || (zone != dest.getZone())
+				|| (entity.getWidth() != 1) || (entity.getHeight() != 1)) {
+			return searchPath(entity, dest, maxDistance);
+		}
+
+		// Do not calculate a field for targets behind walls
+		if (!zone.getConnectivity().mayReach(1, 1, entity.getX(), entity.getY(), getNextToArea(entity, dest))) {
+			return new ArrayList<Node>(0);
+		}
 
-		return searchPath(entity, entity.getX(), entity.getY(), area, maxDistance);
+		return zone.getDistanceFields().searchPath(entity, dest, maxDistance);
 	}
 
 	/**
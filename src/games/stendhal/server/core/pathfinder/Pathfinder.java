@@ -25,16 +25,21 @@ package games.stendhal.server.core.pathfinder;
 
 
 import java.awt.geom.Rectangle2D;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Stack;
 
 /**
- * Implements the A* algorithm. Pathing can be done on any class that implements
- * the <code>Navigable</code> interface. See org.generation5.ai.Navigable.
+ * Implements the A* algorithm on a grid of tiles.
+ * <p>
+ * The node data is kept in primitive arrays indexed by the tile number, which
+ * are reused by all searches of a thread. A generation counter tells which
+ * tiles have been visited by the current search, so the arrays do not need to
+ * be cleared between searches. The open list is a binary heap of tile
+ * numbers that orders equally weighted nodes the same way as the
+ * <code>java.util.PriorityQueue</code> of the older, object based
+ * implementation, so that the found paths are identical.
  *
  * @author James Matthews
  *
@@ -66,6 +71,17 @@ public abstract class Pathfinder {
 	 */
 	protected static final double STRAIGHT_PATH_PREFERENCE_FACTOR = 0.2;
 
+	/** Marker for a missing node. */
+	private static final int NO_NODE = -1;
+
+	/** Search arenas of the threads. */
+	private static final ThreadLocal<Arena> ARENAS = new ThreadLocal<Arena>() {
+		@Override
+		protected Arena initialValue() {
+			return new Arena();
+		}
+	};
+
 	/**
 	 * The current status of the pathfinder.
 	 *
@@ -74,37 +90,9 @@ public abstract class Pathfinder {
 	 * @see #IN_PROGRESS
 	 */
 	private int pathStatus = IN_PROGRESS;
-	/**
-	 * The open list.
-	 */
-	private final PriorityQueue<TreeNode> openList = new PriorityQueue<TreeNode>(16,
-			new Comparator<TreeNode>() {
-		@Override
-		public int compare(final TreeNode o1, final TreeNode o2) {
-			return (int) Math.signum(o1.weight - o2.weight);
-		}
-	});
-
-	private final HashMap<Integer, TreeNode> nodeRegistry = new HashMap<Integer, TreeNode>();
-
-	/**
-	 * The goal node.
-	 */
-	protected TreeNode goalNode;
 
 	/**
-	 * The start node.
-	 */
-	protected TreeNode startNode;
-
-	/**
-	 * The current best node. The best node is taken from the open list after
-	 * every iteration of <code>doStep</code>.
-	 */
-	private TreeNode bestNode;
-
-	/**
-	 * The maximum distance for the path. It is compared with the f value of the
+	 * The maximum distance for the path. It is compared with the g value of the
 	 * node. The minimum for working pathfinding is
 	 * heuristicFromStartNode + 1
 	 */
@@ -115,45 +103,46 @@ public abstract class Pathfinder {
 	 */
 	private final Rectangle2D goalArea;
 
+	/** Size of the searched area */
+	private final int width, height;
 	/** Initialization data */
 	private final int startX, startY;
-	/** Initialization data */
-	private final Rectangle2D destination;
+	/** Coordinates of the goal node */
+	private final int goalX, goalY;
 	/** Initialization data */
 	private final double initMaxDist;
 
-	protected Pathfinder(final int startX, final int startY, final Rectangle2D destination, final double maxDist) {
-		this.goalArea = destination;
+	/** Arrays of the running search */
+	private Arena arena;
 
-		// Setup the initialization data needed for node creation
+	/**
+	 * Create a new Pathfinder.
+	 *
+	 * @param width width of the searched area
+	 * @param height height of the searched area
+	 * @param startX x coordinate of the start
+	 * @param startY y coordinate of the start
+	 * @param destination destination area
+	 * @param maxDist maximum search distance
+	 */
+	protected Pathfinder(final int width, final int height, final int startX, final int startY,
+			final Rectangle2D destination, final double maxDist) {
+		this.goalArea = destination;
+		this.width = width;
+		this.height = height;
 		this.startX = startX;
 		this.startY = startY;
-		this.destination = destination;
+		this.goalX = (int) destination.getCenterX();
+		this.goalY = (int) destination.getCenterY();
 		this.initMaxDist = maxDist;
-
-		openList.clear();
-		nodeRegistry.clear();
-
-		bestNode = null;
-		pathStatus = IN_PROGRESS;
 	}
 
 	/**
 	 * Initialization that can not be done safely in the constructor.
 	 */
 	protected void init() {
-		/*
-		 * createNode is defined in child classes, so it may require
-		 * work in the child's constructor.
-		 */
-		startNode = createNode(startX, startY);
-		goalNode = createNode((int) (destination.getCenterX()),
-				(int) (destination.getCenterY()));
-		openList.offer(startNode);
-		nodeRegistry.put(startNode.nodeNumber, startNode);
-
 		// calculate shortest distance and allow a variance of X percent
-		final double startF = 1.1 * startNode.getHeuristic(goalNode) + 1;
+		final double startF = 1.1 * getHeuristic(startX, startY) + 1;
 		this.maxDistance = Math.max(initMaxDist, startF);
 	}
 
@@ -167,73 +156,122 @@ public abstract class Pathfinder {
 		return pathStatus;
 	}
 
+	/**
+	 * Get the x coordinate of the start.
+	 *
+	 * @return x coordinate
+	 */
+	protected int getStartX() {
+		return startX;
+	}
+
+	/**
+	 * Get the y coordinate of the start.
+	 *
+	 * @return y coordinate
+	 */
+	protected int getStartY() {
+		return startY;
+	}
+
+	/**
+	 * Get the x coordinate of the goal node, the center of the destination
+	 * area.
+	 *
+	 * @return x coordinate
+	 */
+	protected int getGoalX() {
+		return goalX;
+	}
+
+	/**
+	 * Get the y coordinate of the goal node, the center of the destination
+	 * area.
+	 *
+	 * @return y coordinate
+	 */
+	protected int getGoalY() {
+		return goalY;
+	}
+
 	public final List<Node> getPath() {
 		init();
-		final List<Node> list = new LinkedList<Node>();
 
 		if (unreachableGoal()) {
-			return list;
+			return new ArrayList<Node>(0);
 		}
 
-		while (pathStatus == Pathfinder.IN_PROGRESS) {
-			doStep();
+		Arena a = ARENAS.get();
+		if (a.inUse) {
+			// a path search from inside another search
+			a = new Arena();
 		}
+		arena = a;
+		a.inUse = true;
+		try {
+			a.prepare(width * height + 1);
+			final int start = addStartNode();
+			a.offer(start);
+
+			int best;
+			do {
+				best = doStep();
+			} while (pathStatus == IN_PROGRESS);
+
+			if (pathStatus != PATH_FOUND) {
+				return new ArrayList<Node>(0);
+			}
 
-		if (pathStatus == Pathfinder.PATH_FOUND) {
-			TreeNode node = bestNode;
-			while (node != null) {
-				list.add(0, new Node(node.getX(), node.getY()));
-				node = node.getParent();
+			final List<Node> list = new ArrayList<Node>();
+			for (int node = best; node != NO_NODE; node = a.parent[node]) {
+				list.add(new Node(a.nodeX[node], a.nodeY[node]));
 			}
+			Collections.reverse(list);
+			return list;
+		} finally {
+			a.inUse = false;
+			arena = null;
 		}
-		/* */
-
-		return list;
 	}
 
 	/**
-	 * Iterate the pathfinder through one step.
+	 * Register the start node.
+	 *
+	 * @return number of the start node
 	 */
-	private void doStep() {
-		bestNode = getBest();
-		if (bestNode == null) {
-			pathStatus = PATH_NOT_FOUND;
-			return;
+	private int addStartNode() {
+		int node = startX + startY * width;
+		if ((node < 0) || (node >= width * height)) {
+			// outside the area, and can not be confused with any other node
+			node = width * height;
 		}
+		final Arena a = arena;
+		a.visit(node, startX, startY);
+		a.cost[node] = 1.0;
 
-		if (reachedGoal(bestNode)) {
-			pathStatus = PATH_FOUND;
-			return;
-		}
-
-		bestNode.createChildren();
+		return node;
 	}
 
 	/**
-	 * Assigns the best node from the open list.
+	 * Iterate the pathfinder through one step.
 	 *
-	 * @return the best node.
+	 * @return the current best node
 	 */
-	private TreeNode getBest() {
-		if (openList.isEmpty()) {
-			return null;
+	private int doStep() {
+		final int best = arena.poll();
+		if (best == NO_NODE) {
+			pathStatus = PATH_NOT_FOUND;
+			return best;
 		}
+		arena.open[best] = false;
 
-		final TreeNode first = openList.poll();
-		first.setOpen(false);
-
-		return first;
-	}
+		if (goalArea.contains(arena.nodeX[best], arena.nodeY[best])) {
+			pathStatus = PATH_FOUND;
+			return best;
+		}
 
-	/**
-	 * Checks if the goal is reached.
-	 *
-	 * @param nodeBest
-	 *            the currently best node
-	 * @return true if the goal is reached
-	 */
-	private boolean reachedGoal(final TreeNode nodeBest) {
-		return goalArea.contains(nodeBest.getX(), nodeBest.getY());
+		createChildren(best);
+		return best;
 	}
 
 	/**
@@ -251,7 +289,7 @@ public abstract class Pathfinder {
 		for (int i = 0; i <= w; i++) {
 			for (int j = 0; j <= h; j++) {
 				if ((i == 0) || (j == 0) || (i == w) || (j == h)) {
-					if (createNode(x + i, y + j).isValid()) {
+					if (isValid(x + i, y + j)) {
 						return false;
 					}
 				}
@@ -262,15 +300,26 @@ public abstract class Pathfinder {
 	}
 
 	/**
-	 * Create a new TreeNode
+	 * Checks if the entity could stand on the given by the coordinates.
+	 * Positions outside the searched area must not be valid.
 	 *
-	 * @param x x coordinate of the node
-	 * @param y y coordinate of the node
-	 * @return TreeNode
+	 * @param x coordinate of the position to be checked
+	 * @param y coordinate of the position to be checked
+	 *
+	 * @return true if the the entity could stand on the position
 	 */
-	// A workaround for java lacking proper generics
-	public abstract TreeNode createNode(final int x, final int y);
+	protected abstract boolean isValid(int x, int y);
 
+	/**
+	 * The cost of moving to a position.
+	 *
+	 * @param x x coordinate of the position
+	 * @param y y coordinate of the position
+	 * @return movement cost
+	 */
+	protected double getCost(final int x, final int y) {
+		return 1.0;
+	}
 
 	/**
 	 * Calculates the manhattan distance between to positions.
@@ -306,334 +355,311 @@ public abstract class Pathfinder {
 		return (x1 - x2) * (x1 - x2) + (y1 - y2) * (y1 - y2);
 	}
 
-
 	/**
-	 * The pathfinder node.
+	 * Calculates the heuristic for the move from a position to the goal. <p> The right
+	 * heuristic is very important for A* - a over estimated heuristic will
+	 * turn A* in to bsf - a under estimated heuristic will turn A* in to
+	 * Dijkstra's so the manhattan distance seams to be the optimal
+	 * heuristic here. But it has one disadvantage. It will expand to much.
+	 * Several nodes will have the same f value It will search the area of
+	 * the size (abs(startX - goalX) + 1) * (abs(startY - goalY) + 1) So a
+	 * tie-breaker is needed. 1% square distace seems to work fine. A* will
+	 * prefer nodes closer to the goal.
+	 *
+	 * @param x x coordinate of the position
+	 * @param y y coordinate of the position
+	 * @return heuristic value for move
 	 */
-	protected abstract class TreeNode {
-
-		/**
-		 * The f-value.
-		 */
-		private double weight;
+	private double getHeuristic(final int x, final int y) {
+		final double heuristic = manhattanDistance(x, y, goalX, goalY);
+		final double tieBreaking = 0.01 * squareDistance(x, y, goalX, goalY);
 
-		/**
-		 * The g-value.
-		 */
-		private double g;
-
-		/**
-		 * The x-position of the node.
-		 */
-		private final int x;
-
-		/**
-		 * The y-position of the node.
-		 */
-		private final int y;
-
-		/**
-		 * The number of children the node has.
-		 */
-		private int numChildren;
-
-		/**
-		 * The node identifier.
-		 */
-		private final Integer nodeNumber;
-
-		/**
-		 * The parent of the node.
-		 */
-		private TreeNode parent;
-
-		private final TreeNode[] children = new TreeNode[4];
-
-		private boolean open = true;
-
-		/**
-		 * The default constructor with positional information.
-		 *
-		 * @param x
-		 *            the x-position of the node.
-		 * @param y
-		 *            the y-position of the node.
-		 */
-		protected TreeNode(final int x, final int y) {
-			this.x = x;
-			this.y = y;
+		return heuristic + tieBreaking;
+	}
 
-			this.nodeNumber = createNodeID(x, y);
+	/**
+	 * Creates valid child nodes.
+	 * <p>
+	 * The child nodes have to be
+	 * <ul>
+	 * <li> a valid position
+	 * <li> a g value less than maxDistance (checked against the given node)
+	 * </ul>
+	 *
+	 * @param node parent node
+	 */
+	private void createChildren(final int node) {
+		if (arena.g[node] < maxDistance) {
+			final int x = arena.nodeX[node];
+			final int y = arena.nodeY[node];
+			linkChild(node, x - 1, y + 0);
+			linkChild(node, x + 1, y + 0);
+			linkChild(node, x + 0, y - 1);
+			linkChild(node, x + 0, y + 1);
+		}
+	}
 
-			init();
+	/**
+	 * Links the children to this parent node  and may also update the
+	 * parent path, if a shorter path is found.
+	 *
+	 * @param node parent node
+	 * @param x1 x coordinate of the child
+	 * @param y1 y coordinate of the child
+	 */
+	private void linkChild(final int node, final int x1, final int y1) {
+		if (!isValid(x1, y1)) {
+			return;
 		}
 
-		/**
-		 * Resets the node. This involves all f, g and h-values to 0 as well as
-		 * removing all children.
-		 */
-		private void init() {
-			this.weight = 0.0;
-			this.g = 0.0;
-			this.numChildren = 0;
-			for (int i = 0; i < 4; i++) {
-				this.children[i] = null;
+		final Arena a = arena;
+		final int child = x1 + y1 * width;
+		if (!a.isVisited(child)) {
+			a.visit(child, x1, y1);
+			a.cost[child] = getCost(x1, y1);
+
+			a.children[4 * node + a.numChildren[node]++] = child;
+			updateChild(node, child);
+
+			a.offer(child);
+		} else {
+			// note:
+			// - working on closed nodes is stopped but they may own a better
+			// parent
+			// so they will also be added to this node (parent)
+			if (a.g[child] > (a.g[node] + a.cost[child])) {
+				updateChild(node, child);
 			}
 
-			this.open = true;
+			// update parents for closed nodes only
+			if (!a.open[child]) {
+				updateSubTree(child);
+			}
 		}
+	}
 
-		/**
-		 * Add a child to the node.
-		 *
-		 * @param child
-		 *            the child node.
-		 */
-		private void addChild(final TreeNode child) {
-			this.children[numChildren++] = child;
+	/**
+	 * Make a node the parent of a child node.
+	 *
+	 * @param node parent node
+	 * @param child child node
+	 */
+	private void updateChild(final int node, final int child) {
+		final Arena a = arena;
+		a.parent[child] = node;
+		a.g[child] = a.g[node] + a.cost[child];
 
-			updateChild(child);
-		}
+		double childweight = a.g[child] + getHeuristic(a.nodeX[child], a.nodeY[child]);
 
-		/**
-		 * Add a child to the node.
-		 *
-		 * @param child
-		 *            the child node.
-		 */
-		private void updateChild(final TreeNode child) {
-			child.parent = this;
-			child.g = this.g + child.getCost();
+		// Prefer nodes that do not result in direction change
+		final int grandParent = a.parent[node];
+		if (grandParent != NO_NODE) {
+			final int incx = a.nodeX[grandParent] - a.nodeX[node];
+			final int incy = a.nodeY[grandParent] - a.nodeY[node];
+
+			final int incx2 = a.nodeX[node] - a.nodeX[child];
+			final int incy2 = a.nodeY[node] - a.nodeY[child];
 
-			child.weight = calculateChildWeight(child);
+			if ((incx == incx2) && (incy == incy2)) {
+				childweight -= STRAIGHT_PATH_PREFERENCE_FACTOR;
+			}
 		}
 
-		/**
-		 * Calculate node weight for a child node.
-		 *
-		 * @param child the child to be calculated
-		 * @return weight for the child node
-		 */
-		private double calculateChildWeight(final TreeNode child) {
-			double childweight = child.g + child.getHeuristic(goalNode);
+		a.weight[child] = childweight;
+	}
 
-			// Prefer nodes that do not result in direction change
-			if (parent != null) {
-				final int incx = parent.x - x;
-				final int incy = parent.y - y;
+	/**
+	 * Update the parents for the new route.
+	 *
+	 * @param node
+	 *            the root node.
+	 */
+	private void updateSubTree(final int node) {
+		final Arena a = arena;
+		a.push(node);
+
+		while (a.stackSize > 0) {
+			final int parentTemp = a.stack[--a.stackSize];
+			final int c = a.numChildren[parentTemp];
+			for (int i = 0; i < c; i++) {
+				final int child = a.children[4 * parentTemp + i];
 
-				final int incx2 = x - child.x;
-				final int incy2 = y - child.y;
+				if (a.g[parentTemp] + a.cost[child] < a.g[child]) {
+					updateChild(parentTemp, child);
 
-				if ((incx == incx2) && (incy == incy2)) {
-					childweight -= STRAIGHT_PATH_PREFERENCE_FACTOR;
+					a.push(child);
 				}
 			}
-
-			return childweight;
 		}
+	}
 
-		/**
-		 * Return the x-position of the node.
-		 *
-		 * @return the x-position of the node.
-		 */
-		public int getX() {
-			return x;
-		}
+	/**
+	 * The node data of a search, and the open list. The arrays are indexed by
+	 * node number and grow as needed.
+	 */
+	private static final class Arena {
+		/** Generation of the current search. */
+		private int generation;
+		/** Generation of the search that last visited each node. */
+		private int[] visited = new int[0];
+		/** Coordinates of the nodes. */
+		private int[] nodeX = new int[0];
+		private int[] nodeY = new int[0];
+		/** The g-values. */
+		private double[] g = new double[0];
+		/** The f-values. */
+		private double[] weight = new double[0];
+		/** The cost of moving to each node. */
+		private double[] cost = new double[0];
+		/** Parent nodes. */
+		private int[] parent = new int[0];
+		/** Up to four child nodes per node. */
+		private int[] children = new int[0];
+		private byte[] numChildren = new byte[0];
+		/** Flags for nodes in the open list. */
+		private boolean[] open = new boolean[0];
+		/** The open list. */
+		private int[] heap = new int[0];
+		private int heapSize;
+		/** Work stack for updating sub trees. */
+		private int[] stack = new int[16];
+		private int stackSize;
+		/** <code>true</code> while a search is using the arena. */
+		private boolean inUse;
 
 		/**
-		 * Return the y-position of the node.
+		 * Prepare for a new search.
 		 *
-		 * @return the y-position of the node.
+		 * @param size number of nodes needed
 		 */
-		public int getY() {
-			return y;
+		void prepare(final int size) {
+			if (visited.length < size) {
+				visited = new int[size];
+				nodeX = new int[size];
+				nodeY = new int[size];
+				g = new double[size];
+				weight = new double[size];
+				cost = new double[size];
+				parent = new int[size];
+				children = new int[4 * size];
+				numChildren = new byte[size];
+				open = new boolean[size];
+				heap = new int[size];
+				generation = 0;
+			}
+			generation++;
+			if (generation == 0) {
+				// wrapped around. Forget all old visits
+				Arrays.fill(visited, 0);
+				generation = 1;
+			}
+			heapSize = 0;
+			stackSize = 0;
 		}
 
 		/**
-		 * Return the parent node.
+		 * Check if a node has been visited by the current search.
 		 *
-		 * @return the parent node.
+		 * @param node node number
+		 * @return <code>true</code> if the node has been visited
 		 */
-		public TreeNode getParent() {
-			return parent;
+		boolean isVisited(final int node) {
+			return visited[node] == generation;
 		}
 
 		/**
-		 * The cost of moving to this node.
+		 * Initialize a node for the current search.
 		 *
-		 * @return movement cost
+		 * @param node node number
+		 * @param x x coordinate
+		 * @param y y coordinate
 		 */
-		protected double getCost() {
-			return 1.0;
+		void visit(final int node, final int x, final int y) {
+			visited[node] = generation;
+			nodeX[node] = x;
+			nodeY[node] = y;
+			g[node] = 0.0;
+			weight[node] = 0.0;
+			parent[node] = NO_NODE;
+			numChildren[node] = 0;
+			open[node] = true;
 		}
 
 		/**
-		 * Calculates the heuristic for the move form node1 to node2. <p> The right
-		 * heuristic is very important for A* - a over estimated heuristic will
-		 * turn A* in to bsf - a under estimated heuristic will turn A* in to
-		 * Dijkstra's so the manhattan distance seams to be the optimal
-		 * heuristic here. But it has one disadvantage. It will expand to much.
-		 * Several nodes will have the same f value It will search the area of
-		 * the size (abs(startX - goalX) + 1) * (abs(startY - goalY) + 1) So a
-		 * tie-breaker is needed. 1% square distace seems to work fine. A* will
-		 * prefer nodes closer to the goal.
-		 * @param nodeGoal
-		 * @return heuristic value for move
-		 */
-		public double getHeuristic(final TreeNode nodeGoal) {
-			final double heuristic = manhattanDistance(x, y, nodeGoal.x, nodeGoal.y);
-			final double tieBreaking = 0.01 * squareDistance(x, y, nodeGoal.x,
-					nodeGoal.y);
-
-			return heuristic + tieBreaking;
-		}
-
-		/**
-		 * Checks if the entity could stand on the position of this node.
+		 * Compare the weights of two nodes.
 		 *
-		 * @return true if the the entity could stand on the position
+		 * @param node1 first node
+		 * @param node2 second node
+		 * @return a negative number, zero, or a positive number, if the first
+		 * 	node is lighter, equal, or heavier than the second
 		 */
-		public boolean isValid() {
-			return isValid(x, y);
+		private int compare(final int node1, final int node2) {
+			return (int) Math.signum(weight[node1] - weight[node2]);
 		}
 
 		/**
-		 * Checks if the entity could stand on the given by the coordinates.
-		 * @param x coordinate of the position to be checked
-		 * @param y coordinate of the position to be checked
-		 *
-		 * @return true if the the entity could stand on the position
-		 */
-		public abstract boolean isValid(int x, int y);
-
-		/**
-		 * Create a new <code>TreeNode</code>.
+		 * Add a node to the open list.
 		 *
-		 * @param x x coordinate of the created node
-		 * @param y y coordinate of the created node
-		 * @return a <code>TreeNode</code>
+		 * @param node node number
 		 */
-		// A workaround for java lacking proper generics
-		public abstract TreeNode createNode(int x, int y);
-
-		/**
-		 * Creates valid child nodes.
-		 * <p>
-		 * The child nodes have to be
-		 * <ul>
-		 * <li> a valid position
-		 * <li> a f value less than maxDistance (checked against the given node)
-		 * </ul>
-		 *
-		 */
-		public void createChildren() {
-			if (g < maxDistance) {
-				linkChild(x - 1, y + 0);
-				linkChild(x + 1, y + 0);
-				linkChild(x + 0, y - 1);
-				linkChild(x + 0, y + 1);
-			}
-		}
-
-		/**
-		 * Links the children to this parent node  and may also update the
-		 * parent path, if a shorter path is found.
-		 * @param x1
-		 * @param y1
-		 */
-		private void linkChild(final int x1, final int y1) {
-			if (!isValid(x1, y1)) {
-				return;
-			}
-
-			// search for original child node
-			TreeNode child = nodeRegistry.get(createNodeID(x1, y1));
-			if (child == null) {
-				// if not found original child node then create a new one
-				child = createNode(x1, y1);
-
-				addChild(child);
-
-				openList.offer(child);
-				child.setOpen(true);
-
-				nodeRegistry.put(child.nodeNumber, child);
-			} else {
-				// note:
-				// - working on closed nodes is stopped but they may own a better
-				// parent
-				// so they will also be added to this node (parent)
-				if (child.g > (this.g + child.getCost())) {
-					updateChild(child);
-				}
-
-				// update parents for closed nodes only
-				if (!child.isOpen()) {
-					updateSubTree(child);
+		void offer(final int node) {
+			int k = heapSize++;
+			while (k > 0) {
+				final int parentIndex = (k - 1) >>> 1;
+				final int e = heap[parentIndex];
+				if (compare(node, e) >= 0) {
+					break;
 				}
+				heap[k] = e;
+				k = parentIndex;
 			}
+			heap[k] = node;
 		}
 
 		/**
-		 * Update the parents for the new route.
+		 * Remove the lightest node from the open list.
 		 *
-		 * @param node
-		 *            the root node.
+		 * @return node number, or NO_NODE if the list is empty
 		 */
-		private void updateSubTree(final TreeNode node) {
-			int c = node.numChildren;
-			final Stack<TreeNode> nodeStack = new Stack<TreeNode>();
-
-			nodeStack.push(node);
-
-			TreeNode parentTemp;
-			TreeNode child;
-			while (nodeStack.size() > 0) {
-				parentTemp = nodeStack.pop();
-				c = parentTemp.numChildren;
-				for (int i = 0; i < c; i++) {
-					child = parentTemp.children[i];
-
-					if (parentTemp.g + child.getCost() < child.g) {
-						parentTemp.updateChild(child);
-
-						nodeStack.push(child);
+		int poll() {
+			if (heapSize == 0) {
+				return NO_NODE;
+			}
+			final int result = heap[0];
+			final int n = --heapSize;
+			if (n > 0) {
+				final int x = heap[n];
+				int k = 0;
+				final int half = n >>> 1;
+				while (k < half) {
+					int child = (k << 1) + 1;
+					int c = heap[child];
+					final int right = child + 1;
+					if ((right < n) && (compare(c, heap[right]) > 0)) {
+						child = right;
+						c = heap[child];
+					}
+					if (compare(x, c) <= 0) {
+						break;
 					}
+					heap[k] = c;
+					k = child;
 				}
+				heap[k] = x;
 			}
+			return result;
 		}
 
 		/**
-		 * Calculates the node id.
-		 * @param x of the node
-		 * @param y of the node
+		 * Push a node to the work stack.
 		 *
-		 * @return the id of the node
+		 * @param node node number
 		 */
-		protected abstract int createNodeID(int x, int y);
-
-		public final boolean isOpen() {
-			return open;
-		}
-
-		public final void setOpen(final boolean open) {
-			this.open = open;
-		}
-
-		@Override
-		public boolean equals(final Object obj) {
-			if (obj instanceof TreeNode) {
-				final TreeNode treeN = (TreeNode) obj;
-				return this.nodeNumber.intValue() == treeN.nodeNumber.intValue();
+		void push(final int node) {
+			if (stackSize == stack.length) {
+				stack = Arrays.copyOf(stack, 2 * stackSize);
 			}
-			return false;
-		}
-
-		@Override
-		public int hashCode() {
-			return nodeNumber.hashCode();
+			stack[stackSize++] = node;
 		}
 	}
 }
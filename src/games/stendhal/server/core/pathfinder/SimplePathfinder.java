@@ -35,33 +35,12 @@ public class SimplePathfinder extends Pathfinder {
 	 */
 	public SimplePathfinder(final StendhalRPZone zone, final int startX, final int startY,
 			final Rectangle2D destination, final double maxDist) {
-		super(startX, startY, destination, maxDist);
+		super(zone.collisionMap.getWidth(), zone.collisionMap.getHeight(), startX, startY, destination, maxDist);
 		collision = zone.collisionMap;
 	}
 
 	@Override
-	public TreeNode createNode(int x, int y) {
-		return new SimpleTreeNode(x, y);
-	}
-
-	private class SimpleTreeNode extends TreeNode {
-		protected SimpleTreeNode(int x, int y) {
-			super(x, y);
-		}
-
-		@Override
-		public TreeNode createNode(int x, int y) {
-			return new SimpleTreeNode(x, y);
-		}
-
-		@Override
-		protected int createNodeID(int x, int y) {
-			return x + y * collision.getWidth();
-		}
-
-		@Override
-		public boolean isValid(int x, int y) {
-			return !collision.collides(x, y);
-		}
+	protected boolean isValid(int x, int y) {
+		return !collision.collides(x, y);
 	}
 }
@@ -0,0 +1,284 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.pathfinder;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+
+import games.stendhal.common.CollisionDetection;
+import games.stendhal.server.core.engine.StendhalRPZone;
+
+/**
+ * Connected regions of the walkable area of a zone. The tiles where an entity
+ * of a given size does not collide with the collision map are labelled with
+ * the number of their region, so that path searches between different
+ * regions can be rejected without searching the whole region of the start.
+ * The regions also provide the cluster graph used for planning long routes.
+ * <p>
+ * The regions of an entity size are calculated when they are first needed,
+ * and again after the collision map has changed. Other entities are ignored,
+ * as they can only make a path longer or impossible.
+ */
+public class ZoneConnectivity {
+	/** Side length of the clusters of the route planning graph. */
+	static final int CLUSTER_SIZE = 16;
+
+	/**
+	 * Largest number of destination tiles that are checked. Larger
+	 * destinations are assumed to be reachable.
+	 */
+	private static final int MAX_CHECKED_AREA = 1024;
+
+	private final StendhalRPZone zone;
+
+	/** Collision map the regions were calculated for. */
+	private CollisionDetection collisionMap;
+
+	/** Version of the collision map the regions were calculated for. */
+	private int version;
+
+	/** Regions of the entity sizes used so far. */
+	private final List<Regions> regions = new ArrayList<Regions>();
+
+	/** Number of searches that were rejected. */
+	private long rejected;
+
+	/** Number of routes that were planned with the cluster graph. */
+	private long planned;
+
+	/**
+	 * Create a new ZoneConnectivity.
+	 *
+	 * @param zone the zone
+	 */
+	public ZoneConnectivity(final StendhalRPZone zone) {
+		this.zone = zone;
+	}
+
+	/**
+	 * Check if a path search can succeed. A search fails for sure if the
+	 * start is walkable, and none of the destination tiles is in the same
+	 * region as the start.
+	 *
+	 * @param width width of the moving entity
+	 * @param height height of the moving entity
+	 * @param x x coordinate of the start
+	 * @param y y coordinate of the start
+	 * @param destination destination area
+	 * @return <code>false</code> if the destination can not be reached,
+	 * 	<code>true</code> if it may be reachable
+	 */
+	public synchronized boolean mayReach(final double width, final double height, final int x, final int y,
+			final Rectangle2D destination) {
+		final Regions r = getRegions(width, height);
+		final int label = r.getLabel(x, y);
+		if (label == 0) {
+			// The path finders do not check the start. Entities can stand on
+			// collisions, for example after being placed by an admin.
+			return true;
+		}
+
+		// The integer positions contained in the destination
+		final int left = Math.max(0, (int) Math.ceil(destination.getX()));
+		final int top = Math.max(0, (int) Math.ceil(destination.getY()));
+		final int right = Math.min(r.zoneWidth, (int) Math.ceil(destination.getMaxX()));
+		final int bottom = Math.min(r.zoneHeight, (int) Math.ceil(destination.getMaxY()));
+		if ((long) (right - left) * (bottom - top) > MAX_CHECKED_AREA) {
+			return true;
+		}
+		for (int ty = top; ty < bottom; ty++) {
+			for (int tx = left; tx < right; tx++) {
+				if (r.getLabel(tx, ty) == label) {
+					return true;
+				}
+			}
+		}
+
+		rejected++;
+		return false;
+	}
+
+	/**
+	 * Plan a route between two tiles using the cluster graph.
+	 *
+	 * @param width width of the moving entity
+	 * @param height height of the moving entity
+	 * @param startX x coordinate of the start
+	 * @param startY y coordinate of the start
+	 * @param goalX x coordinate of the goal
+	 * @param goalY y coordinate of the goal
+	 * @return waypoints after the start, ending with the goal, as x
+	 * 	coordinate, y coordinate and walking distance from the start
+	 * 	interleaved; or <code>null</code> if the route should be searched
+	 * 	directly, because it is short, or the start or goal is not walkable,
+	 * 	or there is no route
+	 */
+	synchronized int[] planRoute(final double width, final double height, final int startX, final int startY,
+			final int goalX, final int goalY) {
+		final Regions r = getRegions(width, height);
+		final int label = r.getLabel(startX, startY);
+		if ((label == 0) || (label != r.getLabel(goalX, goalY))) {
+			return null;
+		}
+
+		final int[] route = r.getGraph().findRoute(startX, startY, goalX, goalY);
+		if (route != null) {
+			planned++;
+		}
+		return route;
+	}
+
+	/**
+	 * Get the regions of an entity size, calculating them if needed.
+	 *
+	 * @param width entity width
+	 * @param height entity height
+	 * @return regions
+	 */
+	private Regions getRegions(final double width, final double height) {
+		if ((zone.collisionMap != collisionMap) || (zone.collisionMap.getVersion() != version)) {
+			collisionMap = zone.collisionMap;
+			version = collisionMap.getVersion();
+			regions.clear();
+		}
+
+		// The collision checks of an entity at integer positions depend only
+		// on the rounded up size
+		final int w = (int) Math.ceil(width);
+		final int h = (int) Math.ceil(height);
+		for (final Regions r : regions) {
+			if ((r.width == w) && (r.height == h)) {
+				return r;
+			}
+		}
+		final Regions r = new Regions(collisionMap, w, h);
+		regions.add(r);
+		return r;
+	}
+
+	/**
+	 * Get the number of searches that were rejected, because the destination
+	 * can not be reached.
+	 *
+	 * @return number of rejected searches
+	 */
+	public synchronized long getRejectedCount() {
+		return rejected;
+	}
+
+	/**
+	 * Get the number of routes that were planned with the cluster graph.
+	 *
+	 * @return number of planned routes
+	 */
+	public synchronized long getPlannedCount() {
+		return planned;
+	}
+
+	/**
+	 * The regions for one entity size.
+	 */
+	private static class Regions {
+		/** Entity size. */
+		private final int width, height;
+		/** Zone size. */
+		private final int zoneWidth, zoneHeight;
+		/** Region labels of the tiles; 0 for tiles that can not be walked. */
+		private final int[] labels;
+		/** Route planning graph, created on demand. */
+		private ClusterGraph graph;
+
+		/**
+		 * Calculate the regions.
+		 *
+		 * @param map collision map
+		 * @param width entity width
+		 * @param height entity height
+		 */
+		Regions(final CollisionDetection map, final int width, final int height) {
+			this.width = width;
+			this.height = height;
+			zoneWidth = map.getWidth();
+			zoneHeight = map.getHeight();
+			final int size = zoneWidth * zoneHeight;
+			labels = new int[size];
+			for (int y = 0; y < zoneHeight; y++) {
+				for (int x = 0; x < zoneWidth; x++) {
+					if (!map.collides(x, y, width, height)) {
+						labels[x + y * zoneWidth] = -1;
+					}
+				}
+			}
+
+			// Flood fill each unlabelled walkable tile
+			final int[] queue = new int[size];
+			int label = 0;
+			for (int i = 0; i < size; i++) {
+				if (labels[i] != -1) {
+					continue;
+				}
+				label++;
+				labels[i] = label;
+				int head = 0;
+				int tail = 0;
+				queue[tail++] = i;
+				while (head < tail) {
+					final int tile = queue[head++];
+					final int x = tile % zoneWidth;
+					if ((x > 0) && (labels[tile - 1] == -1)) {
+						labels[tile - 1] = label;
+						queue[tail++] = tile - 1;
+					}
+					if ((x < zoneWidth - 1) && (labels[tile + 1] == -1)) {
+						labels[tile + 1] = label;
+						queue[tail++] = tile + 1;
+					}
+					if ((tile >= zoneWidth) && (labels[tile - zoneWidth] == -1)) {
+						labels[tile - zoneWidth] = label;
+						queue[tail++] = tile - zoneWidth;
+					}
+					if ((tile + zoneWidth < size) && (labels[tile + zoneWidth] == -1)) {
+						labels[tile + zoneWidth] = label;
+						queue[tail++] = tile + zoneWidth;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Get the region of a tile.
+		 *
+		 * @param x x coordinate
+		 * @param y y coordinate
+		 * @return region label, or 0 if the tile can not be walked
+		 */
+		int getLabel(final int x, final int y) {
+			if ((x < 0) || (y < 0) || (x >= zoneWidth) || (y >= zoneHeight)) {
+				return 0;
+			}
+			return labels[x + y * zoneWidth];
+		}
+
+		/**
+		 * Get the route planning graph, creating it if needed.
+		 *
+		 * @return graph
+		 */
+		ClusterGraph getGraph() {
+			if (graph == null) {
+				graph = new ClusterGraph(labels, zoneWidth, zoneHeight, CLUSTER_SIZE);
+			}
+			return graph;
+		}
+	}
+}
@@ -0,0 +1,266 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.rp;
+
+import java.awt.Point;
+import java.awt.Shape;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import games.stendhal.server.core.engine.StendhalRPZone;
+import games.stendhal.server.entity.Entity;
+import games.stendhal.server.entity.player.Player;
+
+/**
+ * Search for free spots near a position, for placing entities that can not
+ * stand on the position itself.
+ * <p>
+ * The candidate spots are checked in order of their walking distance from the
+ * center, and for the same walking distance the spots closer in straight line
+ * come first. Whether a spot can be reached from the center is answered by a
+ * breadth first flood over the collision map. The flood is extended only as
+ * far as needed and is shared by all candidates, and by all entities placed
+ * with the same search, instead of running a path search for every candidate.
+ * <p>
+ * Like the path search used before, the flood ignores other entities; they
+ * only make the spot itself unusable.
+ */
+class PlacementSearch {
+	/**
+	 * maximum walking distance from the center, determines the area checked.
+	 * the total area checked is 2n(n+1) + 1
+	 * 36 => 2665 squares
+	 */
+	static final int MAX_DISPLACEMENT = 36;
+
+	/**
+	 * Maximum distance from the center in each direction that paths may use
+	 * to get around obstacles.
+	 */
+	private static final int FLOOD_RADIUS = 2 * MAX_DISPLACEMENT;
+
+	/** Candidate offsets from the center in search order, x and y interleaved. */
+	private static final int[] OFFSETS = createOffsets();
+
+	private final StendhalRPZone zone;
+	private final int centerX;
+	private final int centerY;
+	private final Shape allowedArea;
+
+	/** Flood for the entity size the search was last used for, created on demand. */
+	private Flood flood;
+
+	/**
+	 * First candidate that can still be free for entities like the last
+	 * placed one. Placing entities only makes spots unusable, so the
+	 * candidates before that do not need to be checked again.
+	 */
+	private int nextCandidate;
+	/** Kind of entity nextCandidate belongs to. */
+	private Class<?> lastClass;
+	private double lastWidth;
+	private double lastHeight;
+	private boolean lastCheckPath;
+
+	/**
+	 * Create a new PlacementSearch.
+	 *
+	 * @param zone zone to search
+	 * @param x x coordinate of the center
+	 * @param y y coordinate of the center
+	 * @param allowedArea if not <code>null</code>, only spots within this area are used
+	 */
+	PlacementSearch(final StendhalRPZone zone, final int x, final int y, final Shape allowedArea) {
+		this.zone = zone;
+		this.centerX = x;
+		this.centerY = y;
+		this.allowedArea = allowedArea;
+	}
+
+	/**
+	 * Find the nearest free spot for an entity.
+	 *
+	 * @param entity entity to place
+	 * @param checkPath if <code>true</code>, only spots that can be reached
+	 * 	from the center by walking are used
+	 * @return free spot, or <code>null</code> if there is none within
+	 * 	{@link #MAX_DISPLACEMENT}
+	 */
+	Point find(final Entity entity, final boolean checkPath) {
+		// allow admins in ghostmode to teleport to collision tiles
+		if ((entity instanceof Player) && ((Player) entity).isGhost()) {
+			return new Point(centerX + OFFSETS[0], centerY + OFFSETS[1]);
+		}
+
+		if ((entity.getClass() != lastClass) || (entity.getWidth() != lastWidth)
+				|| (entity.getHeight() != lastHeight) || (checkPath != lastCheckPath)) {
+			nextCandidate = 0;
+			lastClass = entity.getClass();
+			lastWidth = entity.getWidth();
+			lastHeight = entity.getHeight();
+			lastCheckPath = checkPath;
+		}
+		if (checkPath && ((flood == null) || !flood.isFor(entity))) {
+			flood = new Flood(entity);
+		}
+
+		for (int i = nextCandidate; i < OFFSETS.length; i += 2) {
+			final int x = centerX + OFFSETS[i];
+			final int y = centerY + OFFSETS[i + 1];
+			if (!zone.collides(entity, x, y)
+					// Check the allowed area first. This is a performance
+					// optimization because the reachability check can be
+					// expensive.
+					&& ((allowedArea == null) || allowedArea.contains(x, y))
+					&& (!checkPath || flood.reaches(x, y))) {
+				nextCandidate = i;
+				return new Point(x, y);
+			}
+		}
+		nextCandidate = OFFSETS.length;
+
+		return null;
+	}
+
+	/**
+	 * Create the candidate offsets in the order the spiral search used them.
+	 *
+	 * @return offsets, x and y interleaved
+	 */
+	private static int[] createOffsets() {
+		final Set<Point> offsets = new LinkedHashSet<Point>();
+		// Minimum Euclidean distance within minimum walking distance
+		for (int totalShift = 1; totalShift <= MAX_DISPLACEMENT; totalShift++) {
+			for (int tilt = (totalShift + 1) / 2; tilt > 0; tilt--) {
+				final int spread = totalShift - tilt;
+				offsets.add(new Point(-tilt, -spread));
+				offsets.add(new Point(tilt, -spread));
+				offsets.add(new Point(tilt, spread));
+				offsets.add(new Point(-tilt, spread));
+
+				// center spots of the equidistance rectangle.
+				if (spread == tilt) {
+					continue;
+				}
+
+				offsets.add(new Point(-spread, -tilt));
+				offsets.add(new Point(spread, -tilt));
+				offsets.add(new Point(spread, tilt));
+				offsets.add(new Point(-spread, tilt));
+			}
+
+			offsets.add(new Point(0, -totalShift));
+			offsets.add(new Point(0, totalShift));
+			offsets.add(new Point(-totalShift, 0));
+			offsets.add(new Point(totalShift, 0));
+		}
+
+		// The spiral visits some spots twice; only the first visit counts
+		final int[] res = new int[2 * offsets.size()];
+		int i = 0;
+		for (final Point offset : offsets) {
+			res[i++] = offset.x;
+			res[i++] = offset.y;
+		}
+		return res;
+	}
+
+	/**
+	 * Breadth first flood from the center over the spots where an entity of
+	 * a given size does not collide with the collision map. The flood is
+	 * limited to a square around the center.
+	 */
+	private class Flood {
+		private final Entity entity;
+		private final double width;
+		private final double height;
+		/** Left edge of the flooded square. */
+		private final int left;
+		/** Top edge of the flooded square. */
+		private final int top;
+		private final int size;
+		private final boolean[] reached;
+		/** Spots to expand, as indices into reached. */
+		private final int[] queue;
+		private int head;
+		private int tail;
+
+		/**
+		 * Create a new Flood. Only the center is reached at the start.
+		 *
+		 * @param entity entity whose size is used
+		 */
+		Flood(final Entity entity) {
+			this.entity = entity;
+			width = entity.getWidth();
+			height = entity.getHeight();
+			left = centerX - FLOOD_RADIUS;
+			top = centerY - FLOOD_RADIUS;
+			size = 2 * FLOOD_RADIUS + 1;
+			reached = new boolean[size * size];
+			queue = new int[size * size];
+			final int center = index(centerX, centerY);
+			reached[center] = true;
+			queue[tail++] = center;
+		}
+
+		/**
+		 * Check if the flood can be used for an entity.
+		 *
+		 * @param other entity
+		 * @return <code>true</code> if the entity has the same size
+		 */
+		boolean isFor(final Entity other) {
+			return (other.getWidth() == width) && (other.getHeight() == height);
+		}
+
+		private int index(final int x, final int y) {
+			return (y - top) * size + (x - left);
+		}
+
+		/**
+		 * Check if a spot can be reached from the center, extending the flood
+		 * until the spot is reached or there is nothing left to expand.
+		 *
+		 * @param x x coordinate
+		 * @param y y coordinate
+		 * @return <code>true</code> if the spot can be reached
+		 */
+		boolean reaches(final int x, final int y) {
+			if ((x < left) || (y < top) || (x >= left + size) || (y >= top + size)) {
+				return false;
+			}
+			final int target = index(x, y);
+			while (!reached[target] && (head < tail)) {
+				final int spot = queue[head++];
+				final int spotX = left + spot % size;
+				final int spotY = top + spot / size;
+				visit(spotX - 1, spotY);
+				visit(spotX + 1, spotY);
+				visit(spotX, spotY - 1);
+				visit(spotX, spotY + 1);
+			}
+			return reached[target];
+		}
+
+		private void visit(final int x, final int y) {
+			if ((x < left) || (y < top) || (x >= left + size) || (y >= top + size)) {
+				return;
+			}
+			final int spot = index(x, y);
+			if (!reached[spot] && !zone.simpleCollides(entity, x, y, width, height)) {
+				reached[spot] = true;
+				queue[tail++] = spot;
+			}
+		}
+	}
+}
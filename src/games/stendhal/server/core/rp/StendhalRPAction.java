@@ -14,7 +14,6 @@ package games.stendhal.server.core.rp;
 import static games.stendhal.common.constants.Actions.MOVE_CONTINUOUS;
 
 import java.awt.Point;
-import java.awt.Rectangle;
 import java.awt.Shape;
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -29,10 +28,10 @@ import games.stendhal.server.core.engine.DataProvider;
 import games.stendhal.server.core.engine.GameEvent;
 import games.stendhal.server.core.engine.SingletonRepository;
 import games.stendhal.server.core.engine.StendhalRPZone;
+import games.stendhal.server.core.engine.ZoneLogicExecutor;
 import games.stendhal.server.core.engine.db.StendhalKillLogDAO;
 import games.stendhal.server.core.events.TutorialNotifier;
 import games.stendhal.server.core.events.ZoneNotifier;
-import games.stendhal.server.core.pathfinder.Node;
 import games.stendhal.server.core.pathfinder.Path;
 import games.stendhal.server.core.rp.group.Group;
 import games.stendhal.server.entity.Entity;
@@ -598,14 +597,6 @@ public class StendhalRPAction {
 		return placeat(zone, entity, x, y, null);
 	}
 
-
-	/**
-	 * maximum walking distance from the center, determines the area checked.
-	 * the total area checked is 2n(n+1) + 1
-	 * 36 => 2665 squares
-	 */
-	private static final int maxDisplacement = 36;
-
 	/**
 	 * Places an entity at a specified position in a specified zone. This will
 	 * remove the entity from any existing zone and add it to the target zone if
@@ -631,6 +622,14 @@ public class StendhalRPAction {
 			return false;
 		}
 
+		// Moving entities between zones is a cross zone effect, which is
+		// done after the logic of all zones when running them in parallel
+		final int targetX = x;
+		final int targetY = y;
+		if (ZoneLogicExecutor.deferIfOtherZone(zone, () -> placeat(zone, entity, targetX, targetY, allowedArea))) {
+			return true;
+		}
+
 		Player player = null;
 		if (entity instanceof Player) {
 			player = (Player) entity;
@@ -650,8 +649,7 @@ public class StendhalRPAction {
 				checkPath = false;
 			}
 
-			final Point newLocation = findLocation(zone, entity, allowedArea,
-					x, y, checkPath);
+			final Point newLocation = new PlacementSearch(zone, x, y, allowedArea).find(entity, checkPath);
 
 			if (newLocation == null) {
 				logger.info("Unable to place " + entity.getTitle() + " at "
@@ -766,162 +764,60 @@ public class StendhalRPAction {
 	}
 
 	/**
-	 * Finds a new place for entity.
+	 * Places several entities as near to a position as possible. The free
+	 * spots are searched only once for all the entities, which is much
+	 * cheaper than placing them one by one when the position is crowded,
+	 * like when summoning raid creatures or teleporting a group of players.
+	 * This will remove the entities from any existing zone and add them to
+	 * the target zone if needed.
 	 *
 	 * @param zone
-	 *     Zone to place the entity in.
-	 * @param entity
-	 *     The entity to place.
-	 * @param allowedArea
-	 *     Only search within this area for a possible new position,
-	 *     or <code>null</code> if the whole normal search area should
-	 *     be used.
+	 *     Zone to place the entities in.
+	 * @param entities
+	 *     The entities to place, nearest to the position first.
 	 * @param x
-	 *     The x coordinate of the search center.
+	 *     Zone X coordinate.
 	 * @param y
-	 *     The y coordinate of the search center.
-	 * @param checkPath
-	 *     If <code>true</code>, check that there's a valid path to the
-	 *     center.
-	 * @return
-	 *     Location of the new placement, or <code>null</code> if no
-	 *     suitable place was found.
-	 */
-	private static Point findLocation(final StendhalRPZone zone, final Entity entity,
-			final Shape allowedArea, final int x, final int y, final boolean checkPath) {
-
-		// Minimum Euclidean distance within minimum walking distance
-		for (int totalShift = 1; totalShift <= maxDisplacement; totalShift++) {
-			for (int tilt = (totalShift + 1) / 2; tilt > 0; tilt--) {
-				final int spread = totalShift - tilt;
-
-				int tmpx = x - tilt;
-				int tmpy = y - spread;
-				if (isValidPlacement(zone, entity, allowedArea, x, y, tmpx, tmpy, checkPath)) {
-					return new Point(tmpx, tmpy);
-				}
-				tmpx = x + tilt;
-				if (isValidPlacement(zone, entity, allowedArea, x, y, tmpx, tmpy, checkPath)) {
-					return new Point(tmpx, tmpy);
-				}
-				tmpy = y + spread;
-				if (isValidPlacement(zone, entity, allowedArea, x, y, tmpx, tmpy, checkPath)) {
-					return new Point(tmpx, tmpy);
-				}
-				tmpx = x - tilt;
-				if (isValidPlacement(zone, entity, allowedArea, x, y, tmpx, tmpy, checkPath)) {
-					return new Point(tmpx, tmpy);
-				}
-
-				// center spots of the equidistance rectangle.
-				if (spread == tilt) {
-					continue;
-				}
-
-				tmpx = x - spread;
-				tmpy = y - tilt;
-				if (isValidPlacement(zone, entity, allowedArea, x, y, tmpx, tmpy, checkPath)) {
-					return new Point(tmpx, tmpy);
-				}
-				tmpx = x + spread;
-				if (isValidPlacement(zone, entity, allowedArea, x, y, tmpx, tmpy, checkPath)) {
-					return new Point(tmpx, tmpy);
-				}
-				tmpy = y + tilt;
-				if (isValidPlacement(zone, entity, allowedArea, x, y, tmpx, tmpy, checkPath)) {
-					return new Point(tmpx, tmpy);
-				}
-				tmpx = x - spread;
-				if (isValidPlacement(zone, entity, allowedArea, x, y, tmpx, tmpy, checkPath)) {
-					return new Point(tmpx, tmpy);
-				}
-			}
-
-			// Do tilt = 0 case here, since it takes only 4 checks
-			int tmpx = x;
-			int tmpy = y - totalShift;
-			if (isValidPlacement(zone, entity, allowedArea, x, y, tmpx, tmpy, checkPath)) {
-				return new Point(tmpx, tmpy);
-			}
-			tmpy = y + totalShift;
-			if (isValidPlacement(zone, entity, allowedArea, x, y, tmpx, tmpy, checkPath)) {
-				return new Point(tmpx, tmpy);
-			}
-			tmpy = y;
-			tmpx = x - totalShift;
-			if (isValidPlacement(zone, entity, allowedArea, x, y, tmpx, tmpy, checkPath)) {
-				return new Point(tmpx, tmpy);
-			}
-			tmpx = x + totalShift;
-			if (isValidPlacement(zone, entity, allowedArea, x, y, tmpx, tmpy, checkPath)) {
-				return new Point(tmpx, tmpy);
-			}
-		}
-
-		return null;
-	}
-
-	/**
-	 * Checks if a new placement for an entity is valid.
-	 *
-	 * @param zone
-	 *     Zone to place the entity in.
-	 * @param entity
-	 *     The entity to place.
+	 *     Zone Y coordinate.
 	 * @param allowedArea
-	 *     Only search within this area for a possible new position,
-	 *     or <code>null</code> if the whole normal search area should
-	 *     be used.
-	 * @param oldX
-	 *     The X coordinate from where the entity was displaced.
-	 * @param oldY
-	 *     The Y coordinate from where the entity was displaced.
-	 * @param newX
-	 *     The X coordinate of the new placement.
-	 * @param newY
-	 *     The Y coordinate of the new placement.
-	 * @param checkPath
-	 *     If <code>true</code>, check that there is a path from
-	 *     <code>(newX, newY)</code> to <code>(oldX, oldY)</code>.
+	 *     If not <code>null</code>, only search within this area for possible
+	 *     new positions.
 	 * @return
-	 *     <code>true</code> if placing is possible,
-	 *     <code>false</code> otherwise.
+	 *     Number of entities that could be placed.
 	 */
-	private static boolean isValidPlacement(final StendhalRPZone zone, final Entity entity,
-			final Shape allowedArea, final int oldX, final int oldY,
-			final int newX, final int newY, final boolean checkPath) {
+	public static int placeat(final StendhalRPZone zone, final List<? extends Entity> entities,
+			final int x, final int y, final Shape allowedArea) {
+		if (zone == null) {
+			return 0;
+		}
 
-		// allow admins in ghostmode to teleport to collision tiles
-		if (entity instanceof Player) {
-			if (((Player) entity).isGhost()) {
-				return true;
-			}
+		if (ZoneLogicExecutor.deferIfOtherZone(zone, () -> placeat(zone, entities, x, y, allowedArea))) {
+			return entities.size();
 		}
 
-		if (!zone.collides(entity, newX, newY)) {
-			// Check the possibleArea now. This is a performance
-			// optimization because the pathfinding is very expensive.
-			if ((allowedArea != null) && (!allowedArea.contains(newX, newY))) {
-				return false;
+		final PlacementSearch search = new PlacementSearch(zone, x, y, allowedArea);
+		int placed = 0;
+		for (final Entity entity : entities) {
+			int targetX = x;
+			int targetY = y;
+			if (zone.collides(entity, x, y)) {
+				// Same rule as for single entities
+				final boolean checkPath = !((entity instanceof Player) && zone.collides(entity, x, y, false));
+				final Point spot = search.find(entity, checkPath);
+				if (spot == null) {
+					logger.info("Unable to place " + entity.getTitle() + " at "
+							+ zone.getName() + "[" + x + "," + y + "]");
+					continue;
+				}
+				targetX = spot.x;
+				targetY = spot.y;
 			}
-			if (!checkPath) {
-				return true;
-			}
-
-			// We verify that there is a walkable path between the original
-			// spot and the new destination. This is to prevent players to
-			// enter not allowed places by logging in on top of other players.
-			// Or monsters to spawn on the other side of a wall.
-			final List<Node> path = Path.searchPath(entity, zone,
-					oldX, oldY, new Rectangle(newX, newY, 1, 1),
-					400 /* maxDestination * maxDestination */, false);
-			if (!path.isEmpty()) {
-				// We found a place!
-				return true;
+			if (placeat(zone, entity, targetX, targetY, allowedArea)) {
+				placed++;
 			}
 		}
 
-		return false;
+		return placed;
 	}
 
 	/**
@@ -952,7 +848,7 @@ public class StendhalRPAction {
 
 		// Failed to find a path from the new location. Just try to find
 		// some location with a path to the player
-		final Point p = findLocation(zone, pet, null, player.getX(), player.getY(), true);
+		final Point p = new PlacementSearch(zone, player.getX(), player.getY(), null).find(pet, true);
 		if (p != null) {
 			return placeat(zone, pet, p.x, p.y);
 		}
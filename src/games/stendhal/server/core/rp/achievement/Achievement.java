@@ -49,6 +49,8 @@ public class Achievement {
 
 	private final ChatCondition condition;
 
+	/** facts the condition depends on, <code>null</code> if unknown */
+	private final Dependencies dependencies;
 
 
 	/**
@@ -63,6 +65,22 @@ public class Achievement {
 	 * @param condition
 	 */
 	public Achievement(String identifier, String title, Category category, String description, int baseScore, boolean active, ChatCondition condition) {
+		this(identifier, title, category, description, baseScore, active, condition, null);
+	}
+
+	/**
+	 * create a new achievement which is only checked if one of its dependencies changes
+	 *
+	 * @param identifier
+	 * @param title
+	 * @param category
+	 * @param description
+	 * @param baseScore
+	 * @param active
+	 * @param condition
+	 * @param dependencies the facts the condition depends on, <code>null</code> if unknown
+	 */
+	public Achievement(String identifier, String title, Category category, String description, int baseScore, boolean active, ChatCondition condition, Dependencies dependencies) {
 		this.identifier = identifier;
 		this.title = title;
 		this.category = category;
@@ -70,6 +88,7 @@ public class Achievement {
 		this.description = description;
 		this.baseScore = baseScore;
 		this.active = active;
+		this.dependencies = dependencies;
 	}
 
 	/**
@@ -114,6 +133,13 @@ public class Achievement {
 		return active;
 	}
 
+	/**
+	 * @return the facts the condition depends on, <code>null</code> if unknown
+	 */
+	public Dependencies getDependencies() {
+		return dependencies;
+	}
+
 	/**
 	 * Check if a player has fulfilled this achievement
 	 * @param p the player to check
@@ -0,0 +1,87 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.rp.achievement;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the achievements by the facts they depend on.
+ * <p>
+ * Achievements without {@link Dependencies} are candidates for every lookup
+ * in their category.
+ */
+class AchievementIndex {
+	private final Map<String, List<Achievement>> byKey = new HashMap<String, List<Achievement>>();
+
+	private final Map<Category, List<Achievement>> withoutDependencies =
+			new EnumMap<Category, List<Achievement>>(Category.class);
+
+	/**
+	 * Adds an achievement.
+	 *
+	 * @param achievement achievement
+	 */
+	void add(final Achievement achievement) {
+		final Dependencies dependencies = achievement.getDependencies();
+		if (dependencies == null) {
+			put(withoutDependencies, achievement.getCategory(), achievement);
+			return;
+		}
+		for (final String key : dependencies.getKeys()) {
+			put(byKey, key, achievement);
+		}
+	}
+
+	private static <K> void put(final Map<K, List<Achievement>> map, final K key, final Achievement achievement) {
+		List<Achievement> list = map.get(key);
+		if (list == null) {
+			list = new ArrayList<Achievement>();
+			map.put(key, list);
+		}
+		list.add(achievement);
+	}
+
+	/**
+	 * Gets the achievements that may be affected by a change.
+	 *
+	 * @param categories categories to look in
+	 * @param keys keys of the changed facts
+	 * @return achievements to check
+	 */
+	Collection<Achievement> getCandidates(final Collection<Category> categories, final Collection<String> keys) {
+		final Set<Achievement> res = new LinkedHashSet<Achievement>();
+		for (final String key : keys) {
+			final List<Achievement> list = byKey.get(key);
+			if (list != null) {
+				for (final Achievement achievement : list) {
+					if (categories.contains(achievement.getCategory())) {
+						res.add(achievement);
+					}
+				}
+			}
+		}
+		for (final Category category : categories) {
+			final List<Achievement> list = withoutDependencies.get(category);
+			if (list != null) {
+				res.addAll(list);
+			}
+		}
+		return res;
+	}
+}
@@ -14,7 +14,9 @@ package games.stendhal.server.core.rp.achievement;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -30,6 +32,7 @@ import games.stendhal.common.constants.SoundLayer;
 import games.stendhal.common.grammar.Grammar;
 import games.stendhal.server.core.engine.GameEvent;
 import games.stendhal.server.core.engine.SingletonRepository;
+import games.stendhal.server.core.engine.StendhalRPZone;
 import games.stendhal.server.core.engine.db.AchievementDAO;
 import games.stendhal.server.core.engine.dbcommand.WriteReachedAchievementCommand;
 import games.stendhal.server.core.rp.achievement.factory.AbstractAchievementFactory;
@@ -50,6 +53,19 @@ public final class AchievementNotifier {
 
 	private static final Logger logger = Logger.getLogger(AchievementNotifier.class);
 
+	/** categories checked on kills */
+	private static final Collection<Category> KILL_CATEGORIES = EnumSet.of(Category.FIGHTING);
+
+	/** categories checked on zone changes */
+	private static final Collection<Category> ZONE_CATEGORIES = EnumSet.of(Category.OUTSIDE_ZONE,
+			Category.UNDERGROUND_ZONE, Category.INTERIOR_ZONE);
+
+	/** categories checked on quest changes */
+	private static final Collection<Category> QUEST_CATEGORIES = EnumSet.of(Category.QUEST,
+			Category.QUEST_ADOS_ITEMS, Category.QUEST_SEMOS_MONSTER, Category.QUEST_KIRDNEH_ITEM,
+			Category.FRIEND, Category.OBTAIN, Category.PRODUCTION,
+			Category.QUEST_MITHRILBOURGH_ENEMY_ARMY, Category.QUEST_KILL_BLORDROUGHS);
+
 	/** The singleton instance. */
 	private static AchievementNotifier instance;
 
@@ -57,6 +73,8 @@ public final class AchievementNotifier {
 
 	final private Map<String, Integer> identifiersToIds;
 
+	/** achievements by the kills, zones and quests they depend on */
+	final private AchievementIndex index;
 
 	/**
 	 * singleton accessor method
@@ -78,6 +96,7 @@ public final class AchievementNotifier {
 	private AchievementNotifier() {
 		achievements = new EnumMap<Category, List<Achievement>>(Category.class);
 		identifiersToIds = new HashMap<String, Integer>();
+		index = new AchievementIndex();
 	}
 
 	/**
@@ -92,6 +111,7 @@ public final class AchievementNotifier {
 				achievements.put(a.getCategory(), new LinkedList<Achievement>());
 			}
 			achievements.get(a.getCategory()).add(a);
+			index.add(a);
 		}
 		//collect all identifiers from database
 		final Map<String, Integer> allIdentifiersInDatabase = collectAllIdentifiersFromDatabase();
@@ -179,7 +199,19 @@ public final class AchievementNotifier {
 	 * @param player
 	 */
 	public void onKill(final Player player) {
-		getAndCheckAchievementsInCategory(player, Category.FIGHTING);
+		for (final Category category : KILL_CATEGORIES) {
+			getAndCheckAchievementsInCategory(player, category);
+		}
+	}
+
+	/**
+	 * checks the achievements for a player that depend on killing a certain creature
+	 *
+	 * @param player
+	 * @param creature name of the killed creature
+	 */
+	public void onKill(final Player player, final String creature) {
+		checkCandidates(player, KILL_CATEGORIES, Collections.singleton(Dependencies.killKey(creature)));
 	}
 
 	/**
@@ -188,15 +220,19 @@ public final class AchievementNotifier {
 	 * @param player
 	 */
 	public void onFinishQuest(final Player player) {
-		getAndCheckAchievementsInCategory(player, Category.QUEST);
-		getAndCheckAchievementsInCategory(player, Category.QUEST_ADOS_ITEMS);
-		getAndCheckAchievementsInCategory(player, Category.QUEST_SEMOS_MONSTER);
-		getAndCheckAchievementsInCategory(player, Category.QUEST_KIRDNEH_ITEM);
-		getAndCheckAchievementsInCategory(player, Category.FRIEND);
-		getAndCheckAchievementsInCategory(player, Category.OBTAIN);
-		getAndCheckAchievementsInCategory(player, Category.PRODUCTION);
-		getAndCheckAchievementsInCategory(player, Category.QUEST_MITHRILBOURGH_ENEMY_ARMY);
-		getAndCheckAchievementsInCategory(player, Category.QUEST_KILL_BLORDROUGHS);
+		for (final Category category : QUEST_CATEGORIES) {
+			getAndCheckAchievementsInCategory(player, category);
+		}
+	}
+
+	/**
+	 * check the achievements for a player that depend on the state of a certain quest
+	 *
+	 * @param player
+	 * @param quest name of the changed quest slot
+	 */
+	public void onFinishQuest(final Player player, final String quest) {
+		checkCandidates(player, QUEST_CATEGORIES, Collections.singleton(Dependencies.questKey(quest)));
 	}
 
 	/**
@@ -214,9 +250,25 @@ public final class AchievementNotifier {
 	 * @param player
 	 */
 	public void onZoneEnter(final Player player) {
-		getAndCheckAchievementsInCategory(player, Category.OUTSIDE_ZONE);
-		getAndCheckAchievementsInCategory(player, Category.UNDERGROUND_ZONE);
-		getAndCheckAchievementsInCategory(player, Category.INTERIOR_ZONE);
+		for (final Category category : ZONE_CATEGORIES) {
+			getAndCheckAchievementsInCategory(player, category);
+		}
+	}
+
+	/**
+	 * check the achievements for a player that depend on visiting a certain zone
+	 *
+	 * @param player
+	 * @param zone the entered zone
+	 */
+	public void onZoneEnter(final Player player, final StendhalRPZone zone) {
+		final List<String> keys = new ArrayList<String>(2);
+		keys.add(Dependencies.zoneKey(zone.getName()));
+		final String region = SingletonRepository.getRPWorld().getRegion(zone);
+		if (region != null) {
+			keys.add(Dependencies.regionKey(region));
+		}
+		checkCandidates(player, ZONE_CATEGORIES, keys);
 	}
 
 	/**
@@ -300,13 +352,11 @@ public final class AchievementNotifier {
 	 */
 	public void onLogin(final Player player) {
 		List<Achievement> toCheck = new ArrayList<Achievement>();
-		//Avoid checking of zone achievements on login to
-		//prevent double check when player is initially placed into a zone
-		final Map<Category,List<Achievement>> map = new HashMap<Category, List<Achievement>>(achievements);
-		map.remove(Category.OUTSIDE_ZONE);
-		map.remove(Category.UNDERGROUND_ZONE);
-		Collection<List<Achievement>> values = map.values();
-		for (List<Achievement> list : values) {
+		// Zone changes and kills only check the achievements depending on
+		// them, so all categories are checked here once. This happens after
+		// the player has been placed into a zone, as the reached achievements
+		// are read from the database first.
+		for (List<Achievement> list : achievements.values()) {
 			toCheck.addAll(list);
 		}
 		final List<Achievement> reached = checkAchievements(player, toCheck);
@@ -334,6 +384,22 @@ public final class AchievementNotifier {
 		}
 	}
 
+	/**
+	 * check the achievements of some categories that may be affected by changed facts
+	 *
+	 * @param player
+	 * @param categories categories to check
+	 * @param keys keys of the changed facts
+	 */
+	private void checkCandidates(final Player player, final Collection<Category> categories,
+			final Collection<String> keys) {
+		if (!player.arePlayerAchievementsLoaded()) {
+			return;
+		}
+		List<Achievement> reached = checkAchievements(player, index.getCandidates(categories, keys));
+		notifyPlayerAboutReachedAchievements(player, reached);
+	}
+
 	/**
 	 * Checks for each achievement if the player has reached it. in case of reaching
 	 * an achievement it starts logging and notifying about reaching.
@@ -343,7 +409,7 @@ public final class AchievementNotifier {
 	 * @return list of reached achievements
 	 */
 	private List<Achievement> checkAchievements(final Player player,
-			final List<Achievement> toCheck) {
+			final Collection<Achievement> toCheck) {
 		List<Achievement> reached = new ArrayList<Achievement>();
 
 		// continue checking only if player's achievements are already loaded from the database
@@ -352,7 +418,8 @@ public final class AchievementNotifier {
 		}
 
 		for (Achievement achievement : toCheck) {
-			if(achievement.isFulfilled(player) && !player.hasReachedAchievement(achievement.getIdentifier())) {
+			// the reached achievements are kept in memory, so look there before evaluating the condition
+			if(!player.hasReachedAchievement(achievement.getIdentifier()) && achievement.isFulfilled(player)) {
 				logReachingOfAnAchievement(player, achievement);
 				if (achievement.isActive()) {
 					reached.add(achievement);
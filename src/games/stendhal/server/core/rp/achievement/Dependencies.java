@@ -0,0 +1,152 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.rp.achievement;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The player facts the condition of an achievement depends on: killed
+ * creatures, visited zones and regions, and quest states.
+ * <p>
+ * An achievement with dependencies is only checked on a kill, zone change or
+ * quest change if one of its dependencies is affected. The dependencies must
+ * therefore cover every kill, zone and quest the condition looks at. Checks
+ * triggered by other events, like level changes, are not affected.
+ */
+public final class Dependencies {
+	private static final String KILL = "kill:";
+	private static final String ZONE = "zone:";
+	private static final String REGION = "region:";
+	private static final String QUEST = "quest:";
+
+	private final Set<String> keys;
+
+	private Dependencies(final Set<String> keys) {
+		this.keys = Collections.unmodifiableSet(keys);
+	}
+
+	private static Dependencies create(final String prefix, final String... names) {
+		final Set<String> keys = new LinkedHashSet<String>();
+		for (final String name : names) {
+			keys.add(prefix + name);
+		}
+		return new Dependencies(keys);
+	}
+
+	/**
+	 * Depends on kills of creatures.
+	 *
+	 * @param creatures names of the creatures
+	 * @return Dependencies
+	 */
+	public static Dependencies kills(final String... creatures) {
+		return create(KILL, creatures);
+	}
+
+	/**
+	 * Depends on visits of zones.
+	 *
+	 * @param zones names of the zones
+	 * @return Dependencies
+	 */
+	public static Dependencies zones(final String... zones) {
+		return create(ZONE, zones);
+	}
+
+	/**
+	 * Depends on visits of any zone in a region.
+	 *
+	 * @param region name of the region
+	 * @return Dependencies
+	 */
+	public static Dependencies region(final String region) {
+		return create(REGION, region);
+	}
+
+	/**
+	 * Depends on the states of quests.
+	 *
+	 * @param quests names of the quest slots
+	 * @return Dependencies
+	 */
+	public static Dependencies quests(final String... quests) {
+		return create(QUEST, quests);
+	}
+
+	/**
+	 * Combines these dependencies with others.
+	 *
+	 * @param other other dependencies
+	 * @return new Dependencies containing both
+	 */
+	public Dependencies and(final Dependencies other) {
+		final Set<String> res = new LinkedHashSet<String>(keys);
+		res.addAll(other.keys);
+		return new Dependencies(res);
+	}
+
+	/**
+	 * Gets the keys of the dependencies.
+	 *
+	 * @return keys
+	 */
+	Set<String> getKeys() {
+		return keys;
+	}
+
+	/**
+	 * Gets the key of the kill of a creature.
+	 *
+	 * @param creature name of the creature
+	 * @return key
+	 */
+	static String killKey(final String creature) {
+		return KILL + creature;
+	}
+
+	/**
+	 * Gets the key of the visit of a zone.
+	 *
+	 * @param zone name of the zone
+	 * @return key
+	 */
+	static String zoneKey(final String zone) {
+		return ZONE + zone;
+	}
+
+	/**
+	 * Gets the key of the visit of a zone in a region.
+	 *
+	 * @param region name of the region
+	 * @return key
+	 */
+	static String regionKey(final String region) {
+		return REGION + region;
+	}
+
+	/**
+	 * Gets the key of a quest.
+	 *
+	 * @param quest name of the quest slot
+	 * @return key
+	 */
+	static String questKey(final String quest) {
+		return QUEST + quest;
+	}
+
+	@Override
+	public String toString() {
+		return "Dependencies " + keys;
+	}
+}
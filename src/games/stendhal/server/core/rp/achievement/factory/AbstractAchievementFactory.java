@@ -18,6 +18,7 @@ import java.util.List;
 
 import games.stendhal.server.core.rp.achievement.Achievement;
 import games.stendhal.server.core.rp.achievement.Category;
+import games.stendhal.server.core.rp.achievement.Dependencies;
 import games.stendhal.server.entity.npc.ChatCondition;
 
 
@@ -54,6 +55,23 @@ public abstract class AbstractAchievementFactory {
 		return new Achievement(identifier, title, getCategory(),  description, score, active, condition);
 	}
 
+	/**
+	 * Creates a single achievement that is only checked on kills, zone
+	 * changes and quest changes if one of its dependencies is affected
+	 *
+	 * @param identifier
+	 * @param title
+	 * @param description
+	 * @param score
+	 * @param active
+	 * @param condition
+	 * @param dependencies all kills, zones and quests the condition looks at
+	 * @return the new Achievement
+	 */
+	protected Achievement createAchievement(String identifier, String title, String description, int score, boolean active, ChatCondition condition, Dependencies dependencies) {
+		return new Achievement(identifier, title, getCategory(),  description, score, active, condition, dependencies);
+	}
+
 	/**
 	 * Create a list of all known achievement factories
 	 * @return the list of factories
@@ -19,6 +19,7 @@ import games.stendhal.common.parser.Sentence;
 import games.stendhal.server.constants.KillType;
 import games.stendhal.server.core.rp.achievement.Achievement;
 import games.stendhal.server.core.rp.achievement.Category;
+import games.stendhal.server.core.rp.achievement.Dependencies;
 import games.stendhal.server.core.rp.achievement.condition.KilledRareCreatureCondition;
 import games.stendhal.server.core.rp.achievement.condition.KilledSharedAllCreaturesCondition;
 import games.stendhal.server.core.rp.achievement.condition.KilledSoloAllCreaturesCondition;
@@ -117,37 +118,43 @@ public class FightingAchievementFactory extends AbstractAchievementFactory {
 			ID_RATS, "Rat Hunter",
 			"Kill 15 rats",
 			Achievement.EASY_BASE_SCORE, true,
-			new PlayerHasKilledNumberOfCreaturesCondition("rat", 15)));
+			new PlayerHasKilledNumberOfCreaturesCondition("rat", 15),
+			Dependencies.kills("rat")));
 
 		achievements.add(createAchievement(
 			ID_EXTERMINATOR, "Exterminator",
 			"Kill 10 rats of each kind",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new PlayerHasKilledNumberOfCreaturesCondition(10, ENEMIES_EXTERMINATOR)));
+			new PlayerHasKilledNumberOfCreaturesCondition(10, ENEMIES_EXTERMINATOR),
+			Dependencies.kills(ENEMIES_EXTERMINATOR)));
 
 		achievements.add(createAchievement(
 			ID_DEER, "Deer Hunter",
 			"Kill 25 deer",
 			Achievement.EASY_BASE_SCORE, true,
-			new PlayerHasKilledNumberOfCreaturesCondition("deer", 25)));
+			new PlayerHasKilledNumberOfCreaturesCondition("deer", 25),
+			Dependencies.kills("deer")));
 
 		achievements.add(createAchievement(
 			ID_BOARS, "Boar Hunter",
 			"Kill 20 boar",
 			Achievement.EASY_BASE_SCORE, true,
-			new PlayerHasKilledNumberOfCreaturesCondition("boar", 20)));
+			new PlayerHasKilledNumberOfCreaturesCondition("boar", 20),
+			Dependencies.kills("boar")));
 
 		achievements.add(createAchievement(
 			ID_BEARS, "Bear Hunter",
 			"Kill 10 black bears, 10 bears and 10 babybears",
 			Achievement.EASY_BASE_SCORE, true,
-			new PlayerHasKilledNumberOfCreaturesCondition(10, ENEMIES_BEARS)));
+			new PlayerHasKilledNumberOfCreaturesCondition(10, ENEMIES_BEARS),
+			Dependencies.kills(ENEMIES_BEARS)));
 
 		achievements.add(createAchievement(
 			ID_FOXES, "Fox Hunter",
 			"Kill 20 foxes",
 			Achievement.EASY_BASE_SCORE, true,
-			new PlayerHasKilledNumberOfCreaturesCondition("fox", 20)));
+			new PlayerHasKilledNumberOfCreaturesCondition("fox", 20),
+			Dependencies.kills("fox")));
 
 		achievements.add(createAchievement(
 			ID_SAFARI, "Safari",
@@ -156,13 +163,15 @@ public class FightingAchievementFactory extends AbstractAchievementFactory {
 			new AndCondition(
 				new PlayerHasKilledNumberOfCreaturesCondition("tiger", 30),
 				new PlayerHasKilledNumberOfCreaturesCondition("lion", 30),
-				new PlayerHasKilledNumberOfCreaturesCondition("elephant", 50))));
+				new PlayerHasKilledNumberOfCreaturesCondition("elephant", 50)),
+			Dependencies.kills("tiger", "lion", "elephant")));
 
 		achievements.add(createAchievement(
 			ID_ENTS, "Wood Cutter",
 			"Kill 10 ents, 10 entwives and 10 old ents",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new PlayerHasKilledNumberOfCreaturesCondition(10, "ent", "entwife", "old ent")));
+			new PlayerHasKilledNumberOfCreaturesCondition(10, "ent", "entwife", "old ent"),
+			Dependencies.kills("ent", "entwife", "old ent")));
 
 		achievements.add(createAchievement(
 			ID_POACHER, "Poacher",
@@ -186,19 +195,22 @@ public class FightingAchievementFactory extends AbstractAchievementFactory {
 			ID_GIANTS, "David vs. Goliath",
 			"Kill 20 of each type of giant solo",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new PlayerHasKilledNumberOfCreaturesCondition(20, KillType.SOLO, ENEMIES_GIANTS)));
+			new PlayerHasKilledNumberOfCreaturesCondition(20, KillType.SOLO, ENEMIES_GIANTS),
+			Dependencies.kills(ENEMIES_GIANTS)));
 
 		achievements.add(createAchievement(
 			ID_ANGELS, "Heavenly Wrath",
 			"Kill 100 of each type of angel",
 			Achievement.HARD_BASE_SCORE, true,
-			new PlayerHasKilledNumberOfCreaturesCondition(100, ENEMIES_ANGELS)));
+			new PlayerHasKilledNumberOfCreaturesCondition(100, ENEMIES_ANGELS),
+			Dependencies.kills(ENEMIES_ANGELS)));
 
 		achievements.add(createAchievement(
 			ID_WEREWOLF, "Silver Bullet",
 			"Kill 500 werewolves",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new PlayerHasKilledNumberOfCreaturesCondition(500, "werewolf")));
+			new PlayerHasKilledNumberOfCreaturesCondition(500, "werewolf"),
+			Dependencies.kills("werewolf")));
 
 		achievements.add(createAchievement(
 			ID_MERMAIDS, "Serenade the Siren",
@@ -214,13 +226,15 @@ public class FightingAchievementFactory extends AbstractAchievementFactory {
 
 					return kills >= 10000;
 				}
-			}));
+			},
+			Dependencies.kills(ENEMIES_MERMAIDS)));
 
 		achievements.add(createAchievement(
 			ID_DEEPSEA, "Deep Sea Fisherman",
 			"Kill 500 sharks, 500 kraken and 500 neo kraken",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new PlayerHasKilledNumberOfCreaturesCondition(500, ENEMIES_DEEPSEA)));
+			new PlayerHasKilledNumberOfCreaturesCondition(500, ENEMIES_DEEPSEA),
+			Dependencies.kills(ENEMIES_DEEPSEA)));
 
 		achievements.add(createAchievement(
 			ID_ZOMBIES, "Zombie Apocalypse",
@@ -236,19 +250,22 @@ public class FightingAchievementFactory extends AbstractAchievementFactory {
 
 					return kills >= 500;
 				}
-			}));
+			},
+			Dependencies.kills(ENEMIES_ZOMBIES)));
 
 		achievements.add(createAchievement(
 			ID_FOWL, "Chicken Nuggets",
 			"Kill 100 of each type of fowl",
 			Achievement.EASY_BASE_SCORE, true,
-			new PlayerHasKilledNumberOfCreaturesCondition(100, ENEMIES_FOWL)));
+			new PlayerHasKilledNumberOfCreaturesCondition(100, ENEMIES_FOWL),
+			Dependencies.kills(ENEMIES_FOWL)));
 
 		achievements.add(createAchievement(
 			ID_PACHYDERM, "Pachyderm Mayhem",
 			"Kill 100 of each type of pachyderm",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new PlayerHasKilledNumberOfCreaturesCondition(100, ENEMIES_PACHYDERM)));
+			new PlayerHasKilledNumberOfCreaturesCondition(100, ENEMIES_PACHYDERM),
+			Dependencies.kills(ENEMIES_PACHYDERM)));
 
 		return achievements;
 	}
@@ -17,6 +17,7 @@ import java.util.LinkedList;
 import games.stendhal.common.parser.Sentence;
 import games.stendhal.server.core.rp.achievement.Achievement;
 import games.stendhal.server.core.rp.achievement.Category;
+import games.stendhal.server.core.rp.achievement.Dependencies;
 import games.stendhal.server.core.rp.achievement.condition.QuestWithPrefixCompletedCondition;
 import games.stendhal.server.entity.Entity;
 import games.stendhal.server.entity.npc.ChatCondition;
@@ -82,7 +83,10 @@ public class FriendAchievementFactory extends AbstractAchievementFactory {
 				new QuestCompletedCondition("coded_message"),
 				// Marianne, Deniran City S
 				new QuestCompletedCondition("eggs_for_marianne")
-				)));
+				),
+			Dependencies.quests("susi", "introduce_players", "plinks_toy", "toys_collector",
+				"campfire", "icecream_for_annie", "chocolate_for_elisabeth", "find_jefs_mom",
+				"fishsoup_for_hughie", "coded_message", "eggs_for_marianne")));
 
 		// quests about finding people
 		achievements.add(createAchievement(
@@ -111,7 +115,9 @@ public class FriendAchievementFactory extends AbstractAchievementFactory {
 				new QuestCompletedCondition("find_jefs_mom"),
 				// Elias Breland, Deniran
 				new QuestCompletedCondition(AGrandfathersWish.QUEST_SLOT)
-			)));
+			),
+			Dependencies.quests("find_rat_kids", "find_ghosts", "seven_cherubs", "find_jefs_mom",
+				AGrandfathersWish.QUEST_SLOT)));
 
 		// earn over 250 karma
 		achievements.add(createAchievement(
@@ -16,6 +16,7 @@ import java.util.LinkedList;
 
 import games.stendhal.server.core.rp.achievement.Achievement;
 import games.stendhal.server.core.rp.achievement.Category;
+import games.stendhal.server.core.rp.achievement.Dependencies;
 import games.stendhal.server.entity.npc.condition.PlayerVisitedZonesInRegionCondition;
 
 
@@ -39,37 +40,43 @@ public class InteriorZoneAchievementFactory extends AbstractAchievementFactory {
 			"zone.interior.semos", "Home Maker",
 			"Visit all interior zones in the Semos region",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new PlayerVisitedZonesInRegionCondition("semos", Boolean.FALSE, Boolean.FALSE)));
+			new PlayerVisitedZonesInRegionCondition("semos", Boolean.FALSE, Boolean.FALSE),
+			Dependencies.region("semos")));
 
 		achievements.add(createAchievement(
 			"zone.interior.nalwor", "Elf Visitor",
 			"Visit all interior zones in the Nalwor region",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new PlayerVisitedZonesInRegionCondition("nalwor", Boolean.FALSE, Boolean.FALSE)));
+			new PlayerVisitedZonesInRegionCondition("nalwor", Boolean.FALSE, Boolean.FALSE),
+			Dependencies.region("nalwor")));
 
 		achievements.add(createAchievement(
 			"zone.interior.ados", "Up Town Guy",
 			"Visit all accessible interior zones in the Ados region",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new PlayerVisitedZonesInRegionCondition("ados", Boolean.FALSE, Boolean.FALSE)));
+			new PlayerVisitedZonesInRegionCondition("ados", Boolean.FALSE, Boolean.FALSE),
+			Dependencies.region("ados")));
 
 		achievements.add(createAchievement(
 			"zone.interior.wofolcity", "Kobold City",
 			"Visit all interior zones in Wo'fol",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new PlayerVisitedZonesInRegionCondition("wofol city", Boolean.FALSE, Boolean.FALSE)));
+			new PlayerVisitedZonesInRegionCondition("wofol city", Boolean.FALSE, Boolean.FALSE),
+			Dependencies.region("wofol city")));
 
 		achievements.add(createAchievement(
 			"zone.interior.magiccity", "Magic City",
 			"Visit all interior zones in the underground Magic city",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new PlayerVisitedZonesInRegionCondition("magic city", Boolean.FALSE, Boolean.FALSE)));
+			new PlayerVisitedZonesInRegionCondition("magic city", Boolean.FALSE, Boolean.FALSE),
+			Dependencies.region("magic city")));
 
 		achievements.add(createAchievement(
 			"zone.interior.deniran", "Country Recluse",
 			"Visit all interior zones in the Deniran region",
 			Achievement.EASY_BASE_SCORE, false,
-			new PlayerVisitedZonesInRegionCondition("deniran", false, false)));
+			new PlayerVisitedZonesInRegionCondition("deniran", false, false),
+			Dependencies.region("deniran")));
 
 		return achievements;
 	}
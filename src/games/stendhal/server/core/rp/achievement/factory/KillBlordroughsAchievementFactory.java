@@ -17,6 +17,7 @@ import java.util.LinkedList;
 import games.stendhal.common.parser.Sentence;
 import games.stendhal.server.core.rp.achievement.Achievement;
 import games.stendhal.server.core.rp.achievement.Category;
+import games.stendhal.server.core.rp.achievement.Dependencies;
 import games.stendhal.server.entity.Entity;
 import games.stendhal.server.entity.npc.ChatCondition;
 import games.stendhal.server.entity.player.Player;
@@ -52,36 +53,42 @@ public class KillBlordroughsAchievementFactory extends AbstractAchievementFactor
 	@Override
 	public Collection<Achievement> createAchievements() {
 		final LinkedList<Achievement> achievements = new LinkedList<Achievement>();
+		final Dependencies dependencies = Dependencies.quests(KillBlordroughs.getInstance().getSlotName());
 
 		achievements.add(createAchievement(
 			ID_LACKEY, "Imperialist Lackey",
 			"Finish Kill Blordroughs quest 5 times",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new CompletedCountCondition(COUNT_LACKEY)));
+			new CompletedCountCondition(COUNT_LACKEY),
+			dependencies));
 
 		achievements.add(createAchievement(
 			ID_SOLDIER, "Imperialist Soldier",
 			"Finish Kill Blordroughs quest 25 times",
 			Achievement.HARD_BASE_SCORE, true,
-			new CompletedCountCondition(COUNT_SOLDIER)));
+			new CompletedCountCondition(COUNT_SOLDIER),
+			dependencies));
 
 		achievements.add(createAchievement(
 			ID_DOMINATOR, "Imperialist Dominator",
 			"Finish Kill Blordroughs quest 50 times",
 			Achievement.HARD_BASE_SCORE, true,
-			new CompletedCountCondition(COUNT_DOMINATOR)));
+			new CompletedCountCondition(COUNT_DOMINATOR),
+			dependencies));
 
 		achievements.add(createAchievement(
 			ID_DICTATOR, "Imperialist Dictator",
 			"Finish Kill Blordroughs quest 100 times",
 			Achievement.HARD_BASE_SCORE, true,
-			new CompletedCountCondition(COUNT_DICTATOR)));
+			new CompletedCountCondition(COUNT_DICTATOR),
+			dependencies));
 
 		achievements.add(createAchievement(
 			ID_CRUSHER, "Nation Crusher",
 			"Finish Kill Blordroughs quest 200 times",
 			Achievement.EXTREME_BASE_SCORE, true,
-			new CompletedCountCondition(COUNT_CRUSHER)));
+			new CompletedCountCondition(COUNT_CRUSHER),
+			dependencies));
 
 		return achievements;
 	}
@@ -16,6 +16,7 @@ import java.util.LinkedList;
 
 import games.stendhal.server.core.rp.achievement.Achievement;
 import games.stendhal.server.core.rp.achievement.Category;
+import games.stendhal.server.core.rp.achievement.Dependencies;
 import games.stendhal.server.entity.npc.condition.QuestStateGreaterThanCondition;
 
 
@@ -41,31 +42,36 @@ public class KirdnehItemAchievementFactory extends AbstractAchievementFactory {
 			ID_ARCHAEOLOGIST, "Archaeologist",
 			"Finish weekly item quest 5 times",
 			Achievement.HARD_BASE_SCORE, true,
-			new QuestStateGreaterThanCondition("weekly_item", 2, 4)));
+			new QuestStateGreaterThanCondition("weekly_item", 2, 4),
+			Dependencies.quests("weekly_item")));
 
 		achievements.add(createAchievement(
 			ID_DEDICATED, "Dedicated Archaeologist",
 			"Finish weekly item quest 25 times",
 			Achievement.HARD_BASE_SCORE, true,
-			new QuestStateGreaterThanCondition("weekly_item", 2, 24)));
+			new QuestStateGreaterThanCondition("weekly_item", 2, 24),
+			Dependencies.quests("weekly_item")));
 
 		achievements.add(createAchievement(
 			ID_SENIOR, "Senior Archaeologist",
 			"Finish weekly item quest 50 times",
 			Achievement.HARD_BASE_SCORE, true,
-			new QuestStateGreaterThanCondition("weekly_item", 2, 49)));
+			new QuestStateGreaterThanCondition("weekly_item", 2, 49),
+			Dependencies.quests("weekly_item")));
 
 		achievements.add(createAchievement(
 			ID_MASTER, "Master Archaeologist",
 			"Finish weekly item quest 100 times",
 			Achievement.HARD_BASE_SCORE, true,
-			new QuestStateGreaterThanCondition("weekly_item", 2, 99)));
+			new QuestStateGreaterThanCondition("weekly_item", 2, 99),
+			Dependencies.quests("weekly_item")));
 
 		achievements.add(createAchievement(
 			ID_HYPERBOLIST, "Hyperbolist Historian",
 			"Finish weekly item quest 200 times",
 			Achievement.EXTREME_BASE_SCORE, true,
-			new QuestStateGreaterThanCondition("weekly_item", 2, 199)));
+			new QuestStateGreaterThanCondition("weekly_item", 2, 199),
+			Dependencies.quests("weekly_item")));
 
 		return achievements;
 	}
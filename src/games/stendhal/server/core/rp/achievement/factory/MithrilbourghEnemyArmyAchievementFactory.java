@@ -16,6 +16,7 @@ import java.util.LinkedList;
 
 import games.stendhal.server.core.rp.achievement.Achievement;
 import games.stendhal.server.core.rp.achievement.Category;
+import games.stendhal.server.core.rp.achievement.Dependencies;
 import games.stendhal.server.entity.npc.condition.QuestStateGreaterThanCondition;
 
 
@@ -40,31 +41,36 @@ public class MithrilbourghEnemyArmyAchievementFactory extends AbstractAchievemen
 			"quest.special.kill_enemy_army.0005", "Sergeant",
 			"Finish Kill Enemy Army quest 5 times",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new QuestStateGreaterThanCondition("kill_enemy_army", IDX, 4)));
+			new QuestStateGreaterThanCondition("kill_enemy_army", IDX, 4),
+			Dependencies.quests("kill_enemy_army")));
 
 		achievements.add(createAchievement(
 			"quest.special.kill_enemy_army.0025", "Major",
 			"Finish Kill Enemy Army quest 25 times",
 			Achievement.HARD_BASE_SCORE, true,
-			new QuestStateGreaterThanCondition("kill_enemy_army", IDX, 24)));
+			new QuestStateGreaterThanCondition("kill_enemy_army", IDX, 24),
+			Dependencies.quests("kill_enemy_army")));
 
 		achievements.add(createAchievement(
 			"quest.special.kill_enemy_army.0050", "Major General",
 			"Finish Kill Enemy Army quest 50 times",
 			Achievement.HARD_BASE_SCORE, true,
-			new QuestStateGreaterThanCondition("kill_enemy_army", IDX, 49)));
+			new QuestStateGreaterThanCondition("kill_enemy_army", IDX, 49),
+			Dependencies.quests("kill_enemy_army")));
 
 		achievements.add(createAchievement(
 			"quest.special.kill_enemy_army.0100", "Field Marshal",
 			"Finish Kill Enemy Army quest 100 times",
 			Achievement.HARD_BASE_SCORE, true,
-			new QuestStateGreaterThanCondition("kill_enemy_army", IDX, 99)));
+			new QuestStateGreaterThanCondition("kill_enemy_army", IDX, 99),
+			Dependencies.quests("kill_enemy_army")));
 
 		achievements.add(createAchievement(
 			"quest.special.kill_enemy_army.0200", "Commander in Chief",
 			"Finish Kill Enemy Army quest 200 times",
 			Achievement.EXTREME_BASE_SCORE, true,
-			new QuestStateGreaterThanCondition("kill_enemy_army", IDX, 199)));
+			new QuestStateGreaterThanCondition("kill_enemy_army", IDX, 199),
+			Dependencies.quests("kill_enemy_army")));
 
 		return achievements;
 	}
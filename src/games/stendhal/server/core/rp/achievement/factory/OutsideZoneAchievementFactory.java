@@ -16,6 +16,7 @@ import java.util.LinkedList;
 
 import games.stendhal.server.core.rp.achievement.Achievement;
 import games.stendhal.server.core.rp.achievement.Category;
+import games.stendhal.server.core.rp.achievement.Dependencies;
 import games.stendhal.server.entity.npc.condition.PlayerVisitedZonesCondition;
 import games.stendhal.server.entity.npc.condition.PlayerVisitedZonesInRegionCondition;
 
@@ -27,6 +28,12 @@ import games.stendhal.server.entity.npc.condition.PlayerVisitedZonesInRegionCond
  */
 public class OutsideZoneAchievementFactory extends AbstractAchievementFactory {
 
+	private static final String[] BANKS = {
+		"int_semos_bank", "int_nalwor_bank", "int_kirdneh_bank",
+		"int_fado_bank", "int_magic_bank", "int_ados_bank",
+		"int_deniran_bank_blue_roof"
+	};
+
 	@Override
 	protected Category getCategory() {
 		return Category.OUTSIDE_ZONE;
@@ -41,59 +48,65 @@ public class OutsideZoneAchievementFactory extends AbstractAchievementFactory {
 			"zone.outside.semos", "Junior Explorer",
 			"Visit all outside zones in the Semos region",
 			Achievement.EASY_BASE_SCORE, true,
-			new PlayerVisitedZonesInRegionCondition("semos", Boolean.TRUE, Boolean.TRUE)));
+			new PlayerVisitedZonesInRegionCondition("semos", Boolean.TRUE, Boolean.TRUE),
+			Dependencies.region("semos")));
 
 		achievements.add(createAchievement(
 			"zone.outside.ados", "Big City Explorer",
 			"Visit all outside zones in the Ados region",
 			Achievement.EASY_BASE_SCORE, true,
-			new PlayerVisitedZonesInRegionCondition("ados", Boolean.TRUE, Boolean.TRUE)));
+			new PlayerVisitedZonesInRegionCondition("ados", Boolean.TRUE, Boolean.TRUE),
+			Dependencies.region("ados")));
 
 		achievements.add(createAchievement(
 			"zone.outside.fado", "Far South",
 			"Visit all outside zones in the Fado region",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new PlayerVisitedZonesInRegionCondition("fado", Boolean.TRUE, Boolean.TRUE)));
+			new PlayerVisitedZonesInRegionCondition("fado", Boolean.TRUE, Boolean.TRUE),
+			Dependencies.region("fado")));
 
 		achievements.add(createAchievement(
 			"zone.outside.orril", "Scout",
 			"Visit all outside zones in the Orril region",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new PlayerVisitedZonesInRegionCondition("orril", Boolean.TRUE, Boolean.TRUE)));
+			new PlayerVisitedZonesInRegionCondition("orril", Boolean.TRUE, Boolean.TRUE),
+			Dependencies.region("orril")));
 
 		achievements.add(createAchievement(
 			"zone.outside.amazon", "Jungle Explorer",
 			"Visit all outside zones in the Amazon region",
 			Achievement.HARD_BASE_SCORE, true,
-			new PlayerVisitedZonesInRegionCondition("amazon", Boolean.TRUE, Boolean.TRUE)));
+			new PlayerVisitedZonesInRegionCondition("amazon", Boolean.TRUE, Boolean.TRUE),
+			Dependencies.region("amazon")));
 
 		achievements.add(createAchievement(
 			"zone.outside.athor", "Tourist",
 			"Visit all outside zones in the Athor region",
 			Achievement.EASY_BASE_SCORE, true,
-			new PlayerVisitedZonesInRegionCondition("athor", Boolean.TRUE, Boolean.TRUE)));
+			new PlayerVisitedZonesInRegionCondition("athor", Boolean.TRUE, Boolean.TRUE),
+			Dependencies.region("athor")));
 
 		achievements.add(createAchievement(
 			"zone.outside.kikareukin", "Sky Tower",
 			"Visit all outside zones in the Kikareukin region",
 			Achievement.HARD_BASE_SCORE, true,
-			new PlayerVisitedZonesInRegionCondition("kikareukin", Boolean.TRUE, Boolean.TRUE)));
+			new PlayerVisitedZonesInRegionCondition("kikareukin", Boolean.TRUE, Boolean.TRUE),
+			Dependencies.region("kikareukin")));
 
 		achievements.add(createAchievement(
 			"zone.outside.deniran", "Westerner",
 			"Visit all outside zones in the Deniran region",
 			Achievement.EASY_BASE_SCORE, true,
-			new PlayerVisitedZonesInRegionCondition("deniran", true, true)));
+			new PlayerVisitedZonesInRegionCondition("deniran", true, true),
+			Dependencies.region("deniran")));
 
 		// special zone achievements
 		achievements.add(createAchievement(
 			"zone.special.bank", "Safe Deposit",
 			"Visit all banks",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new PlayerVisitedZonesCondition(
-				"int_semos_bank", "int_nalwor_bank", "int_kirdneh_bank",
-				"int_fado_bank", "int_magic_bank", "int_ados_bank",
-				"int_deniran_bank_blue_roof")));
+			new PlayerVisitedZonesCondition(BANKS),
+			Dependencies.zones(BANKS)));
 
 		return achievements;
 	}
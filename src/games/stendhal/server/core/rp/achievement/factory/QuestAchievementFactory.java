@@ -17,6 +17,7 @@ import java.util.LinkedList;
 
 import games.stendhal.server.core.rp.achievement.Achievement;
 import games.stendhal.server.core.rp.achievement.Category;
+import games.stendhal.server.core.rp.achievement.Dependencies;
 import games.stendhal.server.core.rp.achievement.condition.QuestCountCompletedCondition;
 import games.stendhal.server.core.rp.achievement.condition.QuestsInRegionCompletedCondition;
 import games.stendhal.server.entity.npc.condition.QuestStateGreaterThanCondition;
@@ -47,42 +48,48 @@ public class QuestAchievementFactory extends AbstractAchievementFactory {
 			"quest.special.elf_princess.0025", "Faiumoni's Casanova",
 			"Finish elf princess quest 25 times",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new QuestStateGreaterThanCondition("elf_princess", 2, 24)));
+			new QuestStateGreaterThanCondition("elf_princess", 2, 24),
+			Dependencies.quests("elf_princess")));
 
 		// Kill Monks quest achievement
 		achievements.add(createAchievement(
 			"quest.special.kill_monks.0025", "Heretic",
 			"Finish Kill Monks quest 25 times",
 			Achievement.HARD_BASE_SCORE, true,
-			new QuestStateGreaterThanCondition("kill_monks", 2, 24)));
+			new QuestStateGreaterThanCondition("kill_monks", 2, 24),
+			Dependencies.quests("kill_monks")));
 
 		// Maze
 		achievements.add(createAchievement(
 			"quest.special.maze", "Pathfinder",
 			"Finish the maze",
 			Achievement.EASY_BASE_SCORE, true,
-			new QuestStateGreaterThanCondition("maze", 2, 0)));
+			new QuestStateGreaterThanCondition("maze", 2, 0),
+			Dependencies.quests("maze")));
 
 		// Balloon for Bobby
 		achievements.add(createAchievement(
 			"quest.bobby.balloons.0005", "Fairgoer",
 			"Bring Bobby 5 balloons",
 			Achievement.HARD_BASE_SCORE, true,
-			new QuestStateGreaterThanCondition("balloon_bobby", 1, 4)));
+			new QuestStateGreaterThanCondition("balloon_bobby", 1, 4),
+			Dependencies.quests("balloon_bobby")));
 
 		// Meal for Groongo Rahnnt
 		achievements.add(createAchievement(
 			"quest.groongo.meals.0050", "Patiently Waiting on Grumpy",
 			"Serve up 50 decent meals to Groongo Rahnnt",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new QuestStateGreaterThanCondition("meal_for_groongo", 7, 49)));
+			new QuestStateGreaterThanCondition("meal_for_groongo", 7, 49),
+			Dependencies.quests("meal_for_groongo")));
 
 		// Restock the Flower Shop
 		achievements.add(createAchievement(
 			ID_FLOWERSHOP, "Floral Fondness",
 			"Help restock Nalwor flower shop 50 times",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new QuestStateGreaterThanCondition("restock_flowershop", 2, 49)));
+			new QuestStateGreaterThanCondition("restock_flowershop", 2, 49),
+			Dependencies.quests("restock_flowershop")));
 
 		// have completed all quests in Semos City?
 		achievements.add(createAchievement(
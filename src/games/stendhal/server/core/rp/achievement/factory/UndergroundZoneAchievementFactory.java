@@ -16,6 +16,7 @@ import java.util.LinkedList;
 
 import games.stendhal.server.core.rp.achievement.Achievement;
 import games.stendhal.server.core.rp.achievement.Category;
+import games.stendhal.server.core.rp.achievement.Dependencies;
 import games.stendhal.server.entity.npc.condition.PlayerVisitedZonesInRegionCondition;
 
 
@@ -40,37 +41,43 @@ public class UndergroundZoneAchievementFactory extends AbstractAchievementFactor
 			"zone.underground.semos", "Canary",
 			"Visit all underground zones in the Semos region",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new PlayerVisitedZonesInRegionCondition("semos", Boolean.TRUE, Boolean.FALSE)));
+			new PlayerVisitedZonesInRegionCondition("semos", Boolean.TRUE, Boolean.FALSE),
+			Dependencies.region("semos")));
 
 		achievements.add(createAchievement(
 			"zone.underground.nalwor", "Fear not Drows nor Hell",
 			"Visit all underground zones in the Nalwor region",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new PlayerVisitedZonesInRegionCondition("nalwor", Boolean.TRUE, Boolean.FALSE)));
+			new PlayerVisitedZonesInRegionCondition("nalwor", Boolean.TRUE, Boolean.FALSE),
+			Dependencies.region("nalwor")));
 
 		achievements.add(createAchievement(
 			"zone.underground.athor", "Labyrinth Solver",
 			"Visit all underground zones in the Athor region",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new PlayerVisitedZonesInRegionCondition("athor", Boolean.TRUE, Boolean.FALSE)));
+			new PlayerVisitedZonesInRegionCondition("athor", Boolean.TRUE, Boolean.FALSE),
+			Dependencies.region("athor")));
 
 		achievements.add(createAchievement(
 			"zone.underground.amazon", "Human Mole",
 			"Visit all underground zones in the Amazon region",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new PlayerVisitedZonesInRegionCondition("amazon", Boolean.TRUE, Boolean.FALSE)));
+			new PlayerVisitedZonesInRegionCondition("amazon", Boolean.TRUE, Boolean.FALSE),
+			Dependencies.region("amazon")));
 
 		achievements.add(createAchievement(
 			"zone.underground.ados", "Deep Dweller",
 			"Visit all underground zones in the Ados region",
 			Achievement.MEDIUM_BASE_SCORE, true,
-			new PlayerVisitedZonesInRegionCondition("ados", Boolean.TRUE, Boolean.FALSE)));
+			new PlayerVisitedZonesInRegionCondition("ados", Boolean.TRUE, Boolean.FALSE),
+			Dependencies.region("ados")));
 
 		achievements.add(createAchievement(
 			"zone.underground.deniran", "Spelunker",
 			"Visit all underground zones in the Deniran region",
 			Achievement.HARD_BASE_SCORE, true,
-			new PlayerVisitedZonesInRegionCondition("deniran", true, false)));
+			new PlayerVisitedZonesInRegionCondition("deniran", true, false),
+			Dependencies.region("deniran")));
 
 		return achievements;
 	}
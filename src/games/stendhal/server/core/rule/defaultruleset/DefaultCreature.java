@@ -122,6 +122,12 @@ public class DefaultCreature {
 	/** speed relative to player [0.0 ... 1.0] */
 	private double speed;
 
+	/**
+	 * Template for the created creatures, or <code>null</code> if it needs
+	 * to be created again.
+	 */
+	private Creature prototype;
+
 	public DefaultCreature(final String clazz, final String subclass, final String name,
 			final String tileid) {
 		this.clazz = clazz;
@@ -137,6 +143,7 @@ public class DefaultCreature {
 	}
 
 	public void setDescription(final String text) {
+		prototype = null;
 		this.description = text;
 	}
 
@@ -145,6 +152,7 @@ public class DefaultCreature {
 	}
 
 	public void setRPStats(final int hp, final int atk, final int ratk, final int def, final double speed) {
+		prototype = null;
 		this.hp = hp;
 		this.atk = atk;
 		this.ratk = ratk;
@@ -173,11 +181,13 @@ public class DefaultCreature {
 	}
 
 	public void setLevel(final int level, final int xp) {
+		prototype = null;
 		this.level = level;
 		this.xp = xp;
 	}
 
 	public void setRespawnTime(final int respawn) {
+		prototype = null;
 		this.respawn = respawn;
 	}
 
@@ -194,6 +204,7 @@ public class DefaultCreature {
 	}
 
 	public void setSize(final int width, final int height) {
+		prototype = null;
 		this.width = width;
 		this.height = height;
 	}
@@ -207,6 +218,7 @@ public class DefaultCreature {
 	}
 
 	public void setNoiseLines(final LinkedHashMap<String, LinkedList<String>> creatureSays) {
+		prototype = null;
 		this.creatureSays = creatureSays;
 	}
 
@@ -215,6 +227,7 @@ public class DefaultCreature {
 	}
 
 	public void setEquipedItems(final List<EquipItem> equipsItems) {
+		prototype = null;
 		this.equipsItems = equipsItems;
 	}
 
@@ -291,10 +304,12 @@ public class DefaultCreature {
 	}
 
 	public void setBlood(final String name) {
+		prototype = null;
 		this.bloodClass = name;
 	}
 
 	public void setCorpse(final String name, final String harmless, final int width, final int height) {
+		prototype = null;
 		corpseName = name;
 		harmlessCorpseName = harmless;
 		corpseWidth = width;
@@ -302,6 +317,7 @@ public class DefaultCreature {
 	}
 
 	public void setDropItems(final List<DropItem> dropsItems) {
+		prototype = null;
 		this.dropsItems = dropsItems;
 	}
 
@@ -310,6 +326,7 @@ public class DefaultCreature {
 	}
 
 	public void setAIProfiles(final Map<String, String> aiProfiles) {
+		prototype = null;
 		this.aiProfiles = aiProfiles;
 	}
 
@@ -319,6 +336,7 @@ public class DefaultCreature {
 	 * @param susceptibilities creature susceptibilities
 	 */
 	public void setSusceptibilities(final Map<Nature, Double> susceptibilities) {
+		prototype = null;
 		this.susceptibilities = susceptibilities;
 	}
 
@@ -329,6 +347,7 @@ public class DefaultCreature {
 	 * @param rangedType if <code>null</code>, then melee type is used for both attack modes
 	 */
 	public void setDamageTypes(Nature type, Nature rangedType) {
+		prototype = null;
 		damageType = type;
 		rangedDamageType = rangedType;
 	}
@@ -336,6 +355,21 @@ public class DefaultCreature {
 	/** @return a creature-instance.
 	 */
 	public Creature getCreature() {
+		if (prototype == null) {
+			prototype = createPrototype();
+		}
+		return prototype.getNewInstance();
+	}
+
+	/**
+	 * Create the template for the creature instances. The instances share
+	 * the drops, status attackers and other definition data with it, like
+	 * respawned creatures share them with the creature of their respawn
+	 * point.
+	 *
+	 * @return template creature
+	 */
+	private Creature createPrototype() {
 		Collections.sort(dropsItems, new Comparator<DropItem>() {
 			@Override
 			public int compare(final DropItem o1, final DropItem o2) {
@@ -388,6 +422,7 @@ public class DefaultCreature {
 	}
 
 	public void setTileId(final String val) {
+		prototype = null;
 		tileid = val;
 	}
 
@@ -405,14 +440,17 @@ public class DefaultCreature {
 	}
 
 	public void setCreatureClass(final String val) {
+		prototype = null;
 		clazz = val;
 	}
 
 	public void setCreatureSubclass(final String val) {
+		prototype = null;
 		subclass = val;
 	}
 
 	public void setCreatureName(final String val) {
+		prototype = null;
 		name = val;
 	}
 
@@ -422,6 +460,7 @@ public class DefaultCreature {
 	 * @param sounds list of sounds
 	 */
 	public void setCreatureSounds(List<String> sounds) {
+		prototype = null;
 		this.sounds = sounds;
 	}
 
@@ -431,6 +470,7 @@ public class DefaultCreature {
 	 * @param sound Name of sound
 	 */
 	public void setCreatureDeathSound(String sound) {
+		prototype = null;
 		this.deathSound = sound;
 	}
 
@@ -441,6 +481,7 @@ public class DefaultCreature {
 	 *   desired sound effect
 	 */
 	public void setCreatureMovementSound(String sound) {
+		prototype = null;
 		this.movementSound = sound;
 	}
 
@@ -450,6 +491,7 @@ public class DefaultCreature {
 	 * @param probability
 	 */
 	public void setStatusAttack(final String name, final double probability) {
+		prototype = null;
 		statusAttack = name;
 		statusAttackProbability = probability;
 	}
@@ -461,6 +503,7 @@ public class DefaultCreature {
 	 *   Name of the style.
 	 */
 	public void setShadowStyle(final String style) {
+		prototype = null;
 		shadowStyle = style;
 	}
 
@@ -12,6 +12,11 @@
  ***************************************************************************/
 package games.stendhal.server.core.rule.defaultruleset.creator;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 
@@ -37,6 +42,31 @@ public abstract class AbstractCreator<T> {
 		this.creatorFor = creatorFor;
 	}
 
+	/**
+	 * Create a factory that calls the constructor directly, like a lambda
+	 * expression in the source code would, so that creating objects does
+	 * not need reflection.
+	 *
+	 * @param factoryType functional interface of the factory
+	 * @param method name of the interface method
+	 * @param methodType type of the interface method, after erasure
+	 * @return factory, or <code>null</code> if none could be created for the
+	 * 	constructor. The constructor must then be called with reflection
+	 */
+	protected <F> F createFactory(final Class<F> factoryType, final String method, final MethodType methodType) {
+		try {
+			final MethodHandles.Lookup lookup = MethodHandles.lookup();
+			final MethodHandle handle = lookup.unreflectConstructor(construct);
+			final CallSite site = LambdaMetafactory.metafactory(lookup, method,
+					MethodType.methodType(factoryType), methodType, handle, handle.type());
+			return factoryType.cast(site.getTarget().invoke());
+		} catch (final Throwable e) {
+			// Non public classes, for example
+			logger.warn("Cannot create factory for " + construct + ", using reflection", e);
+			return null;
+		}
+	}
+
 	protected abstract T createObject() throws IllegalAccessException,
 			InstantiationException, InvocationTargetException;
 
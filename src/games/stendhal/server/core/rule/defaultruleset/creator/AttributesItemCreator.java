@@ -12,8 +12,11 @@
  ***************************************************************************/
 package games.stendhal.server.core.rule.defaultruleset.creator;
 
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.function.Function;
 
 import games.stendhal.server.core.rule.defaultruleset.DefaultItem;
 import games.stendhal.server.entity.item.Item;
@@ -23,13 +26,28 @@ import games.stendhal.server.entity.item.Item;
  */
 public class AttributesItemCreator extends AbstractItemCreator {
 
+	/** Direct call of the constructor, or <code>null</code> if reflection must be used. */
+	private final Function<Map<String, String>, Object> factory;
+
+	@SuppressWarnings("unchecked")
 	public AttributesItemCreator(DefaultItem defaultItem, final Constructor< ? > construct) {
 		super(defaultItem, construct);
+		factory = createFactory(Function.class, "apply", MethodType.methodType(Object.class, Object.class));
 	}
 
 	@Override
 	protected Item createObject() throws IllegalAccessException,
 			InstantiationException, InvocationTargetException {
-		return (Item) construct.newInstance(new Object[] { this.defaultItem.getAttributes() });
+		if (factory == null) {
+			return (Item) construct.newInstance(new Object[] { this.defaultItem.getAttributes() });
+		}
+		final Object item;
+		try {
+			item = factory.apply(this.defaultItem.getAttributes());
+		} catch (final RuntimeException e) {
+			// Same as for reflective calls
+			throw new InvocationTargetException(e);
+		}
+		return (Item) item;
 	}
 }
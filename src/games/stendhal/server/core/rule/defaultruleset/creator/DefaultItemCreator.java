@@ -12,8 +12,10 @@
  ***************************************************************************/
 package games.stendhal.server.core.rule.defaultruleset.creator;
 
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.function.Supplier;
 
 import games.stendhal.server.core.rule.defaultruleset.DefaultItem;
 import games.stendhal.server.entity.item.Item;
@@ -23,13 +25,27 @@ import games.stendhal.server.entity.item.Item;
  */
 public class DefaultItemCreator extends AbstractItemCreator {
 
+	/** Direct call of the constructor, or <code>null</code> if reflection must be used. */
+	private final Supplier<?> factory;
+
 	public DefaultItemCreator(DefaultItem defaultItem, final Constructor< ? > construct) {
 		super(defaultItem, construct);
+		factory = createFactory(Supplier.class, "get", MethodType.methodType(Object.class));
 	}
 
 	@Override
 	protected Item createObject() throws IllegalAccessException,
 			InstantiationException, InvocationTargetException {
-		return (Item) construct.newInstance(new Object[] {});
+		if (factory == null) {
+			return (Item) construct.newInstance(new Object[] {});
+		}
+		final Object item;
+		try {
+			item = factory.get();
+		} catch (final RuntimeException e) {
+			// Same as for reflective calls
+			throw new InvocationTargetException(e);
+		}
+		return (Item) item;
 	}
 }
@@ -11,8 +11,10 @@
  ***************************************************************************/
 package games.stendhal.server.core.rule.defaultruleset.creator;
 
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
 
 import org.apache.log4j.Logger;
 
@@ -28,22 +30,48 @@ public class FullItemCreator extends AbstractItemCreator {
 
 	private static final Logger logger = Logger.getLogger(FullItemCreator.class);
 
+	/** Direct call of the constructor, or <code>null</code> if reflection must be used. */
+	private final Factory factory;
+
 	public FullItemCreator(DefaultItem defaultItem, final Constructor< ? > construct) {
 		super(defaultItem, construct);
+		factory = createFactory(Factory.class, "create",
+				MethodType.methodType(Object.class, String.class, String.class, String.class, Map.class));
 	}
 
 	@Override
 	protected Item createObject() throws IllegalAccessException,
 			InstantiationException, InvocationTargetException {
 		try {
-			return (Item) construct.newInstance(new Object[] {
-					this.defaultItem.getItemName(),
-					this.defaultItem.getItemClass(),
-					this.defaultItem.getItemSubclass(),
-					this.defaultItem.getAttributes() });
+			final Object item;
+			if (factory != null) {
+				try {
+					item = factory.create(this.defaultItem.getItemName(),
+							this.defaultItem.getItemClass(),
+							this.defaultItem.getItemSubclass(),
+							this.defaultItem.getAttributes());
+				} catch (final RuntimeException e) {
+					// Same as for reflective calls
+					throw new InvocationTargetException(e);
+				}
+			} else {
+				item = construct.newInstance(new Object[] {
+						this.defaultItem.getItemName(),
+						this.defaultItem.getItemClass(),
+						this.defaultItem.getItemSubclass(),
+						this.defaultItem.getAttributes() });
+			}
+			return (Item) item;
 		} catch (IllegalAccessException | InstantiationException | InvocationTargetException | RuntimeException e) {
 			logger.error("Creating item \"" + this.defaultItem.getItemName() + "\" failed.");
 			throw e;
 		}
 	}
+
+	/**
+	 * Factory for the full arguments constructor.
+	 */
+	interface Factory {
+		Object create(String name, String clazz, String subclazz, Map<String, String> attributes);
+	}
 }
@@ -70,11 +70,12 @@ public class LuaActionHelper {
 	 *   New ChatAction instance.
 	 */
 	public ChatAction create(final LuaFunction lf) {
+		final String script = LuaLoader.get().getCurrentChunkName();
 		return new ChatAction() {
 			@Override
 			public void fire(final Player player, final Sentence sentence, final EventRaiser npc) {
-				lf.invoke(new LuaValue[] {CoerceJavaToLua.coerce(player),
-					CoerceJavaToLua.coerce(sentence), CoerceJavaToLua.coerce(npc)});
+				LuaStatistics.get().invoke(script, lf, LuaValue.varargsOf(CoerceJavaToLua.coerce(player),
+					CoerceJavaToLua.coerce(sentence), CoerceJavaToLua.coerce(npc)));
 			}
 		};
 	}
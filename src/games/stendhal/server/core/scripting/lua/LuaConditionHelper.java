@@ -71,6 +71,7 @@ public class LuaConditionHelper {
 	 *   New ChatCondition.
 	 */
 	public ChatCondition create(final LuaFunction lf) {
+		final String script = LuaLoader.get().getCurrentChunkName();
 		return new ChatCondition() {
 			@Override
 			public boolean fire(final Player player, final Sentence sentence, final Entity npc) {
@@ -78,7 +79,8 @@ public class LuaConditionHelper {
 				final LuaValue luaSentence = CoerceJavaToLua.coerce(sentence);
 				final LuaValue luaNPC = CoerceJavaToLua.coerce(npc);
 
-				final LuaValue result = lf.call(luaPlayer, luaSentence, luaNPC);
+				final LuaValue result = LuaStatistics.get().invoke(script, lf,
+						LuaValue.varargsOf(luaPlayer, luaSentence, luaNPC)).arg1();
 				if (!result.isboolean()) {
 					logger.warn("Lua function did not return boolean value");
 					return false;
@@ -1003,6 +1003,8 @@ public class LuaEntityHelper {
 		public LuaFunction idleAction;
 		public LuaFunction attackRejectedAction;
 		private boolean ignorePlayers = false;
+		/** Chunk name of the script that created the NPC. */
+		private final String script = LuaLoader.get().getCurrentChunkName();
 
 
 		public LuaSpeakerNPC(final String name) {
@@ -1115,7 +1117,7 @@ public class LuaEntityHelper {
 					SingletonRepository.getTurnNotifier().notifyInTurns(1, new TurnListener() {
 						@Override
 						public void onTurnReached(final int currentTurn) {
-							idleAction.call(CoerceJavaToLua.coerce(thisNPC));
+							LuaStatistics.get().invoke(script, idleAction, CoerceJavaToLua.coerce(thisNPC));
 						}
 					});
 				}
@@ -1130,7 +1132,8 @@ public class LuaEntityHelper {
 		@Override
 		public void onRejectedAttackStart(final RPEntity attacker) {
 			if (attackRejectedAction != null) {
-				attackRejectedAction.call(CoerceJavaToLua.coerce(this), CoerceJavaToLua.coerce(attacker));
+				LuaStatistics.get().invoke(script, attackRejectedAction,
+						LuaValue.varargsOf(CoerceJavaToLua.coerce(this), CoerceJavaToLua.coerce(attacker)));
 			} else if (!ignorePlayers) {
 				super.onRejectedAttackStart(attacker);
 			}
@@ -197,6 +197,19 @@ public class LuaLoader {
 		return globals;
 	}
 
+	/**
+	 * Retrieves the chunk name of the script that is currently loaded.
+	 *
+	 * @return
+	 *   Chunk name or `null` if no script is being loaded.
+	 */
+	public String getCurrentChunkName() {
+		if (currentScript == null) {
+			return null;
+		}
+		return currentScript.getChunkName();
+	}
+
 	/**
 	 * Action when a new script is being loaded.
 	 */
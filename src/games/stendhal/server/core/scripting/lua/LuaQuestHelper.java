@@ -382,6 +382,9 @@ public class LuaQuestHelper {
 		public LuaFunction repeatableCheck = null;
 		public LuaFunction completedCheck = null;
 
+		/** Chunk name of the script that created the quest. */
+		private final String script = LuaLoader.get().getCurrentChunkName();
+
 
 		/**
 		 * Creates a new quest.
@@ -474,7 +477,7 @@ public class LuaQuestHelper {
 		 *   Returned value of the called Lua function.
 		 */
 		private boolean checkBoolFunction(final LuaFunction lf) {
-			final LuaValue result = lf.call();
+			final LuaValue result = LuaStatistics.get().invoke(script, lf, LuaValue.NONE).arg1();
 			if (result.isboolean()) {
 				return result.toboolean();
 			}
@@ -525,7 +528,7 @@ public class LuaQuestHelper {
 				return ret;
 			}
 
-			final LuaValue result = history.call(CoerceJavaToLua.coerce(player));
+			final LuaValue result = LuaStatistics.get().invoke(script, history, CoerceJavaToLua.coerce(player)).arg1();
 			if (result.istable()) {
 				for (final LuaValue key: result.checktable().keys()) {
 					if (key.isstring()) {
@@ -544,7 +547,7 @@ public class LuaQuestHelper {
 			}
 
 			final List<String> ret = new LinkedList<>();
-			final LuaValue result = history.call(CoerceJavaToLua.coerce(player));
+			final LuaValue result = LuaStatistics.get().invoke(script, history, CoerceJavaToLua.coerce(player)).arg1();
 			if (result.istable()) {
 				for (final LuaValue key: result.checktable().keys()) {
 					if (key.isstring()) {
@@ -588,7 +591,7 @@ public class LuaQuestHelper {
 		@Override
 		public void addToWorld() {
 			if (init != null) {
-				init.invoke(); // or should this be init.call()?
+				LuaStatistics.get().invoke(script, init, LuaValue.NONE);
 			} else {
 				logger.warn("LuaQuest.init not set. Quest will not work.");
 			}
@@ -164,10 +164,15 @@ public class LuaScript extends ScriptingSandbox {
 		onLoad();
 
 		LuaValue result = LuaValue.NIL;
-		if (istream != null) {
-			result = loadStream();
-		} else {
-			result = loadFile();
+		final long start = LuaStatistics.get().begin();
+		try {
+			if (istream != null) {
+				result = loadStream();
+			} else {
+				result = loadFile();
+			}
+		} finally {
+			LuaStatistics.get().end(filename, start);
 		}
 
 		boolean success = true;
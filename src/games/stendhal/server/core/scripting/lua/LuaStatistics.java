@@ -0,0 +1,228 @@
+/***************************************************************************
+ *                       Copyright © 2024 - Stendhal                       *
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.scripting.lua;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Varargs;
+
+
+/**
+ * Accounts the CPU time spent in Lua scripts.
+ *
+ * The time is attributed to the script that created the called function, so
+ * that actions, conditions and quest functions are accounted to the script
+ * defining them. Time of nested calls is included in the outer call.
+ *
+ * Lua is only run by the game loop, so nested calls are tracked without
+ * synchronization.
+ */
+public class LuaStatistics {
+
+	/** Thread CPU time, or <code>null</code> if not supported. */
+	private final ThreadMXBean threads;
+	/** Usage by script chunk name. */
+	private final Map<String, Usage> usages = new HashMap<>();
+	/** Depth of nested calls. */
+	private int depth;
+
+	/** Singleton instance. */
+	private static LuaStatistics instance;
+
+
+	/**
+	 * Retrieves the singleton instance.
+	 */
+	public static synchronized LuaStatistics get() {
+		if (instance == null) {
+			instance = new LuaStatistics();
+		}
+		return instance;
+	}
+
+	/**
+	 * Hidden singleton constructor.
+	 */
+	private LuaStatistics() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!bean.isCurrentThreadCpuTimeSupported()) {
+			bean = null;
+		} else if (!bean.isThreadCpuTimeEnabled()) {
+			bean.setThreadCpuTimeEnabled(true);
+		}
+		threads = bean;
+	}
+
+	/**
+	 * Retrieves the current time of the calling thread.
+	 *
+	 * @return
+	 *   CPU time, or wall clock time if CPU time is not supported, in nanoseconds.
+	 */
+	private long now() {
+		if (threads != null) {
+			return threads.getCurrentThreadCpuTime();
+		}
+		return System.nanoTime();
+	}
+
+	/**
+	 * Calls a Lua function & accounts the time to a script.
+	 *
+	 * @param script
+	 *   Chunk name of the script, or <code>null</code> if unknown.
+	 * @param function
+	 *   Called function.
+	 * @param args
+	 *   Arguments of the call.
+	 * @return
+	 *   Values returned by the function.
+	 */
+	public Varargs invoke(final String script, final LuaValue function, final Varargs args) {
+		final long start = begin();
+		try {
+			return function.invoke(args);
+		} finally {
+			end(script, start);
+		}
+	}
+
+	/**
+	 * Starts timing a call.
+	 *
+	 * @return
+	 *   Start time to be passed to {@link #end(String, long)}, or -1 if the
+	 *   call is nested inside another timed call.
+	 */
+	long begin() {
+		depth++;
+		if (depth > 1) {
+			return -1;
+		}
+		return now();
+	}
+
+	/**
+	 * Ends timing a call.
+	 *
+	 * @param script
+	 *   Chunk name of the script, or <code>null</code> if unknown.
+	 * @param start
+	 *   Value returned by {@link #begin()}.
+	 */
+	void end(final String script, final long start) {
+		depth--;
+		if (start < 0) {
+			return;
+		}
+		final long nanos = now() - start;
+		final String key = script != null ? script : "unknown";
+		synchronized (usages) {
+			Usage usage = usages.get(key);
+			if (usage == null) {
+				usage = new Usage(key);
+				usages.put(key, usage);
+			}
+			usage.calls++;
+			usage.nanos += nanos;
+		}
+	}
+
+	/**
+	 * Retrieves the usage of all scripts.
+	 *
+	 * @return
+	 *   Copies of the usage, most time first.
+	 */
+	public List<Usage> getUsages() {
+		final List<Usage> result = new ArrayList<>();
+		synchronized (usages) {
+			for (final Usage usage: usages.values()) {
+				result.add(new Usage(usage));
+			}
+		}
+		Collections.sort(result, new Comparator<Usage>() {
+			@Override
+			public int compare(final Usage u1, final Usage u2) {
+				return Long.compare(u2.nanos, u1.nanos);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Clears the collected usage.
+	 */
+	public void reset() {
+		synchronized (usages) {
+			usages.clear();
+		}
+	}
+
+	/**
+	 * Checks if CPU time is measured.
+	 *
+	 * @return
+	 *   <code>false</code> if wall clock time is measured instead.
+	 */
+	public boolean isCpuTime() {
+		return threads != null;
+	}
+
+
+	/**
+	 * Time used by a script.
+	 */
+	public static class Usage {
+		private final String script;
+		private long calls;
+		private long nanos;
+
+		private Usage(final String script) {
+			this.script = script;
+		}
+
+		private Usage(final Usage copy) {
+			this.script = copy.script;
+			this.calls = copy.calls;
+			this.nanos = copy.nanos;
+		}
+
+		/**
+		 * Retrieves the chunk name of the script.
+		 */
+		public String getScript() {
+			return script;
+		}
+
+		/**
+		 * Retrieves number of timed calls.
+		 */
+		public long getCalls() {
+			return calls;
+		}
+
+		/**
+		 * Retrieves the time used in nanoseconds.
+		 */
+		public long getNanos() {
+			return nanos;
+		}
+	}
+}
@@ -185,6 +185,7 @@ public abstract class Entity extends RPObject implements Killer {
 		}
 
 		if (moved && (zone != null)) {
+			zone.updateEntityArea(this);
 			onMoved(oldX, oldY, x, y);
 		}
 
@@ -196,6 +197,10 @@ public abstract class Entity extends RPObject implements Killer {
 			area.width = getInt("width");
 		}
 
+		if (zone != null) {
+			zone.updateEntityArea(this);
+		}
+
 		if (has("resistance")) {
 			resistance = getInt("resistance");
 		}
@@ -658,6 +663,7 @@ public abstract class Entity extends RPObject implements Killer {
 		}
 
 		if (moved && (zone != null)) {
+			zone.updateEntityArea(this);
 			onMoved(oldX, oldY, x, y);
 		}
 	}
@@ -695,6 +701,10 @@ public abstract class Entity extends RPObject implements Killer {
 
 		this.area.height = height;
 		put("height", height);
+
+		if (zone != null) {
+			zone.updateEntityArea(this);
+		}
 	}
 
 	/**
@@ -132,6 +132,7 @@ public abstract class GuidedEntity extends ActiveEntity {
 			guide.path = path;
 			guide.pathPosition = 0;
 			guide.followPath(this);
+			onPathChanged();
 
 			return;
 		}
@@ -140,6 +141,7 @@ public abstract class GuidedEntity extends ActiveEntity {
 			this.remove(PATHSET);
 		}
 		guide.clearPath();
+		onPathChanged();
 	}
 
 	/**
@@ -212,6 +214,7 @@ public abstract class GuidedEntity extends ActiveEntity {
 			guide.path = path;
 			guide.pathPosition = position;
 			guide.followPath(this);
+			onPathChanged();
 
 			return;
 		}
@@ -220,6 +223,7 @@ public abstract class GuidedEntity extends ActiveEntity {
 			this.remove(PATHSET);
 		}
 		guide.clearPath();
+		onPathChanged();
 	}
 
 	/**
@@ -258,6 +262,14 @@ public abstract class GuidedEntity extends ActiveEntity {
 	 */
 	public void clearPath() {
 		guide.clearPath();
+		onPathChanged();
+	}
+
+	/**
+	 * Called when a path has been set or cleared.
+	 */
+	protected void onPathChanged() {
+		// sub classes can implement this method
 	}
 
 	/**
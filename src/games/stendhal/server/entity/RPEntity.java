@@ -43,7 +43,7 @@ import games.stendhal.server.core.engine.ItemLogger;
 import games.stendhal.server.core.engine.SingletonRepository;
 import games.stendhal.server.core.engine.StendhalRPZone;
 import games.stendhal.server.core.engine.db.StendhalKillLogDAO;
-import games.stendhal.server.core.engine.dbcommand.LogKillEventCommand;
+import games.stendhal.server.core.engine.dbcommand.LogEventBuffer;
 import games.stendhal.server.core.events.TurnListener;
 import games.stendhal.server.core.events.TutorialNotifier;
 import games.stendhal.server.entity.creature.Creature;
@@ -68,8 +68,6 @@ import marauroa.common.game.RPAction;
 import marauroa.common.game.RPObject;
 import marauroa.common.game.RPSlot;
 import marauroa.common.game.SyntaxException;
-import marauroa.server.db.command.DBCommandPriority;
-import marauroa.server.db.command.DBCommandQueue;
 import marauroa.server.game.Statistics;
 import marauroa.server.game.db.DAORegister;
 
@@ -1618,10 +1616,9 @@ System.out.printf("  drop: %2d %2d\n", attackerRoll, defenderRoll);
 				} else {
 					killer.setSharedKill(killedName);
 				}
+				SingletonRepository.getAchievementNotifier().onKill(killer, killedName);
 			}
 
-			SingletonRepository.getAchievementNotifier().onKill(killer);
-
 			killer.notifyWorldAboutChanges();
 		}
 	}
@@ -1732,7 +1729,7 @@ System.out.printf("  drop: %2d %2d\n", attackerRoll, defenderRoll);
 			new GameEvent(killerName, "killed", this.getName(), killLog.entityToType(killer), killLog.entityToType(this)).raise();
 		}
 
-		DBCommandQueue.get().enqueue(new LogKillEventCommand(this, killer), DBCommandPriority.LOW);
+		LogEventBuffer.get().logKill(this, killer);
 
 		die(killer, remove);
 	}
@@ -398,8 +398,8 @@ public class Creature extends NPC {
 	 * 	creature
 	 */
 	public void setNoises(final LinkedHashMap<String, LinkedList<String>> creatureNoises){
-		noises.clear();
-		noises.putAll(creatureNoises);
+		// the default noises are shared with the other creatures of the kind
+		noises = new LinkedHashMap<String, LinkedList<String>>(creatureNoises);
 	}
 
 	/**
@@ -720,6 +720,9 @@ public class Creature extends NPC {
 		if (enemyList.isEmpty()) {
 			return null;
 		}
+		if (enemyList == getZone().getPlayerAndFriends()) {
+			return getNearestPlayerOrFriend(range);
+		}
 
 		// calculate the distance of all possible enemies
 		final Map<RPEntity, Double> distances = new HashMap<RPEntity, Double>();
@@ -751,29 +754,77 @@ public class Creature extends NPC {
 				}
 			}
 
-			if (shortestDistance >= 1) {
-				final List<Node> path = Path.searchPath(this, chosen, getMovementRange());
-				if ((path == null) || path.isEmpty() && !strategy.canAttackNow(this, chosen)) {
-					distances.remove(chosen);
-					chosen = null;
-				} else {
-					// set the path. if not setMovement() will search a new one
-					setPath(new FixedPath(path, false));
-				}
+			if (!isReachableEnemy(chosen, shortestDistance)) {
+				distances.remove(chosen);
+				chosen = null;
 			}
 		}
 		// return the chosen enemy or null if we could not find one in reach
 		return chosen;
 	}
 
+	/**
+	 * Returns the nearest of the players and friendly entities of the zone,
+	 * which is reachable or otherwise attackable. The entities are looked up
+	 * in the spatial index of the zone, so that only the ones near the
+	 * creature are considered.
+	 *
+	 * @param range
+	 *            attack radius
+	 * @return chosen enemy or null if no enemy was found.
+	 */
+	private RPEntity getNearestPlayerOrFriend(final double range) {
+		final StendhalRPZone zone = getZone();
+		// enemies without a path. Usually there are none
+		List<RPEntity> unreachable = null;
+		while (true) {
+			final List<RPEntity> excluded = unreachable;
+			final RPEntity chosen = zone.getNearestPlayerOrFriend(this, range,
+					enemy -> (enemy != this) && !enemy.isInvisibleToCreatures()
+					&& ((excluded == null) || !excluded.contains(enemy)));
+			if ((chosen == null) || isReachableEnemy(chosen, squaredDistance(chosen))) {
+				return chosen;
+			}
+			if (unreachable == null) {
+				unreachable = new ArrayList<RPEntity>(2);
+			}
+			unreachable.add(chosen);
+		}
+	}
+
+	/**
+	 * Check if there is a path to an enemy, or if it can be attacked
+	 * otherwise. The found path is set as the path of the creature.
+	 *
+	 * @param enemy checked enemy
+	 * @param squaredDistance squared distance to the enemy
+	 * @return <code>true</code> if the enemy can be reached
+	 */
+	private boolean isReachableEnemy(final RPEntity enemy, final double squaredDistance) {
+		if (squaredDistance >= 1) {
+			final List<Node> path = searchPathTo(enemy, getMovementRange());
+			if ((path == null) || path.isEmpty() && !strategy.canAttackNow(this, enemy)) {
+				return false;
+			}
+			// set the path. if not setMovement() will search a new one
+			setPath(new FixedPath(path, false));
+		}
+		return true;
+	}
+
 	public boolean isEnemyNear(final double range) {
 		final int x = getX();
 		final int y = getY();
 
-		List<RPEntity> enemyList = getEnemyList();
-		if (enemyList.isEmpty()) {
-			final StendhalRPZone zone = getZone();
-			enemyList = zone.getPlayerAndFriends();
+		final List<RPEntity> enemyList = getEnemyList();
+		final StendhalRPZone zone = getZone();
+		if (enemyList.isEmpty() || (enemyList == zone.getPlayerAndFriends())) {
+			// Look up only the entities in range
+			return zone.findPlayerOrFriend(x - range, y - range, 2 * range + 1, 2 * range + 1,
+					playerOrFriend -> (playerOrFriend != this)
+					&& !playerOrFriend.isInvisibleToCreatures()
+					&& (Math.abs(playerOrFriend.getX() - x) < range)
+					&& (Math.abs(playerOrFriend.getY() - y) < range)) != null;
 		}
 
 		for (final RPEntity playerOrFriend : enemyList) {
@@ -798,6 +849,14 @@ public class Creature extends NPC {
 		return false;
 	}
 
+	/**
+	 * Creatures share the path data of the entities they chase.
+	 */
+	@Override
+	protected List<Node> searchPathTo(final Entity destEntity, final double maxPathRadius) {
+		return Path.searchChasePath(this, destEntity, maxPathRadius);
+	}
+
 	/**
 	 * Check if the entity is a "boss". Bosses have higher capacity corpses.
 	 */
@@ -954,6 +1013,17 @@ public class Creature extends NPC {
 		}
 	}
 
+	@Override
+	public void onLogicResumed(final int skippedTurns) {
+		healer.catchUp(this, skippedTurns);
+	}
+
+	@Override
+	public boolean keepsZoneActive() {
+		// creatures only need to move for the players and their friends
+		return false;
+	}
+
 	/**
 	 * Random sound noises.
 	 * @param state - state for noises
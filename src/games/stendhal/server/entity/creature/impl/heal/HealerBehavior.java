@@ -18,4 +18,12 @@ public interface HealerBehavior {
 	void init(String healingProfile);
 	void heal(Creature creature);
 
+	/**
+	 * Applies the healing of turns in which the creature's logic was skipped.
+	 *
+	 * @param creature creature to heal
+	 * @param turns number of skipped turns
+	 */
+	void catchUp(Creature creature, int turns);
+
 }
@@ -702,6 +702,22 @@ public class Item extends PassiveEntity implements TurnListener, EquipListener,
 		statusAttackers = builder.addAll(statusAttackers).add(statusAttacker).build();
 	}
 
+	/**
+	 * Add several status attack types to the item.
+	 *
+	 * @param attackers
+	 *     Inflictable status effects. The list is shared with the item if it
+	 *     has no other status attackers.
+	 */
+	public void addStatusAttackers(final ImmutableList<StatusAttacker> attackers) {
+		if (statusAttackers.isEmpty()) {
+			statusAttackers = attackers;
+		} else {
+			Builder<StatusAttacker> builder = ImmutableList.builder();
+			statusAttackers = builder.addAll(statusAttackers).addAll(attackers).build();
+		}
+	}
+
 	public List<StatusAttacker> getStatusAttackers() {
 		return statusAttackers;
 	}
@@ -22,6 +22,7 @@ import games.stendhal.common.Direction;
 import games.stendhal.common.Rand;
 import games.stendhal.common.constants.Events;
 import games.stendhal.common.constants.SoundLayer;
+import games.stendhal.server.core.engine.StendhalRPZone;
 import games.stendhal.server.core.pathfinder.FixedPath;
 import games.stendhal.server.core.pathfinder.Node;
 import games.stendhal.server.core.pathfinder.Path;
@@ -210,11 +211,24 @@ public abstract class NPC extends DressedEntity {
 			logger.debug("Creating path because (" + getX() + "," + getY()
 					+ ") distance(" + destEntity.getX() + ","
 					+ destEntity.getY() + ")>" + max);
-			final List<Node> path = Path.searchPath(this, destEntity, maxPathRadius);
+			final List<Node> path = searchPathTo(destEntity, maxPathRadius);
 			setPath(new FixedPath(path, false));
 		}
 	}
 
+	/**
+	 * Find a path next to another entity.
+	 *
+	 * @param destEntity
+	 *   the destination entity
+	 * @param maxPathRadius
+	 *   the maximum radius in which a path is searched
+	 * @return found path, or an empty list if there is none
+	 */
+	protected List<Node> searchPathTo(final Entity destEntity, final double maxPathRadius) {
+		return Path.searchPath(this, destEntity, maxPathRadius);
+	}
+
 	/**
 	 * Set a random destination as a path.
 	 *
@@ -328,6 +342,38 @@ public abstract class NPC extends DressedEntity {
 		notifyWorldAboutChanges();
 	}
 
+	/**
+	 * Called when the logic of the NPC's zone is resumed after it was skipped
+	 * for a while, because the zone was dormant. Sub classes can use this to
+	 * catch up with the changes that would have happened in the meantime.
+	 *
+	 * @param skippedTurns
+	 *            number of turns in which logic() was not called
+	 */
+	@SuppressWarnings("unused")
+	public void onLogicResumed(final int skippedTurns) {
+		// sub classes can implement this method
+	}
+
+	/**
+	 * Checks if the NPC has to keep moving in the zone logic while no player
+	 * is in its zone, like an NPC walking a route through several zones.
+	 * Such NPCs keep their zone from becoming dormant.
+	 *
+	 * @return <code>true</code> if the zone logic must keep running for this NPC
+	 */
+	public boolean keepsZoneActive() {
+		return hasPath();
+	}
+
+	@Override
+	protected void onPathChanged() {
+		final StendhalRPZone zone = getZone();
+		if (zone != null) {
+			zone.updateActivitySource(this);
+		}
+	}
+
 	/**
 	 * Give NPC a random path
 	 */
@@ -13,16 +13,20 @@
 package games.stendhal.server.entity.npc;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 
 import org.apache.log4j.Logger;
 
+import games.stendhal.server.core.engine.ZoneLogicExecutor;
+
 /**
  * This Singleton should contain all NPCs in the Stendhal world that are unique.
  */
@@ -35,6 +39,9 @@ public class NPCList implements Iterable<SpeakerNPC> {
 
 	private final Map<String, SpeakerNPC> contents;
 
+	/** The NPCs ordered by name, or <code>null</code> if it needs to be rebuilt. */
+	private List<SpeakerNPC> byName;
+
 	/** Names reserved for NPCs created dynamically. */
 	private final List<String> reserved = new ArrayList<String>() {{
 		add("patrick"); // Herald NPC (games.stendhal.server.script.Herald)
@@ -90,6 +97,10 @@ public class NPCList implements Iterable<SpeakerNPC> {
 	 *            The NPC that should be added
 	 */
 	public void add(final SpeakerNPC npc) {
+		if (ZoneLogicExecutor.defer(() -> add(npc))) {
+			return;
+		}
+
 		// insert lower case names to allow case insensitive
 		// searches for teleport commands, etc.
 		final String name = npc.getName().toLowerCase(Locale.ENGLISH);
@@ -104,6 +115,7 @@ public class NPCList implements Iterable<SpeakerNPC> {
 					+ npc.getName() + " is reserved");
 		} else {
 			contents.put(name, npc);
+			byName = null;
 		}
 	}
 
@@ -116,6 +128,10 @@ public class NPCList implements Iterable<SpeakerNPC> {
 	 * @return SpeakerNPC or null in case it was not in the list
 	 */
 	public SpeakerNPC remove(final String name) {
+		if (ZoneLogicExecutor.defer(() -> remove(name))) {
+			return contents.get(name.toLowerCase(Locale.ENGLISH));
+		}
+		byName = null;
 		return contents.remove(name.toLowerCase(Locale.ENGLISH));
 	}
 
@@ -129,11 +145,26 @@ public class NPCList implements Iterable<SpeakerNPC> {
 		return new TreeSet<String>(contents.keySet());
 	}
 
+	/**
+	 * Returns all NPCs ordered by name. The list is not copied for each call,
+	 * but replaced when NPCs are added or removed, so it can be iterated
+	 * while the NPCList changes.
+	 *
+	 * @return unmodifiable list of the NPCs
+	 */
+	public List<SpeakerNPC> getNPCsByName() {
+		if (byName == null) {
+			byName = Collections.unmodifiableList(new ArrayList<SpeakerNPC>(new TreeMap<String, SpeakerNPC>(contents).values()));
+		}
+		return byName;
+	}
+
 	/**
 	 * Removes all NPCs from this list.
 	 */
 	public void clear() {
 		contents.clear();
+		byName = null;
 	}
 
 	/**
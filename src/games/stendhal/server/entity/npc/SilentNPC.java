@@ -45,4 +45,10 @@ public class SilentNPC extends PassiveNPC {
 
 		super.logic();
 	}
+
+	@Override
+	public boolean keepsZoneActive() {
+		// does not move while no player is in the zone
+		return false;
+	}
 }
@@ -11,6 +11,7 @@
  ***************************************************************************/
 package games.stendhal.server.entity.npc;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
@@ -167,6 +168,12 @@ public class SpeakerNPC extends PassiveNPC {
 	 */
 	private RPEntity attending;
 
+	/**
+	 * The players who have said something within the perception range of the
+	 * NPC since the last preLogic.
+	 */
+	private final List<Player> speakers = new ArrayList<Player>(1);
+
 	/**
 	 * a set of blue words used since the start of the conversation
 	 */
@@ -249,40 +256,6 @@ public class SpeakerNPC extends PassiveNPC {
 		// do nothing
 	}
 
-	/**
-	 * Gets all players that have recently (this turn?) talked and are standing
-	 * nearby the NPC. Nearby means that they are standing less than <i>range</i>
-	 * squares away horizontally and less than <i>range</i> squares away
-	 * vertically.
-	 *
-	 * @param npc
-	 * @param range
-	 * @return A list of nearby players who have recently talked.
-	 */
-	private List<Player> getNearbyPlayersThatHaveSpoken(final NPC npc, final double range) {
-		final int x = npc.getX();
-		final int y = npc.getY();
-
-		final List<Player> players = new LinkedList<Player>();
-
-		for (final Player player : getZone().getPlayers()) {
-			final int px = player.getX();
-			final int py = player.getY();
-
-			if (player.has("text")) {
-				int dx = px - x;
-				int dy = py - y;
-
-				if (Math.abs(dx)<range && Math.abs(dy)<range) { // check rectangular area
-//				if (dx*dx + dy*dy < range*range) { // optionally we could check a circular area
-					players.add(player);
-				}
-			}
-		}
-
-		return players;
-	}
-
 	/**
 	 * Gets the player who is standing nearest to the NPC. Returns null if no
 	 * player is standing nearby. Nearby means that they are standing less than
@@ -421,9 +394,40 @@ public class SpeakerNPC extends PassiveNPC {
 		// respond to player in the chat log before the player says something.
 	}
 
+	@Override
+	public boolean keepsZoneActive() {
+		// moves in preLogic, which does not depend on the zone activity
+		return false;
+	}
+
+	/**
+	 * Tells the NPC that a player has said something within its perception
+	 * range. The NPC reacts to it in the next preLogic.
+	 *
+	 * @param speaker player who has spoken. The text is in the "text"
+	 * 	attribute of the player
+	 */
+	public void hear(final Player speaker) {
+		speakers.add(speaker);
+	}
+
+	/**
+	 * Checks if preLogic would do nothing, because the NPC is neither talking,
+	 * nor moving, and nobody has spoken to it. NPCs that greet approaching
+	 * players or make sounds are never idle.
+	 *
+	 * @return <code>true</code> if preLogic can be skipped
+	 */
+	public boolean isIdle() {
+		final List<String> sounds = getSounds();
+		return speakers.isEmpty() && (attending == null) && !isTalking() && stopped() && !hasPath()
+				&& (initChatAction == null) && ((sounds == null) || sounds.isEmpty()) && !has("text");
+	}
+
 	public void preLogic() {
 
 		if (this.getZone().getPlayerAndFriends().isEmpty() && !isTalking() && !actingAlone) {
+			speakers.clear();
 			return;
 		}
 
@@ -468,9 +472,14 @@ public class SpeakerNPC extends PassiveNPC {
 		}
 
 		// and finally react on anybody talking to us
-		final List<Player> speakers = getNearbyPlayersThatHaveSpoken(this, getPerceptionRange());
-		for (final Player speaker : speakers) {
-			tell(speaker, speaker.get("text"));
+		if (!speakers.isEmpty()) {
+			final List<Player> heard = new ArrayList<Player>(speakers);
+			speakers.clear();
+			for (final Player speaker : heard) {
+				if (speaker.has("text")) {
+					tell(speaker, speaker.get("text"));
+				}
+			}
 		}
 
 		maybeMakeSound();
@@ -48,6 +48,9 @@ public class Engine {
 	// FSM state transition table
 	private final List<Transition> stateTransitionTable = new LinkedList<Transition>();
 
+	// index of stateTransitionTable, null if it has to be rebuilt
+	private TransitionIndex index;
+
 	// current FSM state
 	private ConversationStates currentState = ConversationStates.IDLE;
 
@@ -74,7 +77,7 @@ public class Engine {
 	 * @return previous transition entry
 	 */
 	private Transition get(final ConversationStates state, final Expression trigger, final ChatCondition condition) {
-		for (final Transition transition : stateTransitionTable) {
+		for (final Transition transition : getIndex().getCandidates(state, trigger, false)) {
 			if (transition.matchesWithCondition(state, trigger, condition)) {
 				return transition;
 			}
@@ -288,7 +291,7 @@ public class Engine {
 	public void add(Collection<Expression> triggerExpressions, final ConversationStates state, final ChatCondition condition,
 			boolean secondary, final ConversationStates nextState, final String reply, final ChatAction action, final String label) {
 		if (triggerExpressions!=null && !triggerExpressions.isEmpty()) {
-			stateTransitionTable.add(new Transition(state, triggerExpressions, condition, secondary, nextState, reply, action, label));
+			addTransition(new Transition(state, triggerExpressions, condition, secondary, nextState, reply, action, label));
 		}
 	}
 
@@ -313,8 +316,35 @@ public class Engine {
 	public void add(Collection<Expression> triggerExpressions, final ConversationStates state, final ChatCondition condition,
 			boolean secondary, final ConversationStates nextState, final String reply, final ChatAction action) {
 		if (triggerExpressions!=null && !triggerExpressions.isEmpty()) {
-			stateTransitionTable.add(new Transition(state, triggerExpressions, condition, secondary, nextState, reply, action));
+			addTransition(new Transition(state, triggerExpressions, condition, secondary, nextState, reply, action));
+		}
+	}
+
+	/**
+	 * Appends a transition to the table and keeps the index up to date.
+	 *
+	 * @param transition new transition
+	 */
+	private void addTransition(final Transition transition) {
+		stateTransitionTable.add(transition);
+		if (index != null) {
+			index.add(transition);
+		}
+	}
+
+	/**
+	 * Gets the index of the transition table, and builds it if needed.
+	 *
+	 * @return index
+	 */
+	private TransitionIndex getIndex() {
+		if (index == null) {
+			index = new TransitionIndex();
+			for (final Transition transition : stateTransitionTable) {
+				index.add(transition);
+			}
 		}
+		return index;
 	}
 
 	/**
@@ -338,6 +368,9 @@ public class Engine {
 				res = true;
 			}
 		}
+		if (res) {
+			index = null;
+		}
 		return res;
 	}
 
@@ -499,9 +532,13 @@ public class Engine {
 	 * List of Transition entries used to merge identical transitions in respect
 	 * to Transitions.matchesNormalizedWithCondition().
 	 */
-	private static class TransitionSet extends LinkedList<Transition> {
+	private static class TransitionSet extends ArrayList<Transition> {
 		private static final long serialVersionUID = 1L;
 
+		TransitionSet() {
+			super(2);
+		}
+
 		@Override
 		public boolean add(final Transition otherTrans) {
 			for(final Transition transition : this) {
@@ -516,12 +553,6 @@ public class Engine {
 			// No match, so add the new transition entry.
 			return super.add(otherTrans);
 		}
-
-		public static void advance(final Iterator<Transition> it, final int i) {
-			for (int x = i; x > 0; --x) {
-				it.next();
-			}
-		}
 	}
 
 	private boolean matchTransition(final MatchType type, final Player player,
@@ -530,8 +561,8 @@ public class Engine {
 		final TransitionSet preferredTransitions = new TransitionSet();
 		final TransitionSet secondaryTransitions = new TransitionSet();
 
-		// match with all the registered transitions
-		for (final Transition transition : stateTransitionTable) {
+		// match with the registered transitions that may fit the sentence
+		for (final Transition transition : getCandidates(type, sentence)) {
 			if (matchesTransition(type, sentence, transition)) {
 				if (transition.isConditionFulfilled(player, sentence, speakerNPC)) {
 					if (transition.isPreferred()) {
@@ -543,37 +574,35 @@ public class Engine {
 			}
 		}
 
-		Iterator<Transition> it = null;
+		Transition transition = null;
 
 		// First we try to use one of the a preferred transitions (mainly with existing condition).
 		if (preferredTransitions.size() > 0) {
-			it = preferredTransitions.iterator();
-
 			if (preferredTransitions.size() > 1) {
 				logger.info("Choosing random action because of "
 						+ preferredTransitions.size() + " entries in preferredTransitions: "
 						+ preferredTransitions);
 
-				TransitionSet.advance(it, Rand.rand(preferredTransitions.size()));
+				transition = preferredTransitions.get(Rand.rand(preferredTransitions.size()));
+			} else {
+				transition = preferredTransitions.get(0);
 			}
 		}
 
 		// Then look for the remaining transitions.
-		if ((it == null) && (secondaryTransitions.size() > 0)) {
-			it = secondaryTransitions.iterator();
-
+		if ((transition == null) && (secondaryTransitions.size() > 0)) {
 			if (secondaryTransitions.size() > 1) {
 				logger.info("Choosing random action because of "
 						+ secondaryTransitions.size()
 						+ " entries in secondaryTransitions: " + secondaryTransitions);
 
-				TransitionSet.advance(it, Rand.rand(secondaryTransitions.size()));
+				transition = secondaryTransitions.get(Rand.rand(secondaryTransitions.size()));
+			} else {
+				transition = secondaryTransitions.get(0);
 			}
 		}
 
-		if (it != null) {
-			final Transition transition = it.next();
-
+		if (transition != null) {
 			executeTransition(player, sentence, transition);
 
 			return true;
@@ -582,6 +611,35 @@ public class Engine {
 		}
 	}
 
+	/**
+	 * Gets the transitions that may match a sentence, in the order of the
+	 * transition table. All of them still have to be checked with
+	 * {@link MatchType#match}.
+	 *
+	 * @param type
+	 * @param sentence
+	 * @return candidate transitions
+	 */
+	private List<Transition> getCandidates(final MatchType type, final Sentence sentence) {
+		final TransitionIndex idx = getIndex();
+		switch (type) {
+		case EXACT_MATCH:
+			return idx.getCandidates(currentState, sentence.getTriggerExpression(), false);
+		case NORMALIZED_MATCH:
+			return idx.getCandidates(currentState, sentence.getTriggerExpression(), true);
+		case SIMILAR_MATCH:
+			return idx.getTransitions(currentState);
+		case ABSOLUTE_JUMP:
+			return idx.getCandidates(ConversationStates.ANY, sentence.getTriggerExpression(), false);
+		case NORMALIZED_JUMP:
+			return idx.getCandidates(ConversationStates.ANY, sentence.getTriggerExpression(), true);
+		case SIMILAR_JUMP:
+			return idx.getTransitions(ConversationStates.ANY);
+		default:
+			return stateTransitionTable;
+		}
+	}
+
 	/**
 	 * Look for a match between given sentence and transition in the current state.
 	 * TODO mf - refactor match type handling
@@ -0,0 +1,182 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.entity.npc.fsm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import games.stendhal.common.parser.Expression;
+import games.stendhal.server.entity.npc.ConversationStates;
+
+/**
+ * Index of the transitions of an {@link Engine} by their state and by the
+ * original and normalized text of their triggers.
+ *
+ * <p>
+ * The index only narrows down the transitions that may match. Candidates are
+ * returned in the order of the transition table, so that the caller can apply
+ * the usual matching rules to them and gets the same result as by checking
+ * the whole table. Transitions with a trigger that uses an ExpressionMatcher
+ * can not be looked up by text, and are candidates for every lookup in their
+ * state.
+ */
+class TransitionIndex {
+	private final Map<ConversationStates, StateTransitions> states =
+			new EnumMap<ConversationStates, StateTransitions>(ConversationStates.class);
+
+	/**
+	 * Adds a transition. It is treated as the last one of the table.
+	 *
+	 * @param transition transition
+	 */
+	void add(final Transition transition) {
+		StateTransitions entry = states.get(transition.getState());
+		if (entry == null) {
+			entry = new StateTransitions();
+			states.put(transition.getState(), entry);
+		}
+		entry.add(transition);
+	}
+
+	/**
+	 * Gets all transitions of a state.
+	 *
+	 * @param state state
+	 * @return transitions in table order
+	 */
+	List<Transition> getTransitions(final ConversationStates state) {
+		final StateTransitions entry = states.get(state);
+		if (entry == null) {
+			return Collections.emptyList();
+		}
+		return entry.transitions;
+	}
+
+	/**
+	 * Gets the transitions of a state that may match a trigger.
+	 *
+	 * @param state state
+	 * @param trigger trigger expression of the sentence
+	 * @param normalized <code>true</code> to look up by the normalized text,
+	 *	<code>false</code> to look up by the original text
+	 * @return candidate transitions in table order
+	 */
+	List<Transition> getCandidates(final ConversationStates state, final Expression trigger,
+			final boolean normalized) {
+		final StateTransitions entry = states.get(state);
+		if (entry == null) {
+			return Collections.emptyList();
+		}
+
+		final List<Integer> byText;
+		if (normalized) {
+			byText = entry.byNormalized.get(trigger.getNormalized());
+		} else {
+			byText = entry.byOriginal.get(trigger.getOriginal());
+		}
+		return entry.merge(byText);
+	}
+
+	/**
+	 * The transitions of one state.
+	 */
+	private static class StateTransitions {
+		/** all transitions in table order */
+		final List<Transition> transitions = new ArrayList<Transition>();
+		/** positions in transitions by the original text of the triggers */
+		final Map<String, List<Integer>> byOriginal = new HashMap<String, List<Integer>>();
+		/** positions in transitions by the normalized text of the triggers */
+		final Map<String, List<Integer>> byNormalized = new HashMap<String, List<Integer>>();
+		/** positions of the transitions with an ExpressionMatcher */
+		final List<Integer> withMatcher = new ArrayList<Integer>();
+
+		void add(final Transition transition) {
+			final Integer pos = Integer.valueOf(transitions.size());
+			transitions.add(transition);
+
+			boolean matcher = false;
+			for (final Expression trigger : transition.getTriggers()) {
+				if (trigger.getMatcher() != null) {
+					matcher = true;
+				} else {
+					put(byOriginal, trigger.getOriginal(), pos);
+					put(byNormalized, trigger.getNormalized(), pos);
+				}
+			}
+			if (matcher) {
+				withMatcher.add(pos);
+			}
+		}
+
+		private static void put(final Map<String, List<Integer>> map, final String key, final Integer pos) {
+			List<Integer> list = map.get(key);
+			if (list == null) {
+				list = new ArrayList<Integer>(1);
+				map.put(key, list);
+			}
+			// several triggers of a transition may have the same text
+			if (list.isEmpty() || !list.get(list.size() - 1).equals(pos)) {
+				list.add(pos);
+			}
+		}
+
+		/**
+		 * Merges the positions found by text with the transitions using an
+		 * ExpressionMatcher.
+		 *
+		 * @param byText positions found by text, or <code>null</code>
+		 * @return transitions in table order
+		 */
+		List<Transition> merge(final List<Integer> byText) {
+			if (byText == null) {
+				if (withMatcher.isEmpty()) {
+					return Collections.emptyList();
+				}
+				return resolve(withMatcher);
+			}
+			if (withMatcher.isEmpty()) {
+				return resolve(byText);
+			}
+
+			final List<Transition> res = new ArrayList<Transition>(byText.size() + withMatcher.size());
+			int i = 0;
+			int j = 0;
+			while ((i < byText.size()) || (j < withMatcher.size())) {
+				final int a = (i < byText.size()) ? byText.get(i).intValue() : Integer.MAX_VALUE;
+				final int b = (j < withMatcher.size()) ? withMatcher.get(j).intValue() : Integer.MAX_VALUE;
+				if (a <= b) {
+					res.add(transitions.get(a));
+					i++;
+					if (a == b) {
+						j++;
+					}
+				} else {
+					res.add(transitions.get(b));
+					j++;
+				}
+			}
+			return res;
+		}
+
+		private List<Transition> resolve(final List<Integer> positions) {
+			final List<Transition> res = new ArrayList<Transition>(positions.size());
+			for (final Integer pos : positions) {
+				res.add(transitions.get(pos.intValue()));
+			}
+			return res;
+		}
+	}
+}
@@ -11,8 +11,10 @@
  ***************************************************************************/
 package games.stendhal.server.entity.player;
 
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.log4j.Logger;
 
@@ -31,6 +33,13 @@ import marauroa.common.game.RPSlot;
 class PlayerQuests {
 	private final Player player;
 
+	/**
+	 * Parsed quest states by slot name. The "!quests" slot stays the
+	 * authority, an entry is only used as long as the slot still contains the
+	 * very same string.
+	 */
+	private final Map<String, ParsedState> parsedStates = new HashMap<String, ParsedState>();
+
 	private static Logger logger = Logger.getLogger(PlayerQuests.class);
 
 
@@ -93,13 +102,15 @@ class PlayerQuests {
 	 *            reset the player's status for the quest.
 	 */
 	public void setQuest(final String name, final String status) {
-		final String oldStatus = player.getKeyedSlot("!quests", QuestUtils.evaluateQuestSlotName(name));
-		player.setKeyedSlot("!quests", QuestUtils.evaluateQuestSlotName(name), status);
+		final String slotName = QuestUtils.evaluateQuestSlotName(name);
+		final String oldStatus = player.getKeyedSlot("!quests", slotName);
+		player.setKeyedSlot("!quests", slotName, status);
+		parsedStates.remove(slotName);
 		if ((status == null) || !status.equals(oldStatus)) {
-			new GameEvent(player.getName(), "quest", QuestUtils.evaluateQuestSlotName(name), status).raise();
+			new GameEvent(player.getName(), "quest", slotName, status).raise();
 		}
 		// check for reached achievements
-		SingletonRepository.getAchievementNotifier().onFinishQuest(player);
+		SingletonRepository.getAchievementNotifier().onFinishQuest(player, name);
 	}
 
 
@@ -113,7 +124,8 @@ class PlayerQuests {
 	 * @return the player's status in the quest
 	 */
 	public String getQuest(final String name, final int index) {
-		String state = getQuest(name);
+		final String slotName = QuestUtils.evaluateQuestSlotName(name);
+		String state = player.getKeyedSlot("!quests", slotName);
 		if (state == null) {
 			return null;
 		}
@@ -122,11 +134,24 @@ class PlayerQuests {
 			return state;
 		}
 
-		String[] elements = state.split(";");
-		if (index < elements.length) {
-			return elements[index];
+		return getParsedState(slotName, state).getElement(index);
+	}
+
+	/**
+	 * Gets the parsed form of a quest state.
+	 *
+	 * @param slotName evaluated name of the quest slot
+	 * @param state current content of the quest slot
+	 * @return parsed state
+	 */
+	private ParsedState getParsedState(final String slotName, final String state) {
+		ParsedState parsed = parsedStates.get(slotName);
+		// the slot may have been changed without going through setQuest()
+		if ((parsed == null) || (parsed.state != state)) {
+			parsed = new ParsedState(state);
+			parsedStates.put(slotName, parsed);
 		}
-		return "";
+		return parsed;
 	}
 
 	/**
@@ -145,11 +170,12 @@ class PlayerQuests {
 	 *            reset the player's status for the quest.
 	 */
 	public void setQuest(final String name, final int index, final String subStatus) {
-		String state = getQuest(name);
+		final String slotName = QuestUtils.evaluateQuestSlotName(name);
+		String state = player.getKeyedSlot("!quests", slotName);
 		if (state == null) {
 			state = "";
 		}
-		String[] elements = state.split(";");
+		String[] elements = getParsedState(slotName, state).getElements().clone();
 		if (elements.length <= index) {
 			String[] temp = new String[index + 1];
 			System.arraycopy(elements, 0, temp, 0, elements.length);
@@ -183,7 +209,9 @@ class PlayerQuests {
 	}
 
 	public void removeQuest(final String name) {
-		player.setKeyedSlot("!quests", QuestUtils.evaluateQuestSlotName(name), null);
+		final String slotName = QuestUtils.evaluateQuestSlotName(name);
+		player.setKeyedSlot("!quests", slotName, null);
+		parsedStates.remove(slotName);
 	}
 
 	/**
@@ -244,14 +272,13 @@ class PlayerQuests {
 	 * @return the name of the required item (no formatting)
 	 */
 	public String getRequiredItemName(final String name, final int index) {
-		if (!player.hasQuest(name)) {
+		final String slotName = QuestUtils.evaluateQuestSlotName(name);
+		final String state = player.getKeyedSlot("!quests", slotName);
+		if (state == null) {
 			logger.error(player.getName() + " does not have quest " + name);
 			return "";
 		}
-		String questSubString = getQuest(name, index);
-		final String[] elements = questSubString.split("=");
-		String questItem = elements[0];
-		return questItem;
+		return getParsedState(slotName, state).getItemName(index);
 	}
 
 	/**
@@ -264,18 +291,13 @@ class PlayerQuests {
 	 * @return required item quantity
 	 */
 	public int getRequiredItemQuantity(final String name, final int index) {
-		int amount = 1;
-		if (!player.hasQuest(name)) {
+		final String slotName = QuestUtils.evaluateQuestSlotName(name);
+		final String state = player.getKeyedSlot("!quests", slotName);
+		if (state == null) {
 			logger.error(player.getName() + " does not have quest " + name);
-			return amount;
-		}
-		String questSubString = getQuest(name, index);
-		final String[] elements = questSubString.split("=");
-		if(elements.length > 1) {
-			amount=MathHelper.parseIntDefault(elements[1], 1);
+			return 1;
 		}
-		return amount;
-
+		return getParsedState(slotName, state).getItemQuantity(index);
 	}
 
 	/**
@@ -288,12 +310,135 @@ class PlayerQuests {
 	 * @return the integer value in the index of the quest slot, used to represent a number of repetitions
 	 */
 	public int getNumberOfRepetitions(final String name, final int index) {
-		if (!player.hasQuest(name)) {
+		final String slotName = QuestUtils.evaluateQuestSlotName(name);
+		final String state = player.getKeyedSlot("!quests", slotName);
+		if (state == null) {
 			logger.error(player.getName() + " does not have quest " + name);
 			return 0;
 		}
-		String questState = player.getQuest(name, index);
-		return MathHelper.parseIntDefault(questState, 0);
+		return getParsedState(slotName, state).getNumber(index);
+	}
+
+	/**
+	 * A quest state split into its sub states. The sub states and the values
+	 * derived from them are only parsed when they are asked for.
+	 */
+	private static final class ParsedState {
+		/** the slot content this was parsed from */
+		private final String state;
+		private String[] elements;
+		private String[] itemNames;
+		private int[] itemQuantities;
+		private int[] numbers;
+
+		ParsedState(final String state) {
+			this.state = state;
+		}
+
+		/**
+		 * Gets the sub states. The array must not be modified.
+		 *
+		 * @return sub states, separated by ";" in the slot
+		 */
+		String[] getElements() {
+			if (elements == null) {
+				elements = state.split(";");
+			}
+			return elements;
+		}
+
+		/**
+		 * Gets a sub state, or the whole state for index -1.
+		 *
+		 * @param index index of the sub state
+		 * @return sub state, or an empty string if there is none at index
+		 */
+		String getElement(final int index) {
+			if (index == -1) {
+				return state;
+			}
+			final String[] parts = getElements();
+			if (index < parts.length) {
+				return parts[index];
+			}
+			return "";
+		}
+
+		/**
+		 * Gets the item name of a sub state of the form "item=quantity".
+		 *
+		 * @param index index of the sub state
+		 * @return item name
+		 */
+		String getItemName(final int index) {
+			final String[] parts = getElements();
+			if ((index < 0) || (index >= parts.length)) {
+				return itemName(getElement(index));
+			}
+			if (itemNames == null) {
+				itemNames = new String[parts.length];
+				for (int i = 0; i < parts.length; i++) {
+					itemNames[i] = itemName(parts[i]);
+				}
+			}
+			return itemNames[index];
+		}
+
+		/**
+		 * Gets the item quantity of a sub state of the form "item=quantity".
+		 *
+		 * @param index index of the sub state
+		 * @return quantity, 1 if there is none
+		 */
+		int getItemQuantity(final int index) {
+			final String[] parts = getElements();
+			if ((index < 0) || (index >= parts.length)) {
+				return itemQuantity(getElement(index));
+			}
+			if (itemQuantities == null) {
+				itemQuantities = new int[parts.length];
+				for (int i = 0; i < parts.length; i++) {
+					itemQuantities[i] = itemQuantity(parts[i]);
+				}
+			}
+			return itemQuantities[index];
+		}
+
+		/**
+		 * Gets a sub state as number.
+		 *
+		 * @param index index of the sub state
+		 * @return number, 0 if the sub state is not a number
+		 */
+		int getNumber(final int index) {
+			final String[] parts = getElements();
+			if ((index < 0) || (index >= parts.length)) {
+				return MathHelper.parseIntDefault(getElement(index), 0);
+			}
+			if (numbers == null) {
+				numbers = new int[parts.length];
+				for (int i = 0; i < parts.length; i++) {
+					numbers[i] = MathHelper.parseIntDefault(parts[i], 0);
+				}
+			}
+			return numbers[index];
+		}
+
+		private static String itemName(final String element) {
+			final int pos = element.indexOf('=');
+			if (pos < 0) {
+				return element;
+			}
+			return element.substring(0, pos);
+		}
+
+		private static int itemQuantity(final String element) {
+			final String[] parts = element.split("=");
+			if (parts.length > 1) {
+				return MathHelper.parseIntDefault(parts[1], 1);
+			}
+			return 1;
+		}
 	}
 
 }
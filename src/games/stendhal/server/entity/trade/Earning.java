@@ -98,6 +98,20 @@ public class Earning extends Entity implements Dateable {
 		return (getInt(REWARD_ATTRIBUTE) != 0);
 	}
 
+	/**
+	 * Keeps the market indexes up to date when the time stamp changes.
+	 */
+	@Override
+	public void put(final String attribute, final String value) {
+		super.put(attribute, value);
+		if (TIMESTAMP_ATTRIBUTE.equals(attribute)) {
+			final RPObject container = getContainer();
+			if (container instanceof Market) {
+				((Market) container).timestampChanged(this);
+			}
+		}
+	}
+
 	@Override
 	public long getTimestamp() {
 		long timeStamp = 0;
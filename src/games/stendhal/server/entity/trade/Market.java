@@ -13,9 +13,9 @@
 package games.stendhal.server.entity.trade;
 
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.SortedSet;
 
 import org.apache.log4j.Logger;
 
@@ -39,6 +39,10 @@ import marauroa.common.game.RPSlot;
  * permanently from the market after another period of time. When an offer has
  * been accepted, the offering Player can come and fetch his earnings for that
  * sale.
+ * <p>
+ * The offers and earnings are stored in slots. The market keeps in memory
+ * indexes of the slots for looking up the offers and earnings of a player,
+ * searching offers by item, and finding the oldest ones.
  *
  * @author madmetzger, kiheru
  */
@@ -73,6 +77,18 @@ public class Market extends PassiveEntity {
 		shop.addRPSlot(EXPIRED_OFFERS_SLOT_NAME, -1, Definition.HIDDEN);
 	}
 
+	/** Index of the offers slot. */
+	private final OfferIndex offers = new OfferIndex(this, OFFERS_SLOT_NAME);
+	/** Index of the expired offers slot. */
+	private final OfferIndex expiredOffers = new OfferIndex(this, EXPIRED_OFFERS_SLOT_NAME);
+	/** Index of the earnings slot. */
+	private final MarketIndex<Earning> earnings = new MarketIndex<Earning>(this, EARNINGS_SLOT_NAME) {
+		@Override
+		String getOwner(final Earning earning) {
+			return earning.getSeller();
+		}
+	};
+
 	/**
 	 * Creates a new Market from an RPObject
 	 *
@@ -200,6 +216,7 @@ public class Market extends PassiveEntity {
 		Offer offer = new Offer(item, money, offerer);
 		RPSlot slot = this.getSlot(OFFERS_SLOT_NAME);
 		slot.add(offer);
+		offers.add(offer);
 		getZone().storeToDatabase();
 
 		new ItemLogger().addLogItemEventCommand(new LogSimpleItemEventCommand(
@@ -220,7 +237,7 @@ public class Market extends PassiveEntity {
 	 * 	failure
 	 */
 	public boolean acceptOffer(final Offer offer, final Player acceptingPlayer) {
-		if (getSlot(OFFERS_SLOT_NAME).has(offer.getID()) && offer.hasItem()) {
+		if (offers.contains(offer) && offer.hasItem()) {
 			int price = offer.getPrice().intValue();
 			// Take the money; free items should always succeed
 			if ((price == 0) || acceptingPlayer.drop("money", price)) {
@@ -233,7 +250,9 @@ public class Market extends PassiveEntity {
 				final Earning earning = new Earning(offer.getPrice(),
 						offer.getOfferer(), reward);
 				this.getSlot(EARNINGS_SLOT_NAME).add(earning);
+				earnings.add(earning);
 				this.getSlot(OFFERS_SLOT_NAME).remove(offer.getID());
+				offers.remove(offer);
 				if (reward) {
 					applyTradingBonus(acceptingPlayer);
 				}
@@ -278,13 +297,7 @@ public class Market extends PassiveEntity {
 	 * @return the fetched earnings
 	 */
 	public Set<Earning> fetchEarnings(final Player earner) {
-		Set<Earning> earningsToRemove = new HashSet<Earning>();
-		for (RPObject earningRPObject : this.getSlot(EARNINGS_SLOT_NAME)) {
-			Earning earning = (Earning) earningRPObject;
-			if (earning.getSeller().equals(earner.getName())) {
-				earningsToRemove.add(earning);
-			}
-		}
+		Set<Earning> earningsToRemove = new HashSet<Earning>(earnings.getOfOwner(earner.getName()));
 
 		if(!earningsToRemove.isEmpty()) {
 			int summedUpEarnings = 0;
@@ -321,6 +334,7 @@ public class Market extends PassiveEntity {
 	public void removeEarnings(Iterable<Earning> earningsToRemove) {
 		for (Earning earning : earningsToRemove) {
 			this.getSlot(EARNINGS_SLOT_NAME).remove(earning.getID());
+			earnings.remove(earning);
 		}
 		this.getZone().storeToDatabase();
 	}
@@ -332,14 +346,7 @@ public class Market extends PassiveEntity {
 	 * @return the number of offers
 	 */
 	public int countOffersOfPlayer(Player offerer) {
-		int count = 0;
-		for (RPObject object : this.getSlot(OFFERS_SLOT_NAME)) {
-			Offer offer = (Offer) object;
-			if (offer.getOfferer().equals(offerer.getName())) {
-				count = count + 1;
-			}
-		}
-		return count;
+		return offers.countOfOwner(offerer.getName());
 	}
 
 	/**
@@ -357,10 +364,13 @@ public class Market extends PassiveEntity {
 		o.getSlot(Offer.OFFER_ITEM_SLOT_NAME).remove(item.getID());
 		p.equipOrPutOnGround(item);
 
-		getSlot(OFFERS_SLOT_NAME).remove(o.getID());
-
-		getExpiredOffers().remove(o);
-		getSlot(EXPIRED_OFFERS_SLOT_NAME).remove(o.getID());
+		// the offer is either active or expired; the index of the other slot
+		// would be created again, if it was told about a removal
+		if (getSlot(OFFERS_SLOT_NAME).remove(o.getID()) != null) {
+			offers.remove(o);
+		} else if (getSlot(EXPIRED_OFFERS_SLOT_NAME).remove(o.getID()) != null) {
+			expiredOffers.remove(o);
+		}
 
 		getZone().storeToDatabase();
 
@@ -385,7 +395,9 @@ public class Market extends PassiveEntity {
 	 */
 	public void expireOffer(Offer o) {
 		this.getSlot(OFFERS_SLOT_NAME).remove(o.getID());
+		offers.remove(o);
 		this.getSlot(EXPIRED_OFFERS_SLOT_NAME).add(o);
+		expiredOffers.add(o);
 		this.getZone().storeToDatabase();
 		String itemname = "null";
 		if (o.hasItem()) {
@@ -398,11 +410,7 @@ public class Market extends PassiveEntity {
 	 * @return all currently expired offers in the market
 	 */
 	public List<Offer> getExpiredOffers() {
-		List<Offer> expiredOffers = new LinkedList<Offer>();
-		for(RPObject o : getSlot(EXPIRED_OFFERS_SLOT_NAME)) {
-			expiredOffers.add((Offer) o);
-		}
-		return expiredOffers;
+		return expiredOffers.getAll();
 	}
 
 	/**
@@ -411,7 +419,9 @@ public class Market extends PassiveEntity {
 	 * @param offerToRemove
 	 */
 	public void removeExpiredOffer(Offer offerToRemove) {
-		this.getSlot(EXPIRED_OFFERS_SLOT_NAME).remove(offerToRemove.getID());
+		if (this.getSlot(EXPIRED_OFFERS_SLOT_NAME).remove(offerToRemove.getID()) != null) {
+			expiredOffers.remove(offerToRemove);
+		}
 
 		Item item = offerToRemove.getItem();
 		if (item != null) {
@@ -431,12 +441,14 @@ public class Market extends PassiveEntity {
 	 */
 	public Offer prolongOffer(Offer offer) {
 		offer.updateTimestamp();
-		if (getSlot(EXPIRED_OFFERS_SLOT_NAME).has(offer.getID())) {
+		if (expiredOffers.contains(offer)) {
 			// It had expired. Move to active offers slot.
 			this.getSlot(EXPIRED_OFFERS_SLOT_NAME).remove(offer.getID());
+			expiredOffers.remove(offer);
 			RPSlot slot = this.getSlot(OFFERS_SLOT_NAME);
 			slot.add(offer);
-		} else if (!getSlot(OFFERS_SLOT_NAME).has(offer.getID())) {
+			offers.add(offer);
+		} else if (!offers.contains(offer)) {
 			// Such an offer does not exist anymore
 			return null;
 		}
@@ -453,11 +465,7 @@ public class Market extends PassiveEntity {
 	 * @return list of offers that are older than the specified time
 	 */
 	public List<Offer> getOffersOlderThan(int seconds) {
-		List<Offer> offers = new LinkedList<Offer>();
-		for (RPObject o : getSlot(OFFERS_SLOT_NAME)) {
-			offers.add((Offer) o);
-		}
-		return getOlderThan(offers, seconds);
+		return offers.getOlderThan(seconds);
 	}
 
 	/**
@@ -468,7 +476,7 @@ public class Market extends PassiveEntity {
 	 * @return list of expired offers that are older than the specified time
 	 */
 	public List<Offer> getExpiredOffersOlderThan(int seconds) {
-		return getOlderThan(getExpiredOffers(), seconds);
+		return expiredOffers.getOlderThan(seconds);
 	}
 
 	/**
@@ -479,35 +487,7 @@ public class Market extends PassiveEntity {
 	 * @return list of earnings that are older than the specified time
 	 */
 	public List<Earning> getEarningsOlderThan(int seconds) {
-		RPSlot slot = this.getSlot(EARNINGS_SLOT_NAME);
-		List<Earning> earnings = new LinkedList<Earning>();
-		for (RPObject o : slot) {
-			earnings.add((Earning) o);
-		}
-		return getOlderThan(earnings, seconds);
-	}
-
-	/**
-	 * retrieves Dateable objects older than seconds from a given Iterable
-	 *
-	 * @param <T>
-	 * @param set
-	 *            the set to search in
-	 * @param seconds
-	 *            the maximum age
-	 * @return the filtered list
-	 */
-	private <T extends Dateable> List<T> getOlderThan(Iterable<T> set,
-			int seconds) {
-		List<T> old = new LinkedList<T>();
-		for (T obj : set) {
-			if (System.currentTimeMillis() > obj.getTimestamp() + 1000L
-					* seconds) {
-				old.add(obj);
-			}
-		}
-
-		return old;
+		return earnings.getOlderThan(seconds);
 	}
 
 	/**
@@ -530,7 +510,23 @@ public class Market extends PassiveEntity {
 	 * @return true iff the Offer o is in this market's offers
 	 */
 	public boolean contains(Offer o) {
-		return getSlot(OFFERS_SLOT_NAME).has(o.getID());
+		return offers.contains(o);
+	}
+
+	/**
+	 * @param o
+	 * @return true iff the Offer o is in this market's expired offers
+	 */
+	public boolean containsExpired(Offer o) {
+		return expiredOffers.contains(o);
+	}
+
+	/**
+	 * @return the number of times the index of the offers was created again,
+	 * 	because the offers slot had been changed directly
+	 */
+	int getOfferIndexRebuilds() {
+		return offers.getRebuilds();
 	}
 
 	/**
@@ -538,12 +534,74 @@ public class Market extends PassiveEntity {
 	 * @return true iff there are earnings for this player in the market
 	 */
 	public boolean hasEarningsFor(Player player) {
-		for(RPObject o : this.getSlot(EARNINGS_SLOT_NAME)) {
-			Earning e = (Earning) o;
-			if(e.getSeller().equals(player.getName())) {
-				return true;
-			}
-		}
-		return false;
+		return earnings.countOfOwner(player.getName()) > 0;
+	}
+
+	/**
+	 * @return all current offers in the market, in the order they were
+	 * 	placed or prolonged
+	 */
+	public List<Offer> getOffers() {
+		return offers.getAll();
+	}
+
+	/**
+	 * Get the current offers of a player.
+	 *
+	 * @param offerer name of the offering player
+	 * @return offers of the player
+	 */
+	public List<Offer> getOffersOf(String offerer) {
+		return offers.getOfOwner(offerer);
+	}
+
+	/**
+	 * Get the expired offers of a player.
+	 *
+	 * @param offerer name of the offering player
+	 * @return expired offers of the player
+	 */
+	public List<Offer> getExpiredOffersOf(String offerer) {
+		return expiredOffers.getOfOwner(offerer);
+	}
+
+	/**
+	 * Search the current offers for a word.
+	 *
+	 * @param word word to look for in the item names. An item class matches
+	 * 	only as a whole word
+	 * @return matching offers, in the order they were placed or prolonged
+	 */
+	public List<Offer> findOffers(String word) {
+		return offers.find(word);
+	}
+
+	/**
+	 * Get the current offers of an item.
+	 *
+	 * @param itemName name of the item
+	 * @return offers of the item, cheapest first
+	 */
+	public List<Offer> getOffersByPrice(String itemName) {
+		return offers.getByPrice(itemName);
+	}
+
+	/**
+	 * @return names of the items that are currently offered, in alphabetical
+	 * 	order
+	 */
+	public SortedSet<String> getOfferedItemNames() {
+		return offers.getItemNames();
+	}
+
+	/**
+	 * Called when the time stamp of an offer or earning changes.
+	 *
+	 * @param object changed offer or earning
+	 */
+	void timestampChanged(RPObject object) {
+		offers.updateTimestamp(object);
+		expiredOffers.updateTimestamp(object);
+		earnings.updateTimestamp(object);
 	}
 }
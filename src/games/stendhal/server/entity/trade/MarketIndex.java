@@ -0,0 +1,368 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.entity.trade;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import marauroa.common.game.RPObject;
+import marauroa.common.game.RPSlot;
+
+/**
+ * In memory index of the contents of a market slot. The slot remains the
+ * persisted data; the index is kept up to date by the market, and provides
+ * the objects of an owner, and the objects ordered by their time stamp, so
+ * that the market does not need to scan the whole slot.
+ * <p>
+ * Changes of the slot that bypass the market are noticed by the changed size
+ * of the slot, and the index is then created again.
+ *
+ * @param <T> type of the indexed objects
+ */
+abstract class MarketIndex<T extends RPObject & Dateable> {
+	/** Order in which the objects were added to the slot. */
+	static final Comparator<Entry<?>> SLOT_ORDER = new Comparator<Entry<?>>() {
+		@Override
+		public int compare(final Entry<?> e1, final Entry<?> e2) {
+			return Long.compare(e1.sequence, e2.sequence);
+		}
+	};
+
+	/** Order of the time stamps, and the slot order for equal time stamps. */
+	private static final Comparator<Entry<?>> TIME_ORDER = new Comparator<Entry<?>>() {
+		@Override
+		public int compare(final Entry<?> e1, final Entry<?> e2) {
+			final int result = Long.compare(e1.timestamp, e2.timestamp);
+			if (result != 0) {
+				return result;
+			}
+			return Long.compare(e1.sequence, e2.sequence);
+		}
+	};
+
+	private final Market market;
+	private final String slotName;
+
+	/** Indexed objects by their ID in the slot. */
+	private final Map<RPObject.ID, Entry<T>> entries = new HashMap<RPObject.ID, Entry<T>>();
+	/** Indexed objects by their owner. */
+	private final Map<String, TreeSet<Entry<T>>> byOwner = new HashMap<String, TreeSet<Entry<T>>>();
+	/** Indexed objects, oldest first. */
+	private final TreeSet<Entry<T>> queue = new TreeSet<Entry<T>>(TIME_ORDER);
+
+	/** Sequence number for the next added object. */
+	private long sequence;
+
+	/** Number of times the index was created again. */
+	private int rebuilds;
+
+	/**
+	 * Create a new MarketIndex.
+	 *
+	 * @param market market containing the slot
+	 * @param slotName name of the indexed slot
+	 */
+	MarketIndex(final Market market, final String slotName) {
+		this.market = market;
+		this.slotName = slotName;
+	}
+
+	/**
+	 * Get the name of the player owning an object.
+	 *
+	 * @param object indexed object
+	 * @return owner name
+	 */
+	abstract String getOwner(T object);
+
+	/**
+	 * Called when an object has been added to the index.
+	 *
+	 * @param entry entry of the object
+	 */
+	void indexed(final Entry<T> entry) {
+		// no additional indexes by default
+	}
+
+	/**
+	 * Called when an object has been removed from the index.
+	 *
+	 * @param entry entry of the object
+	 */
+	void unindexed(final Entry<T> entry) {
+		// no additional indexes by default
+	}
+
+	/**
+	 * Called when the index is cleared before creating it again.
+	 */
+	void cleared() {
+		// no additional indexes by default
+	}
+
+	/**
+	 * Add an object that has been added to the end of the slot.
+	 *
+	 * @param object added object
+	 */
+	void add(final T object) {
+		if (validate(1)) {
+			index(object);
+		}
+	}
+
+	/**
+	 * Remove an object that has been removed from the slot.
+	 *
+	 * @param object removed object
+	 */
+	void remove(final T object) {
+		if (validate(-1)) {
+			final Entry<T> entry = entries.get(object.getID());
+			if ((entry != null) && (entry.object == object)) {
+				unindex(entry);
+			}
+		}
+	}
+
+	/**
+	 * Update the time stamp of an object, if it is indexed.
+	 *
+	 * @param object object whose time stamp changed
+	 */
+	void updateTimestamp(final RPObject object) {
+		final Entry<T> entry = entries.get(object.getID());
+		if ((entry != null) && (entry.object == object)) {
+			queue.remove(entry);
+			entry.timestamp = entry.object.getTimestamp();
+			queue.add(entry);
+		}
+	}
+
+	/**
+	 * Check if an object is in the slot.
+	 *
+	 * @param object object to look for
+	 * @return <code>true</code> if the object is in the slot
+	 */
+	boolean contains(final RPObject object) {
+		validate();
+		final Entry<T> entry = entries.get(object.getID());
+		return (entry != null) && (entry.object == object);
+	}
+
+	/**
+	 * Get all objects in the slot order.
+	 *
+	 * @return objects
+	 */
+	List<T> getAll() {
+		validate();
+		final TreeSet<Entry<T>> all = new TreeSet<Entry<T>>(SLOT_ORDER);
+		all.addAll(entries.values());
+		return toList(all);
+	}
+
+	/**
+	 * Get the objects of an owner.
+	 *
+	 * @param owner owner name
+	 * @return objects of the owner in the slot order
+	 */
+	List<T> getOfOwner(final String owner) {
+		validate();
+		return toList(byOwner.get(owner));
+	}
+
+	/**
+	 * Count the objects of an owner.
+	 *
+	 * @param owner owner name
+	 * @return number of objects
+	 */
+	int countOfOwner(final String owner) {
+		validate();
+		final TreeSet<Entry<T>> owned = byOwner.get(owner);
+		if (owned == null) {
+			return 0;
+		}
+		return owned.size();
+	}
+
+	/**
+	 * Get the objects whose time stamp is older than specified.
+	 *
+	 * @param seconds age of the objects in seconds
+	 * @return objects, oldest first
+	 */
+	List<T> getOlderThan(final int seconds) {
+		validate();
+		final long limit = System.currentTimeMillis() - 1000L * seconds;
+		final List<T> old = new ArrayList<T>();
+		for (final Entry<T> entry : queue) {
+			if (entry.timestamp >= limit) {
+				break;
+			}
+			old.add(entry.object);
+		}
+		return old;
+	}
+
+	/**
+	 * Get the objects of entries.
+	 *
+	 * @param indexed entries, or <code>null</code>
+	 * @return objects in the order of the entries
+	 */
+	static <T extends RPObject & Dateable> List<T> toList(final Collection<Entry<T>> indexed) {
+		final List<T> objects = new ArrayList<T>();
+		if (indexed != null) {
+			for (final Entry<T> entry : indexed) {
+				objects.add(entry.object);
+			}
+		}
+		return objects;
+	}
+
+	/**
+	 * Add an entry to a set in a map, creating the set if needed.
+	 *
+	 * @param map map of sets
+	 * @param key key of the set
+	 * @param entry added entry
+	 * @param order order of newly created sets
+	 */
+	static <K, T extends RPObject & Dateable> void addTo(final Map<K, TreeSet<Entry<T>>> map, final K key,
+			final Entry<T> entry, final Comparator<? super Entry<T>> order) {
+		TreeSet<Entry<T>> set = map.get(key);
+		if (set == null) {
+			set = new TreeSet<Entry<T>>(order);
+			map.put(key, set);
+		}
+		set.add(entry);
+	}
+
+	/**
+	 * Remove an entry from a set in a map, removing the set if it becomes
+	 * empty.
+	 *
+	 * @param map map of sets
+	 * @param key key of the set
+	 * @param entry removed entry
+	 */
+	static <K, T extends RPObject & Dateable> void removeFrom(final Map<K, TreeSet<Entry<T>>> map, final K key,
+			final Entry<T> entry) {
+		final TreeSet<Entry<T>> set = map.get(key);
+		if (set != null) {
+			set.remove(entry);
+			if (set.isEmpty()) {
+				map.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Make sure that the index matches the slot, creating it again if the
+	 * slot was changed directly.
+	 */
+	void validate() {
+		validate(0);
+	}
+
+	/**
+	 * Make sure that the index matches the slot, creating it again if the
+	 * slot was changed directly.
+	 *
+	 * @param change change of the slot size that is not yet in the index
+	 * @return <code>true</code> if the index was up to date apart from the
+	 * 	expected change, <code>false</code> if it was created again
+	 */
+	private boolean validate(final int change) {
+		final RPSlot slot = market.getSlot(slotName);
+		if (slot.size() == entries.size() + change) {
+			return true;
+		}
+
+		rebuilds++;
+		entries.clear();
+		byOwner.clear();
+		queue.clear();
+		cleared();
+		final Iterator<RPObject> it = slot.iterator();
+		while (it.hasNext()) {
+			@SuppressWarnings("unchecked")
+			final T object = (T) it.next();
+			index(object);
+		}
+		return false;
+	}
+
+	/**
+	 * Get the number of times the index was created again, because the slot
+	 * had been changed directly.
+	 *
+	 * @return number of rebuilds
+	 */
+	int getRebuilds() {
+		return rebuilds;
+	}
+
+	private void index(final T object) {
+		final Entry<T> entry = new Entry<T>(object, sequence++, getOwner(object));
+		final Entry<T> old = entries.put(object.getID(), entry);
+		if (old != null) {
+			// Should not happen, but do not leave the old one in the other indexes
+			unindexOthers(old);
+		}
+		addTo(byOwner, entry.owner, entry, SLOT_ORDER);
+		queue.add(entry);
+		indexed(entry);
+	}
+
+	private void unindex(final Entry<T> entry) {
+		entries.remove(entry.object.getID());
+		unindexOthers(entry);
+	}
+
+	private void unindexOthers(final Entry<T> entry) {
+		removeFrom(byOwner, entry.owner, entry);
+		queue.remove(entry);
+		unindexed(entry);
+	}
+
+	/**
+	 * An indexed object, with the values it is indexed by.
+	 *
+	 * @param <T> type of the object
+	 */
+	static final class Entry<T> {
+		final T object;
+		/** Position in the slot order. */
+		final long sequence;
+		final String owner;
+		/** Time stamp in the expiry queue. */
+		long timestamp;
+
+		Entry(final T object, final long sequence, final String owner) {
+			this.object = object;
+			this.sequence = sequence;
+			this.owner = owner;
+			this.timestamp = ((Dateable) object).getTimestamp();
+		}
+	}
+}
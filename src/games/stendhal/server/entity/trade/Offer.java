@@ -156,6 +156,20 @@ public class Offer extends Entity implements Dateable {
 		return get(OFFERER_ATTRIBUTE_NAME);
 	}
 
+	/**
+	 * Keeps the market indexes up to date when the time stamp changes.
+	 */
+	@Override
+	public void put(final String attribute, final String value) {
+		super.put(attribute, value);
+		if (TIMESTAMP.equals(attribute)) {
+			final RPObject container = getContainer();
+			if (container instanceof Market) {
+				((Market) container).timestampChanged(this);
+			}
+		}
+	}
+
 	/**
 	 * Get the creation or renewal time of the offer.
 	 *
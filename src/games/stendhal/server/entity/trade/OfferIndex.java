@@ -0,0 +1,135 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.entity.trade;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import games.stendhal.server.entity.item.Item;
+
+/**
+ * Index of a slot of offers. In addition to the offerers and the time
+ * stamps, the offers are indexed by the name of the offered item, cheapest
+ * first, and by the item class.
+ */
+class OfferIndex extends MarketIndex<Offer> {
+	/** Cheapest offers first, and in the slot order for equal prices. */
+	private static final Comparator<Entry<Offer>> PRICE_ORDER = new Comparator<Entry<Offer>>() {
+		@Override
+		public int compare(final Entry<Offer> e1, final Entry<Offer> e2) {
+			final int result = Integer.compare(e1.object.getPrice(), e2.object.getPrice());
+			if (result != 0) {
+				return result;
+			}
+			return Long.compare(e1.sequence, e2.sequence);
+		}
+	};
+
+	/** Offers by the item name, in alphabetical order of the names. */
+	private final TreeMap<String, TreeSet<Entry<Offer>>> byItemName = new TreeMap<String, TreeSet<Entry<Offer>>>();
+	/** Offers by the item class. */
+	private final Map<String, TreeSet<Entry<Offer>>> byItemClass = new HashMap<String, TreeSet<Entry<Offer>>>();
+	/**
+	 * Items of the indexed offers. The item is removed from an accepted
+	 * offer before the offer is removed from the slot.
+	 */
+	private final Map<Entry<Offer>, Item> items = new HashMap<Entry<Offer>, Item>();
+
+	/**
+	 * Create a new OfferIndex.
+	 *
+	 * @param market market containing the slot
+	 * @param slotName name of the indexed slot
+	 */
+	OfferIndex(final Market market, final String slotName) {
+		super(market, slotName);
+	}
+
+	@Override
+	String getOwner(final Offer offer) {
+		return offer.getOfferer();
+	}
+
+	@Override
+	void indexed(final Entry<Offer> entry) {
+		final Item item = entry.object.getItem();
+		if (item != null) {
+			items.put(entry, item);
+			addTo(byItemName, item.getName(), entry, PRICE_ORDER);
+			addTo(byItemClass, item.getItemClass(), entry, SLOT_ORDER);
+		}
+	}
+
+	@Override
+	void unindexed(final Entry<Offer> entry) {
+		final Item item = items.remove(entry);
+		if (item != null) {
+			removeFrom(byItemName, item.getName(), entry);
+			removeFrom(byItemClass, item.getItemClass(), entry);
+		}
+	}
+
+	@Override
+	void cleared() {
+		byItemName.clear();
+		byItemClass.clear();
+		items.clear();
+	}
+
+	/**
+	 * Get the names of the offered items.
+	 *
+	 * @return item names in alphabetical order
+	 */
+	SortedSet<String> getItemNames() {
+		validate();
+		return new TreeSet<String>(byItemName.keySet());
+	}
+
+	/**
+	 * Get the offers for an item.
+	 *
+	 * @param itemName name of the item
+	 * @return offers, cheapest first
+	 */
+	List<Offer> getByPrice(final String itemName) {
+		validate();
+		return toList(byItemName.get(itemName));
+	}
+
+	/**
+	 * Find the offers whose item name contains a word, or whose item class is
+	 * the word.
+	 *
+	 * @param word searched word
+	 * @return matching offers in the slot order
+	 */
+	List<Offer> find(final String word) {
+		validate();
+		final TreeSet<Entry<Offer>> found = new TreeSet<Entry<Offer>>(SLOT_ORDER);
+		for (final Map.Entry<String, TreeSet<Entry<Offer>>> offers : byItemName.entrySet()) {
+			if (offers.getKey().contains(word)) {
+				found.addAll(offers.getValue());
+			}
+		}
+		final TreeSet<Entry<Offer>> ofClass = byItemClass.get(word);
+		if (ofClass != null) {
+			found.addAll(ofClass);
+		}
+		return toList(found);
+	}
+}
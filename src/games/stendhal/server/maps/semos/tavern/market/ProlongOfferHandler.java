@@ -190,7 +190,7 @@ public class ProlongOfferHandler extends OfferHandler {
 			Market market = TradeCenterZoneConfigurator.getShopFromZone(player.getZone());
 
 			if ((market.countOffersOfPlayer(player) == TradingUtility.MAX_NUMBER_OFF_OFFERS)
-					&& market.getExpiredOffers().contains(offer)) {
+					&& market.containsExpired(offer)) {
 				return true;
 			}
 
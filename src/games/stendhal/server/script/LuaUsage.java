@@ -0,0 +1,68 @@
+/***************************************************************************
+ *                       Copyright © 2024 - Stendhal                       *
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.script;
+
+import java.util.List;
+import java.util.Locale;
+
+import games.stendhal.common.NotificationType;
+import games.stendhal.server.core.scripting.ScriptImpl;
+import games.stendhal.server.core.scripting.lua.LuaStatistics;
+import games.stendhal.server.entity.player.Player;
+
+/**
+ * Lists the Lua scripts by the time spent executing them.
+ *
+ * Usage:
+ *   /script LuaUsage.class [count]
+ *   /script LuaUsage.class reset
+ */
+public class LuaUsage extends ScriptImpl {
+
+	private static final int DEFAULT_COUNT = 20;
+
+	@Override
+	public void execute(final Player admin, final List<String> args) {
+		final LuaStatistics statistics = LuaStatistics.get();
+		int count = DEFAULT_COUNT;
+		if (args.size() > 0) {
+			if ("reset".equals(args.get(0))) {
+				statistics.reset();
+				admin.sendPrivateText("Lua usage statistics have been reset.");
+				return;
+			}
+			try {
+				count = Integer.parseInt(args.get(0));
+			} catch (final NumberFormatException e) {
+				count = 0;
+			}
+			if (count < 1) {
+				admin.sendPrivateText(NotificationType.ERROR, "Usage: /script LuaUsage.class [count|reset]");
+				return;
+			}
+		}
+
+		final List<LuaStatistics.Usage> usages = statistics.getUsages();
+		if (usages.isEmpty()) {
+			admin.sendPrivateText("No Lua usage recorded.");
+			return;
+		}
+
+		final StringBuilder sb = new StringBuilder();
+		sb.append(statistics.isCpuTime() ? "Lua CPU time" : "Lua time");
+		sb.append(" (ms, calls, script):");
+		for (final LuaStatistics.Usage usage: usages.subList(0, Math.min(count, usages.size()))) {
+			sb.append(String.format(Locale.ENGLISH, "\n%10.2f %8d  %s", usage.getNanos() / 1000000.0,
+					usage.getCalls(), usage.getScript()));
+		}
+		admin.sendPrivateText(sb.toString());
+	}
+}
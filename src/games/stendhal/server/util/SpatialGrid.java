@@ -0,0 +1,324 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.util;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A uniform grid of buckets for looking up objects by their rectangular
+ * tile area.
+ *
+ * Every object is stored in each cell its area overlaps, so a lookup only
+ * has to look at the objects near the queried area instead of at every
+ * object. Objects spanning several cells are reported only once per query.
+ *
+ * Note: This class is optimized for performance. The grid itself does not
+ *       allocate during queries, and moving an object only touches the
+ *       buckets if it crosses a cell border.
+ *
+ * @param <T> type of indexed objects
+ */
+public class SpatialGrid<T> {
+	/** Default edge length of a cell in tiles. */
+	public static final int DEFAULT_CELL_SIZE = 8;
+
+	private final int cellSize;
+
+	private int columns;
+
+	private int rows;
+
+	private ArrayList<T>[] cells;
+
+	/** Indexed objects and the cell ranges they are stored in. */
+	private final Map<T, CellRange> entries = new IdentityHashMap<T, CellRange>();
+
+	/**
+	 * Creates a new SpatialGrid with the default cell size.
+	 */
+	public SpatialGrid() {
+		this(DEFAULT_CELL_SIZE);
+	}
+
+	/**
+	 * Creates a new SpatialGrid.
+	 *
+	 * @param cellSize edge length of a cell in tiles
+	 */
+	public SpatialGrid(final int cellSize) {
+		if (cellSize < 1) {
+			throw new IllegalArgumentException("Invalid cell size: " + cellSize);
+		}
+		this.cellSize = cellSize;
+		allocate(1, 1);
+	}
+
+	/**
+	 * Adds an object, or updates its area if it is already indexed.
+	 *
+	 * @param object object to index
+	 * @param x left edge of the area
+	 * @param y top edge of the area
+	 * @param width width of the area
+	 * @param height height of the area
+	 */
+	public void put(final T object, final double x, final double y, final double width, final double height) {
+		final int minCol = toCell(x);
+		final int minRow = toCell(y);
+		final int maxCol = Math.max(minCol, toCell(Math.ceil(x + width) - 1));
+		final int maxRow = Math.max(minRow, toCell(Math.ceil(y + height) - 1));
+
+		CellRange range = entries.get(object);
+		if (range != null) {
+			if (range.matches(minCol, minRow, maxCol, maxRow)) {
+				return;
+			}
+			unlink(object, range);
+			range.unset();
+		} else {
+			range = new CellRange();
+			entries.put(object, range);
+		}
+
+		ensureCapacity(maxCol + 1, maxRow + 1);
+		range.set(minCol, minRow, maxCol, maxRow);
+		link(object, range);
+	}
+
+	/**
+	 * Removes an object from the grid.
+	 *
+	 * @param object object to remove
+	 * @return <code>true</code> if the object was indexed
+	 */
+	public boolean remove(final T object) {
+		final CellRange range = entries.remove(object);
+		if (range == null) {
+			return false;
+		}
+		unlink(object, range);
+		return true;
+	}
+
+	/**
+	 * Checks if an object is indexed.
+	 *
+	 * @param object object to check
+	 * @return <code>true</code> if the object is in the grid
+	 */
+	public boolean contains(final T object) {
+		return entries.containsKey(object);
+	}
+
+	/**
+	 * Gets the number of indexed objects.
+	 *
+	 * @return number of objects
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Removes all objects.
+	 */
+	public void clear() {
+		entries.clear();
+		allocate(1, 1);
+	}
+
+	/**
+	 * Searches the objects whose cells overlap an area. The filter is
+	 * called for candidates only; it is responsible for checking their
+	 * exact area. Each object is passed to the filter at most once.
+	 *
+	 * @param x left edge of the area
+	 * @param y top edge of the area
+	 * @param width width of the area
+	 * @param height height of the area
+	 * @param filter callback that returns <code>true</code> for the
+	 * 	object to search for
+	 * @return the first object accepted by the filter, or <code>null</code>
+	 */
+	public T find(final double x, final double y, final double width, final double height,
+			final Predicate<? super T> filter) {
+		final int minCol = toCell(x);
+		final int minRow = toCell(y);
+		if (minCol >= columns || minRow >= rows) {
+			return null;
+		}
+		final int maxCol = Math.min(columns - 1, Math.max(minCol, toCell(Math.ceil(x + width) - 1)));
+		final int maxRow = Math.min(rows - 1, Math.max(minRow, toCell(Math.ceil(y + height) - 1)));
+
+		for (int row = minRow; row <= maxRow; row++) {
+			for (int col = minCol; col <= maxCol; col++) {
+				final ArrayList<T> cell = cells[row * columns + col];
+				if (cell == null) {
+					continue;
+				}
+				for (int i = 0; i < cell.size(); i++) {
+					final T object = cell.get(i);
+					final CellRange range = entries.get(object);
+					// Report objects spanning several cells only in the first
+					// cell shared by the object and the queried area
+					if ((Math.max(range.minCol, minCol) == col)
+							&& (Math.max(range.minRow, minRow) == row)
+							&& filter.test(object)) {
+						return object;
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Searches the object with the smallest distance among the objects whose
+	 * cells overlap an area. The filter is called for candidates only; it is
+	 * responsible for checking their exact area or distance. Each object is
+	 * passed to the filter at most once.
+	 *
+	 * @param x left edge of the area
+	 * @param y top edge of the area
+	 * @param width width of the area
+	 * @param height height of the area
+	 * @param distance callback that calculates the distance of an object,
+	 * 	in any measure that grows with the distance
+	 * @param filter callback that returns <code>true</code> for acceptable
+	 * 	objects
+	 * @return the accepted object with the smallest distance, or
+	 * 	<code>null</code>
+	 */
+	public T findNearest(final double x, final double y, final double width, final double height,
+			final ToDoubleFunction<? super T> distance, final Predicate<? super T> filter) {
+		final int minCol = toCell(x);
+		final int minRow = toCell(y);
+		if (minCol >= columns || minRow >= rows) {
+			return null;
+		}
+		final int maxCol = Math.min(columns - 1, Math.max(minCol, toCell(Math.ceil(x + width) - 1)));
+		final int maxRow = Math.min(rows - 1, Math.max(minRow, toCell(Math.ceil(y + height) - 1)));
+
+		T nearest = null;
+		double nearestDistance = Double.MAX_VALUE;
+		for (int row = minRow; row <= maxRow; row++) {
+			for (int col = minCol; col <= maxCol; col++) {
+				final ArrayList<T> cell = cells[row * columns + col];
+				if (cell == null) {
+					continue;
+				}
+				for (int i = 0; i < cell.size(); i++) {
+					final T object = cell.get(i);
+					final CellRange range = entries.get(object);
+					if ((Math.max(range.minCol, minCol) == col)
+							&& (Math.max(range.minRow, minRow) == row)) {
+						final double d = distance.applyAsDouble(object);
+						if ((d < nearestDistance) && filter.test(object)) {
+							nearest = object;
+							nearestDistance = d;
+						}
+					}
+				}
+			}
+		}
+		return nearest;
+	}
+
+	private int toCell(final double coordinate) {
+		if (coordinate <= 0) {
+			return 0;
+		}
+		return (int) (coordinate / cellSize);
+	}
+
+	private void link(final T object, final CellRange range) {
+		for (int row = range.minRow; row <= range.maxRow; row++) {
+			for (int col = range.minCol; col <= range.maxCol; col++) {
+				final int index = row * columns + col;
+				ArrayList<T> cell = cells[index];
+				if (cell == null) {
+					cell = new ArrayList<T>(4);
+					cells[index] = cell;
+				}
+				cell.add(object);
+			}
+		}
+	}
+
+	private void unlink(final T object, final CellRange range) {
+		for (int row = range.minRow; row <= range.maxRow; row++) {
+			for (int col = range.minCol; col <= range.maxCol; col++) {
+				final ArrayList<T> cell = cells[row * columns + col];
+				// identity based removal, the objects may override equals()
+				for (int i = cell.size() - 1; i >= 0; i--) {
+					if (cell.get(i) == object) {
+						cell.remove(i);
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	private void ensureCapacity(final int neededColumns, final int neededRows) {
+		if ((neededColumns <= columns) && (neededRows <= rows)) {
+			return;
+		}
+		allocate(Math.max(neededColumns, columns * 2), Math.max(neededRows, rows * 2));
+		for (final Map.Entry<T, CellRange> entry : entries.entrySet()) {
+			if (entry.getValue().isSet()) {
+				link(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void allocate(final int newColumns, final int newRows) {
+		columns = newColumns;
+		rows = newRows;
+		cells = new ArrayList[columns * rows];
+	}
+
+	/**
+	 * The inclusive range of cells an object is stored in.
+	 */
+	private static final class CellRange {
+		private int minCol = -1;
+		private int minRow;
+		private int maxCol;
+		private int maxRow;
+
+		void unset() {
+			minCol = -1;
+		}
+
+		boolean isSet() {
+			return minCol >= 0;
+		}
+
+		boolean matches(final int minCol, final int minRow, final int maxCol, final int maxRow) {
+			return (this.minCol == minCol) && (this.minRow == minRow)
+					&& (this.maxCol == maxCol) && (this.maxRow == maxRow);
+		}
+
+		void set(final int minCol, final int minRow, final int maxCol, final int maxRow) {
+			this.minCol = minCol;
+			this.minRow = minRow;
+			this.maxCol = maxCol;
+			this.maxRow = maxRow;
+		}
+	}
+}
@@ -0,0 +1,161 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import games.stendhal.common.CRC;
+import marauroa.common.net.InputSerializer;
+import marauroa.common.net.OutputSerializer;
+import marauroa.common.net.message.TransferContent;
+
+/**
+ * Tests for the content cache.
+ */
+public class CacheTest {
+	private static final byte[] DATA = { 1, 2, 3, 4, 5, 6, 7, 8 };
+
+	/** Cache folder */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private String cacheFolder;
+
+	/**
+	 * Set the cache folder.
+	 */
+	@Before
+	public void setUp() {
+		cacheFolder = folder.getRoot().getPath() + File.separator;
+	}
+
+	/**
+	 * Create a content offer like the server sends it, with the hash of the
+	 * data.
+	 *
+	 * @param name content name
+	 * @param data content
+	 * @return offered content
+	 * @throws IOException on serialization errors
+	 */
+	private static TransferContent offer(String name, byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new TransferContent(name, 0, data).writeREQ(new OutputSerializer(out));
+		TransferContent offer = new TransferContent();
+		offer.readREQ(new InputSerializer(new ByteArrayInputStream(out.toByteArray())));
+		return offer;
+	}
+
+	private static byte[] read(InputStream in) throws IOException {
+		assertNotNull(in);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int b;
+		while ((b = in.read()) >= 0) {
+			out.write(b);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Test getting stored content back, from memory and from disk.
+	 *
+	 * @throws IOException on I/O errors
+	 */
+	@Test
+	public void testStoreAndGet() throws IOException {
+		Cache cache = new Cache(cacheFolder);
+		cache.loadIndex();
+		assertNull(cache.getItem(offer("zone.0_floor", DATA)));
+
+		cache.store(offer("zone.0_floor", DATA), DATA);
+		cache.saveIndex();
+		assertArrayEquals(DATA, read(cache.getItem(offer("zone.0_floor", DATA))));
+		assertNull(cache.getItem(offer("zone.0_floor", new byte[] { 1, 2, 3 })));
+
+		Cache restarted = new Cache(cacheFolder);
+		restarted.loadIndex();
+		assertArrayEquals(DATA, read(restarted.getItem(offer("zone.0_floor", DATA))));
+		assertNull(restarted.getItem(offer("zone.0_floor", new byte[] { 1, 2, 3 })));
+	}
+
+	/**
+	 * Test that the checksums in the index are used while the file has the
+	 * same size and modification time, and computed again when it changes.
+	 *
+	 * @throws IOException on I/O errors
+	 */
+	@Test
+	public void testIndex() throws IOException {
+		Cache cache = new Cache(cacheFolder);
+		cache.loadIndex();
+		cache.store(offer("zone.1_terrain", DATA), DATA);
+		cache.saveIndex();
+		assertTrue(new File(cacheFolder, "index.properties").isFile());
+
+		File file = new File(cacheFolder, "zone.1_terrain");
+		long modified = file.lastModified();
+		byte[] changed = DATA.clone();
+		changed[0] = 42;
+		Files.write(file.toPath(), changed);
+		assertTrue(file.setLastModified(modified));
+
+		// Trusts the index, without hashing the file again
+		Cache restarted = new Cache(cacheFolder);
+		restarted.loadIndex();
+		assertArrayEquals(changed, read(restarted.getItem(offer("zone.1_terrain", DATA))));
+
+		assertTrue(file.setLastModified(modified - 10000));
+		restarted = new Cache(cacheFolder);
+		restarted.loadIndex();
+		assertNull(restarted.getItem(offer("zone.1_terrain", DATA)));
+		assertArrayEquals(changed, read(restarted.getItem(offer("zone.1_terrain", changed))));
+	}
+
+	/**
+	 * Test verifying content by CRC, as sent by old servers.
+	 *
+	 * @throws IOException on I/O errors
+	 */
+	@Test
+	public void testCRC() throws IOException {
+		Files.write(new File(cacheFolder, "zone.2_object").toPath(), DATA);
+		Cache cache = new Cache(cacheFolder);
+		cache.loadIndex();
+		int crc = CRC.cmpCRC(DATA);
+		assertArrayEquals(DATA, read(cache.getItem(new TransferContent("zone.2_object", crc, new byte[0]))));
+		assertNull(cache.getItem(new TransferContent("zone.2_object", crc + 1, new byte[0])));
+	}
+
+	/**
+	 * Test that names trying to leave the cache folder are rejected.
+	 */
+	@Test
+	public void testInvalidName() {
+		Cache cache = new Cache(cacheFolder);
+		assertNull(cache.getItem(new TransferContent("../zone.0_floor", 0, new byte[0])));
+	}
+}
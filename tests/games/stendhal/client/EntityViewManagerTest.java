@@ -0,0 +1,68 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.client;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for keeping the entity views in drawing order.
+ */
+public class EntityViewManagerTest {
+	private static final Comparator<Integer> ORDER = Comparator.naturalOrder();
+
+	/**
+	 * Test that a sorted list is left alone.
+	 */
+	@Test
+	public void testSorted() {
+		List<Integer> list = new ArrayList<Integer>(Arrays.asList(1, 2, 2, 5, 9));
+		assertEquals(0, EntityViewManager.restoreOrder(list, ORDER));
+		assertEquals(Arrays.asList(1, 2, 2, 5, 9), list);
+	}
+
+	/**
+	 * Test moving a few elements that changed, or were added to the end.
+	 */
+	@Test
+	public void testFewChanges() {
+		List<Integer> list = new ArrayList<Integer>(Arrays.asList(1, 3, 4, 2, 5, 0));
+		assertEquals(2, EntityViewManager.restoreOrder(list, ORDER));
+		assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5), list);
+	}
+
+	/**
+	 * Test that the result matches a full sort for arbitrary lists.
+	 */
+	@Test
+	public void testRandom() {
+		Random random = new Random(42);
+		for (int round = 0; round < 50; round++) {
+			List<Integer> list = new ArrayList<Integer>();
+			for (int i = random.nextInt(40); i > 0; i--) {
+				list.add(random.nextInt(20));
+			}
+			List<Integer> expected = new ArrayList<Integer>(list);
+			Collections.sort(expected);
+			EntityViewManager.restoreOrder(list, ORDER);
+			assertEquals(expected, list);
+		}
+	}
+}
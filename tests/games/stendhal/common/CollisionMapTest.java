@@ -12,12 +12,14 @@
 package games.stendhal.common;
 
 import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
 import java.awt.geom.Rectangle2D;
 import java.util.BitSet;
+import java.util.Random;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -353,4 +355,102 @@ public class CollisionMapTest {
 				.getWidth(), (int) bob.getHeight()));
 	}
 
+
+	/**
+	 * Tests collides() on rectangles crossing word boundaries, against
+	 * checking each tile.
+	 */
+	@Test
+	public void testCollidesWide() {
+		final Random random = new Random(1);
+		final CollisionMap map = new CollisionMap(150, 40);
+		for (int i = 0; i < 100; i++) {
+			map.set(random.nextInt(150), random.nextInt(40));
+		}
+
+		for (int i = 0; i < 2000; i++) {
+			final int x = random.nextInt(150);
+			final int y = random.nextInt(40);
+			final int w = 1 + random.nextInt(150 - x);
+			final int h = 1 + random.nextInt(Math.min(40 - y, 8));
+			boolean expected = false;
+			for (int tx = x; tx < x + w; tx++) {
+				for (int ty = y; ty < y + h; ty++) {
+					expected |= map.get(tx, ty);
+				}
+			}
+			assertEquals(x + "," + y + " " + w + "x" + h, expected, map.collides(x, y, w, h));
+		}
+	}
+
+	/**
+	 * Tests for countCollisions and getFreeArea.
+	 */
+	@Test
+	public void testCountCollisions() {
+		final CollisionMap map = new CollisionMap(100, 30);
+		assertEquals(3000, map.getFreeArea());
+		map.set(0, 0);
+		map.set(64, 10);
+		map.set(99, 29);
+		assertEquals(2997, map.getFreeArea());
+		assertEquals(1, map.countCollisions(60, 5, 10, 10));
+		assertEquals(0, map.countCollisions(1, 1, 63, 29));
+		assertTrue(map.collides(50, 0, 50, 30));
+		assertFalse(map.collides(1, 11, 98, 18));
+
+		map.unset(64, 10);
+		assertEquals(0, map.countCollisions(60, 5, 10, 10));
+		assertEquals(2998, map.getFreeArea());
+		map.clear();
+		assertEquals(3000, map.getFreeArea());
+	}
+
+	/**
+	 * Tests that coordinates outside the map are ignored, instead of
+	 * changing the padding bits or the next row.
+	 */
+	@Test
+	public void testOutsideColumns() {
+		final CollisionMap map = new CollisionMap(10, 3);
+		map.set(10, 0);
+		map.set(64, 0);
+		map.set(-1, 1);
+		assertFalse(map.get(10, 0));
+		assertFalse(map.get(0, 1));
+		assertFalse(map.get(9, 0));
+		assertEquals(30, map.getFreeArea());
+
+		map.set(9, 0);
+		map.unset(73, 0);
+		assertTrue(map.get(9, 0));
+		assertFalse(map.get(73, 0));
+		assertEquals(29, map.getFreeArea());
+	}
+
+	/**
+	 * Tests that the summed area table of large maps gives the same counts
+	 * as the rows.
+	 */
+	@Test
+	public void testCountCollisionsLargeMap() {
+		final Random random = new Random(7);
+		final CollisionMap small = new CollisionMap(200, 200);
+		final CollisionMap large = new CollisionMap(300, 300);
+		for (int i = 0; i < 2000; i++) {
+			final int x = random.nextInt(200);
+			final int y = random.nextInt(200);
+			small.set(x, y);
+			large.set(x, y);
+		}
+		assertEquals(small.getFreeArea() + 300 * 300 - 200 * 200, large.getFreeArea());
+		for (int i = 0; i < 500; i++) {
+			final int x = random.nextInt(200);
+			final int y = random.nextInt(200);
+			final int w = 1 + random.nextInt(200 - x);
+			final int h = 1 + random.nextInt(200 - y);
+			assertEquals(small.countCollisions(x, y, w, h), large.countCollisions(x, y, w, h));
+			assertEquals(small.collides(x, y, w, h), large.collides(x, y, w, h));
+		}
+	}
 }
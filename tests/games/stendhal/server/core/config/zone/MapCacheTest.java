@@ -0,0 +1,98 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.config.zone;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import games.stendhal.common.tiled.LayerDefinition;
+import games.stendhal.common.tiled.StendhalMapStructure;
+import games.stendhal.common.tiled.TileSetDefinition;
+
+/**
+ * Tests for MapCache.
+ */
+public class MapCacheTest {
+	/** folder for the cache files */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static StendhalMapStructure createMap() {
+		final StendhalMapStructure map = new StendhalMapStructure(4, 3);
+		map.addTileset(new TileSetDefinition("ground", "../tileset/ground.png", 1));
+		for (final String name : new String[] { "0_floor", "2_object", "collision", "objects" }) {
+			final LayerDefinition layer = new LayerDefinition(4, 3);
+			layer.setName(name);
+			layer.set(2, 1, name.length());
+			map.addLayer(layer);
+		}
+		return map;
+	}
+
+	/**
+	 * Tests that a map read from a cache file has the same tilesets and
+	 * encoded layers, and the layers needed by the server.
+	 *
+	 * @throws IOException in case of an I/O error
+	 */
+	@Test
+	public void testWriteAndRead() throws IOException {
+		final StendhalMapStructure map = createMap();
+		final PreparedMap prepared = new PreparedMap(map);
+		final MapCache cache = new MapCache(folder.getRoot());
+		final File file = new File(folder.getRoot(), "test.map");
+		cache.write(file, prepared);
+
+		final PreparedMap read = cache.read(file);
+		assertTrue(read.isCached());
+		assertFalse(prepared.isCached());
+		assertEquals(map.getWidth(), read.getMap().getWidth());
+		assertEquals(map.getHeight(), read.getMap().getHeight());
+		assertEquals(map.getTilesets(), read.getMap().getTilesets());
+
+		for (final String name : PreparedMap.CLIENT_LAYERS) {
+			assertArrayEquals(name, prepared.encode(name), read.encode(name));
+		}
+		assertTrue(read.hasLayer("0_floor"));
+		assertFalse(read.hasLayer("3_roof"));
+		assertNull(read.encode("3_roof"));
+
+		// client only layers are not decoded again
+		assertFalse(read.getMap().hasLayer("0_floor"));
+		assertEquals("objects".length(), read.getMap().getLayer("objects").getTileAt(2, 1));
+		assertEquals("collision".length(), read.getMap().getLayer("collision").getTileAt(2, 1));
+		assertEquals(0, read.getMap().getLayer("collision").getTileAt(1, 1));
+	}
+
+	/**
+	 * Tests that broken files are rejected.
+	 *
+	 * @throws IOException in case of an I/O error
+	 */
+	@Test(expected = IOException.class)
+	public void testReadBroken() throws IOException {
+		final File file = folder.newFile("broken.map");
+		Files.write(file.toPath(), new byte[] { 1, 2, 3, 4, 5 });
+		new MapCache(folder.getRoot()).read(file);
+	}
+}
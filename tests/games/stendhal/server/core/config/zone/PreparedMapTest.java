@@ -0,0 +1,73 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.config.zone;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import games.stendhal.common.tiled.LayerDefinition;
+import games.stendhal.common.tiled.StendhalMapStructure;
+
+/**
+ * Tests for PreparedMap.
+ */
+public class PreparedMapTest {
+
+	private static StendhalMapStructure createMap() {
+		final StendhalMapStructure map = new StendhalMapStructure(3, 2);
+		for (final String name : new String[] { "0_floor", "collision" }) {
+			final LayerDefinition layer = new LayerDefinition(3, 2);
+			layer.setName(name);
+			layer.set(1, 1, 7);
+			map.addLayer(layer);
+		}
+		return map;
+	}
+
+	/**
+	 * Tests that the layers are encoded like by LayerDefinition, and only
+	 * once.
+	 *
+	 * @throws IOException in case of an encoding error
+	 */
+	@Test
+	public void testEncode() throws IOException {
+		final StendhalMapStructure map = createMap();
+		final PreparedMap prepared = new PreparedMap(map);
+		prepared.encodeLayers();
+
+		final byte[] floor = prepared.encode("0_floor");
+		assertArrayEquals(map.getLayer("0_floor").encode(), floor);
+		assertSame(floor, prepared.encode("0_floor"));
+		assertArrayEquals(map.getLayer("collision").encode(), prepared.encode("collision"));
+		assertNull(prepared.encode("3_roof"));
+	}
+
+	/**
+	 * Tests encoding on demand.
+	 *
+	 * @throws IOException in case of an encoding error
+	 */
+	@Test
+	public void testEncodeOnDemand() throws IOException {
+		final StendhalMapStructure map = createMap();
+		final PreparedMap prepared = new PreparedMap(map);
+		final byte[] collision = prepared.encode("collision");
+		assertArrayEquals(map.getLayer("collision").encode(), collision);
+		assertSame(collision, prepared.encode("collision"));
+	}
+}
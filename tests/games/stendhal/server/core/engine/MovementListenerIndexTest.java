@@ -0,0 +1,125 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import games.stendhal.server.core.events.MovementListener;
+import games.stendhal.server.entity.ActiveEntity;
+
+/**
+ * Tests for the movement listener dispatch of StendhalRPZone.
+ */
+public class MovementListenerIndexTest {
+	private final List<String> events = new ArrayList<String>();
+
+	/**
+	 * Tests that only the listeners at the old or new position are notified,
+	 * in registration order.
+	 */
+	@Test
+	public void testNotifyMovement() {
+		final StendhalRPZone zone = new StendhalRPZone("listener_test", 100, 100);
+		final ActiveEntity entity = new ActiveEntity() {
+			// just to create an instance
+		};
+
+		zone.addMovementListener(new RecordingListener("a", 10, 10, 2, 2));
+		zone.addMovementListener(new RecordingListener("b", 11, 10, 5, 1));
+		zone.addMovementListener(new RecordingListener("far", 80, 80, 5, 5));
+		zone.addMovementListener(new RecordingListener("zone", 0, 0, 100, 100));
+
+		zone.notifyMovement(entity, 9, 10, 10, 10);
+		assertEquals(Arrays.asList("a entered", "zone moved"), events);
+
+		events.clear();
+		zone.notifyMovement(entity, 10, 10, 11, 10);
+		assertEquals(Arrays.asList("a moved", "b entered", "zone moved"), events);
+
+		events.clear();
+		zone.notifyMovement(entity, 11, 10, 12, 10);
+		assertEquals(Arrays.asList("a exited", "b moved", "zone moved"), events);
+
+		events.clear();
+		zone.notifyEntered(entity, 81, 81);
+		zone.notifyExited(entity, 12, 10);
+		assertEquals(Arrays.asList("far entered", "zone entered", "b exited", "zone exited"), events);
+
+		assertTrue(zone.getAvoidedMovementListenerChecks() > 0);
+	}
+
+	/**
+	 * Tests that listeners are found at their new position after moving, and
+	 * not at all after they are removed.
+	 */
+	@Test
+	public void testUpdate() {
+		final MovementListenerIndex index = new MovementListenerIndex();
+		final RecordingListener listener = new RecordingListener("a", 10, 10, 1, 1);
+		index.add(listener);
+		assertEquals(1, index.getListeners(10, 10, 1, 1).size());
+
+		listener.area.setRect(50, 50, 1, 1);
+		index.update(listener);
+		assertEquals(0, index.getListeners(10, 10, 1, 1).size());
+		assertEquals(1, index.getListeners(49, 49, 50, 50, 1, 1).size());
+
+		index.remove(listener);
+		assertEquals(0, index.getListeners(50, 50, 1, 1).size());
+		assertEquals(0, index.size());
+	}
+
+	private class RecordingListener implements MovementListener {
+		private final String name;
+		private final Rectangle2D area;
+
+		RecordingListener(final String name, final int x, final int y, final int width, final int height) {
+			this.name = name;
+			area = new Rectangle2D.Double(x, y, width, height);
+		}
+
+		@Override
+		public Rectangle2D getArea() {
+			return area;
+		}
+
+		@Override
+		public void onEntered(final ActiveEntity entity, final StendhalRPZone zone, final int newX, final int newY) {
+			events.add(name + " entered");
+		}
+
+		@Override
+		public void onExited(final ActiveEntity entity, final StendhalRPZone zone, final int oldX, final int oldY) {
+			events.add(name + " exited");
+		}
+
+		@Override
+		public void beforeMove(final ActiveEntity entity, final StendhalRPZone zone, final int oldX, final int oldY,
+				final int newX, final int newY) {
+			// not used
+		}
+
+		@Override
+		public void onMoved(final ActiveEntity entity, final StendhalRPZone zone, final int oldX, final int oldY,
+				final int newX, final int newY) {
+			events.add(name + " moved");
+		}
+	}
+}
@@ -0,0 +1,102 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static utilities.SpeakerNPCTestHelper.getReply;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import games.stendhal.server.entity.npc.SpeakerNPC;
+import games.stendhal.server.entity.player.Player;
+import games.stendhal.server.maps.MockStendhalRPRuleProcessor;
+import games.stendhal.server.maps.MockStendlRPWorld;
+import utilities.PlayerTestHelper;
+import utilities.SpeakerNPCTestHelper;
+
+/**
+ * Tests the delivery of player texts to SpeakerNPCs.
+ */
+public class NPCSpeechTest {
+	private StendhalRPZone zone;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		MockStendlRPWorld.get();
+		MockStendhalRPRuleProcessor.get();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		SingletonRepository.getNPCList().clear();
+		MockStendlRPWorld.get().removeZone(zone);
+	}
+
+	/**
+	 * Tests that only the NPCs within their perception range hear a player.
+	 */
+	@Test
+	public void testDeliverText() {
+		zone = new StendhalRPZone("speech_test", 50, 50);
+		MockStendlRPWorld.get().addRPZone(zone);
+
+		final SpeakerNPC near = SpeakerNPCTestHelper.createSpeakerNPC("near");
+		near.addGreeting("Hello near");
+		near.addGoodbye();
+		near.setPosition(10, 10);
+		zone.add(near);
+		final SpeakerNPC far = SpeakerNPCTestHelper.createSpeakerNPC("far");
+		far.addGreeting("Hello far");
+		far.setPosition(30, 10);
+		zone.add(far);
+
+		final Player player = PlayerTestHelper.createPlayer("bob");
+		player.setPosition(12, 12);
+		zone.add(player);
+
+		assertTrue(near.isIdle());
+		assertTrue(far.isIdle());
+
+		final StendhalRPRuleProcessor ruleProcessor = MockStendhalRPRuleProcessor.get();
+		player.put("text", "hi");
+		ruleProcessor.removePlayerText(player);
+		// said twice in the same turn
+		ruleProcessor.removePlayerText(player);
+		ruleProcessor.executeNPCsPreLogic();
+		ruleProcessor.handlePlayersRmTexts();
+
+		assertEquals("Hello near", getReply(near));
+		assertEquals(player, near.getAttending());
+		assertFalse(near.isIdle());
+		assertNull(getReply(far));
+		assertTrue(far.isIdle());
+
+		// nobody speaks
+		ruleProcessor.executeNPCsPreLogic();
+		assertNull(getReply(near));
+
+		player.put("text", "bye");
+		ruleProcessor.removePlayerText(player);
+		ruleProcessor.executeNPCsPreLogic();
+		ruleProcessor.handlePlayersRmTexts();
+		assertFalse(near.isTalking());
+		// the conversation is cleaned up in the next turn
+		ruleProcessor.executeNPCsPreLogic();
+		assertNull(near.getAttending());
+		assertTrue(near.isIdle());
+	}
+}
@@ -0,0 +1,99 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import games.stendhal.server.core.pathfinder.FixedPath;
+import games.stendhal.server.core.pathfinder.Node;
+import games.stendhal.server.entity.npc.ActorNPC;
+import games.stendhal.server.maps.MockStendlRPWorld;
+
+/**
+ * Tests for the activity state of StendhalRPZone.
+ */
+public class ZoneActivityTest {
+
+	@BeforeClass
+	public static void setUpBeforeClass() {
+		MockStendlRPWorld.get();
+	}
+
+	/**
+	 * Tests the transitions between the activity states.
+	 */
+	@Test
+	public void testActivityStates() {
+		final StendhalRPZone zone = new StendhalRPZone("activity_test", 10, 10);
+		assertEquals(ZoneActivity.ACTIVE, zone.getActivity());
+
+		zone.logic();
+		assertEquals(ZoneActivity.COOLING_DOWN, zone.getActivity());
+
+		for (int i = 0; i < 100; i++) {
+			zone.logic();
+		}
+		assertEquals(ZoneActivity.DORMANT, zone.getActivity());
+
+		final Object source = new Object();
+		zone.addActivitySource(source);
+		zone.logic();
+		assertEquals(ZoneActivity.ACTIVE, zone.getActivity());
+
+		zone.removeActivitySource(source);
+		zone.logic();
+		assertEquals(ZoneActivity.COOLING_DOWN, zone.getActivity());
+	}
+
+	/**
+	 * Tests that an NPC walking into an empty zone keeps walking, and that
+	 * the zone becomes dormant after it has reached the end of its path.
+	 */
+	@Test
+	public void testWalkingNPCInEmptyZone() {
+		final StendhalRPZone zone = new StendhalRPZone("activity_walk_test", 20, 10);
+		for (int i = 0; i < 101; i++) {
+			zone.logic();
+		}
+		assertEquals(ZoneActivity.DORMANT, zone.getActivity());
+
+		final ActorNPC npc = new ActorNPC(false);
+		npc.setBaseSpeed(1.0);
+		npc.setPosition(1, 1);
+		npc.setPath(new FixedPath(Arrays.asList(new Node(1, 1), new Node(10, 1)), false));
+		zone.add(npc);
+
+		for (int i = 0; i < 5; i++) {
+			zone.logic();
+		}
+		assertEquals(ZoneActivity.ACTIVE, zone.getActivity());
+		assertTrue(npc.getX() > 1);
+
+		for (int i = 0; i < 50; i++) {
+			zone.logic();
+		}
+		assertEquals(10, npc.getX());
+		assertFalse(npc.hasPath());
+
+		for (int i = 0; i < 101; i++) {
+			zone.logic();
+		}
+		assertEquals(ZoneActivity.DORMANT, zone.getActivity());
+	}
+}
@@ -0,0 +1,86 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import marauroa.common.game.IRPZone;
+
+/**
+ * Tests for ZoneLogicExecutor.
+ */
+public class ZoneLogicExecutorTest {
+
+	/**
+	 * A zone that records its name as a deferred effect.
+	 */
+	private static class RecordingZone extends StendhalRPZone {
+		private final List<String> log;
+
+		RecordingZone(final String name, final List<String> log) {
+			super(name);
+			this.log = log;
+		}
+
+		@Override
+		public void logic() {
+			final String name = getName();
+			if (!ZoneLogicExecutor.defer(() -> log.add(name))) {
+				log.add("sequential " + name);
+			}
+		}
+	}
+
+	/**
+	 * Tests that deferred effects are merged in zone order.
+	 */
+	@Test
+	public void testDeterministicMerge() {
+		final ZoneLogicExecutor executor = new ZoneLogicExecutor(4);
+		for (int round = 0; round < 10; round++) {
+			final List<String> log = new ArrayList<String>();
+			final List<IRPZone> zones = new ArrayList<IRPZone>();
+			for (int i = 0; i < 20; i++) {
+				zones.add(new RecordingZone("zone" + i, log));
+			}
+			final StendhalRPZone sequential = new RecordingZone("seq", log);
+			sequential.setParallelLogicAllowed(false);
+			zones.add(0, sequential);
+
+			executor.logic(zones);
+
+			final List<String> expected = new ArrayList<String>();
+			for (int i = 0; i < 20; i++) {
+				expected.add("zone" + i);
+			}
+			expected.add("sequential seq");
+			assertEquals(expected, log);
+		}
+	}
+
+	/**
+	 * Tests that effects are not deferred on the game thread.
+	 */
+	@Test
+	public void testGameThread() {
+		assertNull(ZoneLogicExecutor.getCurrentZone());
+		assertFalse(ZoneLogicExecutor.defer(() -> { }));
+		assertFalse(ZoneLogicExecutor.deferIfOtherZone(new StendhalRPZone("a"), () -> { }));
+	}
+}
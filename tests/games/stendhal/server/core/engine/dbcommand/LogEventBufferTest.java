@@ -0,0 +1,220 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.engine.dbcommand;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import games.stendhal.server.core.engine.db.ItemLogBatch;
+import games.stendhal.server.core.engine.dbcommand.LogEventBuffer.FlushReason;
+import games.stendhal.server.entity.creature.Creature;
+import games.stendhal.server.entity.item.Item;
+import games.stendhal.server.entity.player.Player;
+import games.stendhal.server.maps.MockStendlRPWorld;
+import marauroa.server.db.DBTransaction;
+import marauroa.server.db.TransactionPool;
+import marauroa.server.game.db.DatabaseFactory;
+import utilities.PlayerTestHelper;
+
+/**
+ * Tests for the batching of item and kill log events.
+ */
+public class LogEventBufferTest {
+	private final List<LogEventBatchCommand> batches = new ArrayList<LogEventBatchCommand>();
+
+	private Player player;
+	private Creature rat;
+	private Item item;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		new DatabaseFactory().initializeDatabase();
+		MockStendlRPWorld.get();
+	}
+
+	@Before
+	public void setUp() {
+		batches.clear();
+		player = PlayerTestHelper.createPlayer("logger");
+		rat = new Creature();
+		rat.setName("rat");
+	}
+
+	private LogEventBuffer createBuffer(final int batchSize, final long interval, final int capacity,
+			final int maxPending) {
+		return new LogEventBuffer(batchSize, interval, capacity, maxPending) {
+			@Override
+			void enqueue(final LogEventBatchCommand batch) {
+				batches.add(batch);
+			}
+		};
+	}
+
+	private LogSimpleItemEventCommand createItemEvent() {
+		item = new Item("club", "club", "club", new HashMap<String, String>());
+		return new LogSimpleItemEventCommand(item, player, "create", "club", "1", "test", null);
+	}
+
+	/**
+	 * Tests that a batch is written when enough events are buffered, and
+	 * that kills are counted.
+	 */
+	@Test
+	public void testBatchSize() {
+		final LogEventBuffer buffer = createBuffer(3, 100000, 10, 2);
+		buffer.logKill(rat, player);
+		buffer.logKill(rat, player);
+		assertEquals(0, batches.size());
+		buffer.add(createItemEvent());
+		assertEquals(1, batches.size());
+		assertEquals(0, buffer.getBufferedCount());
+		assertEquals(1, buffer.getPendingBatches());
+		assertEquals(1, buffer.getFlushes(FlushReason.SIZE));
+		assertEquals("LogEventBatchCommand [itemEvents=1, kills=1]", batches.get(0).toString());
+	}
+
+	/**
+	 * Tests that batches are held back while the queue is busy, but that the
+	 * buffer does not grow beyond its capacity.
+	 */
+	@Test
+	public void testBackpressure() {
+		final LogEventBuffer buffer = createBuffer(2, 0, 5, 1);
+		buffer.add(createItemEvent());
+		buffer.add(createItemEvent());
+		assertEquals(1, batches.size());
+
+		// the first batch has not been executed yet
+		buffer.add(createItemEvent());
+		buffer.add(createItemEvent());
+		buffer.flushIfDue();
+		assertEquals(1, batches.size());
+		assertEquals(2, buffer.getDeferredFlushes());
+
+		for (int i = 0; i < 3; i++) {
+			buffer.add(createItemEvent());
+		}
+		assertEquals(2, batches.size());
+		assertEquals(1, buffer.getFlushes(FlushReason.FULL));
+		assertEquals(0, buffer.getBufferedCount());
+	}
+
+	/**
+	 * Tests the time based and the forced flushing.
+	 */
+	@Test
+	public void testFlush() {
+		LogEventBuffer buffer = createBuffer(100, 0, 1000, 4);
+		buffer.flushIfDue();
+		assertEquals(0, batches.size());
+		buffer.logKill(rat, player);
+		buffer.flushIfDue();
+		assertEquals(1, batches.size());
+		assertEquals(1, buffer.getFlushes(FlushReason.TIME));
+
+		buffer = createBuffer(100, 100000, 1000, 4);
+		buffer.logKill(rat, player);
+		buffer.flushIfDue();
+		assertEquals(1, batches.size());
+		buffer.flush();
+		assertEquals(2, batches.size());
+		assertEquals(1, buffer.getFlushes(FlushReason.FORCED));
+		assertTrue(buffer.getReport().contains("1 kills in 0 rows"));
+	}
+
+	/**
+	 * Tests writing a batch to the database.
+	 *
+	 * @throws SQLException in case of a database error
+	 */
+	@Test
+	public void testExecute() throws SQLException {
+		final LogEventBuffer buffer = createBuffer(100, 100000, 1000, 4);
+		buffer.logKill(rat, player);
+		buffer.logKill(rat, player);
+		buffer.add(createItemEvent());
+		buffer.flush();
+		buffer.logKill(rat, player);
+		buffer.flush();
+		assertEquals(2, batches.size());
+
+		final DBTransaction transaction = TransactionPool.get().beginWork();
+		try {
+			for (final LogEventBatchCommand batch : batches) {
+				batch.execute(transaction);
+			}
+			final Map<String, Object> params = new HashMap<String, Object>();
+			params.put("killer", player.getName());
+			params.put("itemid", item.get("logid"));
+			assertEquals(3, transaction.querySingleCellInt(
+					"SELECT cnt FROM kills WHERE killer='[killer]' AND killed='rat'", params));
+			assertEquals(2, transaction.querySingleCellInt(
+					"SELECT count(*) FROM itemlog WHERE itemid=[itemid]", params));
+			assertEquals(1, transaction.querySingleCellInt(
+					"SELECT count(*) FROM itemlog WHERE itemid=[itemid] AND source='[killer]' AND event='create'", params));
+		} finally {
+			TransactionPool.get().rollback(transaction);
+		}
+		assertEquals(0, buffer.getPendingBatches());
+		assertTrue(buffer.getReport().contains("3 kills in 2 rows"));
+	}
+
+	/**
+	 * Tests that an event that cannot be written does not drop the other
+	 * events of its batch.
+	 *
+	 * @throws SQLException in case of a database error
+	 */
+	@Test
+	public void testExecuteWithFailingEvent() throws SQLException {
+		final LogEventBuffer buffer = createBuffer(100, 100000, 1000, 4);
+		buffer.logKill(rat, player);
+		buffer.logKill(rat, player);
+		buffer.add(createItemEvent());
+		buffer.add(new AbstractLogItemEventCommand() {
+			@Override
+			protected void log(final ItemLogBatch batch) throws SQLException {
+				batch.getTransaction().execute("INSERT INTO no_such_table (id) VALUES (1)", null);
+			}
+		});
+		buffer.flush();
+		assertEquals(1, batches.size());
+
+		final DBTransaction transaction = TransactionPool.get().beginWork();
+		try {
+			batches.get(0).execute(transaction);
+			final Map<String, Object> params = new HashMap<String, Object>();
+			params.put("killer", player.getName());
+			params.put("itemid", item.get("logid"));
+			assertEquals(2, transaction.querySingleCellInt(
+					"SELECT cnt FROM kills WHERE killer='[killer]' AND killed='rat'", params));
+			// the logid of the rolled back rows has been replaced
+			assertEquals(2, transaction.querySingleCellInt(
+					"SELECT count(*) FROM itemlog WHERE itemid=[itemid]", params));
+		} finally {
+			TransactionPool.get().rollback(transaction);
+		}
+		assertEquals(0, buffer.getPendingBatches());
+		assertEquals(1, buffer.getDroppedEvents());
+		assertTrue(buffer.getReport().contains("2 kills in 1 rows, 1 dropped"));
+	}
+}
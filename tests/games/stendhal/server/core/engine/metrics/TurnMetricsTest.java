@@ -0,0 +1,98 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.engine.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for TurnMetrics and DurationHistogram.
+ */
+public class TurnMetricsTest {
+
+	/**
+	 * Tests the percentiles of the histogram.
+	 */
+	@Test
+	public void testHistogram() {
+		final DurationHistogram histogram = new DurationHistogram();
+		assertEquals(0, histogram.getPercentileNanos(50));
+
+		for (int i = 0; i < 90; i++) {
+			histogram.record(200000);
+		}
+		for (int i = 0; i < 10; i++) {
+			histogram.record(20000000);
+		}
+		assertEquals(100, histogram.getCount());
+		assertEquals(20000000, histogram.getMaxNanos());
+		assertEquals(2180000, histogram.getMeanNanos());
+		// upper bounds of the buckets
+		assertEquals(250000, histogram.getPercentileNanos(50));
+		assertEquals(250000, histogram.getPercentileNanos(90));
+		// limited by the maximum
+		assertEquals(20000000, histogram.getPercentileNanos(95));
+
+		final long[] buckets = histogram.getBuckets();
+		assertEquals(90, buckets[1]);
+		assertEquals(10, buckets[7]);
+
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+	}
+
+	/**
+	 * Tests recording turns, zones and listeners.
+	 */
+	@Test
+	public void testTurn() {
+		final TurnMetrics metrics = TurnMetrics.get();
+		metrics.reset();
+
+		long start = metrics.beginTurn();
+		start = metrics.record(TurnPhase.PLAYER_LOGIC, start);
+		metrics.recordZone("fast", 1000);
+		metrics.recordZone("slow", 5000000);
+		metrics.recordZone("slow", 4000000);
+		metrics.recordTurnListener(new Object(), 1000);
+		metrics.record(TurnPhase.ZONE_LOGIC, start);
+		metrics.endTurn(3);
+
+		assertEquals(1, metrics.getTurns());
+		assertEquals(0, metrics.getOverruns());
+		assertEquals(1, metrics.getHistogram(TurnPhase.TOTAL).getCount());
+		assertEquals(1, metrics.getHistogram(TurnPhase.ZONE_LOGIC).getCount());
+		assertEquals(0, metrics.getHistogram(TurnPhase.TURN_NOTIFIER).getCount());
+
+		final List<TurnMetrics.TimingStat> zones = metrics.getSlowestZones(1);
+		assertEquals(1, zones.size());
+		assertEquals("slow", zones.get(0).getName());
+		assertEquals(2, zones.get(0).getCount());
+		assertEquals(9000000, zones.get(0).getTotalNanos());
+		assertEquals(5000000, zones.get(0).getMaxNanos());
+
+		final String json = metrics.toJSON(5);
+		assertTrue(json.startsWith("{\"turns\":1,"));
+		assertTrue(json.contains("\"dbQueue\":{\"last\":3,\"max\":3}"));
+		assertTrue(json.contains("{\"name\":\"slow\",\"count\":2,\"totalMs\":9.000,\"maxMs\":5.000}"));
+		assertTrue(json.contains("{\"name\":\"java.lang.Object\""));
+		assertTrue(metrics.getReport(5).contains("slow: 9.000 ms in 2 calls"));
+
+		metrics.reset();
+		assertEquals(0, metrics.getTurns());
+		assertTrue(metrics.getSlowestZones(5).isEmpty());
+	}
+}
@@ -0,0 +1,114 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for TurnNotifier.
+ */
+public class TurnNotifierTest {
+
+	/**
+	 * A listener that records the turns it was notified at.
+	 */
+	private static class RecordingListener implements TurnListener {
+		private final List<Integer> turns = new ArrayList<Integer>();
+
+		@Override
+		public void onTurnReached(final int currentTurn) {
+			turns.add(Integer.valueOf(currentTurn));
+		}
+	}
+
+	/**
+	 * Tests notification in the near and the far future.
+	 */
+	@Test
+	public void testNotifyAtTurn() {
+		final TurnNotifier notifier = TurnNotifier.get();
+		final int start = notifier.getCurrentTurnForDebugging();
+		final RecordingListener near = new RecordingListener();
+		final RecordingListener far = new RecordingListener();
+
+		notifier.notifyAtTurn(start + 5, near);
+		notifier.notifyAtTurn(start + 5, near);
+		notifier.notifyAtTurn(start + 10000, far);
+		assertEquals(5, notifier.getRemainingTurns(near));
+		assertEquals(10000, notifier.getRemainingTurns(far));
+
+		for (int turn = start + 1; turn <= start + 10000; turn++) {
+			notifier.logic(turn);
+		}
+
+		assertEquals(1, near.turns.size());
+		assertEquals(Integer.valueOf(start + 5), near.turns.get(0));
+		assertEquals(1, far.turns.size());
+		assertEquals(Integer.valueOf(start + 10000), far.turns.get(0));
+		assertEquals(-1, notifier.getRemainingTurns(near));
+		assertEquals(-1, notifier.getRemainingTurns(far));
+	}
+
+	/**
+	 * Tests for dontNotify().
+	 */
+	@Test
+	public void testDontNotify() {
+		final TurnNotifier notifier = TurnNotifier.get();
+		final int start = notifier.getCurrentTurnForDebugging();
+		final RecordingListener listener = new RecordingListener();
+
+		notifier.notifyAtTurn(start + 3, listener);
+		notifier.notifyAtTurn(start + 2, listener);
+		notifier.notifyAtTurn(start + 9000, listener);
+		assertEquals(2, notifier.getRemainingTurns(listener));
+
+		notifier.logic(start + 1);
+		notifier.logic(start + 2);
+		assertEquals(1, listener.turns.size());
+		assertEquals(1, notifier.getRemainingTurns(listener));
+
+		notifier.dontNotify(listener);
+		assertEquals(-1, notifier.getRemainingTurns(listener));
+		notifier.logic(start + 3);
+		assertEquals(1, listener.turns.size());
+	}
+
+	/**
+	 * Tests that listeners registered at the same turn are notified in
+	 * registration order.
+	 */
+	@Test
+	public void testOrder() {
+		final TurnNotifier notifier = TurnNotifier.get();
+		final int start = notifier.getCurrentTurnForDebugging();
+		final List<Integer> order = new ArrayList<Integer>();
+
+		for (int i = 0; i < 10; i++) {
+			final Integer number = Integer.valueOf(i);
+			notifier.notifyAtTurn(start + 1, currentTurn -> order.add(number));
+		}
+		assertTrue(notifier.getEventListForDebugging().get(Integer.valueOf(start + 1)).size() >= 10);
+
+		notifier.logic(start + 1);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(Integer.valueOf(i), order.get(i));
+		}
+		assertEquals(10, order.size());
+	}
+}
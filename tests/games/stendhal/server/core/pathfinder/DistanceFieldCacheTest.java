@@ -0,0 +1,140 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.pathfinder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import games.stendhal.server.core.engine.StendhalRPZone;
+import games.stendhal.server.entity.Entity;
+import games.stendhal.server.maps.MockStendhalRPRuleProcessor;
+import games.stendhal.server.maps.MockStendlRPWorld;
+
+/**
+ * Tests for DistanceFieldCache.
+ */
+public class DistanceFieldCacheTest {
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		MockStendlRPWorld.get();
+		MockStendhalRPRuleProcessor.get();
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		MockStendlRPWorld.reset();
+	}
+
+	/**
+	 * Tests that chasers share the field of the target, and that the paths
+	 * have the same length as the ones found by A*.
+	 */
+	@Test
+	public void testSearchPath() {
+		final StendhalRPZone zone = new StendhalRPZone("test", 20, 20);
+		for (int y = 0; y < 15; y++) {
+			zone.collisionMap.setCollide(8, y);
+		}
+
+		final Entity target = new Entity() {
+			// just to create an instance
+		};
+		target.setPosition(14, 3);
+		zone.add(target);
+
+		final Entity[] chasers = new Entity[3];
+		for (int i = 0; i < chasers.length; i++) {
+			chasers[i] = new Entity() {
+				@Override
+				public boolean stopped() {
+					return false;
+				}
+			};
+			chasers[i].setPosition(2, 2 + 3 * i);
+			zone.add(chasers[i]);
+		}
+
+		final DistanceFieldCache cache = zone.getDistanceFields();
+		for (final Entity chaser : chasers) {
+			final List<Node> path = Path.searchChasePath(chaser, target, 60);
+			assertPath(zone, chaser, target, path);
+			assertEquals(Path.searchPath(chaser, target, 60).size(), path.size());
+		}
+		assertEquals(1, cache.getCalculatedCount());
+		assertEquals(3, cache.getSearchCount());
+
+		// the target moves
+		target.setPosition(15, 3);
+		assertPath(zone, chasers[0], target, Path.searchChasePath(chasers[0], target, 60));
+		assertEquals(2, cache.getCalculatedCount());
+
+		// too far
+		assertTrue(Path.searchChasePath(chasers[0], target, 10).isEmpty());
+	}
+
+	/**
+	 * Tests that stopped obstacles are walked around.
+	 */
+	@Test
+	public void testObstacles() {
+		final StendhalRPZone zone = new StendhalRPZone("test", 20, 20);
+		final Entity target = new Entity() {
+			// just to create an instance
+		};
+		target.setPosition(10, 5);
+		zone.add(target);
+
+		// A wall of obstacles between the chaser and the target
+		for (int x = 5; x < 15; x++) {
+			final Entity obstacle = new Entity() {
+				// just to create an instance
+			};
+			obstacle.setPosition(x, 3);
+			obstacle.setResistance(100);
+			zone.add(obstacle);
+		}
+		final Entity chaser = new Entity() {
+			// just to create an instance
+		};
+		chaser.setPosition(10, 1);
+		chaser.setResistance(100);
+		zone.add(chaser);
+
+		final List<Node> path = Path.searchChasePath(chaser, target, 40);
+		assertPath(zone, chaser, target, path);
+		for (final Node node : path) {
+			assertFalse(node.getY() == 3 && node.getX() >= 5 && node.getX() < 15);
+		}
+	}
+
+	private void assertPath(final StendhalRPZone zone, final Entity chaser, final Entity target, final List<Node> path) {
+		assertFalse(path.isEmpty());
+		assertEquals(new Node(chaser.getX(), chaser.getY()), path.get(0));
+		for (int i = 1; i < path.size(); i++) {
+			final Node previous = path.get(i - 1);
+			final Node node = path.get(i);
+			assertEquals(1, Math.abs(previous.getX() - node.getX()) + Math.abs(previous.getY() - node.getY()));
+			assertFalse(zone.collides(node.getX(), node.getY()));
+		}
+		final Node last = path.get(path.size() - 1);
+		assertTrue(Math.abs(last.getX() - target.getX()) <= 1);
+		assertTrue(Math.abs(last.getY() - target.getY()) <= 1);
+	}
+}
@@ -13,6 +13,7 @@
 package games.stendhal.server.core.pathfinder;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.util.LinkedList;
 import java.util.List;
@@ -74,4 +75,37 @@ public class PathTest {
 
 		assertArrayEquals(expected.toArray(), Path.searchPath(zone, 0, 0, 6, 6, 20).toArray());
 	}
+
+	/**
+	 * Test searching around a wall, and reusing the search data.
+	 */
+	@Test
+	public void testSearchPathAroundWall() {
+		final StendhalRPZone emptyZone = new StendhalRPZone("test", 10, 10);
+		final StendhalRPZone zone = new StendhalRPZone("test", 10, 10);
+		for (int y = 0; y < 8; y++) {
+			zone.collisionMap.setCollide(4, y);
+		}
+
+		final List<Node> wallPath = new LinkedList<Node>();
+		for (int x = 0; x <= 3; x++) {
+			wallPath.add(new Node(x, 0));
+		}
+		for (int y = 1; y <= 8; y++) {
+			wallPath.add(new Node(3, y));
+		}
+		for (int x = 4; x <= 8; x++) {
+			wallPath.add(new Node(x, 8));
+		}
+		for (int y = 7; y >= 0; y--) {
+			wallPath.add(new Node(8, y));
+		}
+
+		for (int i = 0; i < 3; i++) {
+			assertArrayEquals(wallPath.toArray(), Path.searchPath(zone, 0, 0, 8, 0, 40).toArray());
+			assertArrayEquals(expected.toArray(), Path.searchPath(emptyZone, 0, 0, 6, 6, 20).toArray());
+		}
+		// too far
+		assertTrue(Path.searchPath(zone, 0, 0, 8, 0, 10).isEmpty());
+	}
 }
@@ -0,0 +1,141 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.pathfinder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import games.stendhal.server.core.engine.StendhalRPZone;
+import games.stendhal.server.entity.Entity;
+import games.stendhal.server.maps.MockStendlRPWorld;
+
+/**
+ * Tests for ZoneConnectivity.
+ */
+public class ZoneConnectivityTest {
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		MockStendlRPWorld.get();
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		MockStendlRPWorld.reset();
+	}
+
+	/**
+	 * Tests that searches to another region are rejected, and that the
+	 * regions follow changes of the collision map.
+	 */
+	@Test
+	public void testMayReach() {
+		final StendhalRPZone zone = new StendhalRPZone("test", 40, 40);
+		final ZoneConnectivity connectivity = zone.getConnectivity();
+		final Rectangle destination = new Rectangle(30, 5, 1, 1);
+		assertTrue(connectivity.mayReach(1, 1, 5, 5, destination));
+
+		for (int y = 0; y < 40; y++) {
+			zone.collisionMap.setCollide(20, y);
+		}
+		assertFalse(connectivity.mayReach(1, 1, 5, 5, destination));
+		assertTrue(connectivity.mayReach(1, 1, 5, 5, new Rectangle(15, 5, 1, 1)));
+		// starting on a collision tile can not be predicted
+		assertTrue(connectivity.mayReach(1, 1, 20, 5, destination));
+		assertEquals(1, connectivity.getRejectedCount());
+
+		assertTrue(Path.searchPath(zone, 5, 5, 30, 5, 200).isEmpty());
+		assertEquals(2, connectivity.getRejectedCount());
+	}
+
+	/**
+	 * Tests that the regions depend on the entity size.
+	 */
+	@Test
+	public void testEntitySize() {
+		final StendhalRPZone zone = new StendhalRPZone("test", 40, 40);
+		// a wall with a gap of one tile
+		for (int y = 0; y < 40; y++) {
+			if (y != 10) {
+				zone.collisionMap.setCollide(20, y);
+			}
+		}
+		final ZoneConnectivity connectivity = zone.getConnectivity();
+		final Rectangle destination = new Rectangle(30, 5, 1, 1);
+		assertTrue(connectivity.mayReach(1, 1, 5, 5, destination));
+		assertFalse(connectivity.mayReach(2, 2, 5, 5, destination));
+		assertTrue(connectivity.mayReach(1.5, 1, 5, 5, destination));
+		assertFalse(connectivity.mayReach(1, 1.5, 5, 5, destination));
+	}
+
+	/**
+	 * Tests planning long routes on the cluster graph.
+	 */
+	@Test
+	public void testRoute() {
+		final StendhalRPZone zone = new StendhalRPZone("test", 64, 40);
+		// walls with gaps at alternating ends
+		for (int x = 20; x < 64; x += 16) {
+			final int gap = (x == 36) ? 37 : 2;
+			for (int y = 0; y < 40; y++) {
+				if (Math.abs(y - gap) > 1) {
+					zone.collisionMap.setCollide(x, y);
+				}
+			}
+		}
+		final Entity walker = new Entity() {
+			// just to create an instance
+		};
+		walker.setPosition(2, 30);
+		zone.add(walker);
+
+		final List<Node> direct = Path.searchPath(walker, 2, 30, new Rectangle(60, 30, 1, 1), 1000);
+		final List<Node> route = Path.searchPath(walker, 60, 30);
+		assertEquals(1, zone.getConnectivity().getPlannedCount());
+
+		assertFalse(route.isEmpty());
+		assertEquals(new Node(2, 30), route.get(0));
+		assertEquals(new Node(60, 30), route.get(route.size() - 1));
+		for (int i = 1; i < route.size(); i++) {
+			final Node previous = route.get(i - 1);
+			final Node node = route.get(i);
+			assertEquals(1, Math.abs(previous.getX() - node.getX()) + Math.abs(previous.getY() - node.getY()));
+			assertFalse(zone.collides(node.getX(), node.getY()));
+		}
+		assertTrue("route length " + route.size() + ", shortest " + direct.size(),
+				route.size() <= direct.size() * 1.2);
+	}
+
+	/**
+	 * Tests that short routes are searched directly.
+	 */
+	@Test
+	public void testShortRoute() {
+		final StendhalRPZone zone = new StendhalRPZone("test", 64, 64);
+		final Entity walker = new Entity() {
+			// just to create an instance
+		};
+		walker.setPosition(2, 30);
+		zone.add(walker);
+
+		assertEquals(11, Path.searchPath(walker, 12, 30).size());
+		assertEquals(0, zone.getConnectivity().getPlannedCount());
+	}
+}
@@ -0,0 +1,173 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.rp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import games.stendhal.server.core.engine.SingletonRepository;
+import games.stendhal.server.core.engine.StendhalRPZone;
+import games.stendhal.server.entity.creature.Creature;
+import games.stendhal.server.maps.MockStendlRPWorld;
+import utilities.PlayerTestHelper;
+
+/**
+ * Tests for PlacementSearch and placing several entities at once.
+ */
+public class PlacementSearchTest {
+	private StendhalRPZone zone;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		MockStendlRPWorld.get();
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		PlayerTestHelper.removeAllPlayers();
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		zone = new StendhalRPZone("zone", 20, 20);
+		MockStendlRPWorld.get().addRPZone(zone);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		MockStendlRPWorld.get().removeZone(zone);
+	}
+
+	private Creature createMouse(final int x, final int y) {
+		final Creature mouse = SingletonRepository.getEntityManager().getCreature("mouse");
+		mouse.setPosition(x, y);
+		return mouse;
+	}
+
+	/**
+	 * Tests that the nearest spots are found first, in the same order as the
+	 * old spiral search.
+	 */
+	@Test
+	public void testOrder() {
+		zone.add(createMouse(10, 10));
+		final PlacementSearch search = new PlacementSearch(zone, 10, 10, null);
+		assertEquals(new Point(9, 10), search.find(createMouse(0, 0), true));
+
+		zone.add(createMouse(9, 10));
+		assertEquals(new Point(11, 10), search.find(createMouse(0, 0), true));
+		zone.add(createMouse(11, 10));
+		assertEquals(new Point(10, 9), search.find(createMouse(0, 0), true));
+		zone.add(createMouse(10, 9));
+		assertEquals(new Point(10, 11), search.find(createMouse(0, 0), true));
+		zone.add(createMouse(10, 11));
+		// walking distance 2, and closer in straight line
+		assertEquals(new Point(9, 9), search.find(createMouse(0, 0), true));
+	}
+
+	/**
+	 * Tests that spots that can not be reached from the center are used only
+	 * when the path is not checked.
+	 */
+	@Test
+	public void testWalledIn() {
+		zone.collisionMap.setCollide(9, 10);
+		zone.collisionMap.setCollide(11, 10);
+		zone.collisionMap.setCollide(10, 9);
+		zone.collisionMap.setCollide(10, 11);
+		zone.add(createMouse(10, 10));
+
+		assertNull(new PlacementSearch(zone, 10, 10, null).find(createMouse(0, 0), true));
+		assertEquals(new Point(9, 9), new PlacementSearch(zone, 10, 10, null).find(createMouse(0, 0), false));
+	}
+
+	/**
+	 * Tests that the path may go around obstacles.
+	 */
+	@Test
+	public void testPathAroundWall() {
+		// a wall left of the center, with a gap at the top
+		for (int y = 5; y < 20; y++) {
+			zone.collisionMap.setCollide(9, y);
+		}
+		zone.add(createMouse(10, 10));
+
+		// everything right of the wall is taken
+		for (int x = 10; x < 20; x++) {
+			for (int y = 0; y < 20; y++) {
+				if ((x != 10) || (y != 10)) {
+					zone.add(createMouse(x, y));
+				}
+			}
+		}
+		assertEquals(new Point(8, 10), new PlacementSearch(zone, 10, 10, null).find(createMouse(0, 0), true));
+
+		// close the gap
+		for (int y = 0; y < 5; y++) {
+			zone.collisionMap.setCollide(9, y);
+		}
+		assertNull(new PlacementSearch(zone, 10, 10, null).find(createMouse(0, 0), true));
+	}
+
+	/**
+	 * Tests placing several entities at once.
+	 */
+	@Test
+	public void testPlaceSeveral() {
+		final List<Creature> mice = new ArrayList<Creature>();
+		for (int i = 0; i < 10; i++) {
+			mice.add(createMouse(0, 0));
+		}
+		zone.add(createMouse(10, 10));
+
+		assertEquals(10, StendhalRPAction.placeat(zone, mice, 10, 10, null));
+		final Set<Point> spots = new HashSet<Point>();
+		for (final Creature mouse : mice) {
+			assertEquals(zone, mouse.getZone());
+			spots.add(new Point(mouse.getX(), mouse.getY()));
+		}
+		assertEquals("all mice on different spots", 10, spots.size());
+		assertEquals(new Point(9, 10), new Point(mice.get(0).getX(), mice.get(0).getY()));
+	}
+
+	/**
+	 * Tests that only spots in the allowed area are used when placing
+	 * several entities.
+	 */
+	@Test
+	public void testPlaceSeveralAllowedArea() {
+		final List<Creature> mice = new ArrayList<Creature>();
+		for (int i = 0; i < 5; i++) {
+			mice.add(createMouse(0, 0));
+		}
+		final Rectangle area = new Rectangle(10, 10, 2, 2);
+
+		assertEquals(4, StendhalRPAction.placeat(zone, mice, 10, 10, area));
+		for (final Creature mouse : mice.subList(0, 4)) {
+			assertEquals(true, area.contains(mouse.getX(), mouse.getY()));
+		}
+		assertNull(mice.get(4).getZone());
+	}
+}
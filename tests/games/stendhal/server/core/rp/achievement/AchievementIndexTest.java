@@ -0,0 +1,94 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.rp.achievement;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import games.stendhal.server.entity.npc.condition.AlwaysTrueCondition;
+
+/**
+ * Tests for the lookup of achievements by their dependencies.
+ */
+public class AchievementIndexTest {
+
+	private static Achievement create(final String identifier, final Category category,
+			final Dependencies dependencies) {
+		return new Achievement(identifier, identifier, category, identifier, Achievement.EASY_BASE_SCORE,
+				true, new AlwaysTrueCondition(), dependencies);
+	}
+
+	private static List<String> identifiers(final Collection<Achievement> achievements) {
+		final List<String> res = new ArrayList<String>();
+		for (final Achievement achievement : achievements) {
+			res.add(achievement.getIdentifier());
+		}
+		return res;
+	}
+
+	/**
+	 * Tests that only achievements depending on a fact are returned, plus the
+	 * ones with unknown dependencies.
+	 */
+	@Test
+	public void testCandidates() {
+		final AchievementIndex index = new AchievementIndex();
+		index.add(create("rats", Category.FIGHTING, Dependencies.kills("rat")));
+		index.add(create("rodents", Category.FIGHTING, Dependencies.kills("rat", "caverat")));
+		index.add(create("wolves", Category.FIGHTING, Dependencies.kills("wolf")));
+		index.add(create("legend", Category.FIGHTING, null));
+		index.add(create("daily", Category.QUEST_SEMOS_MONSTER, Dependencies.quests("daily")));
+		index.add(create("karma", Category.FRIEND, null));
+
+		final Collection<Category> fighting = EnumSet.of(Category.FIGHTING);
+		assertEquals(Arrays.asList("rats", "rodents", "legend"),
+				identifiers(index.getCandidates(fighting, Collections.singleton(Dependencies.killKey("rat")))));
+		assertEquals(Arrays.asList("legend"),
+				identifiers(index.getCandidates(fighting, Collections.singleton(Dependencies.killKey("bat")))));
+		// keys of other categories are ignored
+		assertEquals(Arrays.asList("legend"),
+				identifiers(index.getCandidates(fighting, Collections.singleton(Dependencies.questKey("daily")))));
+
+		final Collection<Category> quests = EnumSet.of(Category.QUEST_SEMOS_MONSTER, Category.FRIEND);
+		assertEquals(Arrays.asList("daily", "karma"),
+				identifiers(index.getCandidates(quests, Collections.singleton(Dependencies.questKey("daily")))));
+		assertEquals(Arrays.asList("karma"),
+				identifiers(index.getCandidates(quests, Collections.singleton(Dependencies.questKey("other")))));
+	}
+
+	/**
+	 * Tests zone and region dependencies.
+	 */
+	@Test
+	public void testZones() {
+		final AchievementIndex index = new AchievementIndex();
+		index.add(create("semos", Category.OUTSIDE_ZONE, Dependencies.region("semos")));
+		index.add(create("banks", Category.OUTSIDE_ZONE,
+				Dependencies.zones("int_semos_bank").and(Dependencies.zones("int_ados_bank"))));
+
+		final Collection<Category> zones = EnumSet.of(Category.OUTSIDE_ZONE);
+		assertEquals(Arrays.asList("banks", "semos"), identifiers(index.getCandidates(zones,
+				Arrays.asList(Dependencies.zoneKey("int_semos_bank"), Dependencies.regionKey("semos")))));
+		assertEquals(Arrays.asList("banks"), identifiers(index.getCandidates(zones,
+				Arrays.asList(Dependencies.zoneKey("int_ados_bank"), Dependencies.regionKey("ados")))));
+		assertEquals(Collections.emptyList(), identifiers(index.getCandidates(zones,
+				Arrays.asList(Dependencies.zoneKey("0_semos_city")))));
+	}
+}
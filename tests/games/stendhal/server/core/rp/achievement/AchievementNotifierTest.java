@@ -0,0 +1,56 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.rp.achievement;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import games.stendhal.server.core.engine.StendhalRPZone;
+import games.stendhal.server.entity.player.Player;
+import utilities.AchievementTestHelper;
+
+/**
+ * Tests for AchievementNotifier.
+ */
+public class AchievementNotifierTest extends AchievementTestHelper {
+
+	private static final String BANK = "zone.special.bank";
+
+	private static final String[] BANKS = {
+		"int_semos_bank", "int_nalwor_bank", "int_kirdneh_bank",
+		"int_fado_bank", "int_magic_bank", "int_ados_bank",
+		"int_deniran_bank_blue_roof"
+	};
+
+	/**
+	 * Tests that a zone achievement the player has fulfilled before it was
+	 * added is reached on the next login.
+	 */
+	@Test
+	public void testFulfilledZoneAchievementOnLogin() {
+		final Player player = createPlayer("explorer");
+		init(player);
+		for (final String zone : BANKS) {
+			player.setKeyedSlot("!visited", zone, "0");
+		}
+		assertFalse(achievementReached(player, BANK));
+
+		// entering a zone the achievement does not depend on does not check it
+		an.onZoneEnter(player, new StendhalRPZone("0_semos_city"));
+		assertFalse(achievementReached(player, BANK));
+
+		an.onLogin(player);
+		assertTrue(achievementReached(player, BANK));
+	}
+}
@@ -105,7 +105,7 @@ public class FightingAchievementFactoryTest extends AchievementTestHelper {
 					player.incSharedKillCount(name);
 					alternate = false;
 				}
-				an.onKill(player);
+				an.onKill(player, name);
 			}
 		}
 		assertTrue(achievementReached(player, id));
@@ -131,7 +131,7 @@ public class FightingAchievementFactoryTest extends AchievementTestHelper {
 					player.incSharedKillCount(name);
 					alternate = false;
 				}
-				an.onKill(player);
+				an.onKill(player, name);
 			}
 		}
 		assertTrue(achievementReached(player, id));
@@ -148,7 +148,7 @@ public class FightingAchievementFactoryTest extends AchievementTestHelper {
 			while (player.getSoloKillCount(name) < amount) {
 				assertFalse(achievementReached(player, id));
 				player.incSoloKillCount(name);
-				an.onKill(player);
+				an.onKill(player, name);
 			}
 		}
 		assertTrue(achievementReached(player, id));
@@ -165,7 +165,7 @@ public class FightingAchievementFactoryTest extends AchievementTestHelper {
 			while (player.getSharedKillCount(name) < amount) {
 				assertFalse(achievementReached(player, id));
 				player.incSharedKillCount(name);
-				an.onKill(player);
+				an.onKill(player, name);
 			}
 		}
 		assertTrue(achievementReached(player, id));
@@ -192,7 +192,7 @@ public class FightingAchievementFactoryTest extends AchievementTestHelper {
 					player.incSharedKillCount(name);
 					alternate = false;
 				}
-				an.onKill(player);
+				an.onKill(player, name);
 			}
 			// don't multiply remainder
 			rem = 0;
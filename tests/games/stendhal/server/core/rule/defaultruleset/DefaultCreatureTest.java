@@ -0,0 +1,111 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.rule.defaultruleset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import games.stendhal.server.entity.creature.Creature;
+import games.stendhal.server.maps.MockStendlRPWorld;
+
+/**
+ * Tests for DefaultCreature.
+ */
+public class DefaultCreatureTest {
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		MockStendlRPWorld.get();
+	}
+
+	private DefaultCreature createDefaultCreature() {
+		final DefaultCreature creature = new DefaultCreature("rat", "rat", "rat", "rat.png");
+		creature.setRPStats(20, 10, 0, 5, 0.5);
+		creature.setLevel(1, 5);
+		creature.setSize(1, 1);
+		creature.setCorpse("small_animal", null, 1, 1);
+		creature.setCreatureSounds(Arrays.asList("squeak"));
+		creature.setStatusAttack("new PoisonStatus(10, 2, 5)", 0.1);
+		return creature;
+	}
+
+	/**
+	 * Tests that every call creates a new creature with the definition values.
+	 */
+	@Test
+	public void testGetCreature() {
+		final DefaultCreature definition = createDefaultCreature();
+		final Creature first = definition.getCreature();
+		final Creature second = definition.getCreature();
+		assertNotSame(first, second);
+		for (final Creature creature : Arrays.asList(first, second)) {
+			assertEquals("rat", creature.getName());
+			assertEquals(20, creature.getHP());
+			assertEquals(10, creature.getAtk());
+			assertEquals(5, creature.getDef());
+			assertEquals(1, creature.getAllStatusAttackers().size());
+		}
+
+		first.setHP(3);
+		assertEquals(20, second.getHP());
+		assertEquals(20, definition.getCreature().getHP());
+	}
+
+	/**
+	 * Tests that changing the definition changes the created creatures.
+	 */
+	@Test
+	public void testChangeDefinition() {
+		final DefaultCreature definition = createDefaultCreature();
+		assertEquals(20, definition.getCreature().getHP());
+		definition.setRPStats(30, 10, 0, 5, 0.5);
+		assertEquals(30, definition.getCreature().getHP());
+	}
+
+	/**
+	 * Tests that changing the noises of a creature does not change the other
+	 * creatures.
+	 */
+	@Test
+	public void testSetNoises() {
+		final DefaultCreature definition = createDefaultCreature();
+		final Creature first = definition.getCreature();
+		final LinkedHashMap<String, LinkedList<String>> noises = new LinkedHashMap<String, LinkedList<String>>();
+		noises.put("idle", new LinkedList<String>(Arrays.asList("hello")));
+		first.setNoises(noises);
+
+		assertTrue(new NoiseCreature(first).hasNoises("idle"));
+		assertFalse(new NoiseCreature(definition.getCreature()).hasNoises("idle"));
+	}
+
+	/**
+	 * Creature copy that gives access to the noises.
+	 */
+	private static class NoiseCreature extends Creature {
+		NoiseCreature(final Creature copy) {
+			super(copy);
+		}
+
+		boolean hasNoises(final String state) {
+			return noises.containsKey(state);
+		}
+	}
+}
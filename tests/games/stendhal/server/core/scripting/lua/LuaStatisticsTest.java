@@ -0,0 +1,104 @@
+/***************************************************************************
+ *                       Copyright © 2024 - Stendhal                       *
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.core.scripting.lua;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.lib.ZeroArgFunction;
+
+/**
+ * Tests for LuaStatistics.
+ */
+public class LuaStatisticsTest {
+
+	private final LuaStatistics statistics = LuaStatistics.get();
+
+	@Before
+	public void setUp() {
+		statistics.reset();
+	}
+
+	/**
+	 * Function that keeps the CPU busy for a few milliseconds.
+	 */
+	private static class BusyFunction extends ZeroArgFunction {
+		@Override
+		public LuaValue call() {
+			final long end = System.nanoTime() + 5000000;
+			long sum = 0;
+			while (System.nanoTime() < end) {
+				sum++;
+			}
+			return LuaValue.valueOf(sum > 0);
+		}
+	}
+
+	/**
+	 * Tests that the time of a call is accounted to its script.
+	 */
+	@Test
+	public void testInvoke() {
+		assertEquals(LuaValue.TRUE, statistics.invoke("quest.lua", new BusyFunction(), LuaValue.NONE).arg1());
+		statistics.invoke("quest.lua", new BusyFunction(), LuaValue.NONE);
+		statistics.invoke(null, new BusyFunction(), LuaValue.NONE);
+
+		final List<LuaStatistics.Usage> usages = statistics.getUsages();
+		assertEquals(2, usages.size());
+		// most time first
+		assertEquals("quest.lua", usages.get(0).getScript());
+		assertEquals(2, usages.get(0).getCalls());
+		assertTrue(usages.get(0).getNanos() > 0);
+		assertEquals("unknown", usages.get(1).getScript());
+		assertEquals(1, usages.get(1).getCalls());
+	}
+
+	/**
+	 * Tests that nested calls are only accounted to the outer script.
+	 */
+	@Test
+	public void testNested() {
+		final BusyFunction inner = new BusyFunction();
+		statistics.invoke("outer.lua", new ZeroArgFunction() {
+			@Override
+			public LuaValue call() {
+				statistics.invoke("inner.lua", inner, LuaValue.NONE);
+				return statistics.invoke("inner.lua", inner, LuaValue.NONE).arg1();
+			}
+		}, LuaValue.NONE);
+
+		final List<LuaStatistics.Usage> usages = statistics.getUsages();
+		assertEquals(1, usages.size());
+		assertEquals("outer.lua", usages.get(0).getScript());
+		assertEquals(1, usages.get(0).getCalls());
+		assertTrue(usages.get(0).getNanos() > 0);
+
+		// the depth is back to zero after the outer call
+		statistics.invoke("inner.lua", inner, LuaValue.NONE);
+		assertEquals(2, statistics.getUsages().size());
+	}
+
+	/**
+	 * Tests clearing the statistics.
+	 */
+	@Test
+	public void testReset() {
+		statistics.invoke("quest.lua", new BusyFunction(), LuaValue.NONE);
+		assertEquals(1, statistics.getUsages().size());
+		statistics.reset();
+		assertTrue(statistics.getUsages().isEmpty());
+	}
+}
@@ -16,6 +16,7 @@ import static games.stendhal.server.entity.npc.ConversationStates.ATTENDING;
 import static games.stendhal.server.entity.npc.ConversationStates.IDLE;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static utilities.SpeakerNPCTestHelper.getReply;
@@ -23,6 +24,7 @@ import static utilities.SpeakerNPCTestHelper.getReply;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import games.stendhal.common.parser.ExpressionMatcher;
 import games.stendhal.common.parser.Sentence;
 import games.stendhal.server.entity.Entity;
 import games.stendhal.server.entity.npc.ChatAction;
@@ -209,4 +211,66 @@ public class EngineTest {
 		assertEquals(reply, getReply(bob));
 	}
 
+	/**
+	 * Tests that the indexed lookup finds transitions by state, text and
+	 * ExpressionMatcher, and is kept up to date on add and remove.
+	 */
+	@Test
+	public void testIndexedLookup() {
+		final SpeakerNPC bob = new SpeakerNPC("bob");
+		final Engine en = new Engine(bob);
+		final Player pete = PlayerTestHelper.createPlayer("player");
+
+		en.add(IDLE, "hi", null, false, ATTENDING, "hello", null);
+		en.add(ATTENDING, "help", null, false, ATTENDING, "helping", null, "help");
+		final ExpressionMatcher matcher = new ExpressionMatcher();
+		matcher.setCaseInsensitive(true);
+		en.addMatching(ATTENDING, "Quest", matcher, null, false, ATTENDING, "questing", null);
+		en.add(ConversationStates.ANY, "bye", null, false, IDLE, "bye", null);
+
+		// not a trigger of the current state
+		assertFalse(en.step(pete, "help"));
+		assertTrue(en.step(pete, "hi"));
+		assertEquals("hello", getReply(bob));
+		assertTrue(en.step(pete, "help"));
+		assertEquals("helping", getReply(bob));
+		assertTrue(en.step(pete, "QUEST"));
+		assertEquals("questing", getReply(bob));
+
+		// added after the index has been built
+		en.add(ATTENDING, "offer", null, false, ATTENDING, "offering", null);
+		assertTrue(en.step(pete, "offer"));
+		assertEquals("offering", getReply(bob));
+
+		assertTrue(en.remove("help"));
+		assertFalse(en.step(pete, "help"));
+		assertTrue(en.step(pete, "offer"));
+		assertEquals("offering", getReply(bob));
+
+		assertTrue(en.step(pete, "bye"));
+		assertEquals(IDLE, en.getCurrentState());
+	}
+
+	/**
+	 * Tests that conditional transitions are preferred to the ones
+	 * without condition, independent of the order they are added.
+	 */
+	@Test
+	public void testPreferredTransition() {
+		final SpeakerNPC bob = new SpeakerNPC("bob");
+		final Engine en = new Engine(bob);
+		final Player pete = PlayerTestHelper.createPlayer("player");
+
+		en.add(IDLE, "hi", null, false, ATTENDING, "plain", null);
+		en.add(IDLE, "hi", new ChatCondition() {
+			@Override
+			public boolean fire(final Player player, final Sentence sentence, final Entity npc) {
+				return true;
+			}
+		}, false, ATTENDING, "conditional", null);
+
+		assertTrue(en.step(pete, "hi"));
+		assertEquals("conditional", getReply(bob));
+	}
+
 }
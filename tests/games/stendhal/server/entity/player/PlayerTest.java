@@ -363,6 +363,34 @@ public class PlayerTest {
 
 	}
 
+	/**
+	 * Tests the values derived from the sub states of a quest.
+	 */
+	@Test
+	public void testQuestSubStates() {
+		player.setQuest("testquest", "start;club=3;wood;5");
+		assertThat(player.getRequiredItemName("testquest", 1), equalTo("club"));
+		assertThat(player.getRequiredItemQuantity("testquest", 1), is(3));
+		assertThat(player.getRequiredItemName("testquest", 2), equalTo("wood"));
+		assertThat(player.getRequiredItemQuantity("testquest", 2), is(1));
+		assertThat(player.getNumberOfRepetitions("testquest", 3), is(5));
+		assertThat(player.getNumberOfRepetitions("testquest", 0), is(0));
+		assertThat(player.getNumberOfRepetitions("testquest", 7), is(0));
+		assertTrue(player.isQuestInState("testquest", 0, "start"));
+
+		player.setQuest("testquest", 1, "club=4");
+		assertThat(player.getRequiredItemQuantity("testquest", 1), is(4));
+
+		// changes that do not go through setQuest() must be seen, too
+		player.setKeyedSlot("!quests", "testquest", "done;axe=2");
+		assertThat(player.getQuest("testquest", 0), equalTo("done"));
+		assertThat(player.getRequiredItemName("testquest", 1), equalTo("axe"));
+		assertThat(player.getRequiredItemQuantity("testquest", 1), is(2));
+
+		player.removeQuest("testquest");
+		assertThat(player.getQuest("testquest", 0), nullValue());
+	}
+
 	/**
 	 * Test that the damage done by a player is of right type.
 	 */
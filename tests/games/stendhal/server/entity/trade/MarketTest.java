@@ -19,6 +19,8 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.AfterClass;
@@ -407,6 +409,8 @@ public class MarketTest {
 		assertFalse(market.contains(offer));
 		assertFalse(market.getExpiredOffers().contains(offer));
 		assertTrue(bob.getFirstEquipped("axe") != null);
+		// the offers slot did not contain the offer, its index is unchanged
+		assertThat(market.getOfferIndexRebuilds(), is(0));
 	}
 
 	/**
@@ -776,4 +780,67 @@ public class MarketTest {
 
 		assertThat(george.getTradescore(), is(0));
 	}
+
+	/**
+	 * Tests searching offers by offerer, item name and item class.
+	 */
+	@Test
+	public void testFindOffers() {
+		Player bob = PlayerTestHelper.createPlayer("bob");
+		Player alice = PlayerTestHelper.createPlayer("alice");
+		StendhalRPZone zone = new StendhalRPZone("shop");
+		Market market = Market.createShop();
+		zone.add(market);
+
+		Offer axe = createOffer(market, bob, "axe", 20);
+		Offer cheese = createOffer(market, alice, "cheese", 5);
+		Offer cheapAxe = createOffer(market, alice, "axe", 10);
+		Offer battleAxe = createOffer(market, bob, "battle axe", 30);
+
+		assertEquals(Arrays.asList(axe, cheese, cheapAxe, battleAxe), market.getOffers());
+		assertEquals(Arrays.asList(axe, battleAxe), market.getOffersOf("bob"));
+		assertEquals(Arrays.asList(cheese, cheapAxe), market.getOffersOf("alice"));
+		assertEquals(Arrays.asList(axe, cheapAxe, battleAxe), market.findOffers("axe"));
+		assertEquals(Arrays.asList(cheese), market.findOffers("food"));
+		assertEquals(Arrays.asList(cheapAxe, axe), market.getOffersByPrice("axe"));
+		assertEquals(Arrays.asList("axe", "battle axe", "cheese"),
+				new ArrayList<String>(market.getOfferedItemNames()));
+
+		market.expireOffer(axe);
+		assertEquals(Arrays.asList(cheapAxe, battleAxe), market.findOffers("axe"));
+		assertEquals(Arrays.asList(axe), market.getExpiredOffersOf("bob"));
+		assertTrue(market.containsExpired(axe));
+		market.prolongOffer(axe);
+		assertEquals(Arrays.asList(cheapAxe, battleAxe, axe), market.findOffers("axe"));
+		assertTrue(market.getExpiredOffersOf("bob").isEmpty());
+	}
+
+	/**
+	 * Tests that the offers are found after changing the offers slot
+	 * directly.
+	 */
+	@Test
+	public void testChangeSlotDirectly() {
+		Player bob = PlayerTestHelper.createPlayer("bob");
+		StendhalRPZone zone = new StendhalRPZone("shop");
+		Market market = Market.createShop();
+		zone.add(market);
+
+		createOffer(market, bob, "axe", 20);
+		assertThat(market.countOffersOfPlayer(bob), is(1));
+		market.getSlot(Market.OFFERS_SLOT_NAME).clear();
+		assertThat(market.countOffersOfPlayer(bob), is(0));
+		assertThat(market.getOfferIndexRebuilds(), is(1));
+		assertTrue(market.getOfferedItemNames().isEmpty());
+
+		Offer cheese = createOffer(market, bob, "cheese", 5);
+		assertEquals(Arrays.asList(cheese), market.findOffers("cheese"));
+		assertThat(market.countOffersOfPlayer(bob), is(1));
+	}
+
+	private Offer createOffer(Market market, Player player, String itemName, int price) {
+		Item item = SingletonRepository.getEntityManager().getItem(itemName);
+		player.equipToInventoryOnly(item);
+		return market.createOffer(player, item, price, 1);
+	}
 }
@@ -0,0 +1,111 @@
+/***************************************************************************
+ *                   (C) Copyright 2003-2024 - Stendhal                    *
+ ***************************************************************************
+ ***************************************************************************
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *                                                                         *
+ ***************************************************************************/
+package games.stendhal.server.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for SpatialGrid.
+ */
+public class SpatialGridTest {
+
+	private static List<String> findAll(final SpatialGrid<String> grid, final double x, final double y,
+			final double width, final double height) {
+		final List<String> res = new ArrayList<String>();
+		grid.find(x, y, width, height, object -> {
+			res.add(object);
+			return false;
+		});
+		return res;
+	}
+
+	/**
+	 * Tests for put() and find().
+	 */
+	@Test
+	public void testFind() {
+		final SpatialGrid<String> grid = new SpatialGrid<String>(4);
+		grid.put("a", 1, 1, 1, 1);
+		grid.put("b", 20, 20, 2, 2);
+
+		assertEquals("a", grid.find(0, 0, 4, 4, object -> true));
+		assertNull(grid.find(8, 8, 4, 4, object -> true));
+		assertEquals("b", grid.find(21, 21, 0, 0, object -> true));
+		assertNull(grid.find(100, 100, 1, 1, object -> true));
+		assertEquals(2, findAll(grid, 0, 0, 30, 30).size());
+	}
+
+	/**
+	 * Tests that objects spanning several cells are reported once.
+	 */
+	@Test
+	public void testLargeObject() {
+		final SpatialGrid<String> grid = new SpatialGrid<String>(2);
+		grid.put("large", 1, 1, 9, 9);
+
+		assertEquals(1, findAll(grid, 0, 0, 20, 20).size());
+		assertEquals(1, findAll(grid, 5, 5, 1, 1).size());
+		assertEquals(1, findAll(grid, 9, 9, 4, 4).size());
+	}
+
+	/**
+	 * Tests for moving objects.
+	 */
+	@Test
+	public void testMove() {
+		final SpatialGrid<String> grid = new SpatialGrid<String>(4);
+		grid.put("a", 1, 1, 1, 1);
+		grid.put("a", 50, 30, 1, 1);
+
+		assertEquals(1, grid.size());
+		assertTrue(findAll(grid, 0, 0, 4, 4).isEmpty());
+		assertEquals("a", grid.find(50, 30, 1, 1, object -> true));
+	}
+
+	/**
+	 * Tests for remove().
+	 */
+	@Test
+	public void testRemove() {
+		final SpatialGrid<String> grid = new SpatialGrid<String>();
+		grid.put("a", 1, 1, 1, 1);
+		assertTrue(grid.contains("a"));
+		assertTrue(grid.remove("a"));
+		assertFalse(grid.contains("a"));
+		assertFalse(grid.remove("a"));
+		assertNull(grid.find(0, 0, 10, 10, object -> true));
+	}
+
+	/**
+	 * Tests for findNearest().
+	 */
+	@Test
+	public void testFindNearest() {
+		final SpatialGrid<String> grid = new SpatialGrid<String>(4);
+		grid.put("a", 2, 2, 1, 1);
+		grid.put("b", 9, 9, 1, 1);
+		grid.put("c", 30, 30, 1, 1);
+
+		assertEquals("b", grid.findNearest(0, 0, 20, 20, object -> Math.abs(object.charAt(0) - 'b'), object -> true));
+		assertEquals("a", grid.findNearest(0, 0, 20, 20, object -> Math.abs(object.charAt(0) - 'b'), object -> !object.equals("b")));
+		assertNull(grid.findNearest(0, 0, 20, 20, object -> 0, object -> object.equals("c")));
+		assertEquals("c", grid.findNearest(0, 0, 40, 40, object -> 0, object -> object.equals("c")));
+	}
+}